@@ -0,0 +1,34 @@
+package com.example.applix.blob;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Raw uploads by key (the files_table name), in a local directory or an S3-compatible bucket (blob.store).
+// Kafka events carry the key, so a consumer on any node reads the upload, or just a byte range of it, from the store.
+public interface BlobStore {
+
+    // Moves a staged upload into the store, the staged file is gone afterwards
+    void put(String key, File staged) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    long size(String key) throws IOException;
+
+    // Bytes [start, end) of the blob, streamed
+    InputStream open(String key, long start, long end) throws IOException;
+
+    default InputStream open(String key) throws IOException {
+        return open(key, 0, size(key));
+    }
+
+    // Up to buffer.length bytes from position, fewer at the end of the blob, -1 past it
+    default int read(String key, long position, byte[] buffer, long size) throws IOException {
+        if (position >= size) return -1;
+        try (InputStream in = open(key, position, Math.min(size, position + buffer.length))) {
+            return in.readNBytes(buffer, 0, buffer.length);
+        }
+    }
+
+    void delete(String key) throws IOException;
+}
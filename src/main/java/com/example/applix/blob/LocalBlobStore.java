@@ -0,0 +1,61 @@
+package com.example.applix.blob;
+
+import com.example.applix.ingest.ByteBufferInputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Blobs as files of one directory (file.upload-dir). Uploads are staged in that directory, so put() is usually
+// a no-op. Ranges are memory-mapped like before, only a single node (or a shared mount) can read them.
+public class LocalBlobStore implements BlobStore {
+    private final Path directory;
+
+    public LocalBlobStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void put(String key, File staged) throws IOException {
+        Path target = resolve(key);
+        if (staged.toPath().toAbsolutePath().equals(target.toAbsolutePath())) return;
+        Files.createDirectories(directory);
+        Files.move(staged.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(resolve(key));
+    }
+
+    @Override
+    public InputStream open(String key, long start, long end) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ)) {
+            if (end - start <= Integer.MAX_VALUE) {
+                return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start)); // stays valid once the channel is closed
+            }
+        }
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ).position(start);
+        return new BoundedInputStream(Channels.newInputStream(channel), end - start);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    private Path resolve(String key) {
+        return directory.resolve(key);
+    }
+}
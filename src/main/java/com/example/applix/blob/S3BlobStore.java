@@ -0,0 +1,137 @@
+package com.example.applix.blob;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Blobs in a bucket of S3 or any S3-compatible server (MinIO in docker-compose), path-style requests signed with
+// SigV4 over the JDK HTTP client. Ranges are ranged GETs streamed straight into the parser, nothing is copied to disk.
+public class S3BlobStore implements BlobStore {
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final String endpoint;
+    private final String host;
+    private final String bucket;
+    private final S3Signer signer;
+
+    public S3BlobStore(String endpoint, String region, String bucket, String accessKey, String secretKey) {
+        URI uri = URI.create(endpoint);
+        this.endpoint = endpoint.replaceAll("/+$", "");
+        this.host = uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+        this.bucket = bucket;
+        this.signer = new S3Signer(accessKey, secretKey, region);
+    }
+
+    @Override
+    public void put(String key, File staged) throws IOException {
+        HttpRequest request = request("PUT", key, Map.of(), S3Signer.UNSIGNED_PAYLOAD)
+                .PUT(HttpRequest.BodyPublishers.ofFile(staged.toPath()))
+                .build();
+        HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
+        expect(response, key, 200);
+        response.body().close();
+        Files.deleteIfExists(staged.toPath());
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        HttpResponse<Void> response = head(key);
+        if (response.statusCode() == 404) return false;
+        expectStatus(response.statusCode(), key, "", 200);
+        return true;
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        HttpResponse<Void> response = head(key);
+        expectStatus(response.statusCode(), key, "", 200);
+        return response.headers().firstValueAsLong("Content-Length").orElseThrow(() -> new IOException("No size for " + key));
+    }
+
+    @Override
+    public InputStream open(String key, long start, long end) throws IOException {
+        if (end <= start) return InputStream.nullInputStream();
+        HttpRequest request = request("GET", key, Map.of("Range", "bytes=" + start + "-" + (end - 1)), S3Signer.EMPTY_PAYLOAD)
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
+        expect(response, key, 206, 200);
+        return response.body();
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpRequest request = request("DELETE", key, Map.of(), S3Signer.EMPTY_PAYLOAD)
+                .DELETE()
+                .build();
+        HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
+        expect(response, key, 204, 200, 404);
+        response.body().close();
+    }
+
+    private HttpResponse<Void> head(String key) throws IOException {
+        HttpRequest request = request("HEAD", key, Map.of(), S3Signer.EMPTY_PAYLOAD)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+        return send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private HttpRequest.Builder request(String method, String key, Map<String, String> headers, String payloadHash) {
+        String path = "/" + encode(bucket) + "/" + encode(key);
+        Map<String, String> toSign = new LinkedHashMap<>(headers);
+        toSign.put("host", host);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(endpoint + path));
+        signer.sign(method, path, toSign, payloadHash, ZonedDateTime.now()).forEach(builder::header);
+        return builder;
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return client.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during " + request.method() + " " + request.uri());
+        }
+    }
+
+    private static void expect(HttpResponse<InputStream> response, String key, int... accepted) throws IOException {
+        for (int status : accepted) {
+            if (response.statusCode() == status) return;
+        }
+        String error;
+        try (InputStream body = response.body()) {
+            error = new String(body.readNBytes(1024), StandardCharsets.UTF_8);
+        }
+        expectStatus(response.statusCode(), key, error, accepted);
+    }
+
+    private static void expectStatus(int status, String key, String error, int... accepted) throws IOException {
+        for (int expected : accepted) {
+            if (status == expected) return;
+        }
+        throw new IOException("Blob store answered " + status + " for " + key + (error.isEmpty() ? "" : " - " + error));
+    }
+
+    // RFC 3986 unreserved characters stay, everything else is percent-encoded (UTF-8), as SigV4 expects
+    private static String encode(String segment) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : segment.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '.' || c == '~') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xFF));
+            }
+        }
+        return encoded.toString();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.applix.bulk;
+
+import com.example.applix.models.db.FilteredData;
+
+import java.util.List;
+
+// One way of getting a batch of rows into filtered_data. Implementations are thread-safe.
+public interface BulkWriter {
+    String name();
+
+    // Whether the connected database supports this writer, checked once before it is first used
+    boolean isAvailable();
+
+    void write(List<FilteredData> batch);
+
+    // Whether a failure of write means the database refuses this writer itself (nothing of the batch was written),
+    // rather than a transient error such as a lost connection or a lock timeout
+    default boolean isUnsupported(RuntimeException e) {
+        return false;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.applix.bulk;
+
+import com.example.applix.enums.BulkWriterMode;
+import com.example.applix.models.db.FilteredData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+// Routes filtered_data batches to a BulkWriter and measures rows/sec per writer (ingest.writer.* metrics).
+// In auto mode every available writer gets TRIAL_BATCHES batches first, then the fastest one takes all batches.
+// A writer the database refuses (BulkWriter.isUnsupported, e.g. LOAD DATA disabled on the server) is dropped and its
+// batch retried on the next one. Any other failure propagates: the batch may be partly committed, and a transient
+// outage must not remove a writer for the life of the process.
+@Component
+public class BulkWriterSelector {
+    private static final int TRIAL_BATCHES = 3;
+
+    private final List<BulkWriter> writers;
+    private final BulkWriterMode mode;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoTime;
+    private final Map<String, WriterStats> stats = new LinkedHashMap<>();
+    private List<BulkWriter> candidates; // available writers, resolved on the first batch
+    private BulkWriter chosen;
+    private int nextTrial;
+
+    @Autowired
+    public BulkWriterSelector(JdbcTemplate jdbcTemplate, @Value("${sql.insert.writer:auto}") String mode,
+                              @Value("${sql.insert.load-data-dir:src/main/resources/load-data}") String loadDataDir, MeterRegistry meterRegistry) {
+        this(List.of(new LoadDataBulkWriter(jdbcTemplate, Path.of(loadDataDir)), new JdbcBatchBulkWriter(jdbcTemplate), new MultiValuesBulkWriter(jdbcTemplate)),
+                BulkWriterMode.fromProperty(mode), meterRegistry, System::nanoTime);
+    }
+
+    BulkWriterSelector(List<BulkWriter> writers, BulkWriterMode mode, MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.writers = writers;
+        this.mode = mode;
+        this.meterRegistry = meterRegistry;
+        this.nanoTime = nanoTime;
+    }
+
+    public void write(List<FilteredData> batch) {
+        while (true) {
+            BulkWriter writer = next();
+            long start = nanoTime.getAsLong();
+            try {
+                writer.write(batch);
+            } catch (RuntimeException e) {
+                if (!writer.isUnsupported(e) || !drop(writer)) throw e;
+                System.out.println("⚠️ Bulk writer " + writer.name() + " is refused by the database, falling back : " + e.getMessage());
+                continue;
+            }
+            record(writer, batch.size(), nanoTime.getAsLong() - start);
+            return;
+        }
+    }
+
+    // rows/sec of every writer used so far
+    public synchronized Map<String, Double> getRowsPerSecond() {
+        return stats.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().rowsPerSecond(), (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private synchronized BulkWriter next() {
+        if (candidates == null) candidates = resolveCandidates();
+        if (chosen != null) return chosen;
+
+        // round robin over the candidates until each has its trial batches
+        for (int i = 0; i < candidates.size(); i++) {
+            BulkWriter writer = candidates.get((nextTrial + i) % candidates.size());
+            WriterStats writerStats = stats.get(writer.name());
+            if (writerStats == null || writerStats.batches < TRIAL_BATCHES) {
+                nextTrial = (nextTrial + i + 1) % candidates.size();
+                return writer;
+            }
+        }
+        chosen = candidates.stream().max((a, b) -> Double.compare(statsOf(a).rowsPerSecond(), statsOf(b).rowsPerSecond())).orElseThrow();
+        System.out.println("✅ Bulk writer rows/sec " + getRowsPerSecond() + ", using " + chosen.name());
+        return chosen;
+    }
+
+    private List<BulkWriter> resolveCandidates() {
+        List<BulkWriter> available = new ArrayList<>();
+        for (BulkWriter writer : writers) {
+            if (mode != BulkWriterMode.AUTO && !writer.name().equals(mode.name().toLowerCase().replace('_', '-'))) continue;
+            if (writer.isAvailable()) available.add(writer);
+            else System.out.println("⚠️ Bulk writer " + writer.name() + " is not available on this database");
+        }
+        if (available.isEmpty()) available.add(writers.get(writers.size() - 1)); // multi-values works everywhere
+        if (available.size() == 1) chosen = available.get(0);
+        return available;
+    }
+
+    private synchronized boolean drop(BulkWriter writer) {
+        if (candidates.size() == 1) return false;
+        candidates.remove(writer);
+        if (writer == chosen) chosen = candidates.size() == 1 ? candidates.get(0) : null;
+        return true;
+    }
+
+    private synchronized void record(BulkWriter writer, int rows, long nanos) {
+        WriterStats writerStats = statsOf(writer);
+        writerStats.batches++;
+        writerStats.rows += rows;
+        writerStats.nanos += nanos;
+        writerStats.timer.record(nanos, TimeUnit.NANOSECONDS);
+        writerStats.rowCounter.increment(rows);
+    }
+
+    private WriterStats statsOf(BulkWriter writer) {
+        return stats.computeIfAbsent(writer.name(), name -> new WriterStats(name, meterRegistry));
+    }
+
+    private static class WriterStats {
+        private final Timer timer;
+        private final Counter rowCounter;
+        private long batches;
+        private long rows;
+        private long nanos;
+
+        WriterStats(String name, MeterRegistry meterRegistry) {
+            this.timer = Timer.builder("ingest.writer.batch").tag("writer", name).publishPercentileHistogram().register(meterRegistry);
+            this.rowCounter = Counter.builder("ingest.writer.rows").tag("writer", name).register(meterRegistry);
+            Gauge.builder("ingest.writer.rows-per-second", this, WriterStats::rowsPerSecond).tag("writer", name).register(meterRegistry);
+        }
+
+        double rowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+        }
+    }
+}
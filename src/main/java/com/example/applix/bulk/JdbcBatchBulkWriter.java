@@ -0,0 +1,50 @@
+package com.example.applix.bulk;
+
+import com.example.applix.models.db.FilteredData;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+// A JDBC batch on one prepared statement, bound with primitive setters. With rewriteBatchedStatements=true
+// Connector/J sends it as a few multi-row INSERTs, and cachePrepStmts reuses the statement across batches.
+public class JdbcBatchBulkWriter implements BulkWriter {
+    private static final String INSERT_SQL = "INSERT INTO filtered_data (timestamp, temperature, file_id) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcBatchBulkWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String name() {
+        return "jdbc-batch";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public void write(List<FilteredData> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                FilteredData data = batch.get(i);
+                ps.setTimestamp(1, Timestamp.from(data.getTimestampInstant()));
+                ps.setDouble(2, data.getTemperature());
+                ps.setInt(3, data.getFileId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+}
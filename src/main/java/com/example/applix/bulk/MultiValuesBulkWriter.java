@@ -0,0 +1,46 @@
+package com.example.applix.bulk;
+
+import com.example.applix.models.db.FilteredData;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+// One INSERT ... VALUES (?, ?, ?),(?, ?, ?)... statement per batch. Works on any database.
+public class MultiValuesBulkWriter implements BulkWriter {
+    private final JdbcTemplate jdbcTemplate;
+
+    public MultiValuesBulkWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String name() {
+        return "multi-values";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public void write(List<FilteredData> batch) {
+        // Constructing a single large SQL query
+        StringBuilder sql = new StringBuilder("INSERT INTO filtered_data (timestamp, temperature, file_id) VALUES ");
+        List<Object> params = new ArrayList<>();
+
+        for (FilteredData data : batch) {
+            sql.append("(?, ?, ?),");
+            params.add(Timestamp.from(data.getTimestampInstant()));
+            params.add(data.getTemperature());
+            params.add(data.getFileId());
+        }
+
+        sql.setLength(sql.length() - 1); // Remove last comma
+
+        // Execute a single insert query with all records of the batch
+        jdbcTemplate.update(sql.toString(), params.toArray());
+    }
+}
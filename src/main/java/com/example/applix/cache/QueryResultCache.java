@@ -0,0 +1,123 @@
+package com.example.applix.cache;
+
+import com.example.applix.models.db.FileTable;
+import com.example.applix.models.responses.GetDataResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Responses of GET /data for processed files, their time-range row counts and the GET /data/files list, in memory
+// (Caffeine, W-TinyLFU eviction). Every files_table write of a file evicts its pages, its counts and the list, again
+// after the surrounding transaction commits
+// so a concurrent request can not cache what it read before the commit.
+// Every eviction also moves the file to a new generation: a page or count is only kept if the file is still in the
+// generation read before its files_table row, so one built from rows read before an eviction is not put back after it.
+// Bounded by the rows held, not the page count: one page of a large limit weighs as much as many small pages.
+// Hit/miss/eviction counts: /actuator/metrics/cache.gets?tag=cache:data-pages (and files, evictions, size)
+@Component
+public class QueryResultCache {
+    private static final String FILES_KEY = "files";
+
+    private final Cache<DataPageKey, GetDataResponse> dataPages;
+    private final Cache<String, List<FileTable>> files;
+    private final Cache<RangeKey, Long> rangeCounts;
+    private final ConcurrentHashMap<Integer, AtomicLong> generations = new ConcurrentHashMap<>(); // files evicted at least once
+
+    public QueryResultCache(@Value("${cache.data-pages.max-rows:200000}") long maxDataPageRows,
+                            @Value("${cache.range-counts.max-size:10000}") long maxRangeCounts, MeterRegistry meterRegistry) {
+        this.dataPages = Caffeine.newBuilder()
+                .maximumWeight(maxDataPageRows)
+                .weigher(QueryResultCache::weigh)
+                .recordStats()
+                .build();
+        this.files = Caffeine.newBuilder().maximumSize(1).recordStats().build();
+        this.rangeCounts = Caffeine.newBuilder().maximumSize(maxRangeCounts).build();
+        CaffeineCacheMetrics.monitor(meterRegistry, dataPages, "data-pages");
+        CaffeineCacheMetrics.monitor(meterRegistry, files, "files");
+    }
+
+    // null on a miss
+    public GetDataResponse getDataPage(DataPageKey key) {
+        return dataPages.getIfPresent(key);
+    }
+
+    // Read before the files_table row of the file, passed on to putDataPage / getRangeCount
+    public long generation(int fileId) {
+        AtomicLong generation = generations.get(fileId);
+        return generation == null ? 0 : generation.get();
+    }
+
+    // Only for processed files, whose rows never change
+    public void putDataPage(DataPageKey key, GetDataResponse response, long generation) {
+        putIfCurrent(dataPages, key, response, key.fileId(), generation);
+    }
+
+    // a page over the whole budget is evicted as soon as it is put
+    static int weigh(DataPageKey key, GetDataResponse response) {
+        return 1 + (response.records == null ? 0 : response.records.size());
+    }
+
+    // runs pending evictions now, Caffeine otherwise does it on a later access
+    void cleanUp() {
+        dataPages.cleanUp();
+    }
+
+    // Only for processed files, whose rows never change
+    public long getRangeCount(int fileId, Instant start, Instant end, long generation, Supplier<Long> counter) {
+        RangeKey key = new RangeKey(fileId, start, end);
+        Long cached = rangeCounts.getIfPresent(key);
+        if (cached != null) return cached;
+
+        long count = counter.get();
+        putIfCurrent(rangeCounts, key, count, fileId, generation);
+        return count;
+    }
+
+    // Checked again after the put: an eviction between the check and the put removes the value put
+    private <K, V> void putIfCurrent(Cache<K, V> cache, K key, V value, int fileId, long generation) {
+        if (generation(fileId) != generation) return;
+        cache.put(key, value);
+        if (generation(fileId) != generation) cache.invalidate(key);
+    }
+
+    public List<FileTable> getFiles(Supplier<List<FileTable>> loader) {
+        return files.get(FILES_KEY, key -> loader.get());
+    }
+
+    public void invalidate(int fileId) {
+        evict(fileId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(fileId);
+                }
+            });
+        }
+    }
+
+    private void evict(int fileId) {
+        generations.computeIfAbsent(fileId, id -> new AtomicLong()).incrementAndGet();
+        dataPages.asMap().keySet().removeIf(key -> key.fileId() == fileId);
+        rangeCounts.asMap().keySet().removeIf(key -> key.fileId() == fileId);
+        files.invalidateAll();
+    }
+
+    // cursor set -> page is not part of the request
+    public record DataPageKey(int fileId, int page, int limit, String startTime, String endTime, String cursor) {
+    }
+
+    private record RangeKey(int fileId, Instant start, Instant end) {
+    }
+}
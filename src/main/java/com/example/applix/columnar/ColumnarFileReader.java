@@ -0,0 +1,145 @@
+package com.example.applix.columnar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Read side of a columnar file. Only the header and the sparse segment index are kept in memory; segments are
+// read on demand with positional reads, so one instance can be shared by any number of request threads.
+public class ColumnarFileReader {
+    private final Path path;
+    private final int segmentRows;
+    private final long rowCount;
+    private final long[] firstMicros;
+    private final long[] lastMicros;
+    private final long[] offsets;
+    private final int[] timestampBytes;
+
+    @FunctionalInterface
+    public interface RowConsumer {
+        void accept(long position, long timestampMicros, double temperature);
+    }
+
+    public ColumnarFileReader(Path path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, ColumnarFormat.HEADER_SIZE);
+            if (header.getLong() != ColumnarFormat.MAGIC || header.getInt() != ColumnarFormat.VERSION) {
+                throw new IOException("Not a columnar data file: " + path);
+            }
+            this.segmentRows = header.getInt();
+            this.rowCount = header.getLong();
+            long indexOffset = header.getLong();
+
+            int segmentCount = readFully(channel, indexOffset, Integer.BYTES).getInt();
+            ByteBuffer index = readFully(channel, indexOffset + Integer.BYTES, segmentCount * ColumnarFormat.INDEX_ENTRY_SIZE);
+            this.firstMicros = new long[segmentCount];
+            this.lastMicros = new long[segmentCount];
+            this.offsets = new long[segmentCount];
+            this.timestampBytes = new int[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                firstMicros[i] = index.getLong();
+                lastMicros[i] = index.getLong();
+                offsets[i] = index.getLong();
+                timestampBytes[i] = index.getInt();
+            }
+        }
+    }
+
+    public long rowCount() {
+        return rowCount;
+    }
+
+    // Position of the first row with a timestamp >= micros (rowCount if there is none).
+    public long lowerBound(long micros) throws IOException {
+        return bound(micros, false);
+    }
+
+    // Position of the first row with a timestamp > micros (rowCount if there is none).
+    public long upperBound(long micros) throws IOException {
+        return bound(micros, true);
+    }
+
+    // Streams rows [from, from + count) in timestamp order.
+    public void read(long from, int count, RowConsumer consumer) throws IOException {
+        if (count <= 0 || from >= rowCount) return;
+        long to = Math.min(rowCount, from + count);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = from;
+            while (position < to) {
+                int segment = (int) (position / segmentRows);
+                int first = (int) (position - (long) segment * segmentRows);
+                int last = (int) Math.min(segmentLength(segment), to - (long) segment * segmentRows);
+
+                long[] micros = decodeTimestamps(channel, segment, last);
+                ByteBuffer temperatures = readFully(channel, temperaturesOffset(segment) + (long) first * Double.BYTES, (last - first) * Double.BYTES);
+                for (int i = first; i < last; i++) {
+                    consumer.accept((long) segment * segmentRows + i, micros[i], temperatures.getDouble());
+                }
+                position = (long) segment * segmentRows + last;
+            }
+        }
+    }
+
+    private long bound(long micros, boolean strict) throws IOException {
+        // sparse index: the last segment whose first timestamp is still before the bound holds the answer
+        int low = 0;
+        int high = firstMicros.length - 1;
+        int segment = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (strict ? firstMicros[mid] <= micros : firstMicros[mid] < micros) {
+                segment = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (segment < 0) return 0;
+        if (strict ? lastMicros[segment] <= micros : lastMicros[segment] < micros) {
+            return Math.min(rowCount, (long) (segment + 1) * segmentRows);
+        }
+
+        int length = segmentLength(segment);
+        long[] timestamps;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            timestamps = decodeTimestamps(channel, segment, length);
+        }
+        int lo = 0;
+        int hi = length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (strict ? timestamps[mid] <= micros : timestamps[mid] < micros) lo = mid + 1;
+            else hi = mid;
+        }
+        return (long) segment * segmentRows + lo;
+    }
+
+    private int segmentLength(int segment) {
+        return (int) Math.min(segmentRows, rowCount - (long) segment * segmentRows);
+    }
+
+    private long temperaturesOffset(int segment) {
+        return offsets[segment] + timestampBytes[segment];
+    }
+
+    private long[] decodeTimestamps(FileChannel channel, int segment, int count) throws IOException {
+        ByteBuffer encoded = readFully(channel, offsets[segment], timestampBytes[segment]);
+        long[] micros = new long[count];
+        micros[0] = encoded.getLong();
+        for (int i = 1; i < count; i++) {
+            micros[i] = micros[i - 1] + VarInts.getZigZag(encoded);
+        }
+        return micros;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of columnar file");
+        }
+        return buffer.flip();
+    }
+}
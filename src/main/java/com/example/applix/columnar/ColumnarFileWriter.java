@@ -0,0 +1,235 @@
+package com.example.applix.columnar;
+
+import com.example.applix.models.db.FilteredData;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Collects the rows of one file in any order and writes them sorted by timestamp. Rows are buffered in
+// primitive runs; full runs are sorted and spilled to disk, and finish() merges the runs into the final file.
+// append() is synchronized so several insert threads can share one writer.
+public class ColumnarFileWriter implements Closeable {
+    private final Path target;
+    private final int segmentRows;
+    private final int runRows;
+    private final List<Path> spilledRuns = new ArrayList<>();
+
+    private long[] micros;
+    private double[] temperatures;
+    private int buffered;
+
+    ColumnarFileWriter(Path target, int segmentRows, int runRows) {
+        this.target = target;
+        this.segmentRows = segmentRows;
+        this.runRows = runRows;
+        this.micros = new long[Math.min(runRows, 1024)];
+        this.temperatures = new double[micros.length];
+    }
+
+    public synchronized void append(List<FilteredData> rows) {
+        for (FilteredData row : rows) {
+            append(ColumnarFormat.toMicros(row.getTimestampInstant()), row.getTemperature());
+        }
+    }
+
+    public synchronized void append(long timestampMicros, double temperature) {
+        if (buffered == micros.length) {
+            if (buffered == runRows) {
+                spill();
+            } else {
+                int capacity = Math.min(runRows, micros.length * 2);
+                micros = Arrays.copyOf(micros, capacity);
+                temperatures = Arrays.copyOf(temperatures, capacity);
+            }
+        }
+        micros[buffered] = timestampMicros;
+        temperatures[buffered] = temperature;
+        buffered++;
+    }
+
+    // Writes the sorted file and returns the number of rows in it.
+    public synchronized long finish() throws IOException {
+        ParallelArraySorter.sort(micros, temperatures, buffered);
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        long rowCount;
+        try (SegmentOutput out = new SegmentOutput(tmp, segmentRows)) {
+            if (spilledRuns.isEmpty()) {
+                for (int i = 0; i < buffered; i++) out.add(micros[i], temperatures[i]);
+            } else {
+                mergeRuns(out);
+            }
+            rowCount = out.finish();
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        close();
+        return rowCount;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Path run : spilledRuns) {
+            Files.deleteIfExists(run);
+        }
+        spilledRuns.clear();
+        micros = new long[0];
+        temperatures = new double[0];
+        buffered = 0;
+    }
+
+    private void spill() {
+        ParallelArraySorter.sort(micros, temperatures, buffered);
+        Path run = target.resolveSibling(target.getFileName() + ".run" + spilledRuns.size());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+            for (int i = 0; i < buffered; i++) {
+                out.writeLong(micros[i]);
+                out.writeDouble(temperatures[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill columnar run " + run, e);
+        }
+        spilledRuns.add(run);
+        buffered = 0;
+    }
+
+    private void mergeRuns(SegmentOutput out) throws IOException {
+        List<RunCursor> cursors = new ArrayList<>();
+        PriorityQueue<RunCursor> heap = new PriorityQueue<>((a, b) -> a.micros != b.micros ? Long.compare(a.micros, b.micros) : Integer.compare(a.order, b.order));
+        try {
+            for (Path run : spilledRuns) {
+                RunCursor cursor = new RunCursor(new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16)), cursors.size());
+                cursors.add(cursor);
+                if (cursor.advance()) heap.add(cursor);
+            }
+            RunCursor memory = new RunCursor(null, cursors.size());
+            if (memory.advanceInMemory()) heap.add(memory);
+
+            while (!heap.isEmpty()) {
+                RunCursor cursor = heap.poll();
+                out.add(cursor.micros, cursor.temperature);
+                if (cursor.in == null ? cursor.advanceInMemory() : cursor.advance()) heap.add(cursor);
+            }
+        } finally {
+            for (RunCursor cursor : cursors) cursor.in.close();
+        }
+    }
+
+    private class RunCursor {
+        final DataInputStream in;
+        final int order;
+        long micros;
+        double temperature;
+        int memoryPosition;
+
+        RunCursor(DataInputStream in, int order) {
+            this.in = in;
+            this.order = order;
+        }
+
+        boolean advance() throws IOException {
+            try {
+                micros = in.readLong();
+                temperature = in.readDouble();
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        boolean advanceInMemory() {
+            if (memoryPosition == buffered) return false;
+            micros = ColumnarFileWriter.this.micros[memoryPosition];
+            temperature = temperatures[memoryPosition];
+            memoryPosition++;
+            return true;
+        }
+    }
+
+    // Streams sorted rows into fixed-size segments and writes the index and header at the end.
+    private static class SegmentOutput implements Closeable {
+        private final RandomAccessFile file;
+        private final OutputStream out;
+        private final int segmentRows;
+        private final long[] segmentMicros;
+        private final double[] segmentTemperatures;
+        private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+        private final ByteBuffer scratch;
+        private int inSegment;
+        private int segmentCount;
+        private long offset = ColumnarFormat.HEADER_SIZE;
+        private long rowCount;
+
+        SegmentOutput(Path path, int segmentRows) throws IOException {
+            this.file = new RandomAccessFile(path.toFile(), "rw");
+            this.file.setLength(0);
+            this.file.seek(ColumnarFormat.HEADER_SIZE);
+            this.out = new BufferedOutputStream(new FileOutputStream(file.getFD()), 1 << 16);
+            this.segmentRows = segmentRows;
+            this.segmentMicros = new long[segmentRows];
+            this.segmentTemperatures = new double[segmentRows];
+            this.scratch = ByteBuffer.allocate(segmentRows * 10 + 8);
+        }
+
+        void add(long micros, double temperature) throws IOException {
+            segmentMicros[inSegment] = micros;
+            segmentTemperatures[inSegment] = temperature;
+            if (++inSegment == segmentRows) flushSegment();
+        }
+
+        long finish() throws IOException {
+            if (inSegment > 0) flushSegment();
+            long indexOffset = offset;
+            DataOutputStream indexHeader = new DataOutputStream(out);
+            indexHeader.writeInt(segmentCount);
+            index.writeTo(out);
+            out.flush();
+
+            file.seek(0);
+            file.writeLong(ColumnarFormat.MAGIC);
+            file.writeInt(ColumnarFormat.VERSION);
+            file.writeInt(segmentRows);
+            file.writeLong(rowCount);
+            file.writeLong(indexOffset);
+            file.getFD().sync();
+            return rowCount;
+        }
+
+        private void flushSegment() throws IOException {
+            scratch.clear();
+            scratch.putLong(segmentMicros[0]);
+            for (int i = 1; i < inSegment; i++) {
+                VarInts.putZigZag(scratch, segmentMicros[i] - segmentMicros[i - 1]);
+            }
+            int timestampBytes = scratch.position();
+            out.write(scratch.array(), 0, timestampBytes);
+
+            DataOutputStream data = new DataOutputStream(out);
+            for (int i = 0; i < inSegment; i++) {
+                data.writeDouble(segmentTemperatures[i]);
+            }
+
+            DataOutputStream entry = new DataOutputStream(index);
+            entry.writeLong(segmentMicros[0]);
+            entry.writeLong(segmentMicros[inSegment - 1]);
+            entry.writeLong(offset);
+            entry.writeInt(timestampBytes);
+
+            offset += timestampBytes + (long) inSegment * Double.BYTES;
+            rowCount += inSegment;
+            segmentCount++;
+            inSegment = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+}
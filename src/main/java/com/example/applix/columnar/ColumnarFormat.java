@@ -0,0 +1,30 @@
+package com.example.applix.columnar;
+
+import java.time.Instant;
+
+// Layout of a columnar file:
+//
+//   header   : magic (8) | version (4) | segmentRows (4) | rowCount (8) | indexOffset (8)
+//   segments : per segment, the first timestamp (8) followed by zig-zag varint deltas of the others,
+//              then the temperatures as packed 8 byte doubles
+//   index    : segmentCount (4) | per segment: first timestamp (8) | last timestamp (8) | offset (8) | timestamp bytes (4)
+//
+// Timestamps are epoch microseconds, the precision of the filtered_data datetime(6) column.
+// Every segment except the last holds exactly segmentRows rows, so a row position maps to its segment directly.
+public final class ColumnarFormat {
+    static final long MAGIC = 0x4150_4C58_434F_4C31L; // "APLXCOL1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int INDEX_ENTRY_SIZE = 28;
+
+    private ColumnarFormat() {
+    }
+
+    public static long toMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    public static Instant toInstant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+}
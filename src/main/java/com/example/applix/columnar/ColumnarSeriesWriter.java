@@ -0,0 +1,57 @@
+package com.example.applix.columnar;
+
+import com.example.applix.models.db.FilteredData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Rows of a multi-column upload, routed by FilteredData.series to one ColumnarFileWriter per series, each created
+// the first time its series has a value. Thread-safe like ColumnarFileWriter, shared by the ingest writer threads.
+// Every writer buffers at most runRows rows, a share of storage.columnar.run-rows (see ColumnarStore.newSeriesWriter).
+public class ColumnarSeriesWriter implements Closeable {
+    private final ColumnarStore store;
+    private final int fileId;
+    private final int runRows;
+    private final Map<Integer, ColumnarFileWriter> writers = new ConcurrentHashMap<>();
+
+    ColumnarSeriesWriter(ColumnarStore store, int fileId, int runRows) {
+        this.store = store;
+        this.fileId = fileId;
+        this.runRows = runRows;
+    }
+
+    public void append(Iterable<FilteredData> rows) {
+        for (FilteredData row : rows) {
+            writer(row.getSeries()).append(ColumnarFormat.toMicros(row.getTimestampInstant()), row.getTemperature());
+        }
+    }
+
+    // Writes the sorted file of every series and returns their row counts by series
+    public Map<Integer, Long> finish() throws IOException {
+        writer(0); // the default file of the upload exists even if the first column never had a value
+        Map<Integer, Long> rowCounts = new TreeMap<>();
+        for (Map.Entry<Integer, ColumnarFileWriter> entry : writers.entrySet()) {
+            rowCounts.put(entry.getKey(), entry.getValue().finish());
+        }
+        return rowCounts;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ColumnarFileWriter writer : writers.values()) writer.close();
+    }
+
+    private ColumnarFileWriter writer(int series) {
+        return writers.computeIfAbsent(series, key -> {
+            try {
+                return store.newWriter(fileId, key, runRows);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create the columnar file of series " + key + " of file " + fileId, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.applix.columnar;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// One sorted columnar file per processed upload. MySQL keeps the metadata (FileTable), this store keeps the rows.
+// Multi-column uploads get one file per series (see ColumnarSeriesWriter); series 0 is the upload's default file.
+@Component
+public class ColumnarStore {
+    private static final int MAX_CACHED_READERS = 64;
+
+    private final Path directory;
+    private final int segmentRows;
+    private final int runRows;
+    private final Map<SeriesKey, ColumnarFileReader> readers = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<SeriesKey, ColumnarFileReader> eldest) {
+                    return size() > MAX_CACHED_READERS;
+                }
+            });
+
+    private record SeriesKey(int fileId, int series) {
+    }
+
+    public ColumnarStore(@Value("${storage.columnar.dir:src/main/resources/columnar}") String directory,
+                         @Value("${storage.columnar.segment-rows:4096}") int segmentRows,
+                         @Value("${storage.columnar.run-rows:4194304}") int runRows) {
+        this.directory = Paths.get(directory);
+        this.segmentRows = segmentRows;
+        this.runRows = runRows;
+    }
+
+    public ColumnarFileWriter newWriter(int fileId) throws IOException {
+        return newWriter(fileId, 0);
+    }
+
+    public ColumnarFileWriter newWriter(int fileId, int series) throws IOException {
+        return newWriter(fileId, series, runRows);
+    }
+
+    ColumnarFileWriter newWriter(int fileId, int series, int runRows) throws IOException {
+        Files.createDirectories(directory);
+        readers.remove(new SeriesKey(fileId, series));
+        return new ColumnarFileWriter(pathOf(fileId, series), segmentRows, runRows);
+    }
+
+    // The series of a file share one run-rows budget: each buffers at most runRows / maxSeries rows before it spills
+    public ColumnarSeriesWriter newSeriesWriter(int fileId, int maxSeries) {
+        return new ColumnarSeriesWriter(this, fileId, Math.max(segmentRows, runRows / Math.max(1, maxSeries)));
+    }
+
+    public ColumnarFileReader reader(int fileId) throws IOException {
+        return reader(fileId, 0);
+    }
+
+    public ColumnarFileReader reader(int fileId, int series) throws IOException {
+        SeriesKey key = new SeriesKey(fileId, series);
+        ColumnarFileReader reader = readers.get(key);
+        if (reader != null) return reader;
+        try {
+            return readers.computeIfAbsent(key, id -> {
+                try {
+                    return new ColumnarFileReader(pathOf(id.fileId(), id.series()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public void delete(int fileId) throws IOException {
+        synchronized (readers) {
+            readers.keySet().removeIf(key -> key.fileId() == fileId);
+        }
+        Files.deleteIfExists(pathOf(fileId, 0));
+        if (!Files.isDirectory(directory)) return;
+        try (DirectoryStream<Path> series = Files.newDirectoryStream(directory, "file-" + fileId + ".s*.col")) {
+            for (Path path : series) Files.deleteIfExists(path);
+        }
+    }
+
+    private Path pathOf(int fileId, int series) {
+        return directory.resolve(series == 0 ? "file-" + fileId + ".col" : "file-" + fileId + ".s" + series + ".col");
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.applix.columnar;
+
+// Stable merge sort of (key, value) pairs held in two primitive arrays, ordered by key.
+final class ParallelArraySorter {
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private ParallelArraySorter() {
+    }
+
+    static void sort(long[] keys, double[] values, int length) {
+        if (length < 2 || isSorted(keys, length)) return;
+        long[] keyBuffer = new long[length];
+        double[] valueBuffer = new double[length];
+        mergeSort(keys, values, keyBuffer, valueBuffer, 0, length);
+    }
+
+    private static boolean isSorted(long[] keys, int length) {
+        for (int i = 1; i < length; i++) {
+            if (keys[i] < keys[i - 1]) return false;
+        }
+        return true;
+    }
+
+    private static void mergeSort(long[] keys, double[] values, long[] keyBuffer, double[] valueBuffer, int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(keys, values, from, to);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(keys, values, keyBuffer, valueBuffer, from, mid);
+        mergeSort(keys, values, keyBuffer, valueBuffer, mid, to);
+        if (keys[mid - 1] <= keys[mid]) return;
+
+        System.arraycopy(keys, from, keyBuffer, from, to - from);
+        System.arraycopy(values, from, valueBuffer, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && keyBuffer[left] <= keyBuffer[right])) {
+                keys[i] = keyBuffer[left];
+                values[i] = valueBuffer[left++];
+            } else {
+                keys[i] = keyBuffer[right];
+                values[i] = valueBuffer[right++];
+            }
+        }
+    }
+
+    private static void insertionSort(long[] keys, double[] values, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            long key = keys[i];
+            double value = values[i];
+            int j = i - 1;
+            while (j >= from && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            values[j + 1] = value;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.applix.columnar;
+
+import java.nio.ByteBuffer;
+
+final class VarInts {
+    private VarInts() {
+    }
+
+    static void putZigZag(ByteBuffer buffer, long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        buffer.put((byte) zigZag);
+    }
+
+    static long getZigZag(ByteBuffer buffer) {
+        long zigZag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            zigZag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.applix.config;
+
+import com.example.applix.blob.BlobStore;
+import com.example.applix.blob.LocalBlobStore;
+import com.example.applix.blob.S3BlobStore;
+import com.example.applix.enums.BlobStoreType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+// Where raw uploads are kept once received (blob.store). Uploads are staged in file.upload-dir either way.
+@Configuration
+public class BlobStoreConfig {
+
+    @Bean
+    public BlobStore blobStore(@Value("${blob.store:local}") String store,
+                               @Value("${file.upload-dir}") String uploadDir,
+                               @Value("${blob.s3.endpoint:http://localhost:9000}") String endpoint,
+                               @Value("${blob.s3.region:us-east-1}") String region,
+                               @Value("${blob.s3.bucket:applix-uploads}") String bucket,
+                               @Value("${blob.s3.access-key:}") String accessKey,
+                               @Value("${blob.s3.secret-key:}") String secretKey) {
+        return switch (BlobStoreType.fromProperty(store)) {
+            case LOCAL -> new LocalBlobStore(Paths.get(uploadDir));
+            case S3 -> new S3BlobStore(endpoint, region, bucket, accessKey, secretKey);
+        };
+    }
+}
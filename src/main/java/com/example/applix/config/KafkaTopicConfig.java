@@ -0,0 +1,31 @@
+package com.example.applix.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+// Created (or grown to the configured partition count) by KafkaAdmin at startup.
+// Events are keyed by file id, so the files of a topic spread over its partitions and listener threads.
+@Configuration
+public class KafkaTopicConfig {
+    public static final String FILE_PROCESSING_TOPIC = "file-processing-topic";
+    public static final String SMALL_FILE_PROCESSING_TOPIC = "file-processing-small-topic";
+    public static final String FILE_CHUNK_TOPIC = "file-chunk-topic";
+
+    @Bean
+    public NewTopic fileProcessingTopic(@Value("${kafka.topics.partitions:6}") int partitions) {
+        return TopicBuilder.name(FILE_PROCESSING_TOPIC).partitions(partitions).replicas(1).build();
+    }
+
+    @Bean
+    public NewTopic smallFileProcessingTopic(@Value("${kafka.topics.partitions:6}") int partitions) {
+        return TopicBuilder.name(SMALL_FILE_PROCESSING_TOPIC).partitions(partitions).replicas(1).build();
+    }
+
+    @Bean
+    public NewTopic fileChunkTopic(@Value("${kafka.topics.partitions:6}") int partitions) {
+        return TopicBuilder.name(FILE_CHUNK_TOPIC).partitions(partitions).replicas(1).build();
+    }
+}
@@ -3,14 +3,31 @@ package com.example.applix.controllers;
 import com.example.applix.enums.ErrorCode;
 import com.example.applix.exceptions.ApplixException;
 import com.example.applix.models.db.FileTable;
+import com.example.applix.models.responses.FileOperationResponse;
+import com.example.applix.models.responses.GetAggregateResponse;
+import com.example.applix.models.responses.GetChartResponse;
 import com.example.applix.models.responses.GetDataResponse;
+import com.example.applix.models.responses.GetFileProgressResponse;
+import com.example.applix.models.responses.GetFileSeriesResponse;
 import com.example.applix.models.responses.GetFilesResponse;
+import com.example.applix.models.responses.GetLiveIngestResponse;
+import com.example.applix.models.responses.GetStatsResponse;
 import com.example.applix.models.responses.UploadAsyncResponse;
 import com.example.applix.models.responses.UploadResponse;
+import com.example.applix.services.AggregateService;
 import com.example.applix.services.DataService;
+import com.example.applix.services.DataStreamService;
+import com.example.applix.services.RollupService;
+import com.example.applix.streaming.RowBlockEncoder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -21,9 +38,17 @@ import java.util.List;
 // TODO :: make it work in production
 public class DataController {
     private final DataService dataService;
+    private final RollupService rollupService;
+    private final DataStreamService dataStreamService;
+    private final AggregateService aggregateService;
+    private final ObjectMapper objectMapper;
 
-    public DataController(DataService dataService) {
+    public DataController(DataService dataService, RollupService rollupService, DataStreamService dataStreamService, AggregateService aggregateService, ObjectMapper objectMapper) {
         this.dataService = dataService;
+        this.rollupService = rollupService;
+        this.dataStreamService = dataStreamService;
+        this.aggregateService = aggregateService;
+        this.objectMapper = objectMapper;
     }
 
 
@@ -42,11 +67,27 @@ public class DataController {
     }
 
 
-    // Files with size less than 1.5GB or 20 million rows
+    // Files with size less than 1.5GB or 20 million rows.
+    // schema (name:type[:min:max],...) types the columns, otherwise they are detected from the header line
     @PostMapping("/upload_async")
-    public UploadAsyncResponse uploadAsync(@RequestParam("file") MultipartFile file) {
+    public UploadAsyncResponse uploadAsync(@RequestParam("file") MultipartFile file, @RequestParam(value = "schema", required = false) String schema) {
+        try {
+            dataService.uploadFileAsync(file, schema);
+            return new UploadAsyncResponse(ErrorCode.NO_ERROR, "File uploaded successfully. Processing started.");
+        } catch (ApplixException e) {
+            return new UploadAsyncResponse(ErrorCode.FILE_NOT_FOUND, "File Not Found");
+        } catch (Exception e) {
+            return new UploadAsyncResponse(ErrorCode.GENERIC_ERROR, "Error : " + e.getMessage());
+        }
+    }
+
+
+    // Same as upload_async with the CSV as the raw request body (Content-Type: application/octet-stream or text/csv),
+    // streamed straight to disk without a multipart temp file
+    @PostMapping(value = "/upload_async", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "text/csv"})
+    public UploadAsyncResponse uploadAsyncStream(@RequestParam("name") String fileName, @RequestParam(value = "schema", required = false) String schema, HttpServletRequest request) {
         try {
-            dataService.uploadFileAsync(file);
+            dataService.uploadFileAsync(fileName, request.getInputStream(), schema);
             return new UploadAsyncResponse(ErrorCode.NO_ERROR, "File uploaded successfully. Processing started.");
         } catch (ApplixException e) {
             return new UploadAsyncResponse(ErrorCode.FILE_NOT_FOUND, "File Not Found");
@@ -56,12 +97,106 @@ public class DataController {
     }
 
 
+    // Either page based (page + offset) or keyset based: pass the nextCursor of the previous response as cursor
     @GetMapping
-    public GetDataResponse getData(@RequestParam("fileId") Integer fileId, @RequestParam("page") Integer pageNo, @RequestParam("offset") Integer offSet, @RequestParam(value = "startTime", required = false) String startTime, @RequestParam(value = "endTime", required = false) String endTime) {
+    public GetDataResponse getData(@RequestParam("fileId") Integer fileId, @RequestParam(value = "page", required = false) Integer pageNo, @RequestParam("offset") Integer offSet, @RequestParam(value = "startTime", required = false) String startTime, @RequestParam(value = "endTime", required = false) String endTime, @RequestParam(value = "cursor", required = false) String cursor) {
+        try {
+            return dataService.getData(fileId, pageNo, offSet, startTime, endTime, cursor);
+        } catch (Exception e) {
+            return new GetDataResponse(null, 0, 0L, 0L, 0.0, 0.0, null, null, null, "Error : " + e.getMessage(), ErrorCode.GENERIC_ERROR, null);
+        }
+    }
+
+
+    // Same page with Accept: application/vnd.applix.columns+json (parallel arrays per block of rows) or
+    // application/vnd.applix.blocks (binary, epoch millis + float32), streamed while it is read. No totals or stats.
+    // Errors found before the first row is read are a GetDataResponse (JSON) like those of GET /data.
+    @GetMapping(produces = {RowBlockEncoder.COLUMNS_JSON, RowBlockEncoder.BINARY_BLOCKS})
+    public ResponseEntity<StreamingResponseBody> getDataStream(@RequestParam("fileId") Integer fileId, @RequestParam(value = "page", required = false) Integer pageNo, @RequestParam("offset") Integer offSet, @RequestParam(value = "startTime", required = false) String startTime, @RequestParam(value = "endTime", required = false) String endTime, @RequestParam(value = "cursor", required = false) String cursor, @RequestHeader("Accept") String accept) {
+        try {
+            MediaType mediaType = MediaType.parseMediaTypes(accept).stream()
+                    .filter(type -> type.equalsTypeAndSubtype(MediaType.parseMediaType(RowBlockEncoder.BINARY_BLOCKS)))
+                    .findFirst().orElse(MediaType.parseMediaType(RowBlockEncoder.COLUMNS_JSON));
+            StreamingResponseBody body = dataStreamService.streamData(fileId, pageNo, offSet, startTime, endTime, cursor, mediaType);
+            return ResponseEntity.ok().contentType(mediaType).body(body);
+        } catch (ApplixException e) {
+            return errorBody(new GetDataResponse(null, 0, 0L, 0L, null, null, null, null, null, e.getMessage(), e.getErrorCode(), null));
+        } catch (Exception e) {
+            return errorBody(new GetDataResponse(null, 0, 0L, 0L, null, null, null, null, null, "Error : " + e.getMessage(), ErrorCode.GENERIC_ERROR, null));
+        }
+    }
+
+
+    // Every row of a file, or of a time range, in one streamed response: format=csv (default), columns
+    // (application/vnd.applix.columns+json) or blocks (application/vnd.applix.blocks). series: see /files/{id}/series.
+    // Errors found before the first row is read are a FileOperationResponse (JSON).
+    @GetMapping("/files/{fileId}/export")
+    public ResponseEntity<StreamingResponseBody> exportFile(@PathVariable("fileId") Integer fileId, @RequestParam(value = "startTime", required = false) String startTime, @RequestParam(value = "endTime", required = false) String endTime, @RequestParam(value = "format", required = false) String format, @RequestParam(value = "series", required = false) Integer series) {
+        try {
+            MediaType mediaType = MediaType.parseMediaType(switch (format == null ? "csv" : format.trim().toLowerCase()) {
+                case "csv" -> RowBlockEncoder.TEXT_CSV;
+                case "columns" -> RowBlockEncoder.COLUMNS_JSON;
+                case "blocks" -> RowBlockEncoder.BINARY_BLOCKS;
+                default -> throw new ApplixException("Unknown format '" + format + "', expected csv, columns or blocks", ErrorCode.INVALID_REQUEST);
+            });
+            StreamingResponseBody body = dataStreamService.exportData(fileId, startTime, endTime, series, mediaType);
+            String extension = mediaType.getSubtype().equals("csv") ? ".csv" : mediaType.getSubtype().endsWith("json") ? ".json" : ".bin";
+            return ResponseEntity.ok().contentType(mediaType)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"file-" + fileId + (series != null && series > 0 ? "-s" + series : "") + extension + "\"")
+                    .body(body);
+        } catch (ApplixException e) {
+            return errorBody(new FileOperationResponse(fileId, e.getMessage(), e.getErrorCode()));
+        } catch (Exception e) {
+            return errorBody(new FileOperationResponse(fileId, "Error : " + e.getMessage(), ErrorCode.GENERIC_ERROR));
+        }
+    }
+
+    // The streaming endpoints answer like the others: 200 and an ErrorCode, as JSON whatever was asked for in Accept
+    private ResponseEntity<StreamingResponseBody> errorBody(Object response) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(response);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> out.write(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    // Downsampled series for charts: at most maxPoints pre-aggregated min/max/avg/count buckets (1m, 1h or 1d)
+    @GetMapping("/chart")
+    public GetChartResponse getChart(@RequestParam("fileId") Integer fileId, @RequestParam(value = "startTime", required = false) String startTime, @RequestParam(value = "endTime", required = false) String endTime, @RequestParam(value = "maxPoints", required = false) Integer maxPoints) {
+        try {
+            return rollupService.getChart(fileId, startTime, endTime, maxPoints);
+        } catch (Exception e) {
+            return new GetChartResponse(null, null, "Error : " + e.getMessage(), ErrorCode.GENERIC_ERROR);
+        }
+    }
+
+
+    // Any bucket width ("30s", "15m", "1h", "1d" or seconds) and functions (avg,min,max,count,median,p90,p99.9 ...),
+    // computed from the rows of the file, or of one of its series, in parallel over the time range
+    @GetMapping("/aggregate")
+    public GetAggregateResponse getAggregate(@RequestParam("fileId") Integer fileId, @RequestParam(value = "startTime", required = false) String startTime, @RequestParam(value = "endTime", required = false) String endTime, @RequestParam("bucket") String bucket, @RequestParam(value = "functions", required = false) String functions, @RequestParam(value = "series", required = false) Integer series) {
+        try {
+            return aggregateService.aggregate(fileId, startTime, endTime, bucket, functions, series);
+        } catch (ApplixException e) {
+            return new GetAggregateResponse(fileId, series, null, null, null, e.getMessage(), e.getErrorCode());
+        } catch (Exception e) {
+            return new GetAggregateResponse(fileId, series, null, null, null, "Error : " + e.getMessage(), ErrorCode.GENERIC_ERROR);
+        }
+    }
+
+
+    // count/mean/median/min/max of the whole minutes covering a time window (windowStart/windowEnd in the response),
+    // answered from the stats index built while the file was processed
+    @GetMapping("/stats")
+    public GetStatsResponse getStats(@RequestParam("fileId") Integer fileId, @RequestParam(value = "startTime", required = false) String startTime, @RequestParam(value = "endTime", required = false) String endTime) {
         try {
-            return dataService.getData(fileId, pageNo, offSet, startTime, endTime);
+            return dataService.getStats(fileId, startTime, endTime);
+        } catch (ApplixException e) {
+            return new GetStatsResponse(null, null, null, null, null, null, null, e.getMessage(), ErrorCode.FILE_NOT_FOUND);
         } catch (Exception e) {
-            return new GetDataResponse(null, 0, 0L, 0L, 0.0, 0.0, "Error : " + e.getMessage(), ErrorCode.GENERIC_ERROR);
+            return new GetStatsResponse(null, null, null, null, null, null, null, "Error : " + e.getMessage(), ErrorCode.GENERIC_ERROR);
         }
     }
 
@@ -75,4 +210,69 @@ public class DataController {
             return new GetFilesResponse(null, "Error : " + e.getMessage(), ErrorCode.GENERIC_ERROR);
         }
     }
+
+
+    @DeleteMapping("/files/{fileId}")
+    public FileOperationResponse deleteFile(@PathVariable("fileId") Integer fileId) {
+        try {
+            dataService.deleteFile(fileId);
+            return new FileOperationResponse(fileId, "File deleted", ErrorCode.NO_ERROR);
+        } catch (ApplixException e) {
+            return new FileOperationResponse(fileId, e.getMessage(), e.getErrorCode());
+        } catch (Exception e) {
+            return new FileOperationResponse(fileId, "Error : " + e.getMessage(), ErrorCode.GENERIC_ERROR);
+        }
+    }
+
+
+    @PostMapping("/files/{fileId}/reprocess")
+    public FileOperationResponse reprocessFile(@PathVariable("fileId") Integer fileId) {
+        try {
+            dataService.reprocessFile(fileId);
+            return new FileOperationResponse(fileId, "Processing started.", ErrorCode.NO_ERROR);
+        } catch (ApplixException e) {
+            return new FileOperationResponse(fileId, e.getMessage(), e.getErrorCode());
+        } catch (Exception e) {
+            return new FileOperationResponse(fileId, "Error : " + e.getMessage(), ErrorCode.GENERIC_ERROR);
+        }
+    }
+
+
+    // Percent done and rows/sec of a file being processed, from the batches committed so far
+    @GetMapping("/files/{fileId}/progress")
+    public GetFileProgressResponse getProgress(@PathVariable("fileId") Integer fileId) {
+        try {
+            return dataService.getProgress(fileId);
+        } catch (ApplixException e) {
+            return new GetFileProgressResponse(fileId, null, null, null, null, e.getMessage(), ErrorCode.FILE_NOT_FOUND);
+        } catch (Exception e) {
+            return new GetFileProgressResponse(fileId, null, null, null, null, "Error : " + e.getMessage(), ErrorCode.GENERIC_ERROR);
+        }
+    }
+
+
+    // Schema of a file and the stats of each of its series (sensor × numeric column), computed while it was processed
+    @GetMapping("/files/{fileId}/series")
+    public GetFileSeriesResponse getSeries(@PathVariable("fileId") Integer fileId) {
+        try {
+            return dataService.getSeries(fileId);
+        } catch (ApplixException e) {
+            return new GetFileSeriesResponse(fileId, null, null, e.getMessage(), ErrorCode.FILE_NOT_FOUND);
+        } catch (Exception e) {
+            return new GetFileSeriesResponse(fileId, null, null, "Error : " + e.getMessage(), ErrorCode.GENERIC_ERROR);
+        }
+    }
+
+
+    // Rows written so far and their running mean/min/max, while a file is parsed during its upload (upload.mode=tee)
+    @GetMapping("/files/{fileId}/live")
+    public GetLiveIngestResponse getLiveIngest(@PathVariable("fileId") Integer fileId) {
+        try {
+            return dataService.getLiveIngest(fileId);
+        } catch (ApplixException e) {
+            return new GetLiveIngestResponse(fileId, null, null, null, null, null, null, e.getMessage(), ErrorCode.FILE_NOT_FOUND);
+        } catch (Exception e) {
+            return new GetLiveIngestResponse(fileId, null, null, null, null, null, null, "Error : " + e.getMessage(), ErrorCode.GENERIC_ERROR);
+        }
+    }
 }
\ No newline at end of file
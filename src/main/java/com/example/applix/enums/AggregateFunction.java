@@ -0,0 +1,16 @@
+package com.example.applix.enums;
+
+import java.util.Locale;
+
+public enum AggregateFunction {
+    AVG,
+    MIN,
+    MAX,
+    COUNT,
+    PERCENTILE  // p50, p90, p99.9 ... "median" is p50
+    ;
+
+    public static AggregateFunction fromProperty(String value) {
+        return AggregateFunction.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.applix.enums;
+
+public enum BlobStoreType {
+    LOCAL,  // files in file.upload-dir, readable by this node only
+    S3      // a bucket of S3 or an S3-compatible server, readable by every consumer
+    ;
+
+    public static BlobStoreType fromProperty(String value) {
+        return BlobStoreType.valueOf(value.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.applix.enums;
+
+public enum BulkWriterMode {
+    AUTO,         // try every available writer on the first batches, then keep the one with the best rows/sec
+    LOAD_DATA,    // LOAD DATA LOCAL INFILE from an in-memory stream
+    JDBC_BATCH,   // one prepared statement, rewriteBatchedStatements
+    MULTI_VALUES  // one INSERT ... VALUES (...),(...) statement per batch
+    ;
+
+    public static BulkWriterMode fromProperty(String value) {
+        return BulkWriterMode.valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.applix.enums;
+
+import java.util.Locale;
+import java.util.Set;
+
+public enum ColumnType {
+    TIMESTAMP, // ISO-8601 instant, exactly one per file
+    SENSOR,    // id of the sensor a row was read from, at most one per file
+    NUMBER     // one numeric series per sensor
+    ;
+
+    private static final Set<String> TIMESTAMP_NAMES = Set.of("timestamp", "time", "ts", "datetime");
+    private static final Set<String> SENSOR_NAMES = Set.of("sensor", "sensorid", "sensorname", "device", "deviceid", "station", "stationid");
+
+    public static ColumnType fromProperty(String value) {
+        return ColumnType.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    // Type of a header column by its name ("Sensor ID", "sensor_id" and "sensor-id" are all SENSOR)
+    public static ColumnType ofHeader(String name) {
+        String normalized = name.toLowerCase(Locale.ROOT).replaceAll("[\\s_-]", "");
+        if (TIMESTAMP_NAMES.contains(normalized)) return TIMESTAMP;
+        if (SENSOR_NAMES.contains(normalized)) return SENSOR;
+        return NUMBER;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.applix.enums;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Codec of an upload, recognised from its first bytes whatever the file is called
+public enum Compression {
+    NONE,
+    GZIP,   // 1f 8b
+    ZSTD    // 28 b5 2f fd
+    ;
+
+    private static final int MAGIC_LENGTH = 4;
+
+    public static Compression detect(byte[] head, int length) {
+        if (length >= 2 && (head[0] & 0xFF) == 0x1F && (head[1] & 0xFF) == 0x8B) return GZIP;
+        if (length >= 4 && (head[0] & 0xFF) == 0x28 && (head[1] & 0xFF) == 0xB5 && (head[2] & 0xFF) == 0x2F && (head[3] & 0xFF) == 0xFD) return ZSTD;
+        return NONE;
+    }
+
+    // Looks at the first bytes of the stream without consuming them
+    public static Compression detect(BufferedInputStream in) throws IOException {
+        in.mark(MAGIC_LENGTH);
+        byte[] head = in.readNBytes(MAGIC_LENGTH);
+        in.reset();
+        return detect(head, head.length);
+    }
+
+    public static Compression of(File file) throws IOException {
+        return of(new FileInputStream(file));
+    }
+
+    // From the first bytes of a stored upload, the stream is closed
+    public static Compression of(InputStream in) throws IOException {
+        try (in) {
+            byte[] head = in.readNBytes(MAGIC_LENGTH);
+            return detect(head, head.length);
+        }
+    }
+
+    // Concatenated gzip members / zstd frames are read as one stream
+    public InputStream decompress(InputStream in) throws IOException {
+        return switch (this) {
+            case NONE -> in;
+            case GZIP -> new GZIPInputStream(new NextMemberInputStream(in), 1 << 16);
+            case ZSTD -> new ZstdInputStream(in);
+        };
+    }
+
+    // One self-contained gzip member / zstd frame
+    public byte[] compress(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, length / 4));
+        try (OutputStream out = switch (this) {
+            case NONE -> compressed;
+            case GZIP -> new GZIPOutputStream(compressed, 1 << 16);
+            case ZSTD -> new ZstdOutputStream(compressed);
+        }) {
+            out.write(data, 0, length);
+        }
+        return compressed.toByteArray();
+    }
+
+    // GZIPInputStream only looks for a member after the current one when available() says more bytes are there,
+    // which a network stream can not always tell. At the real end of the stream it stops all the same.
+    private static final class NextMemberInputStream extends FilterInputStream {
+        private NextMemberInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return Math.max(1, super.available());
+        }
+    }
+}
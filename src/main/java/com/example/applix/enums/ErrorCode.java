@@ -5,6 +5,8 @@ import lombok.Getter;
 @Getter
 public enum ErrorCode {
     FILE_NOT_FOUND("FNF"),
+    FILE_NOT_PROCESSED("FNP"),
+    INVALID_REQUEST("IR"),
     NO_ERROR(""),
     GENERIC_ERROR("GE")
     ;
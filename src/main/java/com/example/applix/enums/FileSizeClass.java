@@ -0,0 +1,11 @@
+package com.example.applix.enums;
+
+public enum FileSizeClass {
+    SMALL, // own topic and listeners, its parse and write work is queued ahead of large files
+    LARGE  // one file at a time per listener thread, limited to a share of the ingest row budget
+    ;
+
+    public static FileSizeClass of(long sizeBytes, long smallFileMaxBytes) {
+        return sizeBytes <= smallFileMaxBytes ? SMALL : LARGE;
+    }
+}
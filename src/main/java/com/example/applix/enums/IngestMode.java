@@ -0,0 +1,11 @@
+package com.example.applix.enums;
+
+public enum IngestMode {
+    SEQUENTIAL, // one reader thread, parallel inserts
+    PARALLEL    // memory-mapped, newline-aligned byte ranges parsed on all cores
+    ;
+
+    public static IngestMode fromProperty(String value) {
+        return IngestMode.valueOf(value.trim().toUpperCase());
+    }
+}
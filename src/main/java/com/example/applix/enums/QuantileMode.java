@@ -0,0 +1,11 @@
+package com.example.applix.enums;
+
+public enum QuantileMode {
+    EXACT,      // every value kept in a primitive double[], exact quantiles
+    HISTOGRAM   // fixed-width bins over the temperature range, bounded memory
+    ;
+
+    public static QuantileMode fromProperty(String value) {
+        return QuantileMode.valueOf(value.trim().toUpperCase());
+    }
+}
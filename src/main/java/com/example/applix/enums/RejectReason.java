@@ -0,0 +1,9 @@
+package com.example.applix.enums;
+
+public enum RejectReason {
+    WRONG_COLUMN_COUNT,
+    BAD_TIMESTAMP,
+    BAD_NUMBER,
+    OUT_OF_RANGE,
+    MISSING_VALUE   // multi-column files: no sensor id, or not a single numeric value in the row
+}
@@ -0,0 +1,18 @@
+package com.example.applix.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum RollupResolution {
+    ONE_MINUTE("1m", 60),
+    ONE_HOUR("1h", 3_600),
+    ONE_DAY("1d", 86_400)
+    ;
+
+    private final String label;
+    private final int seconds;
+    RollupResolution(String label, int seconds) {
+        this.label = label;
+        this.seconds = seconds;
+    }
+}
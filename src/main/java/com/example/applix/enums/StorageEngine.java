@@ -0,0 +1,11 @@
+package com.example.applix.enums;
+
+public enum StorageEngine {
+    MYSQL,      // rows in filtered_data
+    COLUMNAR    // sorted, delta-encoded segments on disk, see ColumnarStore
+    ;
+
+    public static StorageEngine fromProperty(String value) {
+        return StorageEngine.valueOf(value.trim().toUpperCase());
+    }
+}
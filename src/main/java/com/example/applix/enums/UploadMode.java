@@ -0,0 +1,11 @@
+package com.example.applix.enums;
+
+public enum UploadMode {
+    STORE, // write the upload to disk, a Kafka consumer parses it afterwards
+    TEE    // parse and insert while the upload is still arriving, the raw file is kept for replay
+    ;
+
+    public static UploadMode fromProperty(String value) {
+        return UploadMode.valueOf(value.trim().toUpperCase());
+    }
+}
@@ -1,7 +1,20 @@
 package com.example.applix.exceptions;
 
+import com.example.applix.enums.ErrorCode;
+
 public class ApplixException extends Exception{
+    private final ErrorCode errorCode;
+
     public ApplixException(String message) {
+        this(message, ErrorCode.FILE_NOT_FOUND);
+    }
+
+    public ApplixException(String message, ErrorCode errorCode) {
         super(message);
+        this.errorCode = errorCode;
+    }
+
+    public ErrorCode getErrorCode() {
+        return errorCode;
     }
 }
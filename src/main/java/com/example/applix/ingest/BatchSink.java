@@ -0,0 +1,12 @@
+package com.example.applix.ingest;
+
+import com.example.applix.models.db.FilteredData;
+
+import java.util.List;
+
+// Receives the parsed rows of one batch, the byte range of the file they were parsed from and the serialized
+// IngestResult of the lines of that range (null where batches are not checkpointed)
+@FunctionalInterface
+public interface BatchSink {
+    void accept(List<FilteredData> rows, ByteRange source, byte[] partial);
+}
@@ -0,0 +1,155 @@
+package com.example.applix.ingest;
+
+import com.example.applix.blob.BlobStore;
+import com.example.applix.enums.Compression;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Where the independent blocks of a block split upload (see BlockSplitUpload) start, in the compressed file and in
+// the CSV. Kept next to the upload as <name>.blocks, in the BlobStore as well. Byte ranges over the compressed file always cover whole blocks,
+// the offsets of parsed lines (and so of checkpoints) are CSV offsets.
+public class BlockIndex {
+    private static final int FORMAT_VERSION = 1;
+
+    private final Compression compression;
+    private final long[] compressedStarts;      // one per block, then the end of the file
+    private final long[] uncompressedStarts;    // one per block, then the size of the CSV
+
+    private BlockIndex(Compression compression, long[] compressedStarts, long[] uncompressedStarts) {
+        this.compression = compression;
+        this.compressedStarts = compressedStarts;
+        this.uncompressedStarts = uncompressedStarts;
+    }
+
+    public static File indexFile(File upload) {
+        return new File(upload.getPath() + ".blocks");
+    }
+
+    public static String indexKey(String uploadKey) {
+        return uploadKey + ".blocks";
+    }
+
+    // null when the upload was not block split (uncompressed, or compressed but stored as it was received)
+    public static BlockIndex load(File upload) throws IOException {
+        File file = indexFile(upload);
+        return file.exists() ? readFrom(new FileInputStream(file)) : null;
+    }
+
+    public static BlockIndex load(BlobStore blobStore, String uploadKey) throws IOException {
+        String key = indexKey(uploadKey);
+        return blobStore.exists(key) ? readFrom(blobStore.open(key)) : null;
+    }
+
+    private static BlockIndex readFrom(InputStream stream) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) throw new IOException("Unsupported block index version " + version);
+            Compression compression = Compression.values()[in.readUnsignedByte()];
+            int entries = in.readInt();
+            long[] compressedStarts = new long[entries];
+            long[] uncompressedStarts = new long[entries];
+            for (int i = 0; i < entries; i++) {
+                compressedStarts[i] = in.readLong();
+                uncompressedStarts[i] = in.readLong();
+            }
+            return new BlockIndex(compression, compressedStarts, uncompressedStarts);
+        }
+    }
+
+    public void writeTo(File upload) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile(upload))))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeByte(compression.ordinal());
+            out.writeInt(compressedStarts.length);
+            for (int i = 0; i < compressedStarts.length; i++) {
+                out.writeLong(compressedStarts[i]);
+                out.writeLong(uncompressedStarts[i]);
+            }
+        }
+    }
+
+    public Compression compression() {
+        return compression;
+    }
+
+    public int blockCount() {
+        return compressedStarts.length - 1;
+    }
+
+    public long uncompressedSize() {
+        return uncompressedStarts[blockCount()];
+    }
+
+    // CSV offset of the block starting at this compressed offset
+    public long uncompressedStart(long compressedStart) {
+        int block = Arrays.binarySearch(compressedStarts, compressedStart);
+        if (block < 0) throw new IllegalArgumentException("No block starts at " + compressedStart);
+        return uncompressedStarts[block];
+    }
+
+    // CSV offsets of a range of whole blocks, e.g. one of split()
+    public ByteRange uncompressed(ByteRange range) {
+        return new ByteRange(uncompressedStart(range.start()), uncompressedStart(range.end()));
+    }
+
+    // The blocks starting inside range, as at most parts ranges of whole blocks with about the same compressed size
+    public List<ByteRange> split(ByteRange range, int parts) {
+        int first = firstBlockAtOrAfter(range.start());
+        int end = firstBlockAtOrAfter(range.end());
+        List<ByteRange> ranges = new ArrayList<>();
+        if (first >= end) return ranges;
+
+        long targetSize = Math.max(1, (compressedStarts[end] - compressedStarts[first]) / Math.max(1, parts));
+        int start = first;
+        for (int block = first + 1; block <= end; block++) {
+            if (block == end || compressedStarts[block] - compressedStarts[start] >= targetSize) {
+                ranges.add(new ByteRange(compressedStarts[start], compressedStarts[block]));
+                start = block;
+            }
+        }
+        return ranges;
+    }
+
+    private int firstBlockAtOrAfter(long offset) {
+        int index = Arrays.binarySearch(compressedStarts, 0, blockCount(), offset);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // Filled block by block while an upload is split
+    public static class Builder {
+        private final Compression compression;
+        private long[] compressedStarts = new long[64];
+        private long[] uncompressedStarts = new long[64];
+        private int count;
+
+        public Builder(Compression compression) {
+            this.compression = compression;
+        }
+
+        public void add(long compressedStart, long uncompressedStart) {
+            if (count == compressedStarts.length) {
+                compressedStarts = Arrays.copyOf(compressedStarts, count * 2);
+                uncompressedStarts = Arrays.copyOf(uncompressedStarts, count * 2);
+            }
+            compressedStarts[count] = compressedStart;
+            uncompressedStarts[count] = uncompressedStart;
+            count++;
+        }
+
+        public BlockIndex build(long compressedEnd, long uncompressedEnd) {
+            add(compressedEnd, uncompressedEnd);
+            return new BlockIndex(compression, Arrays.copyOf(compressedStarts, count), Arrays.copyOf(uncompressedStarts, count));
+        }
+    }
+}
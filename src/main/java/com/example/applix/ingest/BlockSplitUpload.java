@@ -0,0 +1,90 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.Compression;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Stores a compressed upload as independent gzip members / zstd frames of about blockBytes of CSV each, every one
+// ending on a line, plus a BlockIndex of where they start. The file is still a valid .gz / .zst, and groups of blocks
+// can be decompressed and parsed in parallel like the byte ranges of an uncompressed upload.
+// Size, line count and CRC32C of the StoredUpload are those of the CSV.
+// A block only grows for a line that does not fit in it, up to MAX_LINE_BYTES: a line that fills a block of
+// max(blockBytes, MAX_LINE_BYTES) rejects the upload, and the partial target is deleted.
+public final class BlockSplitUpload {
+    static final int MAX_LINE_BYTES = 1 << 20;
+
+    private BlockSplitUpload() {
+    }
+
+    public static StoredUpload copy(InputStream decompressed, File target, Compression compression, int blockBytes) throws IOException {
+        try {
+            return copyBlocks(decompressed, target, compression, blockBytes);
+        } catch (IOException e) {
+            Files.deleteIfExists(target.toPath());
+            throw e;
+        }
+    }
+
+    private static StoredUpload copyBlocks(InputStream decompressed, File target, Compression compression, int blockBytes) throws IOException {
+        UploadDigest digest = new UploadDigest();
+        BlockIndex.Builder index = new BlockIndex.Builder(compression);
+        byte[] block = new byte[blockBytes];
+        int filled = 0;
+        long compressedOffset = 0;
+        long uncompressedOffset = 0;
+
+        try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int n;
+            while ((n = decompressed.read(block, filled, block.length - filled)) != -1) {
+                digest.update(block, filled, n);
+                filled += n;
+                if (filled < block.length) continue;
+
+                int cut = afterLastLine(block, filled);
+                if (cut == 0) { // one line longer than a block
+                    if (filled >= MAX_LINE_BYTES) {
+                        throw new IOException("Line at byte " + uncompressedOffset + " is longer than " + MAX_LINE_BYTES + " bytes");
+                    }
+                    block = Arrays.copyOf(block, Math.min(block.length * 2, MAX_LINE_BYTES + 1));
+                    continue;
+                }
+                index.add(compressedOffset, uncompressedOffset);
+                compressedOffset += write(out, compression.compress(block, cut));
+                uncompressedOffset += cut;
+                System.arraycopy(block, cut, block, 0, filled - cut);
+                filled -= cut;
+            }
+            if (filled > 0) {
+                index.add(compressedOffset, uncompressedOffset);
+                compressedOffset += write(out, compression.compress(block, filled));
+                uncompressedOffset += filled;
+            }
+        }
+
+        index.build(compressedOffset, uncompressedOffset).writeTo(target);
+        return digest.toStoredUpload(target);
+    }
+
+    // Length of the block up to its last complete line. A trailing '\r' may be the first half of "\r\n", it stays.
+    private static int afterLastLine(byte[] block, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (block[i] == '\n' || (block[i] == '\r' && i < length - 1)) return i + 1;
+        }
+        return 0;
+    }
+
+    private static int write(FileChannel out, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        return bytes.length;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.applix.ingest;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+// A new thread per task (virtual threads are cheap to start, pooling them buys nothing), at most maxConcurrent running.
+// Tasks beyond that wait in a priority queue, so queued work is still taken in the order of its Comparable.
+class BoundedThreadPerTaskExecutor implements Executor {
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final ThreadFactory threadFactory;
+    private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+    private volatile boolean shutdown;
+
+    BoundedThreadPerTaskExecutor(int maxConcurrent, ThreadFactory threadFactory) {
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.threadFactory = threadFactory;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) throw new RejectedExecutionException("Executor is shut down");
+        queue.add(task);
+        startQueued();
+    }
+
+    int queueSize() {
+        return queue.size();
+    }
+
+    int activeCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    // queued tasks still run
+    void shutdown() {
+        shutdown = true;
+    }
+
+    // Every caller adds before it acquires and every finishing thread releases before it looks again, so a queued
+    // task is never left behind with a free permit
+    private void startQueued() {
+        while (!queue.isEmpty() && permits.tryAcquire()) {
+            Runnable task = queue.poll();
+            if (task == null) {
+                permits.release();
+                continue;
+            }
+            threadFactory.newThread(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                    startQueued();
+                }
+            }).start();
+        }
+    }
+}
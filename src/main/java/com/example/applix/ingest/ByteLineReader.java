@@ -0,0 +1,102 @@
+package com.example.applix.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+// Splits a byte stream into lines without decoding it. '\n', '\r' and "\r\n" all end a line, like
+// BufferedReader.readLine(); empty lines are skipped since they can never hold a record.
+public class ByteLineReader {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    private long bufferOffset; // absolute offset of buffer[0]
+    private int lineStart;
+    private int lineEnd;
+
+    public ByteLineReader(InputStream in, long startOffset) {
+        this(in, startOffset, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ByteLineReader(InputStream in, long startOffset, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+        this.bufferOffset = startOffset;
+    }
+
+    public boolean next() throws IOException {
+        int scan = position;
+        while (true) {
+            if (scan == limit) {
+                if (eof) {
+                    if (position == limit) return false;
+                    lineStart = position; // last line without a terminator
+                    lineEnd = limit;
+                    position = limit;
+                    return true;
+                }
+                int scanned = scan - position;
+                fill();
+                scan = position + scanned;
+                continue;
+            }
+            byte b = buffer[scan];
+            if (b == '\n' || b == '\r') {
+                if (scan > position) {
+                    lineStart = position;
+                    lineEnd = scan;
+                    position = scan + 1;
+                    return true;
+                }
+                position = scan + 1; // empty line
+            }
+            scan++;
+        }
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int lineStart() {
+        return lineStart;
+    }
+
+    public int lineEnd() {
+        return lineEnd;
+    }
+
+    // Absolute offset of the first byte of the current line.
+    public long lineOffset() {
+        return bufferOffset + lineStart;
+    }
+
+    // Absolute offset just past the terminator of the current line.
+    public long nextLineOffset() {
+        return bufferOffset + position;
+    }
+
+    private void fill() throws IOException {
+        if (position > 0) {
+            int remaining = limit - position;
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+            bufferOffset += position;
+            limit = remaining;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2); // a single line longer than the buffer
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+}
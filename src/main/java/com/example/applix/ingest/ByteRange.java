@@ -0,0 +1,8 @@
+package com.example.applix.ingest;
+
+// [start, end) byte offsets of a file. Ranges produced by FileRangeSplitter always start at the beginning of a line.
+public record ByteRange(long start, long end) {
+    public long length() {
+        return end - start;
+    }
+}
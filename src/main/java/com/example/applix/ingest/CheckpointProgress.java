@@ -0,0 +1,5 @@
+package com.example.applix.ingest;
+
+// Committed batches of a file being processed, summed over its ingest checkpoints (on every consumer instance)
+public record CheckpointProgress(long bytesCommitted, long rowsCommitted, long recentRows) {
+}
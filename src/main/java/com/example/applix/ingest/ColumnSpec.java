@@ -0,0 +1,19 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.ColumnType;
+
+// One column of a CsvSchema. Values of a NUMBER column outside [min, max] reject the row; infinite bounds are open.
+public record ColumnSpec(String name, ColumnType type, double min, double max) {
+
+    public static ColumnSpec of(String name, ColumnType type) {
+        return new ColumnSpec(name, type, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    public boolean isBounded() {
+        return min != Double.NEGATIVE_INFINITY || max != Double.POSITIVE_INFINITY;
+    }
+
+    public ColumnSpec withRange(double min, double max) {
+        return new ColumnSpec(name, type, min, max);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.applix.ingest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Byte ranges of a file whose rows are already committed (ingest checkpoints), merged into disjoint sorted ranges.
+// A resumed ingest reads only the gaps between them; the stats of the covered lines come with their checkpoints.
+public class CoveredRanges {
+    public static final CoveredRanges NONE = new CoveredRanges(List.of());
+
+    private final long[] starts;
+    private final long[] ends;
+
+    public CoveredRanges(List<ByteRange> ranges) {
+        List<ByteRange> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(ByteRange::start));
+
+        List<ByteRange> merged = new ArrayList<>();
+        for (ByteRange range : sorted) {
+            ByteRange last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range.start() <= last.end()) {
+                merged.set(merged.size() - 1, new ByteRange(last.start(), Math.max(last.end(), range.end())));
+            } else {
+                merged.add(range);
+            }
+        }
+
+        starts = merged.stream().mapToLong(ByteRange::start).toArray();
+        ends = merged.stream().mapToLong(ByteRange::end).toArray();
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    public boolean contains(long offset) {
+        int low = 0;
+        int high = starts.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (offset < starts[mid]) high = mid - 1;
+            else if (offset >= ends[mid]) low = mid + 1;
+            else return true;
+        }
+        return false;
+    }
+
+    // true if every byte of range is covered
+    public boolean covers(ByteRange range) {
+        return gaps(range).isEmpty();
+    }
+
+    // The parts of range no covered range overlaps, in order
+    public List<ByteRange> gaps(ByteRange range) {
+        List<ByteRange> gaps = new ArrayList<>();
+        long position = range.start();
+        for (int i = 0; i < starts.length && position < range.end(); i++) {
+            if (ends[i] <= position) continue;
+            if (starts[i] > position) gaps.add(new ByteRange(position, Math.min(starts[i], range.end())));
+            position = Math.max(position, ends[i]);
+        }
+        if (position < range.end()) gaps.add(new ByteRange(position, range.end()));
+        return gaps;
+    }
+
+    public long coveredBytes() {
+        long total = 0;
+        for (int i = 0; i < starts.length; i++) {
+            total += ends[i] - starts[i];
+        }
+        return total;
+    }
+}
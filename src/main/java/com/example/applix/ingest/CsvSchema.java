@@ -0,0 +1,161 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.ColumnType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Columns of an upload: exactly one timestamp, at most one sensor id and one or more numeric columns, each numeric
+// column with the range its values are validated against. Given with the upload or detected from its header line
+// (see SchemaResolver), and kept in files_table.csv_schema as "name:type[:min:max],...". Files without a header are LEGACY.
+// Each sensor × numeric column is a series; a file with a single one is parsed by TemperatureLineParser as before.
+public final class CsvSchema {
+    public static final CsvSchema LEGACY = new CsvSchema(List.of(
+            ColumnSpec.of("timestamp", ColumnType.TIMESTAMP),
+            new ColumnSpec("temperature", ColumnType.NUMBER, TemperatureLineParser.MIN_TEMPERATURE, TemperatureLineParser.MAX_TEMPERATURE)));
+
+    private final List<ColumnSpec> columns;
+    private final int timestampColumn;
+    private final int sensorColumn;
+    private final int[] numberColumns;
+
+    public CsvSchema(List<ColumnSpec> columns) {
+        this.columns = List.copyOf(columns);
+        int timestamp = -1;
+        int sensor = -1;
+        List<Integer> numbers = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnSpec column = columns.get(i);
+            if (column.name().isEmpty() || column.name().contains(",") || column.name().contains(":")) {
+                throw new IllegalArgumentException("Invalid column name '" + column.name() + "'");
+            }
+            if (!names.add(column.name())) throw new IllegalArgumentException("Duplicate column '" + column.name() + "'");
+            if (column.min() > column.max()) throw new IllegalArgumentException("Empty range for column '" + column.name() + "'");
+            switch (column.type()) {
+                case TIMESTAMP -> {
+                    if (timestamp >= 0) throw new IllegalArgumentException("More than one timestamp column");
+                    timestamp = i;
+                }
+                case SENSOR -> {
+                    if (sensor >= 0) throw new IllegalArgumentException("More than one sensor column");
+                    sensor = i;
+                }
+                case NUMBER -> numbers.add(i);
+            }
+        }
+        if (timestamp < 0) throw new IllegalArgumentException("No timestamp column");
+        if (numbers.isEmpty()) throw new IllegalArgumentException("No numeric column");
+        this.timestampColumn = timestamp;
+        this.sensorColumn = sensor;
+        this.numberColumns = numbers.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // "name:type[:min:max],...", an empty bound is open. null or blank is LEGACY.
+    public static CsvSchema parse(String spec) {
+        if (spec == null || spec.isBlank()) return LEGACY;
+        List<ColumnSpec> columns = new ArrayList<>();
+        for (String column : spec.split(",")) {
+            String[] parts = column.trim().split(":", -1);
+            if (parts.length != 2 && parts.length != 4) throw new IllegalArgumentException("Invalid column '" + column.trim() + "', expected name:type[:min:max]");
+            ColumnType type;
+            try {
+                type = ColumnType.fromProperty(parts[1]);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown column type '" + parts[1].trim() + "'");
+            }
+            ColumnSpec parsed = ColumnSpec.of(parts[0].trim(), type);
+            if (parts.length == 4) {
+                if (type != ColumnType.NUMBER) throw new IllegalArgumentException("Only numeric columns have a range: '" + column.trim() + "'");
+                parsed = parsed.withRange(bound(parts[2], Double.NEGATIVE_INFINITY), bound(parts[3], Double.POSITIVE_INFINITY));
+            }
+            columns.add(parsed);
+        }
+        return new CsvSchema(columns);
+    }
+
+    public String toSpec() {
+        StringBuilder spec = new StringBuilder();
+        for (ColumnSpec column : columns) {
+            if (!spec.isEmpty()) spec.append(',');
+            spec.append(column.name()).append(':').append(column.type().name().toLowerCase(Locale.ROOT));
+            if (column.isBounded()) {
+                spec.append(':').append(column.min() == Double.NEGATIVE_INFINITY ? "" : column.min())
+                        .append(':').append(column.max() == Double.POSITIVE_INFINITY ? "" : column.max());
+            }
+        }
+        return spec.toString();
+    }
+
+    // A header has no value in it: every column is a name starting with a letter, '_' or a quote,
+    // while a row always has a timestamp starting with a digit or a sign
+    public static boolean isHeader(byte[] buf, int start, int end) {
+        boolean fieldStart = true;
+        for (int i = start; i < end; i++) {
+            byte b = buf[i];
+            if (b == ',') {
+                if (fieldStart) return false; // empty column
+                fieldStart = true;
+            } else if (fieldStart && (b & 0xFF) > ' ') {
+                if (b >= 0 && !Character.isLetter(b) && b != '_' && b != '"') return false; // non-ASCII can only be part of a name
+                fieldStart = false;
+            }
+        }
+        return !fieldStart;
+    }
+
+    // Column names of a header line, trimmed and unquoted
+    public static List<String> headerNames(String line) {
+        List<String> names = new ArrayList<>();
+        for (String name : line.split(",", -1)) {
+            String trimmed = name.trim();
+            if (trimmed.length() >= 2 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) trimmed = trimmed.substring(1, trimmed.length() - 1).trim();
+            names.add(trimmed);
+        }
+        return names;
+    }
+
+    // timestamp,number with no sensor: stored like any file before schemas existed (filtered_data or one columnar file)
+    public boolean isSingleSeries() {
+        return columns.size() == 2 && timestampColumn == 0 && sensorColumn < 0;
+    }
+
+    public List<ColumnSpec> columns() {
+        return columns;
+    }
+
+    public int timestampColumn() {
+        return timestampColumn;
+    }
+
+    // -1 without a sensor column
+    public int sensorColumn() {
+        return sensorColumn;
+    }
+
+    public int numberCount() {
+        return numberColumns.length;
+    }
+
+    // The n-th numeric column, in file order
+    public ColumnSpec numberColumn(int n) {
+        return columns.get(numberColumns[n]);
+    }
+
+    @Override
+    public String toString() {
+        return toSpec();
+    }
+
+    private static double bound(String value, double open) {
+        if (value.isBlank()) return open;
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid bound '" + value.trim() + "'");
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.applix.ingest;
+
+// Kafka event (JSON) for one newline-aligned byte range [start, end) of a large upload (BlobStore key), chunk index of chunkCount
+public record FileChunkEvent(int fileId, String key, int index, int chunkCount, long start, long end) {
+    public ByteRange range() {
+        return new ByteRange(start, end);
+    }
+}
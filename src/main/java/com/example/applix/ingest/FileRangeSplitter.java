@@ -0,0 +1,65 @@
+package com.example.applix.ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class FileRangeSplitter {
+    // A single mapping can not exceed Integer.MAX_VALUE bytes, keep ranges well below that.
+    public static final long MAX_RANGE_SIZE = 512L * 1024 * 1024;
+    private static final int PROBE_SIZE = 8 * 1024;
+
+    private FileRangeSplitter() {
+    }
+
+    // Up to buffer.length bytes at position, -1 past the end: a FileChannel, or ranged reads of a blob
+    @FunctionalInterface
+    public interface PositionalReader {
+        int read(byte[] buffer, long position) throws IOException;
+    }
+
+    // Splits the file into roughly equal ranges, moving every split point forward to the first byte after a
+    // line terminator so that no line is shared by two ranges.
+    public static List<ByteRange> split(FileChannel channel, int parallelism) throws IOException {
+        return split(channel, new ByteRange(0, channel.size()), parallelism);
+    }
+
+    // Same within one line-aligned range of the file, e.g. the chunk of a chunk event
+    public static List<ByteRange> split(FileChannel channel, ByteRange range, int parallelism) throws IOException {
+        return split((buffer, position) -> channel.read(ByteBuffer.wrap(buffer), position), range, parallelism);
+    }
+
+    public static List<ByteRange> split(PositionalReader reader, ByteRange range, int parallelism) throws IOException {
+        long size = range.end();
+        List<ByteRange> ranges = new ArrayList<>();
+        if (range.length() <= 0) return ranges;
+
+        long rangeCount = Math.max(parallelism, (range.length() + MAX_RANGE_SIZE - 1) / MAX_RANGE_SIZE);
+        long targetSize = Math.max(1, range.length() / rangeCount);
+
+        long start = range.start();
+        while (start < size) {
+            long end = start + targetSize >= size ? size : nextLineStart(reader, start + targetSize, size);
+            ranges.add(new ByteRange(start, end));
+            start = end;
+        }
+        return ranges;
+    }
+
+    private static long nextLineStart(PositionalReader reader, long position, long size) throws IOException {
+        byte[] probe = new byte[PROBE_SIZE];
+        long cursor = position - 1; // the split point is already a line start if the previous byte ends a line
+        while (cursor < size) {
+            int read = reader.read(probe, cursor);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                byte b = probe[i];
+                if (b == '\n' || b == '\r') return cursor + i + 1;
+            }
+            cursor += read;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.RejectReason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Upload and file processing meters, under /actuator/metrics:
+//   upload.duration{mode}                   request time of an upload (sync, async, tee)
+//   ingest.file.duration{path,outcome}      parse + write time of a file or chunk event
+//   ingest.rows.rate{path}                  rows/sec of every processed file or chunk, over parse + write time
+//   ingest.rows.accepted / ingest.rows.rejected{reason}
+//   ingest.kafka.lag{topic}                 time a file event waited in Kafka before a consumer took it
+// Timers and summaries publish percentile histograms. Batch insert latency is ingest.writer.batch{writer}
+// (BulkWriterSelector), queue depths ingest.pipeline.* (IngestPipeline).
+@Component
+public class IngestMetrics {
+    private final MeterRegistry meterRegistry;
+    private final Counter acceptedRows;
+    private final Map<RejectReason, Counter> rejectedRows = new EnumMap<>(RejectReason.class);
+
+    public IngestMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.acceptedRows = Counter.builder("ingest.rows.accepted").register(meterRegistry);
+        for (RejectReason reason : RejectReason.values()) {
+            rejectedRows.put(reason, Counter.builder("ingest.rows.rejected").tag("reason", reason.name()).register(meterRegistry));
+        }
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void recordUpload(Timer.Sample sample, String mode) {
+        sample.stop(Timer.builder("upload.duration").tag("mode", mode).publishPercentileHistogram().register(meterRegistry));
+    }
+
+    public void recordFile(Timer.Sample sample, String path, IngestResult result) {
+        long nanos = sample.stop(fileTimer(path, "success"));
+        long rows = result.getStats().getCount();
+        if (nanos > 0) {
+            DistributionSummary.builder("ingest.rows.rate").baseUnit("rows/s").tag("path", path).publishPercentileHistogram()
+                    .register(meterRegistry).record(rows * 1_000_000_000.0 / nanos);
+        }
+        acceptedRows.increment(rows);
+        result.getRejects().asMap().forEach((reason, count) -> rejectedRows.get(reason).increment(count));
+    }
+
+    public void recordFileFailure(Timer.Sample sample, String path) {
+        sample.stop(fileTimer(path, "failure"));
+    }
+
+    public void recordKafkaLag(String topic, long eventTimestampMillis) {
+        long lagMillis = Math.max(0, System.currentTimeMillis() - eventTimestampMillis);
+        Timer.builder("ingest.kafka.lag").tag("topic", topic).publishPercentileHistogram().register(meterRegistry).record(Duration.ofMillis(lagMillis));
+    }
+
+    private Timer fileTimer(String path, String outcome) {
+        return Timer.builder("ingest.file.duration").tag("path", path).tag("outcome", outcome).publishPercentileHistogram().register(meterRegistry);
+    }
+}
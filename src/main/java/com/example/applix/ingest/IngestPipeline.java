@@ -0,0 +1,216 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.FileSizeClass;
+import com.example.applix.models.db.FilteredData;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Parse and write stages shared by every file being processed.
+// Parsed batches wait for a share of the row budget before they are queued for the writers, so a reader that is
+// faster than the database blocks instead of buffering the file in memory, however many files are in flight.
+// The thread counts cap the CPU and database share of ingest. Queued work of small files runs before that of large
+// files, and large files only get largeFileShare of the row budget, so a small file never waits for a large one.
+// With spring.threads.virtual.enabled on Java 21 each batch is written on a new virtual thread instead of a pooled
+// writer thread, writers of them at a time, which still caps the connections ingest takes from the pool.
+@Component
+public class IngestPipeline {
+    private final ThreadPoolExecutor parsers;
+    private final Executor writers;
+    private final Semaphore rowBudget;
+    private final Semaphore largeFileBudget;
+    private final int maxInFlightRows;
+    private final int maxLargeFileRows;
+    private final AtomicInteger activeJobs = new AtomicInteger();
+    private final AtomicLong taskSequence = new AtomicLong();
+
+    public IngestPipeline(@Value("${ingest.pipeline.parsers:0}") int parserThreads,
+                          @Value("${ingest.pipeline.writers:4}") int writerThreads,
+                          @Value("${ingest.pipeline.max-in-flight-rows:500000}") int maxInFlightRows,
+                          @Value("${ingest.pipeline.large-file-share:0.8}") double largeFileShare,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                          MeterRegistry meterRegistry) {
+        int parserCount = parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors();
+        this.parsers = newPool(parserCount, platformThreads("ingest-parser-"));
+        ThreadFactory virtualWriters = virtualThreads ? virtualThreads("ingest-writer-") : null;
+        this.writers = virtualWriters != null
+                ? new BoundedThreadPerTaskExecutor(Math.max(1, writerThreads), virtualWriters)
+                : newPool(Math.max(1, writerThreads), platformThreads("ingest-writer-"));
+        this.maxInFlightRows = maxInFlightRows;
+        this.maxLargeFileRows = Math.max(1, (int) (maxInFlightRows * largeFileShare));
+        this.rowBudget = new Semaphore(maxInFlightRows);
+        this.largeFileBudget = new Semaphore(maxLargeFileRows);
+
+        Gauge.builder("ingest.pipeline.parse.queue", parsers, pool -> pool.getQueue().size()).description("Byte ranges waiting for a parser thread").register(meterRegistry);
+        Gauge.builder("ingest.pipeline.parse.active", parsers, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("ingest.pipeline.write.queue", writers, IngestPipeline::queueSize).description("Batches waiting for a writer thread").register(meterRegistry);
+        Gauge.builder("ingest.pipeline.write.active", writers, IngestPipeline::activeCount).register(meterRegistry);
+        Gauge.builder("ingest.pipeline.rows.in-flight", rowBudget, budget -> maxInFlightRows - budget.availablePermits()).description("Parsed rows not written yet").register(meterRegistry);
+        Gauge.builder("ingest.pipeline.jobs.active", activeJobs, AtomicInteger::get).register(meterRegistry);
+    }
+
+    public Job newJob(BatchSink sink, FileSizeClass sizeClass) {
+        activeJobs.incrementAndGet();
+        return new Job(sink, sizeClass);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parsers.shutdownNow();
+        if (writers instanceof ThreadPoolExecutor pool) pool.shutdown();
+        if (writers instanceof BoundedThreadPerTaskExecutor perTask) perTask.shutdown();
+    }
+
+    private static int queueSize(Executor executor) {
+        return executor instanceof ThreadPoolExecutor pool ? pool.getQueue().size() : ((BoundedThreadPerTaskExecutor) executor).queueSize();
+    }
+
+    private static int activeCount(Executor executor) {
+        return executor instanceof ThreadPoolExecutor pool ? pool.getActiveCount() : ((BoundedThreadPerTaskExecutor) executor).activeCount();
+    }
+
+    private static ThreadPoolExecutor newPool(int threads, ThreadFactory threadFactory) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), threadFactory);
+    }
+
+    private static ThreadFactory platformThreads(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // null on Java 17
+    private static ThreadFactory virtualThreads(String namePrefix) {
+        try {
+            return new VirtualThreadTaskExecutor(namePrefix).getVirtualThreadFactory();
+        } catch (UnsupportedOperationException e) {
+            System.out.println("⚠️ Virtual threads need Java 21, ingest writers use platform threads");
+            return null;
+        }
+    }
+
+    // Queue entry of the parser and writer pools: small files first, then in submission order
+    private class PrioritizedTask<T> extends FutureTask<T> implements Comparable<PrioritizedTask<?>> {
+        private final FileSizeClass sizeClass;
+        private final long sequence = taskSequence.incrementAndGet();
+
+        private PrioritizedTask(Callable<T> task, FileSizeClass sizeClass) {
+            super(task);
+            this.sizeClass = sizeClass;
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask<?> other) {
+            int bySize = sizeClass.compareTo(other.sizeClass);
+            return bySize != 0 ? bySize : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    // The batches of one file. await() returns once all of them are written and reports the first write failure.
+    public class Job {
+        private final BatchSink sink;
+        private final FileSizeClass sizeClass;
+        private int pending;
+        private boolean closed;
+        private Throwable failure;
+
+        private Job(BatchSink sink, FileSizeClass sizeClass) {
+            this.sink = sink;
+            this.sizeClass = sizeClass;
+        }
+
+        public <T> Future<T> parse(Callable<T> task) {
+            PrioritizedTask<T> prioritized = new PrioritizedTask<>(task, sizeClass);
+            parsers.execute(prioritized);
+            return prioritized;
+        }
+
+        // Blocks while the pipeline already holds its row budget. source is the byte range the batch was parsed from.
+        public void submit(List<FilteredData> batch, ByteRange source) throws IOException {
+            submit(batch, source, null);
+        }
+
+        // partial : serialized stats, rejects and rollups of the lines of source, stored with the batch's checkpoint
+        public void submit(List<FilteredData> batch, ByteRange source, byte[] partial) throws IOException {
+            int permits = Math.min(batch.size(), maxInFlightRows);
+            int largeFilePermits = sizeClass == FileSizeClass.LARGE ? Math.min(batch.size(), maxLargeFileRows) : 0;
+            try {
+                largeFileBudget.acquire(largeFilePermits);
+                try {
+                    rowBudget.acquire(permits);
+                } catch (InterruptedException e) {
+                    largeFileBudget.release(largeFilePermits);
+                    throw e;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the ingest writers");
+            }
+            synchronized (this) {
+                if (closed || failure != null) {
+                    release(permits, largeFilePermits);
+                    throw new IOException("Ingest job is closed", failure);
+                }
+                pending++;
+            }
+
+            writers.execute(new PrioritizedTask<>(Executors.callable(() -> {
+                Throwable error = null;
+                try {
+                    sink.accept(batch, source, partial);
+                } catch (Throwable t) {
+                    error = t;
+                } finally {
+                    release(permits, largeFilePermits);
+                    done(error);
+                }
+            }), sizeClass));
+        }
+
+        public void await() throws IOException {
+            synchronized (this) {
+                if (!closed) activeJobs.decrementAndGet();
+                closed = true;
+                try {
+                    while (pending > 0) wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the ingest writers");
+                }
+                if (failure != null) throw new IOException("Failed to write a batch : " + failure.getMessage(), failure);
+            }
+        }
+
+        private void release(int permits, int largeFilePermits) {
+            rowBudget.release(permits);
+            largeFileBudget.release(largeFilePermits);
+        }
+
+        private synchronized void done(Throwable error) {
+            if (error != null && failure == null) failure = error; // reported by await()
+            if (--pending == 0) notifyAll();
+        }
+    }
+}
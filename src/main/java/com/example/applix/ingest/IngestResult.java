@@ -0,0 +1,128 @@
+package com.example.applix.ingest;
+
+import com.example.applix.stats.RollupBuilder;
+import com.example.applix.stats.TemperatureStats;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of parsing a file or one range of it: stats and time rollups of the accepted rows, counts of the rejected ones.
+// Multi-column files also get the stats of every series, by SeriesRegistry index; series 0 shares stats and rollups.
+@Getter
+public class IngestResult {
+    private static final int FORMAT_VERSION = 3;
+
+    private final TemperatureStats stats;
+    private final RejectCounters rejects;
+    private final RollupBuilder rollups;
+    private final List<Series> series = new ArrayList<>(); // null where this range had no value of a series
+    @Getter(AccessLevel.NONE)
+    private final SeriesRegistry registry; // null for single series files and results read back
+
+    public record Series(String sensor, String column, TemperatureStats stats) {
+    }
+
+    // Rollups of the legacy temperature column
+    public IngestResult(TemperatureStats stats) {
+        this(stats, new RejectCounters(), new RollupBuilder(), null);
+    }
+
+    // Rollups of column, whose range their hourly histograms cover
+    public IngestResult(TemperatureStats stats, ColumnSpec column) {
+        this(stats, new RejectCounters(), new RollupBuilder(column.min(), column.max()), null);
+    }
+
+    // Series 0, the one rolled up, is the first numeric column
+    public IngestResult(TemperatureStats stats, SeriesRegistry registry) {
+        this(stats, new RejectCounters(), new RollupBuilder(registry.schema().numberColumn(0).min(), registry.schema().numberColumn(0).max()), registry);
+    }
+
+    private IngestResult(TemperatureStats stats, RejectCounters rejects, RollupBuilder rollups, SeriesRegistry registry) {
+        this.stats = stats;
+        this.rejects = rejects;
+        this.rollups = rollups;
+        this.registry = registry;
+    }
+
+    public void accept(long epochSecond, double temperature) {
+        stats.accept(temperature);
+        rollups.accept(epochSecond, temperature);
+    }
+
+    public void acceptSeries(int index, long epochSecond, double value) {
+        Series entry = index < series.size() ? series.get(index) : null;
+        if (entry == null) {
+            entry = new Series(registry.sensorOf(index), registry.columnOf(index), index == 0 ? stats : registry.newStats(index));
+            setSeries(index, entry);
+        }
+        if (index == 0) {
+            accept(epochSecond, value);
+        } else {
+            entry.stats().accept(value);
+        }
+    }
+
+    public List<Series> getSeries() {
+        return Collections.unmodifiableList(series);
+    }
+
+    public void merge(IngestResult other) {
+        stats.merge(other.stats);
+        rejects.merge(other.rejects);
+        rollups.merge(other.rollups);
+        for (int i = 0; i < other.series.size(); i++) {
+            Series theirs = other.series.get(i);
+            if (theirs == null) continue;
+            Series mine = i < series.size() ? series.get(i) : null;
+            if (i == 0) {
+                if (mine == null) setSeries(0, new Series(theirs.sensor(), theirs.column(), stats)); // merged with stats above
+            } else if (mine == null) {
+                setSeries(i, theirs);
+            } else {
+                mine.stats().merge(theirs.stats());
+            }
+        }
+    }
+
+    // Partial result of one chunk of a file, merged by whichever consumer completes the last chunk
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        stats.writeTo(out);
+        rejects.writeTo(out);
+        rollups.writeTo(out);
+        out.writeInt(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            Series entry = series.get(i);
+            out.writeBoolean(entry != null);
+            if (entry == null) continue;
+            out.writeBoolean(entry.sensor() != null);
+            if (entry.sensor() != null) out.writeUTF(entry.sensor());
+            out.writeUTF(entry.column());
+            if (i > 0) entry.stats().writeTo(out);
+        }
+    }
+
+    public static IngestResult readFrom(DataInput in) throws IOException {
+        if (in.readInt() != FORMAT_VERSION) throw new IOException("Unsupported ingest result format");
+        IngestResult result = new IngestResult(TemperatureStats.readFrom(in), RejectCounters.readFrom(in), RollupBuilder.readFrom(in), null);
+        int seriesCount = in.readInt();
+        for (int i = 0; i < seriesCount; i++) {
+            if (!in.readBoolean()) continue;
+            String sensor = in.readBoolean() ? in.readUTF() : null;
+            String column = in.readUTF();
+            result.setSeries(i, new Series(sensor, column, i == 0 ? result.stats : TemperatureStats.readFrom(in)));
+        }
+        return result;
+    }
+
+    private void setSeries(int index, Series entry) {
+        while (series.size() <= index) series.add(null);
+        series.set(index, entry);
+    }
+}
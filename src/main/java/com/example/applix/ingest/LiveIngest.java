@@ -0,0 +1,72 @@
+package com.example.applix.ingest;
+
+import com.example.applix.models.db.FilteredData;
+
+import java.time.Instant;
+import java.util.List;
+
+// Progress of a file that is parsed while it is uploaded. Updated by the upload and writer threads, read by API calls.
+public class LiveIngest {
+    private final int fileId;
+    private final Instant startedAt = Instant.now();
+    private volatile long bytesReceived;
+    private long rowsWritten;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public LiveIngest(int fileId) {
+        this.fileId = fileId;
+    }
+
+    // Called once a batch is stored, so the counters only cover rows that can already be queried
+    public void recordWritten(List<FilteredData> batch) {
+        double batchSum = 0;
+        double batchMin = Double.POSITIVE_INFINITY;
+        double batchMax = Double.NEGATIVE_INFINITY;
+        for (FilteredData row : batch) {
+            batchSum += row.getTemperature();
+            batchMin = Math.min(batchMin, row.getTemperature());
+            batchMax = Math.max(batchMax, row.getTemperature());
+        }
+        synchronized (this) {
+            rowsWritten += batch.size();
+            sum += batchSum;
+            min = Math.min(min, batchMin);
+            max = Math.max(max, batchMax);
+        }
+    }
+
+    public void setBytesReceived(long bytesReceived) {
+        this.bytesReceived = bytesReceived;
+    }
+
+    public int getFileId() {
+        return fileId;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public synchronized long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    // null until the first batch is written
+    public synchronized Double getMean() {
+        return rowsWritten == 0 ? null : sum / rowsWritten;
+    }
+
+    public synchronized Double getMin() {
+        return rowsWritten == 0 ? null : min;
+    }
+
+    public synchronized Double getMax() {
+        return rowsWritten == 0 ? null : max;
+    }
+}
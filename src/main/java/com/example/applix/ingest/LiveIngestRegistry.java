@@ -0,0 +1,27 @@
+package com.example.applix.ingest;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Files currently parsed while they are uploaded, by file id
+@Component
+public class LiveIngestRegistry {
+    private final Map<Integer, LiveIngest> ingests = new ConcurrentHashMap<>();
+
+    public LiveIngest start(int fileId) {
+        LiveIngest live = new LiveIngest(fileId);
+        ingests.put(fileId, live);
+        return live;
+    }
+
+    // null once the file is done (or was never parsed during upload)
+    public LiveIngest find(int fileId) {
+        return ingests.get(fileId);
+    }
+
+    public void finish(int fileId) {
+        ingests.remove(fileId);
+    }
+}
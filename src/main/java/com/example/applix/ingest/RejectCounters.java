@@ -0,0 +1,61 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.RejectReason;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Per-reason counts of rows dropped while parsing. One instance per parsing thread, merged at the end.
+public class RejectCounters {
+    private static final RejectReason[] REASONS = RejectReason.values();
+
+    private final long[] counts = new long[REASONS.length];
+
+    public void increment(RejectReason reason) {
+        counts[reason.ordinal()]++;
+    }
+
+    public void merge(RejectCounters other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    public long get(RejectReason reason) {
+        return counts[reason.ordinal()];
+    }
+
+    public long total() {
+        long total = 0;
+        for (long count : counts) total += count;
+        return total;
+    }
+
+    public Map<RejectReason, Long> asMap() {
+        Map<RejectReason, Long> map = new EnumMap<>(RejectReason.class);
+        for (RejectReason reason : REASONS) {
+            map.put(reason, counts[reason.ordinal()]);
+        }
+        return map;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(counts.length);
+        for (long count : counts) out.writeLong(count);
+    }
+
+    public static RejectCounters readFrom(DataInput in) throws IOException {
+        if (in.readInt() != REASONS.length) throw new IOException("Unsupported reject counters format");
+        RejectCounters rejects = new RejectCounters();
+        for (int i = 0; i < REASONS.length; i++) rejects.counts[i] = in.readLong();
+        return rejects;
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+}
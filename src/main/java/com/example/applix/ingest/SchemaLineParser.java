@@ -0,0 +1,136 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.ColumnType;
+import com.example.applix.enums.RejectReason;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+
+// Parses the rows of a multi-column CsvSchema straight from bytes, with the instant and number decoders of
+// TemperatureLineParser. An empty numeric field is a missing value of that series; a malformed or out of range one
+// (NaN included) rejects the whole row. The sensor id is only decoded into a new String when it changes.
+// Not thread-safe, use one per thread.
+public class SchemaLineParser {
+    private final TemperatureLineParser decoder = new TemperatureLineParser();
+    private final ColumnType[] types;
+    private final double[] minValues;
+    private final double[] maxValues;
+    private final int[] numberIndexes; // position among the numeric columns, by column
+    private final double[] values;
+    private final boolean[] present;
+
+    private byte[] sensorBytes = new byte[32];
+    private int sensorLength = -1;
+    private String sensor;
+    private RejectReason rejectReason;
+
+    public SchemaLineParser(CsvSchema schema) {
+        int columnCount = schema.columns().size();
+        this.types = new ColumnType[columnCount];
+        this.minValues = new double[columnCount];
+        this.maxValues = new double[columnCount];
+        this.numberIndexes = new int[columnCount];
+        int numbers = 0;
+        for (int i = 0; i < columnCount; i++) {
+            ColumnSpec column = schema.columns().get(i);
+            types[i] = column.type();
+            minValues[i] = column.min();
+            maxValues[i] = column.max();
+            numberIndexes[i] = column.type() == ColumnType.NUMBER ? numbers++ : -1;
+        }
+        this.values = new double[numbers];
+        this.present = new boolean[numbers];
+    }
+
+    public boolean parse(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parse(bytes, 0, bytes.length);
+    }
+
+    public boolean parse(byte[] buf, int start, int end) {
+        rejectReason = null;
+        int commas = 0;
+        for (int i = start; i < end; i++) {
+            if (buf[i] == ',') commas++;
+        }
+        if (commas + 1 != types.length) return reject(RejectReason.WRONG_COLUMN_COUNT);
+
+        Arrays.fill(present, false);
+        int valueCount = 0;
+        int fieldStart = start;
+        for (int column = 0; column < types.length; column++) {
+            int fieldEnd = fieldStart;
+            while (fieldEnd < end && buf[fieldEnd] != ',') fieldEnd++;
+            int valueStart = TemperatureLineParser.trimStart(buf, fieldStart, fieldEnd);
+            int valueEnd = TemperatureLineParser.trimEnd(buf, valueStart, fieldEnd);
+
+            switch (types[column]) {
+                case TIMESTAMP -> {
+                    if (!decoder.parseInstant(buf, valueStart, valueEnd)) return reject(RejectReason.BAD_TIMESTAMP);
+                }
+                case SENSOR -> {
+                    if (valueStart == valueEnd) return reject(RejectReason.MISSING_VALUE);
+                    setSensor(buf, valueStart, valueEnd);
+                }
+                case NUMBER -> {
+                    if (valueStart < valueEnd) {
+                        if (!decoder.parseDouble(buf, valueStart, valueEnd)) return reject(RejectReason.BAD_NUMBER);
+                        double value = decoder.number();
+                        if (!(value >= minValues[column] && value <= maxValues[column])) return reject(RejectReason.OUT_OF_RANGE);
+                        values[numberIndexes[column]] = value;
+                        present[numberIndexes[column]] = true;
+                        valueCount++;
+                    }
+                }
+            }
+            fieldStart = fieldEnd + 1;
+        }
+        if (valueCount == 0) return reject(RejectReason.MISSING_VALUE);
+        return true;
+    }
+
+    public RejectReason getRejectReason() {
+        return rejectReason;
+    }
+
+    public long getEpochSecond() {
+        return decoder.getEpochSecond();
+    }
+
+    public int getNano() {
+        return decoder.getNano();
+    }
+
+    public Instant toInstant() {
+        return decoder.toInstant();
+    }
+
+    // null without a sensor column
+    public String getSensor() {
+        return sensor;
+    }
+
+    // Whether the n-th numeric column has a value in this row
+    public boolean hasValue(int n) {
+        return present[n];
+    }
+
+    public double getValue(int n) {
+        return values[n];
+    }
+
+    private void setSensor(byte[] buf, int start, int end) {
+        int length = end - start;
+        if (length == sensorLength && Arrays.equals(buf, start, end, sensorBytes, 0, length)) return;
+        if (sensorBytes.length < length) sensorBytes = new byte[Math.max(length, sensorBytes.length * 2)];
+        System.arraycopy(buf, start, sensorBytes, 0, length);
+        sensorLength = length;
+        sensor = new String(buf, start, length, StandardCharsets.UTF_8);
+    }
+
+    private boolean reject(RejectReason reason) {
+        rejectReason = reason;
+        return false;
+    }
+}
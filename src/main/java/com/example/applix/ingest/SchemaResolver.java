@@ -0,0 +1,119 @@
+package com.example.applix.ingest;
+
+import com.example.applix.blob.BlobStore;
+import com.example.applix.enums.ColumnType;
+import com.example.applix.enums.Compression;
+import com.example.applix.enums.QuantileMode;
+import com.example.applix.stats.QuantileEstimatorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// The CsvSchema of an upload: the one given with it, or the one its header line describes. Numeric columns without
+// a range get the default of their name (ingest.schema.ranges), so the stored schema always has the ranges used.
+// A schema with more numeric columns than a file can have series (ingest.schema.max-series) refuses the upload, and
+// so does a numeric column left without a range when stats.quantile.mode=histogram.
+@Component
+public class SchemaResolver {
+    private static final int MAX_HEADER_BYTES = 1 << 16;
+
+    private final BlobStore blobStore;
+    private final Map<String, double[]> defaultRanges = new HashMap<>();
+    private final int maxSeries;
+    private final boolean boundedColumnsOnly;
+
+    public SchemaResolver(BlobStore blobStore, QuantileEstimatorFactory quantileEstimatorFactory,
+                          @Value("${ingest.schema.ranges:temperature:-100:100}") String ranges,
+                          @Value("${ingest.schema.max-series:64}") int maxSeries) {
+        this.blobStore = blobStore;
+        this.maxSeries = maxSeries;
+        this.boundedColumnsOnly = quantileEstimatorFactory.getMode() == QuantileMode.HISTOGRAM;
+        StringBuilder spec = new StringBuilder("timestamp:timestamp");
+        for (String range : ranges.split(",")) {
+            String[] parts = range.trim().split(":", 2); // name:min:max
+            if (parts.length != 2) throw new IllegalArgumentException("Invalid ingest.schema.ranges entry '" + range.trim() + "', expected name:min:max");
+            spec.append(',').append(parts[0]).append(":number:").append(parts[1]);
+        }
+        for (ColumnSpec column : CsvSchema.parse(spec.toString()).columns()) {
+            if (column.type() == ColumnType.NUMBER) defaultRanges.put(rangeKey(column.name()), new double[]{column.min(), column.max()});
+        }
+    }
+
+    // An explicit ?schema= of an upload, null or blank when there is none. Invalid ones throw IllegalArgumentException.
+    public CsvSchema parse(String spec) {
+        if (spec == null || spec.isBlank()) return null;
+        return withDefaultRanges(CsvSchema.parse(spec));
+    }
+
+    // From the first line of a file: LEGACY unless it is a header
+    public CsvSchema fromFirstLine(String firstLine) {
+        byte[] bytes = firstLine.getBytes(StandardCharsets.UTF_8);
+        if (!CsvSchema.isHeader(bytes, 0, bytes.length)) return CsvSchema.LEGACY;
+        List<ColumnSpec> columns = new ArrayList<>();
+        for (String name : CsvSchema.headerNames(firstLine)) {
+            columns.add(ColumnSpec.of(name, ColumnType.ofHeader(name)));
+        }
+        return withDefaultRanges(new CsvSchema(columns));
+    }
+
+    // Looks at the first line of an uncompressed body without consuming it
+    public CsvSchema detect(BufferedInputStream in) throws IOException {
+        in.mark(MAX_HEADER_BYTES);
+        byte[] head = in.readNBytes(MAX_HEADER_BYTES);
+        in.reset();
+        return fromFirstLine(firstLine(head, head.length));
+    }
+
+    // From the first line of a stored upload, compressed or not
+    public CsvSchema detectStored(String key) throws IOException {
+        long size = blobStore.size(key);
+        Compression compression = Compression.of(blobStore.open(key, 0, Math.min(size, 4)));
+        try (InputStream in = compression.decompress(blobStore.open(key, 0, compression == Compression.NONE ? Math.min(size, MAX_HEADER_BYTES) : size))) {
+            byte[] head = in.readNBytes(MAX_HEADER_BYTES);
+            return fromFirstLine(firstLine(head, head.length));
+        }
+    }
+
+    // Ranges given explicitly are kept, unbounded numeric columns get the default range of their name if there is one
+    private CsvSchema withDefaultRanges(CsvSchema schema) {
+        List<ColumnSpec> columns = new ArrayList<>();
+        for (ColumnSpec column : schema.columns()) {
+            double[] range = defaultRanges.get(rangeKey(column.name()));
+            columns.add(column.type() == ColumnType.NUMBER && !column.isBounded() && range != null ? column.withRange(range[0], range[1]) : column);
+        }
+        CsvSchema resolved = new CsvSchema(columns);
+        if (resolved.numberCount() > maxSeries) {
+            throw new IllegalArgumentException(resolved.numberCount() + " numeric columns, a file can have at most " + maxSeries + " series");
+        }
+        for (ColumnSpec column : resolved.columns()) {
+            if (boundedColumnsOnly && column.type() == ColumnType.NUMBER && !(Double.isFinite(column.min()) && Double.isFinite(column.max()))) {
+                throw new IllegalArgumentException("Column '" + column.name() + "' needs a min and a max with stats.quantile.mode=histogram, e.g. ?schema=..."
+                        + column.name() + ":number:0:100");
+            }
+        }
+        return resolved;
+    }
+
+    private static String rangeKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static String firstLine(byte[] head, int length) {
+        int end = 0;
+        while (end < length && head[end] != '\n') end++;
+        if (end > 0 && head[end - 1] == '\r') end--;
+        if (end >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            return new String(head, 3, end - 3, StandardCharsets.UTF_8); // UTF-8 BOM
+        }
+        return new String(head, 0, end, StandardCharsets.UTF_8);
+    }
+}
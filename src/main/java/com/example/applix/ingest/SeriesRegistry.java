@@ -0,0 +1,74 @@
+package com.example.applix.ingest;
+
+import com.example.applix.stats.QuantileEstimatorFactory;
+import com.example.applix.stats.TemperatureStats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Index of every series (sensor × numeric column) of a multi-column file, shared by the threads parsing it.
+// The numeric columns of a sensor get consecutive indexes the first time the sensor is seen. The first row of the
+// file is registered before parsing starts, so series 0, which the chart rollups, the stats index and the
+// files_table stats describe, is always the first numeric column of the first row's sensor.
+// A sensor whose columns would take the file past maxSeries fails the parse (ingest.schema.max-series).
+public class SeriesRegistry {
+    private static final String NO_SENSOR = "";
+
+    private final CsvSchema schema;
+    private final QuantileEstimatorFactory quantileEstimatorFactory;
+    private final int maxSeries;
+    private final Map<String, int[]> indexes = new ConcurrentHashMap<>();
+    private final List<String> sensors = new ArrayList<>(); // by index / schema.numberCount()
+
+    public SeriesRegistry(CsvSchema schema, QuantileEstimatorFactory quantileEstimatorFactory, int maxSeries) {
+        this.schema = schema;
+        this.quantileEstimatorFactory = quantileEstimatorFactory;
+        this.maxSeries = maxSeries;
+    }
+
+    public CsvSchema schema() {
+        return schema;
+    }
+
+    // Series indexes of the sensor's numeric columns, in file order. sensor is null without a sensor column.
+    public int[] indexesOf(String sensor) throws IOException {
+        int[] found = indexes.get(sensor == null ? NO_SENSOR : sensor);
+        return found != null ? found : register(sensor);
+    }
+
+    public synchronized int seriesCount() {
+        return sensors.size() * schema.numberCount();
+    }
+
+    public synchronized String sensorOf(int series) {
+        return sensors.get(series / schema.numberCount());
+    }
+
+    public String columnOf(int series) {
+        return schema.numberColumn(series % schema.numberCount()).name();
+    }
+
+    public TemperatureStats newStats(int series) {
+        ColumnSpec column = schema.numberColumn(series % schema.numberCount());
+        return quantileEstimatorFactory.newStats(column.min(), column.max());
+    }
+
+    private synchronized int[] register(String sensor) throws IOException {
+        String key = sensor == null ? NO_SENSOR : sensor;
+        int[] found = indexes.get(key);
+        if (found != null) return found;
+
+        int first = sensors.size() * schema.numberCount();
+        if (first + schema.numberCount() > maxSeries) {
+            throw new IOException("Sensor '" + sensor + "' is past the " + maxSeries + " series (sensors x numeric columns) a file can have");
+        }
+        sensors.add(sensor);
+        int[] assigned = new int[schema.numberCount()];
+        for (int i = 0; i < assigned.length; i++) assigned[i] = first + i;
+        indexes.put(key, assigned);
+        return assigned;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.applix.ingest;
+
+import java.io.File;
+
+// An upload written to the upload directory, with what was learned while copying it
+public record StoredUpload(File file, long sizeBytes, long lineCount, String checksum) {
+
+    // Its name in the BlobStore, and in files_table
+    public String key() {
+        return file.getName();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.applix.ingest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+// Copies an upload to disk through one fixed direct buffer, so heap use does not depend on the file size.
+// The CRC32C and the line count are computed on the way, see UploadDigest.
+public final class StreamingUpload {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private StreamingUpload() {
+    }
+
+    public static StoredUpload copy(InputStream in, File target) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        UploadDigest digest = new UploadDigest();
+
+        try (ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+
+        return digest.toStoredUpload(target);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.applix.ingest;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+// Writes every byte read from the upload to the raw file as well, so the stream can be parsed while it arrives
+// and the file is still there for replay. complete() tells whether the whole upload was received.
+public class TeeInputStream extends FilterInputStream {
+    private final File target;
+    private final FileChannel out;
+    private final UploadDigest digest = new UploadDigest();
+    private final LiveIngest live;
+    private final byte[] single = new byte[1];
+    private boolean complete;
+
+    public TeeInputStream(InputStream in, File target, LiveIngest live) throws IOException {
+        super(in);
+        this.target = target;
+        this.out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.live = live;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n == -1) {
+            complete = true;
+            return -1;
+        }
+        ByteBuffer chunk = ByteBuffer.wrap(b, off, n);
+        while (chunk.hasRemaining()) {
+            out.write(chunk);
+        }
+        digest.update(b, off, n);
+        live.setBytesReceived(digest.size());
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("skip is not supported, every byte has to reach the raw file");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.close();
+        } finally {
+            super.close();
+        }
+    }
+
+    public boolean complete() {
+        return complete;
+    }
+
+    public StoredUpload toStoredUpload() {
+        return digest.toStoredUpload(target);
+    }
+}
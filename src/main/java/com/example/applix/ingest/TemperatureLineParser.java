@@ -0,0 +1,287 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.RejectReason;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+// Parses "<ISO-8601 instant>,<temperature>" rows straight from bytes, with the same acceptance rules as
+// line.split(","), trim(), Instant.parse() and Double.parseDouble(). The common shapes
+// (yyyy-MM-ddTHH:mm:ss[.fffffffff]Z and plain decimals) are decoded without allocating; anything unusual
+// falls back to the JDK parsers so the outcome is always identical. Not thread-safe, use one per thread.
+// The instant and number decoders are shared with SchemaLineParser.
+public class TemperatureLineParser {
+    public static final double MIN_TEMPERATURE = -100;
+    public static final double MAX_TEMPERATURE = 100;
+
+    private static final int MIN_INSTANT_LENGTH = "0000-01-01T00:00:00Z".length();
+    private static final int MAX_FAST_DIGITS = 15; // any 15 digit integer is exact as a double
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final double minValue;
+    private final double maxValue;
+    private byte[] scratch = new byte[256];
+
+    private long epochSecond;
+    private int nano;
+    private double number;
+    private RejectReason rejectReason;
+
+    public TemperatureLineParser() {
+        this(MIN_TEMPERATURE, MAX_TEMPERATURE);
+    }
+
+    // Single series files of another column (see CsvSchema), validated against that column's range
+    public TemperatureLineParser(double minValue, double maxValue) {
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+    }
+
+    public boolean parse(CharSequence line) {
+        int length = line.length();
+        if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            scratch[i] = c < 0x80 ? (byte) c : (byte) 0xFF; // non-ASCII is never whitespace, a digit or a comma
+        }
+        return parse(scratch, 0, length);
+    }
+
+    public boolean parse(byte[] buf, int start, int end) {
+        rejectReason = null;
+
+        // split(",") drops trailing empty tokens, so trailing commas never count as columns
+        int effectiveEnd = end;
+        while (effectiveEnd > start && buf[effectiveEnd - 1] == ',') effectiveEnd--;
+
+        int comma = -1;
+        for (int i = start; i < effectiveEnd; i++) {
+            if (buf[i] == ',') {
+                if (comma >= 0) return reject(RejectReason.WRONG_COLUMN_COUNT);
+                comma = i;
+            }
+        }
+        if (comma < 0) return reject(RejectReason.WRONG_COLUMN_COUNT);
+
+        int timestampStart = trimStart(buf, start, comma);
+        int timestampEnd = trimEnd(buf, timestampStart, comma);
+        if (!parseInstant(buf, timestampStart, timestampEnd)) return reject(RejectReason.BAD_TIMESTAMP);
+
+        int temperatureStart = trimStart(buf, comma + 1, effectiveEnd);
+        int temperatureEnd = trimEnd(buf, temperatureStart, effectiveEnd);
+        if (!parseDouble(buf, temperatureStart, temperatureEnd)) return reject(RejectReason.BAD_NUMBER);
+
+        if (number < minValue || number > maxValue) return reject(RejectReason.OUT_OF_RANGE);
+        return true;
+    }
+
+    public RejectReason getRejectReason() {
+        return rejectReason;
+    }
+
+    public long getEpochSecond() {
+        return epochSecond;
+    }
+
+    public int getNano() {
+        return nano;
+    }
+
+    public double getTemperature() {
+        return number;
+    }
+
+    // The value of the last parseDouble
+    double number() {
+        return number;
+    }
+
+    public Instant toInstant() {
+        return Instant.ofEpochSecond(epochSecond, nano);
+    }
+
+    private boolean reject(RejectReason reason) {
+        rejectReason = reason;
+        return false;
+    }
+
+    // String.trim() semantics: strip everything <= ' '
+    static int trimStart(byte[] buf, int start, int end) {
+        while (start < end && (buf[start] & 0xFF) <= ' ') start++;
+        return start;
+    }
+
+    static int trimEnd(byte[] buf, int start, int end) {
+        while (end > start && (buf[end - 1] & 0xFF) <= ' ') end--;
+        return end;
+    }
+
+    boolean parseInstant(byte[] buf, int start, int end) {
+        int length = end - start;
+        if (length < MIN_INSTANT_LENGTH) return false;
+        byte first = buf[start];
+        if (!isDigit(first) && first != '+' && first != '-') return false;
+
+        if (!hasFastInstantShape(buf, start, end)) return parseInstantSlow(buf, start, end);
+
+        int year = digits(buf, start, 4);
+        int month = digits(buf, start + 5, 2);
+        int day = digits(buf, start + 8, 2);
+        int hour = digits(buf, start + 11, 2);
+        int minute = digits(buf, start + 14, 2);
+        int second = digits(buf, start + 17, 2);
+
+        int fraction = 0;
+        int fractionDigits = end - 1 - (start + 20);
+        if (fractionDigits > 0) {
+            fraction = digits(buf, start + 20, fractionDigits);
+            for (int i = fractionDigits; i < 9; i++) fraction *= 10;
+        }
+
+        int extraDays = 0;
+        if (hour == 24 && minute == 0 && second == 0 && fraction == 0) {
+            hour = 0;
+            extraDays = 1; // end of day, as accepted by Instant.parse
+        } else if (hour == 23 && minute == 59 && second == 60) {
+            second = 59; // leap second is smoothed, as in Instant.parse
+        }
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) return false;
+        if (hour > 23 || minute > 59 || second > 59) return false;
+
+        long epochDay = epochDay(year, month, day) + extraDays;
+        epochSecond = epochDay * 86_400 + hour * 3_600L + minute * 60L + second;
+        nano = fraction;
+        return true;
+    }
+
+    // yyyy-MM-ddTHH:mm:ss[.1-9 digits]Z
+    private static boolean hasFastInstantShape(byte[] buf, int start, int end) {
+        if (!isDigit(buf, start, 4) || buf[start + 4] != '-' || !isDigit(buf, start + 5, 2) || buf[start + 7] != '-'
+                || !isDigit(buf, start + 8, 2) || (buf[start + 10] != 'T' && buf[start + 10] != 't')
+                || !isDigit(buf, start + 11, 2) || buf[start + 13] != ':' || !isDigit(buf, start + 14, 2)
+                || buf[start + 16] != ':' || !isDigit(buf, start + 17, 2)) {
+            return false;
+        }
+        byte last = buf[end - 1];
+        if (last != 'Z' && last != 'z') return false;
+        int length = end - start;
+        if (length == MIN_INSTANT_LENGTH) return true;
+        int fractionDigits = length - MIN_INSTANT_LENGTH - 1;
+        return buf[start + 19] == '.' && fractionDigits >= 1 && fractionDigits <= 9 && isDigit(buf, start + 20, fractionDigits);
+    }
+
+    // Offsets, signed or 5+ digit years and the like are rare enough to leave to the JDK.
+    private boolean parseInstantSlow(byte[] buf, int start, int end) {
+        try {
+            Instant instant = Instant.parse(new String(buf, start, end - start, StandardCharsets.UTF_8));
+            epochSecond = instant.getEpochSecond();
+            nano = instant.getNano();
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    // [+-]digits[.digits] with at most 15 significant digits: mantissa / 10^k is then correctly rounded,
+    // which is exactly what Double.parseDouble returns.
+    boolean parseDouble(byte[] buf, int start, int end) {
+        if (start == end) return false;
+        int i = start;
+        boolean negative = false;
+        if (buf[i] == '+' || buf[i] == '-') {
+            negative = buf[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digitCount = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean seenDot = false;
+        for (; i < end; i++) {
+            byte b = buf[i];
+            if (isDigit(b)) {
+                digitCount++;
+                if (seenDot) fractionDigits++;
+                if (mantissa != 0 || b != '0') significantDigits++;
+                mantissa = mantissa * 10 + (b - '0');
+                if (significantDigits > MAX_FAST_DIGITS || fractionDigits >= POWERS_OF_TEN.length) {
+                    return parseDoubleSlow(buf, start, end);
+                }
+            } else if (b == '.' && !seenDot) {
+                seenDot = true;
+            } else if (isDigit(b) || b == '.' || b == '+' || b == '-') {
+                return false; // a second dot or a sign in the middle
+            } else {
+                return parseDoubleSlow(buf, start, end); // exponent, NaN, Infinity, hex, type suffix ...
+            }
+        }
+        if (digitCount == 0) return false;
+
+        double value = fractionDigits == 0 ? (double) mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        number = negative ? -value : value;
+        return true;
+    }
+
+    private boolean parseDoubleSlow(byte[] buf, int start, int end) {
+        try {
+            number = Double.parseDouble(new String(buf, start, end - start, StandardCharsets.UTF_8));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isDigit(byte[] buf, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            if (!isDigit(buf[i])) return false;
+        }
+        return true;
+    }
+
+    private static int digits(byte[] buf, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            value = value * 10 + (buf[i] - '0');
+        }
+        return value;
+    }
+
+    private static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    // Same arithmetic as LocalDate.toEpochDay() for non-negative years
+    private static long epochDay(long year, int month, int day) {
+        long total = 365 * year;
+        total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) total--;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.applix.ingest;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+// Size, line count (same terminators as ByteLineReader, empty lines included) and CRC32C of a byte stream,
+// fed chunk by chunk while the stream is copied
+public class UploadDigest {
+    private final CRC32C checksum = new CRC32C();
+    private long size;
+    private long lines;
+    private byte last = '\n';
+
+    public void update(ByteBuffer chunk) {
+        for (int i = chunk.position(); i < chunk.limit(); i++) {
+            count(chunk.get(i));
+        }
+        size += chunk.remaining();
+        checksum.update(chunk.duplicate());
+    }
+
+    public void update(byte[] chunk, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            count(chunk[i]);
+        }
+        size += length;
+        checksum.update(chunk, offset, length);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public StoredUpload toStoredUpload(File file) {
+        long lineCount = size > 0 && last != '\n' && last != '\r' ? lines + 1 : lines; // last line without a terminator
+        return new StoredUpload(file, size, lineCount, String.format("%08x", checksum.getValue()));
+    }
+
+    // "\r\n" ends one line, a lone '\r' ends one too
+    private void count(byte b) {
+        if (b == '\n' ? last != '\r' : b == '\r') lines++;
+        last = b;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.applix.models;
+
+import com.example.applix.columnar.ColumnarFormat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+// Opaque keyset cursor for GET /data: the (timestamp, id) of the last row of the previous page.
+// Encoded as url-safe base64 of "<epoch micros>:<id>".
+public record PageCursor(Instant timestamp, int id) {
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = decoded.indexOf(':');
+            long micros = Long.parseLong(decoded.substring(0, separator));
+            int id = Integer.parseInt(decoded.substring(separator + 1));
+            return new PageCursor(ColumnarFormat.toInstant(micros), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public String encode() {
+        String raw = ColumnarFormat.toMicros(timestamp) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.applix.models.db;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// Partial IngestResult (stats, rejects, rollups) of one processed chunk of a large upload.
+// The consumer that stores the last chunk merges them all and completes the file.
+@Entity
+@Getter
+@Setter
+@Table(name = "file_chunk_results", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_file_chunk_results_chunk", columnNames = {"file_id", "chunk_index"})
+})
+public class FileChunkResult {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "file_id", nullable = false)
+    private Integer fileId;
+
+    @Column(name = "chunk_index", nullable = false)
+    private Integer chunkIndex;
+
+    @Column(name = "chunk_count", nullable = false)
+    private Integer chunkCount;
+
+    @Lob
+    @Column(name = "state", nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] state;
+}
@@ -0,0 +1,42 @@
+package com.example.applix.models.db;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Pre-aggregated temperature of one time bucket of a file, see RollupResolution for the bucket widths.
+@Entity
+@Getter
+@Setter
+@Table(name = "file_rollups", indexes = {
+        @Index(name = "idx_file_rollups_bucket", columnList = "file_id, bucket_seconds, bucket_start")
+})
+public class FileRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "file_id", nullable = false)
+    private Integer fileId;
+
+    @Column(name = "bucket_seconds", nullable = false)
+    private Integer bucketSeconds;
+
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    @Column(name = "min_value", nullable = false)
+    private Double minValue;
+
+    @Column(name = "max_value", nullable = false)
+    private Double maxValue;
+
+    @Column(name = "sum_value", nullable = false)
+    private Double sumValue;
+
+    @Column(name = "row_count", nullable = false)
+    private Long rowCount;
+}
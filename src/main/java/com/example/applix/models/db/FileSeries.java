@@ -0,0 +1,54 @@
+package com.example.applix.models.db;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// Stats of one series (sensor × numeric column) of a multi-column file, computed in the same pass as its rows.
+// The rows are in the ColumnarStore under (file_id, series_index); series 0 is also what files_table describes.
+@Entity
+@Getter
+@Setter
+@Table(name = "file_series", indexes = {
+        @Index(name = "idx_file_series_file", columnList = "file_id, series_index")
+})
+public class FileSeries {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "file_id", nullable = false)
+    private Integer fileId;
+
+    @Column(name = "series_index", nullable = false)
+    private Integer seriesIndex;
+
+    // null for files without a sensor column
+    @Column(name = "sensor")
+    private String sensor;
+
+    @Column(name = "column_name", nullable = false)
+    private String columnName;
+
+    @Column(name = "row_count", nullable = false)
+    private Long rowCount;
+
+    @Column(name = "mean")
+    private Double mean;
+
+    @Column(name = "median")
+    private Double median;
+
+    @Column(name = "min_value")
+    private Double minValue;
+
+    @Column(name = "max_value")
+    private Double maxValue;
+
+    @Column(name = "p90")
+    private Double p90;
+
+    @Column(name = "p99")
+    private Double p99;
+}
@@ -26,6 +26,39 @@ public class FileTable {
     @Column(name = "median")
     private Double median;
 
+    @Column(name = "p90")
+    private Double p90;
+
+    @Column(name = "p99")
+    private Double p99;
+
+    // median, p90 and p99 come from a histogram (stats.quantile.mode=histogram, or a file ingested in chunks), to
+    // within stats.quantile.histogram-resolution. Null for files processed before it was recorded.
+    @Column(name = "median_approximate")
+    private Boolean medianApproximate;
+
+    // StorageEngine name, null for files stored in filtered_data before the columnar engine existed
+    @Column(name = "storage_engine")
+    private String storageEngine;
+
+    // Accepted rows, set when processing completes so reads never have to count them again
+    @Column(name = "row_count")
+    private Long rowCount;
+
+    // Size, line count (empty lines included) and CRC32C of the upload, computed while it was streamed to disk
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    @Column(name = "line_count")
+    private Long lineCount;
+
+    @Column(name = "checksum", length = 8)
+    private String checksum;
+
+    // CsvSchema of the upload ("name:type[:min:max],..."), null for files uploaded before schemas existed (timestamp,temperature)
+    @Column(name = "csv_schema", length = 1024)
+    private String schema;
+
     @Column(name = "status", nullable = false)
     private Integer status;
 
@@ -10,7 +10,8 @@ import java.time.Instant;
 @Getter
 @Setter
 @Table(name = "filtered_data", indexes = {
-        @Index(name = "idx_file_id", columnList = "file_id")
+        @Index(name = "idx_file_id", columnList = "file_id"),
+        @Index(name = "idx_file_id_timestamp", columnList = "file_id, timestamp") // (file_id, timestamp, id) in InnoDB, serves keyset pages
 })
 public class FilteredData {
     @Id
@@ -26,4 +27,8 @@ public class FilteredData {
 
     @Column(name = "temperature", nullable = false)
     private Double temperature;
+
+    // SeriesRegistry index of a row parsed from a multi-column file, whose series go to the ColumnarStore, not to this table
+    @Transient
+    private int series;
 }
\ No newline at end of file
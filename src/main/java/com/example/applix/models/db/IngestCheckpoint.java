@@ -0,0 +1,42 @@
+package com.example.applix.models.db;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Byte range [start_offset, end_offset) of an upload whose rows were committed, in the same transaction as the rows.
+// A redelivered file event skips the covered ranges instead of reading them again, partial holds their stats.
+@Entity
+@Getter
+@Setter
+@Table(name = "ingest_checkpoints", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_ingest_checkpoints_range", columnNames = {"file_id", "start_offset"})
+})
+public class IngestCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "file_id", nullable = false)
+    private Integer fileId;
+
+    @Column(name = "start_offset", nullable = false)
+    private Long startOffset;
+
+    @Column(name = "end_offset", nullable = false)
+    private Long endOffset;
+
+    @Column(name = "row_count", nullable = false)
+    private Integer rowCount;
+
+    @Column(name = "committed_at")
+    private Instant committedAt;
+
+    // IngestResult of the lines of the range (ChunkService.serialize), null for checkpoints written without one
+    @Lob
+    @Column(name = "partial", columnDefinition = "LONGBLOB")
+    private byte[] partial;
+}
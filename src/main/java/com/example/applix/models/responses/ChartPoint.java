@@ -0,0 +1,16 @@
+package com.example.applix.models.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class ChartPoint {
+    public Instant timestamp; // start of the bucket
+    public Double min;
+    public Double max;
+    public Double avg;
+    public Long count;
+}
@@ -0,0 +1,13 @@
+package com.example.applix.models.responses;
+
+import com.example.applix.enums.ErrorCode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FileOperationResponse {
+    public Integer fileId;
+    public String message;
+    public ErrorCode errorCode;
+}
@@ -0,0 +1,19 @@
+package com.example.applix.models.responses;
+
+import com.example.applix.enums.ErrorCode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class GetAggregateResponse {
+    public Integer fileId;
+    public Integer series;
+    public Integer bucketSeconds;
+    public long[] bucketStart; // epoch seconds, buckets without rows are left out
+    public Map<String, double[]> values; // by function, as requested, aligned with bucketStart
+    public String message;
+    public ErrorCode errorCode;
+}
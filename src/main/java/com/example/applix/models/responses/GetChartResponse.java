@@ -0,0 +1,16 @@
+package com.example.applix.models.responses;
+
+import com.example.applix.enums.ErrorCode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class GetChartResponse {
+    public List<ChartPoint> points;
+    public Integer bucketSeconds;
+    public String message;
+    public ErrorCode errorCode;
+}
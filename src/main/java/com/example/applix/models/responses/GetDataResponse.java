@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
 import java.util.List;
 
 @Data
@@ -18,6 +19,13 @@ public class GetDataResponse {
     public Long totalFilteredRows;
     public Double meanTemperature;
     public Double medianTemperature;
+    // the median is interpolated in a histogram (see FileTable.medianApproximate), always for a time window
+    public Boolean medianApproximate;
+    // set with startTime and endTime: the mean and median are of these whole minutes/hours of the stats index
+    // (inclusive), so rows of the minutes cut by startTime/endTime are counted too. Null for whole-file values.
+    public Instant windowStart;
+    public Instant windowEnd;
     public String message;
     public ErrorCode errorCode;
+    public String nextCursor; // pass as "cursor" to fetch the next page, null on the last page
 }
@@ -0,0 +1,17 @@
+package com.example.applix.models.responses;
+
+import com.example.applix.enums.ErrorCode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class GetFileProgressResponse {
+    public Integer fileId;
+    public Integer status; // 0 processing, 1 processed, 2 failed
+    public Double percentDone; // null when the file size or the committed bytes are not known
+    public Long rowsWritten;
+    public Double rowsPerSecond;
+    public String message;
+    public ErrorCode errorCode;
+}
@@ -0,0 +1,18 @@
+package com.example.applix.models.responses;
+
+import com.example.applix.enums.ErrorCode;
+import com.example.applix.models.db.FileSeries;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class GetFileSeriesResponse {
+    public Integer fileId;
+    public String schema; // name:type[:min:max],...
+    public List<FileSeries> series; // empty for single series files, files_table has their stats
+    public String message;
+    public ErrorCode errorCode;
+}
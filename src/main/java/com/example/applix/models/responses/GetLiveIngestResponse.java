@@ -0,0 +1,21 @@
+package com.example.applix.models.responses;
+
+import com.example.applix.enums.ErrorCode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class GetLiveIngestResponse {
+    public Integer fileId;
+    public Instant startedAt;
+    public Long bytesReceived;
+    public Long rowsWritten;
+    public Double meanTemperature;
+    public Double minTemperature;
+    public Double maxTemperature;
+    public String message;
+    public ErrorCode errorCode;
+}
@@ -0,0 +1,22 @@
+package com.example.applix.models.responses;
+
+import com.example.applix.enums.ErrorCode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class GetStatsResponse {
+    public Long count;
+    public Double meanTemperature;
+    public Double medianTemperature;
+    public Double minTemperature;
+    public Double maxTemperature;
+    // whole minutes aggregated (inclusive): rows of the minutes cut by startTime/endTime are counted too
+    public Instant windowStart;
+    public Instant windowEnd;
+    public String message;
+    public ErrorCode errorCode;
+}
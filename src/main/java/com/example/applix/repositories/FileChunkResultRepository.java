@@ -0,0 +1,13 @@
+package com.example.applix.repositories;
+
+import com.example.applix.models.db.FileChunkResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+
+import java.util.List;
+
+public interface FileChunkResultRepository extends JpaRepository<FileChunkResult, Long> {
+    long countByFileId(Integer fileId);
+
+    List<FileChunkResult> findByFileIdOrderByChunkIndexAsc(Integer fileId);
+}
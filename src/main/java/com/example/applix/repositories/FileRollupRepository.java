@@ -0,0 +1,20 @@
+package com.example.applix.repositories;
+
+import com.example.applix.models.db.FileRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+
+import java.time.Instant;
+import java.util.List;
+
+public interface FileRollupRepository extends JpaRepository<FileRollup, Long> {
+    List<FileRollup> findByFileIdAndBucketSecondsAndBucketStartBetweenOrderByBucketStartAsc(Integer fileId, Integer bucketSeconds, Instant startTime, Instant endTime);
+
+    @Query("SELECT MIN(r.bucketStart) FROM FileRollup r WHERE r.fileId = :fileId AND r.bucketSeconds = :bucketSeconds")
+    Instant findFirstBucketStart(@Param("fileId") Integer fileId, @Param("bucketSeconds") Integer bucketSeconds);
+
+    @Query("SELECT MAX(r.bucketStart) FROM FileRollup r WHERE r.fileId = :fileId AND r.bucketSeconds = :bucketSeconds")
+    Instant findLastBucketStart(@Param("fileId") Integer fileId, @Param("bucketSeconds") Integer bucketSeconds);
+}
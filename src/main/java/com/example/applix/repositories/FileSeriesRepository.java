@@ -0,0 +1,10 @@
+package com.example.applix.repositories;
+
+import com.example.applix.models.db.FileSeries;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface FileSeriesRepository extends JpaRepository<FileSeries, Long> {
+    List<FileSeries> findByFileIdOrderBySeriesIndexAsc(Integer fileId);
+}
@@ -3,6 +3,8 @@ package com.example.applix.repositories;
 import com.example.applix.models.db.FilteredData;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 
 import java.time.Instant;
@@ -11,9 +13,21 @@ import java.util.List;
 public interface FilteredDataRepository extends JpaRepository<FilteredData, Integer> {
     long countByFileId(Integer fileId);
 
-    List<FilteredData> findByFileIdAndTimestampInstantBetweenOrderByTimestampInstantAsc(Integer fileId, Instant startTime, Instant endTime, Pageable pageable);
+    List<FilteredData> findByFileIdAndTimestampInstantBetweenOrderByTimestampInstantAscIdAsc(Integer fileId, Instant startTime, Instant endTime, Pageable pageable);
     
-    List<FilteredData> findByFileIdOrderByTimestampInstantAsc(Integer fileId, Pageable pageable);
+    List<FilteredData> findByFileIdOrderByTimestampInstantAscIdAsc(Integer fileId, Pageable pageable);
     
     long countByFileIdAndTimestampInstantBetween(Integer fileId, Instant startTime, Instant endTime);
+
+    // Keyset pagination: seeks past the (timestamp, id) of the previous page instead of scanning an OFFSET
+    @Query("SELECT f FROM FilteredData f WHERE f.fileId = :fileId " +
+            "AND (f.timestampInstant > :afterTime OR (f.timestampInstant = :afterTime AND f.id > :afterId)) " +
+            "ORDER BY f.timestampInstant ASC, f.id ASC")
+    List<FilteredData> findPageAfter(@Param("fileId") Integer fileId, @Param("afterTime") Instant afterTime, @Param("afterId") Integer afterId, Pageable pageable);
+
+    @Query("SELECT f FROM FilteredData f WHERE f.fileId = :fileId AND f.timestampInstant BETWEEN :startTime AND :endTime " +
+            "AND (f.timestampInstant > :afterTime OR (f.timestampInstant = :afterTime AND f.id > :afterId)) " +
+            "ORDER BY f.timestampInstant ASC, f.id ASC")
+    List<FilteredData> findPageAfterBetween(@Param("fileId") Integer fileId, @Param("startTime") Instant startTime, @Param("endTime") Instant endTime,
+                                            @Param("afterTime") Instant afterTime, @Param("afterId") Integer afterId, Pageable pageable);
 }
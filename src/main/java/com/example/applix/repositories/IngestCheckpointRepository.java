@@ -0,0 +1,11 @@
+package com.example.applix.repositories;
+
+import com.example.applix.models.db.IngestCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+
+import java.util.List;
+
+public interface IngestCheckpointRepository extends JpaRepository<IngestCheckpoint, Long> {
+    List<IngestCheckpoint> findByFileIdOrderByStartOffsetAsc(Integer fileId);
+}
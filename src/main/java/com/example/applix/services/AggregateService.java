@@ -0,0 +1,254 @@
+package com.example.applix.services;
+
+import com.example.applix.columnar.ColumnarFileReader;
+import com.example.applix.columnar.ColumnarFormat;
+import com.example.applix.columnar.ColumnarStore;
+import com.example.applix.enums.AggregateFunction;
+import com.example.applix.enums.ErrorCode;
+import com.example.applix.enums.StorageEngine;
+import com.example.applix.exceptions.ApplixException;
+import com.example.applix.ingest.ColumnSpec;
+import com.example.applix.ingest.CsvSchema;
+import com.example.applix.models.db.FileTable;
+import com.example.applix.models.responses.GetAggregateResponse;
+import com.example.applix.repositories.FileRepository;
+import com.example.applix.stats.AggregateColumn;
+import com.example.applix.stats.BucketAggregator;
+import com.example.applix.stats.ExactQuantileEstimator;
+import com.example.applix.stats.QuantileEstimator;
+import com.example.applix.stats.QuantileEstimatorFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// GET /data/aggregate: avg/min/max/count/percentiles of fixed width time buckets, computed from the rows in one pass.
+// The time range is split into ranges of whole buckets, each streamed on its own thread from a filtered_data cursor
+// (one connection each) or from the columnar file of the series, straight into the bucket arrays without entities.
+// Percentiles take at most max-percentile-values x 8 bytes: a histogram per bucket over the column range when that
+// fits, otherwise every value, refused past that many rows.
+@Service
+public class AggregateService {
+    private static final Pattern BUCKET = Pattern.compile("(\\d+)([smhd]?)");
+    private static final int COLUMNAR_READ_ROWS = 1 << 16;
+
+    private final FileRepository fileRepository;
+    private final ColumnarStore columnarStore;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final long maxBuckets;
+    private final long maxPercentileValues;
+    private final QuantileEstimatorFactory quantileEstimatorFactory;
+
+    public AggregateService(FileRepository fileRepository, ColumnarStore columnarStore, DataSource dataSource, QuantileEstimatorFactory quantileEstimatorFactory,
+                            @Value("${query.stream.fetch-size:-2147483648}") int fetchSize,
+                            @Value("${query.aggregate.parallelism:4}") int parallelism,
+                            @Value("${query.aggregate.max-buckets:100000}") long maxBuckets,
+                            @Value("${query.aggregate.max-percentile-values:10000000}") long maxPercentileValues) {
+        this.fileRepository = fileRepository;
+        this.columnarStore = columnarStore;
+        this.quantileEstimatorFactory = quantileEstimatorFactory;
+        this.maxPercentileValues = maxPercentileValues;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.maxBuckets = maxBuckets;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "aggregate-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // bucket is a number of seconds, optionally with an s/m/h/d unit ("15m"). startTime and endTime are inclusive.
+    // Without a time range the whole file is aggregated. series (multi-column files) defaults to 0.
+    public GetAggregateResponse aggregate(Integer fileId, String startStr, String endStr, String bucketStr, String functionsStr, Integer seriesParam) throws IOException, ApplixException {
+        int width = parseBucket(bucketStr);
+        List<AggregateColumn> columns = AggregateColumn.parseAll(functionsStr == null ? "avg,min,max,count" : functionsStr);
+        int series = seriesParam == null ? 0 : seriesParam;
+
+        FileTable file = fileRepository.findById(fileId).orElseThrow(() -> new ApplixException("File not found"));
+        if (file.getStatus() != 1) throw new ApplixException("File " + fileId + " is not processed", ErrorCode.FILE_NOT_PROCESSED);
+        boolean columnar = StorageEngine.COLUMNAR.name().equals(file.getStorageEngine());
+        if (!columnar && series != 0) throw new ApplixException("File " + fileId + " has a single series", ErrorCode.INVALID_REQUEST);
+
+        ColumnarFileReader reader = null;
+        if (columnar) {
+            try {
+                reader = columnarStore.reader(fileId, series);
+            } catch (NoSuchFileException e) {
+                throw new ApplixException("File " + fileId + " has no series " + series, ErrorCode.INVALID_REQUEST);
+            }
+        }
+
+        Instant start = startStr != null ? Instant.parse(startStr) : null;
+        Instant end = endStr != null ? Instant.parse(endStr) : null;
+        if (start == null || end == null) {
+            Instant[] bounds = columnar ? columnarBounds(reader) : filteredDataBounds(fileId);
+            if (bounds == null) return toResponse(fileId, series, width, columns, null);
+            if (start == null) start = bounds[0];
+            if (end == null) end = bounds[1];
+        }
+        if (end.isBefore(start)) return toResponse(fileId, series, width, columns, null);
+        long startSecond = start.getEpochSecond();
+        long endSecond = end.getEpochSecond() + 1;
+        long bucketCount = BucketAggregator.bucketCount(startSecond, endSecond, width);
+        if (bucketCount > maxBuckets) {
+            throw new ApplixException(bucketCount + " buckets of " + width + "s in this range, at most " + maxBuckets + ": use a wider bucket", ErrorCode.INVALID_REQUEST);
+        }
+
+        Supplier<QuantileEstimator> percentiles = null;
+        long maxKeptValues = Long.MAX_VALUE;
+        if (columns.stream().anyMatch(column -> column.function() == AggregateFunction.PERCENTILE)) {
+            CsvSchema schema = CsvSchema.parse(file.getSchema());
+            ColumnSpec column = schema.numberColumn(series % schema.numberCount());
+            int bins = quantileEstimatorFactory.histogramBins(column.min(), column.max());
+            if (bins > 0 && bucketCount * bins <= maxPercentileValues) {
+                percentiles = () -> quantileEstimatorFactory.newHistogram(column.min(), column.max());
+            } else {
+                percentiles = ExactQuantileEstimator::new;
+                maxKeptValues = maxPercentileValues;
+            }
+        }
+        BucketAggregator aggregator = new BucketAggregator(startSecond, endSecond, width, percentiles, maxKeptValues);
+        List<Future<?>> tasks = new ArrayList<>();
+        // cancel(true) does not stop a JDBC read, the tasks look at this for every row
+        AtomicBoolean aborted = new AtomicBoolean();
+        Instant from = start;
+        Instant to = end;
+        try {
+            for (BucketAggregator.Range range : aggregator.split(parallelism)) {
+                ColumnarFileReader columnarReader = reader;
+                tasks.add(executor.submit(() -> {
+                    if (columnarReader != null) {
+                        aggregateColumnar(columnarReader, range, from, to, aggregator, aborted);
+                    } else {
+                        aggregateFilteredData(fileId, range, from, to, aggregator, aborted);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BucketAggregator.TooManyValuesException tooMany) {
+                throw new ApplixException(tooMany.getMessage(), ErrorCode.INVALID_REQUEST);
+            }
+            throw new IOException("Failed to aggregate file " + fileId, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while aggregating file " + fileId, e);
+        } finally {
+            aborted.set(true);
+            tasks.forEach(task -> task.cancel(true));
+        }
+
+        return toResponse(fileId, series, width, columns, aggregator);
+    }
+
+    // The rows of one range: its whole seconds, except that the first range starts at startTime and the last one ends
+    // at endTime (inclusive) to the instant, not at the whole seconds around them
+    private void aggregateFilteredData(int fileId, BucketAggregator.Range range, Instant start, Instant end, BucketAggregator aggregator, AtomicBoolean aborted) {
+        boolean last = isLast(range, end);
+        Instant from = isFirst(range, start) ? start : Instant.ofEpochSecond(range.startSecond());
+        Instant to = last ? end : Instant.ofEpochSecond(range.endSecond());
+        streamingJdbcTemplate.query("SELECT `timestamp`, temperature FROM filtered_data WHERE file_id = ? AND `timestamp` >= ? AND `timestamp` " + (last ? "<=" : "<") + " ?",
+                rs -> {
+                    if (aborted.get()) throw new CancellationException("Aggregation of file " + fileId + " aborted");
+                    aggregator.accept(rs.getTimestamp(1).toInstant().getEpochSecond(), rs.getDouble(2));
+                },
+                fileId, Timestamp.from(from), Timestamp.from(to));
+    }
+
+    private void aggregateColumnar(ColumnarFileReader reader, BucketAggregator.Range range, Instant start, Instant end, BucketAggregator aggregator, AtomicBoolean aborted) throws IOException {
+        long from = reader.lowerBound(isFirst(range, start) ? ColumnarFormat.toMicros(start) : range.startSecond() * 1_000_000L);
+        long to = isLast(range, end) ? reader.upperBound(ColumnarFormat.toMicros(end)) : reader.lowerBound(range.endSecond() * 1_000_000L);
+        for (long position = from; position < to; position += COLUMNAR_READ_ROWS) {
+            if (aborted.get()) throw new CancellationException("Aggregation aborted");
+            reader.read(position, (int) Math.min(COLUMNAR_READ_ROWS, to - position),
+                    (row, micros, value) -> aggregator.accept(Math.floorDiv(micros, 1_000_000L), value));
+        }
+    }
+
+    private static boolean isFirst(BucketAggregator.Range range, Instant start) {
+        return range.startSecond() == start.getEpochSecond();
+    }
+
+    private static boolean isLast(BucketAggregator.Range range, Instant end) {
+        return range.endSecond() == end.getEpochSecond() + 1;
+    }
+
+    private Instant[] filteredDataBounds(int fileId) {
+        return streamingJdbcTemplate.query("SELECT MIN(`timestamp`), MAX(`timestamp`) FROM filtered_data WHERE file_id = ?", rs -> {
+            if (!rs.next() || rs.getTimestamp(1) == null) return null;
+            return new Instant[]{rs.getTimestamp(1).toInstant(), rs.getTimestamp(2).toInstant()};
+        }, fileId);
+    }
+
+    private static Instant[] columnarBounds(ColumnarFileReader reader) throws IOException {
+        if (reader.rowCount() == 0) return null;
+        long[] micros = new long[2];
+        reader.read(0, 1, (row, timestamp, value) -> micros[0] = timestamp);
+        reader.read(reader.rowCount() - 1, 1, (row, timestamp, value) -> micros[1] = timestamp);
+        return new Instant[]{ColumnarFormat.toInstant(micros[0]), ColumnarFormat.toInstant(micros[1])};
+    }
+
+    private static GetAggregateResponse toResponse(int fileId, int series, int width, List<AggregateColumn> columns, BucketAggregator aggregator) {
+        int buckets = aggregator == null ? 0 : aggregator.bucketCount();
+        long[] bucketStart = new long[buckets];
+        Map<String, double[]> values = new LinkedHashMap<>();
+        for (AggregateColumn column : columns) values.put(column.name(), new double[buckets]);
+
+        int filled = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            if (aggregator.count(bucket) == 0) continue;
+            bucketStart[filled] = aggregator.bucketStart(bucket);
+            for (AggregateColumn column : columns) values.get(column.name())[filled] = aggregator.value(bucket, column);
+            filled++;
+        }
+
+        int count = filled;
+        values.replaceAll((name, column) -> Arrays.copyOf(column, count));
+        return new GetAggregateResponse(fileId, series, width, Arrays.copyOf(bucketStart, count), values, "success", ErrorCode.NO_ERROR);
+    }
+
+    private static int parseBucket(String bucket) {
+        Matcher matcher = BUCKET.matcher(bucket == null ? "" : bucket.trim().toLowerCase());
+        if (!matcher.matches()) throw new IllegalArgumentException("Invalid bucket '" + bucket + "', expected seconds or a number with s, m, h or d");
+        long seconds = Long.parseLong(matcher.group(1)) * switch (matcher.group(2)) {
+            case "m" -> 60;
+            case "h" -> 3_600;
+            case "d" -> 86_400;
+            default -> 1;
+        };
+        if (seconds < 1 || seconds > Integer.MAX_VALUE) throw new IllegalArgumentException("Invalid bucket '" + bucket + "'");
+        return (int) seconds;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.applix.services;
+
+import com.example.applix.ingest.ByteRange;
+import com.example.applix.ingest.CheckpointProgress;
+import com.example.applix.ingest.CoveredRanges;
+import com.example.applix.ingest.IngestResult;
+import com.example.applix.models.db.FilteredData;
+import com.example.applix.repositories.IngestCheckpointRepository;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Service
+public class CheckpointService {
+    public static final Duration RATE_WINDOW = Duration.ofSeconds(10);
+
+    private final IngestCheckpointRepository ingestCheckpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public CheckpointService(IngestCheckpointRepository ingestCheckpointRepository, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.ingestCheckpointRepository = ingestCheckpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public CoveredRanges load(int fileId) {
+        return new CoveredRanges(ingestCheckpointRepository.findByFileIdOrderByStartOffsetAsc(fileId).stream()
+                .map(checkpoint -> new ByteRange(checkpoint.getStartOffset(), checkpoint.getEndOffset()))
+                .toList());
+    }
+
+    // Merges the partial results of the checkpoints inside range into result and returns the bytes they cover, which a
+    // resumed ingest does not read again. If one of them has no partial (written before they were stored) nothing is
+    // merged and NONE is returned: the lines are parsed again, their rows still not written twice (see load).
+    public CoveredRanges resume(int fileId, ByteRange range, IngestResult result) throws IOException {
+        Integer withoutPartial = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ingest_checkpoints WHERE file_id = ? AND start_offset >= ? AND end_offset <= ? AND partial IS NULL",
+                Integer.class, fileId, range.start(), range.end());
+        if (withoutPartial == null || withoutPartial > 0) return CoveredRanges.NONE;
+
+        List<ByteRange> covered = new ArrayList<>();
+        try {
+            jdbcTemplate.query("SELECT start_offset, end_offset, partial FROM ingest_checkpoints WHERE file_id = ? AND start_offset >= ? AND end_offset <= ?", (RowCallbackHandler) rs -> {
+                covered.add(new ByteRange(rs.getLong(1), rs.getLong(2)));
+                try {
+                    result.merge(ChunkService.deserialize(rs.getBytes(3)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, fileId, range.start(), range.end());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return new CoveredRanges(covered);
+    }
+
+    // Writes the rows and their checkpoint, with the partial result of its lines, in one transaction: either both are
+    // committed or neither.
+    // A batch whose checkpoint already exists (the same event processed twice at once) is rolled back and ignored.
+    public void writeBatch(int fileId, List<FilteredData> rows, ByteRange source, byte[] partial, Consumer<List<FilteredData>> writer) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("INSERT INTO ingest_checkpoints (file_id, start_offset, end_offset, row_count, committed_at, partial) VALUES (?, ?, ?, ?, ?, ?)",
+                        fileId, source.start(), source.end(), rows.size(), Timestamp.from(Instant.now()), partial);
+                writer.accept(rows);
+            });
+        } catch (DuplicateKeyException e) {
+            System.out.println("⚠️ Batch at offset " + source.start() + " of file ID: " + fileId + " is already committed");
+        }
+    }
+
+    // recentRows : rows committed during the last RATE_WINDOW
+    public CheckpointProgress progress(int fileId) {
+        Timestamp windowStart = Timestamp.from(Instant.now().minus(RATE_WINDOW));
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(end_offset - start_offset), 0), COALESCE(SUM(row_count), 0), "
+                        + "COALESCE(SUM(CASE WHEN committed_at >= ? THEN row_count ELSE 0 END), 0) FROM ingest_checkpoints WHERE file_id = ?",
+                (rs, rowNum) -> new CheckpointProgress(rs.getLong(1), rs.getLong(2), rs.getLong(3)), windowStart, fileId);
+    }
+
+    // Checkpoints only matter until the file is complete, and are void once its rows are removed
+    public void clear(int fileId) {
+        jdbcTemplate.update("DELETE FROM ingest_checkpoints WHERE file_id = ?", fileId);
+    }
+}
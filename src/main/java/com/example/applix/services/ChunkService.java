@@ -0,0 +1,99 @@
+package com.example.applix.services;
+
+import com.example.applix.ingest.FileChunkEvent;
+import com.example.applix.ingest.IngestResult;
+import com.example.applix.models.db.FileChunkResult;
+import com.example.applix.models.db.FileTable;
+import com.example.applix.repositories.FileChunkResultRepository;
+import com.example.applix.repositories.FileRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Reduce step of chunked files: collects the partial result of every chunk and completes the file after the last one
+@Service
+public class ChunkService {
+    private final FileChunkResultRepository fileChunkResultRepository;
+    private final FileRepository fileRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final FileProcessorService fileProcessorService;
+    private final RollupService rollupService;
+    private final CheckpointService checkpointService;
+
+    public ChunkService(FileChunkResultRepository fileChunkResultRepository, FileRepository fileRepository, JdbcTemplate jdbcTemplate, FileProcessorService fileProcessorService,
+                        RollupService rollupService, CheckpointService checkpointService) {
+        this.fileChunkResultRepository = fileChunkResultRepository;
+        this.fileRepository = fileRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.fileProcessorService = fileProcessorService;
+        this.rollupService = rollupService;
+        this.checkpointService = checkpointService;
+    }
+
+    // Stores the chunk's partial result and, if it was the last one missing, merges all of them and marks the file
+    // complete. The files_table row is locked first, so two chunks finishing at once can not both miss the other.
+    // Returns true if the file was completed.
+    @Transactional(rollbackOn = Exception.class)
+    public boolean completeChunk(FileChunkEvent chunk, IngestResult partial) throws IOException {
+        int fileId = chunk.fileId();
+        Integer status = jdbcTemplate.queryForObject("SELECT status FROM files_table WHERE id = ? FOR UPDATE", Integer.class, fileId);
+        if (status == null || status != 0) return false; // completed, or failed by another chunk
+
+        // a redelivered chunk replaces its earlier result
+        jdbcTemplate.update("INSERT INTO file_chunk_results (file_id, chunk_index, chunk_count, state) VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE state = VALUES(state)",
+                fileId, chunk.index(), chunk.chunkCount(), serialize(partial));
+
+        long done = fileChunkResultRepository.countByFileId(fileId);
+        System.out.println("✅ Chunk " + (chunk.index() + 1) + "/" + chunk.chunkCount() + " of file ID: " + fileId + " processed (" + done + " done)");
+        if (done < chunk.chunkCount()) return false;
+
+        // the partials hold histograms (QuantileEstimatorFactory.newChunkStats), merged into the first one
+        IngestResult result = null;
+        for (FileChunkResult chunkResult : fileChunkResultRepository.findByFileIdOrderByChunkIndexAsc(fileId)) {
+            IngestResult chunkPartial = deserialize(chunkResult.getState());
+            if (result == null) result = chunkPartial;
+            else result.merge(chunkPartial);
+        }
+        if (result.getRejects().total() > 0) {
+            System.out.println("⚠️ Rejected rows for file ID: " + fileId + " - " + result.getRejects());
+        }
+
+        FileTable fileTable = fileRepository.findById(fileId).orElseThrow(() -> new IOException("File metadata not found for ID: " + fileId));
+        rollupService.saveRollups(fileId, result.getRollups());
+        fileProcessorService.updateFileMetaDataWithCompletedStatus(fileTable, result);
+        checkpointService.clear(fileId);
+        clear(fileId);
+        return true;
+    }
+
+    // A chunk that can not be processed fails the whole file; its other chunks are then skipped, and
+    // POST /data/files/{id}/reprocess starts it over
+    public void fail(int fileId) {
+        fileRepository.findById(fileId).ifPresent(fileProcessorService::updateFileMetaDataWithFailedStatus);
+        clear(fileId);
+    }
+
+    public void clear(int fileId) {
+        jdbcTemplate.update("DELETE FROM file_chunk_results WHERE file_id = ?", fileId);
+    }
+
+    static byte[] serialize(IngestResult result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            result.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    static IngestResult deserialize(byte[] state) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(state))) {
+            return IngestResult.readFrom(in);
+        }
+    }
+}
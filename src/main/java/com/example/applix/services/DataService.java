@@ -1,25 +1,50 @@
 package com.example.applix.services;
 
 
+import com.example.applix.cache.QueryResultCache;
+import com.example.applix.columnar.ColumnarFileReader;
+import com.example.applix.columnar.ColumnarFormat;
+import com.example.applix.columnar.ColumnarStore;
+import com.example.applix.enums.Compression;
 import com.example.applix.enums.ErrorCode;
+import com.example.applix.enums.StorageEngine;
+import com.example.applix.enums.UploadMode;
 import com.example.applix.exceptions.ApplixException;
+import com.example.applix.ingest.CheckpointProgress;
+import com.example.applix.ingest.CsvSchema;
+import com.example.applix.ingest.IngestMetrics;
+import com.example.applix.ingest.LiveIngest;
+import com.example.applix.ingest.LiveIngestRegistry;
+import com.example.applix.ingest.SchemaResolver;
+import com.example.applix.ingest.StoredUpload;
+import com.example.applix.models.PageCursor;
 import com.example.applix.models.db.FileTable;
 import com.example.applix.models.db.FilteredData;
 import com.example.applix.models.responses.GetDataResponse;
+import com.example.applix.models.responses.GetFileProgressResponse;
+import com.example.applix.models.responses.GetFileSeriesResponse;
+import com.example.applix.models.responses.GetLiveIngestResponse;
+import com.example.applix.models.responses.GetStatsResponse;
 import com.example.applix.repositories.FileRepository;
 import com.example.applix.repositories.FilteredDataRepository;
+import com.example.applix.stats.StatsIndex;
+import com.example.applix.stats.StatsIndexStore;
+import com.example.applix.stats.WindowStats;
+import io.micrometer.core.instrument.Timer;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 
 @Service
@@ -28,18 +53,44 @@ public class DataService {
     private final FileRepository fileRepository;
     private final FileProcessorService fileProcessorService;
     private final KafkaProducerService kafkaProducerService;
-    public DataService(FilteredDataRepository filteredDataRepository, FileRepository fileRepository, KafkaProducerService kafkaProducerService, FileProcessorService fileProcessorService) {
+    private final ColumnarStore columnarStore;
+    private final StatsIndexStore statsIndexStore;
+    private final UploadIngestService uploadIngestService;
+    private final RollupService rollupService;
+    private final PartitionService partitionService;
+    private final LiveIngestRegistry liveIngestRegistry;
+    private final CheckpointService checkpointService;
+    private final ChunkService chunkService;
+    private final QueryResultCache queryResultCache;
+    private final IngestMetrics ingestMetrics;
+    private final SchemaResolver schemaResolver;
+    private final UploadMode uploadMode;
+    public DataService(FilteredDataRepository filteredDataRepository, FileRepository fileRepository, KafkaProducerService kafkaProducerService, FileProcessorService fileProcessorService, ColumnarStore columnarStore,
+                       StatsIndexStore statsIndexStore, UploadIngestService uploadIngestService, RollupService rollupService, PartitionService partitionService, LiveIngestRegistry liveIngestRegistry,
+                       CheckpointService checkpointService, ChunkService chunkService, QueryResultCache queryResultCache, IngestMetrics ingestMetrics, SchemaResolver schemaResolver, @Value("${upload.mode:store}") String uploadMode) {
         this.filteredDataRepository = filteredDataRepository;
         this.fileRepository = fileRepository;
         this.kafkaProducerService = kafkaProducerService;
         this.fileProcessorService = fileProcessorService;
+        this.columnarStore = columnarStore;
+        this.statsIndexStore = statsIndexStore;
+        this.uploadIngestService = uploadIngestService;
+        this.rollupService = rollupService;
+        this.partitionService = partitionService;
+        this.liveIngestRegistry = liveIngestRegistry;
+        this.checkpointService = checkpointService;
+        this.chunkService = chunkService;
+        this.queryResultCache = queryResultCache;
+        this.ingestMetrics = ingestMetrics;
+        this.schemaResolver = schemaResolver;
+        this.uploadMode = UploadMode.fromProperty(uploadMode);
     }
 
 
     @Deprecated
     @Transactional(rollbackOn = Exception.class)
     public int uploadFileSync(MultipartFile file) throws IOException, ApplixException {
-        long startTime = System.nanoTime();
+        Timer.Sample sample = ingestMetrics.start();
 
         FileTable fileTable = fileProcessorService.insertFileMetaDataWithProcessingStatus(file.getOriginalFilename());
 
@@ -49,37 +100,133 @@ public class DataService {
 
         fileProcessorService.updateFileMetaDataWithCompletedStatus(fileTable);
 
-        long endTime = System.nanoTime();
-        double totalTimeInSeconds = (endTime - startTime) / 1_000_000_000.0;
-        System.out.println("uploadFile function executed in {} seconds" + totalTimeInSeconds);
+        ingestMetrics.recordUpload(sample, "sync");
 
         return filteredData.size();
     }
 
 
-    @Transactional
-    public void uploadFileAsync(MultipartFile file) throws IOException, ApplixException {
-        long startTime = System.nanoTime();
+    // Not transactional: a transaction would hold a pooled connection for as long as the client takes to send the body.
+    // An invalid schema is refused before anything is stored; without one it is detected from the header line.
+    public void uploadFileAsync(MultipartFile file, String schemaSpec) throws IOException, ApplixException {
+        CsvSchema schema = schemaResolver.parse(schemaSpec);
+        if (uploadMode == UploadMode.TEE) {
+            if (file.isEmpty()) throw new ApplixException("Empty file");
+            try (InputStream in = file.getInputStream()) {
+                uploadFileAsync(file.getOriginalFilename(), in, schema);
+            }
+            return;
+        }
+        Timer.Sample sample = ingestMetrics.start();
+
+        StoredUpload upload = fileProcessorService.uploadFileToS3(file);
+
+        publishUpload(upload, schema, sample);
+    }
+
+
+    // Raw request body upload, streamed to disk without going through multipart parsing.
+    // gzip / zstd bodies are block split and queued even in tee mode, their blocks are then parsed in parallel.
+    public void uploadFileAsync(String fileName, InputStream body, String schemaSpec) throws IOException, ApplixException {
+        uploadFileAsync(fileName, body, schemaResolver.parse(schemaSpec));
+    }
+
+    private void uploadFileAsync(String fileName, InputStream body, CsvSchema schema) throws IOException, ApplixException {
+        if (uploadMode == UploadMode.TEE) {
+            BufferedInputStream in = new BufferedInputStream(body, 1 << 16);
+            if (Compression.detect(in) == Compression.NONE) {
+                uploadIngestService.uploadAndIngest(fileName, in, schema);
+                return;
+            }
+            body = in;
+        }
+        Timer.Sample sample = ingestMetrics.start();
+
+        StoredUpload upload = fileProcessorService.uploadFileToS3(fileName, body);
+
+        publishUpload(upload, schema, sample);
+    }
+
+    // A header that can not be a schema (no timestamp column, duplicate names) refuses the upload
+    private void publishUpload(StoredUpload upload, CsvSchema schema, Timer.Sample sample) throws IOException {
+        if (schema == null) {
+            try {
+                schema = schemaResolver.detectStored(upload.key());
+            } catch (IllegalArgumentException e) {
+                fileProcessorService.deleteUpload(upload.key());
+                throw e;
+            }
+        }
+        FileTable fileTable = fileProcessorService.insertFileMetaDataWithProcessingStatus(upload, schema);
+
+        kafkaProducerService.sendFileProcessingEvent(fileTable);
+
+        ingestMetrics.recordUpload(sample, "async");
+        System.out.println("✅ File uploaded: " + fileTable.getId() + " (" + upload.sizeBytes() + " bytes, " + upload.lineCount() + " lines, crc32c " + upload.checksum() + ")");
+    }
+
+
+    public GetFileSeriesResponse getSeries(Integer fileId) throws ApplixException {
+        FileTable file = fileRepository.findById(fileId).orElseThrow(() -> new ApplixException("File not found"));
+        String schema = CsvSchema.parse(file.getSchema()).toSpec();
+        return new GetFileSeriesResponse(fileId, schema, fileProcessorService.getSeries(fileId), "success", ErrorCode.NO_ERROR);
+    }
 
-        File savedFile = fileProcessorService.uploadFileToS3(file);
 
-        FileTable fileTable = fileProcessorService.insertFileMetaDataWithProcessingStatus(savedFile.getName());
+    public GetLiveIngestResponse getLiveIngest(Integer fileId) throws ApplixException {
+        LiveIngest live = liveIngestRegistry.find(fileId);
+        if (live == null) throw new ApplixException("File " + fileId + " is not being ingested");
+        return new GetLiveIngestResponse(fileId, live.getStartedAt(), live.getBytesReceived(), live.getRowsWritten(),
+                live.getMean(), live.getMin(), live.getMax(), "success", ErrorCode.NO_ERROR);
+    }
 
-        kafkaProducerService.sendFileProcessingEvent(fileTable.getId(), savedFile.getAbsolutePath());
 
-        long endTime = System.nanoTime();
-        double totalTimeInSeconds = (endTime - startTime) / 1_000_000_000.0;
-        System.out.println("File upload completed in {} seconds: " + totalTimeInSeconds);
+    // Percent done from the byte ranges committed so far (ingest checkpoints, or the bytes received by a tee upload) and
+    // rows/sec over the last CheckpointService.RATE_WINDOW. Files written to the columnar store only report 0% or 100%.
+    public GetFileProgressResponse getProgress(Integer fileId) throws ApplixException {
+        FileTable file = fileRepository.findById(fileId).orElseThrow(() -> new ApplixException("File not found"));
+        if (file.getStatus() != 0) {
+            Double percentDone = file.getStatus() == 1 ? 100.0 : null;
+            return new GetFileProgressResponse(fileId, file.getStatus(), percentDone, file.getRowCount(), null, "success", ErrorCode.NO_ERROR);
+        }
+
+        LiveIngest live = liveIngestRegistry.find(fileId);
+        if (live != null) {
+            double seconds = Math.max(1, Duration.between(live.getStartedAt(), Instant.now()).toMillis()) / 1000.0;
+            return new GetFileProgressResponse(fileId, 0, null, live.getRowsWritten(), live.getRowsWritten() / seconds, "success", ErrorCode.NO_ERROR);
+        }
+
+        CheckpointProgress progress = checkpointService.progress(fileId);
+        Double percentDone = file.getSizeBytes() == null || file.getSizeBytes() == 0 ? null
+                : Math.min(100.0, progress.bytesCommitted() * 100.0 / file.getSizeBytes());
+        double rowsPerSecond = progress.recentRows() / (double) CheckpointService.RATE_WINDOW.toSeconds();
+        return new GetFileProgressResponse(fileId, 0, percentDone, progress.rowsCommitted(), rowsPerSecond, "success", ErrorCode.NO_ERROR);
     }
 
 
-    public GetDataResponse getData(Integer fileId, Integer pageNumber, Integer offSet, String startStr, String endStr) {
+    // Pages of processed files are answered from the QueryResultCache, without a single query
+    public GetDataResponse getData(Integer fileId, Integer pageNumber, Integer offSet, String startStr, String endStr, String cursorStr) throws IOException {
         int pageNum = (pageNumber == null || pageNumber < 1) ? 1 : pageNumber;
         int limit = (offSet == null || offSet < 1) ? 25 : offSet;
+        PageCursor cursor = (cursorStr == null || cursorStr.isEmpty()) ? null : PageCursor.decode(cursorStr);
+
+        QueryResultCache.DataPageKey key = new QueryResultCache.DataPageKey(fileId, cursor != null ? 0 : pageNum, limit, startStr, endStr, cursor != null ? cursorStr : null);
+        GetDataResponse cached = queryResultCache.getDataPage(key);
+        if (cached != null) return cached;
+
+        long generation = queryResultCache.generation(fileId);
+        FileTable file = fileRepository.findById(fileId).orElse(null);
+        GetDataResponse response = getData(file, generation, fileId, pageNum, limit, startStr, endStr, cursor);
+        if (isProcessed(file)) queryResultCache.putDataPage(key, response, generation);
+        return response;
+    }
 
-        Pageable pageable = PageRequest.of(pageNum - 1, limit);
+    private GetDataResponse getData(FileTable file, long generation, Integer fileId, int pageNum, int limit, String startStr, String endStr, PageCursor cursor) throws IOException {
+        if (file != null && StorageEngine.COLUMNAR.name().equals(file.getStorageEngine())) {
+            return getDataFromColumnarStore(file, pageNum, limit, startStr, endStr, cursor);
+        }
 
-        long totalRows;
+        long totalRows = countRows(fileId, file);
         long totalFilteredRows;
         List<FilteredData> data;
 
@@ -88,39 +235,167 @@ public class DataService {
             Instant endInstant = Instant.parse(endStr);
 
             // Fetch filtered data
-            totalRows = filteredDataRepository.countByFileId(fileId);
-            totalFilteredRows = filteredDataRepository.countByFileIdAndTimestampInstantBetween(fileId, startInstant, endInstant);
-            data = filteredDataRepository.findByFileIdAndTimestampInstantBetweenOrderByTimestampInstantAsc(fileId, startInstant, endInstant, pageable);
+            totalFilteredRows = countRowsBetween(fileId, file, generation, startInstant, endInstant);
+            data = cursor != null
+                    ? filteredDataRepository.findPageAfterBetween(fileId, startInstant, endInstant, cursor.timestamp(), cursor.id(), PageRequest.of(0, limit))
+                    : filteredDataRepository.findByFileIdAndTimestampInstantBetweenOrderByTimestampInstantAscIdAsc(fileId, startInstant, endInstant, PageRequest.of(pageNum - 1, limit));
         } else {
             // Fetch all data without time filtering
-            totalRows = filteredDataRepository.countByFileId(fileId);
             totalFilteredRows = totalRows;
-            data = filteredDataRepository.findByFileIdOrderByTimestampInstantAsc(fileId, pageable);
+            data = cursor != null
+                    ? filteredDataRepository.findPageAfter(fileId, cursor.timestamp(), cursor.id(), PageRequest.of(0, limit))
+                    : filteredDataRepository.findByFileIdOrderByTimestampInstantAscIdAsc(fileId, PageRequest.of(pageNum - 1, limit));
         }
 
         GetDataResponse response = new GetDataResponse();
+        setTemperatureStats(response, file, startStr, endStr);
+        response.setRecords(data);
+        response.setTotalRows(totalRows);
+        response.setTotalFilteredRows(totalFilteredRows);
+        response.setTotalPages((int) Math.ceil((double) totalRows / limit));
+        response.setNextCursor(nextCursor(data, limit));
+        response.setMessage("success");
+        response.setErrorCode(ErrorCode.NO_ERROR);
 
-        Optional<FileTable> fileById = fileRepository.findById(fileId);
-        if(fileById.isPresent()) {
-            FileTable file = fileById.get();
-            Double mean = file.getMean();
-            Double median = file.getMedian();
-            response.setMeanTemperature(mean);
-            response.setMedianTemperature(median);
+        return response;
+    }
+
+
+    // Same contract as the filtered_data queries: rows ordered by timestamp, time range inclusive on both ends.
+    // Counts and page offsets are row positions in the sorted file, found with O(log n) index seeks.
+    private GetDataResponse getDataFromColumnarStore(FileTable file, int pageNum, int limit, String startStr, String endStr, PageCursor cursor) throws IOException {
+        ColumnarFileReader reader = columnarStore.reader(file.getId());
+
+        long totalRows = reader.rowCount();
+        long from = 0;
+        long to = totalRows;
+        if (startStr != null && endStr != null) {
+            from = reader.lowerBound(ColumnarFormat.toMicros(Instant.parse(startStr)));
+            to = Math.max(from, reader.upperBound(ColumnarFormat.toMicros(Instant.parse(endStr))));
         }
 
+        // ids of columnar rows are their 1-based position, so the cursor id is the position of the next row
+        long pageStart = cursor != null ? Math.max(from, cursor.id()) : from + (long) (pageNum - 1) * limit;
+        int count = (int) Math.max(0, Math.min(limit, to - pageStart));
+        List<FilteredData> data = new ArrayList<>(count);
+        reader.read(pageStart, count, (position, micros, temperature) -> {
+            FilteredData record = new FilteredData();
+            record.setId((int) position + 1); // row number within the file, there is no filtered_data id
+            record.setFileId(file.getId());
+            record.setTimestampInstant(ColumnarFormat.toInstant(micros));
+            record.setTemperature(temperature);
+            data.add(record);
+        });
+
+        GetDataResponse response = new GetDataResponse();
+        setTemperatureStats(response, file, startStr, endStr);
         response.setRecords(data);
         response.setTotalRows(totalRows);
-        response.setTotalFilteredRows(totalFilteredRows);
+        response.setTotalFilteredRows(to - from);
         response.setTotalPages((int) Math.ceil((double) totalRows / limit));
+        response.setNextCursor(nextCursor(data, limit));
         response.setMessage("success");
         response.setErrorCode(ErrorCode.NO_ERROR);
 
         return response;
     }
 
+    // Whole-file values come from files_table, the values of a time window from the stats index of the file. The index
+    // is kept per minute/hour, so the window it aggregated is returned with them.
+    private void setTemperatureStats(GetDataResponse response, FileTable file, String startStr, String endStr) throws IOException {
+        if (file == null) return;
+        response.setMeanTemperature(file.getMean());
+        response.setMedianTemperature(file.getMedian());
+        response.setMedianApproximate(file.getMedianApproximate());
+        if (startStr == null || endStr == null || !isProcessed(file)) return;
+
+        StatsIndex index = statsIndexStore.find(file.getId());
+        if (index == null) return; // processed before the stats index existed
+        WindowStats window = index.query(Instant.parse(startStr), Instant.parse(endStr));
+        response.setMeanTemperature(window.mean());
+        response.setMedianTemperature(window.median());
+        response.setMedianApproximate(window.median() != null ? true : null);
+        response.setWindowStart(window.windowStart());
+        response.setWindowEnd(window.windowEnd());
+    }
+
+
+    public GetStatsResponse getStats(Integer fileId, String startStr, String endStr) throws IOException, ApplixException {
+        FileTable file = fileRepository.findById(fileId).orElseThrow(() -> new ApplixException("File not found"));
+        if (!isProcessed(file)) throw new ApplixException("File is not processed yet");
+
+        StatsIndex index = statsIndexStore.find(fileId);
+        if (index == null) throw new ApplixException("No statistics index for file " + fileId);
+
+        WindowStats window = index.query(startStr != null ? Instant.parse(startStr) : null, endStr != null ? Instant.parse(endStr) : null);
+        return new GetStatsResponse(window.count(), window.mean(), window.median(), window.min(), window.max(), window.windowStart(), window.windowEnd(), "success", ErrorCode.NO_ERROR);
+    }
+
+    // A processed file (status 1) never changes, so its counts are read from files_table or the cache
+    private long countRows(Integer fileId, FileTable file) {
+        if (isProcessed(file) && file.getRowCount() != null) return file.getRowCount();
+        return filteredDataRepository.countByFileId(fileId);
+    }
+
+    private long countRowsBetween(Integer fileId, FileTable file, long generation, Instant startInstant, Instant endInstant) {
+        if (!isProcessed(file)) return filteredDataRepository.countByFileIdAndTimestampInstantBetween(fileId, startInstant, endInstant);
+        return queryResultCache.getRangeCount(fileId, startInstant, endInstant, generation,
+                () -> filteredDataRepository.countByFileIdAndTimestampInstantBetween(fileId, startInstant, endInstant));
+    }
+
+    private static boolean isProcessed(FileTable file) {
+        return file != null && file.getStatus() == 1;
+    }
+
+    private static String nextCursor(List<FilteredData> data, int limit) {
+        if (data.size() < limit) return null;
+        FilteredData last = data.get(data.size() - 1);
+        return new PageCursor(last.getTimestampInstant(), last.getId()).encode();
+    }
+
+
+    // Removes the rows (one partition drop when filtered_data is partitioned), rollups, indexes and the raw upload
+    public void deleteFile(Integer fileId) throws IOException, ApplixException {
+        FileTable file = findFileNotInProgress(fileId);
+
+        clearFileData(fileId);
+        partitionService.drop(fileId);
+        fileRepository.delete(file);
+        queryResultCache.invalidate(fileId); // after the delete, so no request can cache counts of the dropped rows
+        fileProcessorService.deleteUpload(file);
+    }
+
+
+    // Drops what was stored for the file and queues its raw upload for processing again
+    public void reprocessFile(Integer fileId) throws IOException, ApplixException {
+        FileTable file = findFileNotInProgress(fileId);
+        if (!fileProcessorService.uploadExists(file)) throw new ApplixException("The upload of file " + fileId + " no longer exists");
+
+        // processing first: counts and pages are only cached for processed files, so none are cached of the emptied rows
+        file.setStatus(0); // Mark as processing
+        fileRepository.save(file);
+        queryResultCache.invalidate(fileId);
+        clearFileData(fileId);
+        partitionService.truncate(fileId);
+        kafkaProducerService.sendFileProcessingEvent(file);
+    }
+
+    private FileTable findFileNotInProgress(Integer fileId) throws ApplixException {
+        FileTable file = fileRepository.findById(fileId).orElseThrow(() -> new ApplixException("File not found"));
+        if (file.getStatus() == 0) throw new ApplixException("File " + fileId + " is being processed", ErrorCode.FILE_NOT_PROCESSED);
+        return file;
+    }
+
+    private void clearFileData(Integer fileId) throws IOException {
+        rollupService.deleteRollups(fileId);
+        fileProcessorService.deleteSeries(fileId);
+        checkpointService.clear(fileId);
+        chunkService.clear(fileId);
+        columnarStore.delete(fileId);
+    }
+
 
     public List<FileTable> getUploadedFilesWithStatusZeroOrOne() {
-        return fileRepository.findByStatusInOrderByIdDesc(List.of(0, 1));
+        return queryResultCache.getFiles(() -> fileRepository.findByStatusInOrderByIdDesc(List.of(0, 1)));
     }
 }
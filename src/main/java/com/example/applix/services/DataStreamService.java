@@ -0,0 +1,194 @@
+package com.example.applix.services;
+
+import com.example.applix.columnar.ColumnarFileReader;
+import com.example.applix.columnar.ColumnarFormat;
+import com.example.applix.columnar.ColumnarStore;
+import com.example.applix.enums.ErrorCode;
+import com.example.applix.enums.StorageEngine;
+import com.example.applix.exceptions.ApplixException;
+import com.example.applix.ingest.CsvSchema;
+import com.example.applix.models.PageCursor;
+import com.example.applix.models.db.FileTable;
+import com.example.applix.repositories.FileRepository;
+import com.example.applix.streaming.RowBlock;
+import com.example.applix.streaming.RowBlockEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// GET /data in the compact encodings (see RowBlockEncoder). Rows go from the JDBC cursor (or the columnar file)
+// straight into primitive blocks, without FilteredData entities, so memory does not grow with the page size.
+// Same paging contract as DataService.getData: page + offset or keyset cursor, optional inclusive time range.
+// Exports stream every row of a file (or a time range) in one response the same way, CSV included.
+@Service
+public class DataStreamService {
+    private static final int COLUMNAR_READ_ROWS = 1 << 16;
+    private final FileRepository fileRepository;
+    private final ColumnarStore columnarStore;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public DataStreamService(FileRepository fileRepository, ColumnarStore columnarStore, DataSource dataSource,
+                             @Value("${query.stream.fetch-size:-2147483648}") int fetchSize) {
+        this.fileRepository = fileRepository;
+        this.columnarStore = columnarStore;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    // Arguments and the file are checked here, before the response is committed; the rows are read while it is written
+    public StreamingResponseBody streamData(Integer fileId, Integer pageNumber, Integer offSet, String startStr, String endStr, String cursorStr, MediaType mediaType) throws ApplixException {
+        int pageNum = (pageNumber == null || pageNumber < 1) ? 1 : pageNumber;
+        int limit = (offSet == null || offSet < 1) ? 25 : offSet;
+        PageCursor cursor = (cursorStr == null || cursorStr.isEmpty()) ? null : PageCursor.decode(cursorStr);
+        Instant start = startStr != null && endStr != null ? Instant.parse(startStr) : null;
+        Instant end = startStr != null && endStr != null ? Instant.parse(endStr) : null;
+
+        FileTable file = fileRepository.findById(fileId).orElseThrow(() -> new ApplixException("File not found"));
+        boolean columnar = StorageEngine.COLUMNAR.name().equals(file.getStorageEngine());
+
+        return out -> {
+            RowBlockEncoder encoder = RowBlockEncoder.forMediaType(mediaType, out);
+            RowBlock block = new RowBlock();
+            encoder.begin(fileId);
+            int rows = columnar
+                    ? readColumnar(fileId, pageNum, limit, start, end, cursor, block, encoder)
+                    : readFilteredData(fileId, pageNum, limit, start, end, cursor, block, encoder);
+            if (block.size() > 0) encoder.block(block);
+            encoder.end(rows == limit ? new PageCursor(block.lastTimestamp(), block.lastId()).encode() : null);
+        };
+    }
+
+    // GET /data/files/{id}/export: one forward-only pass over the rows in timestamp order, no OFFSET, no count.
+    // series picks a series of a multi-column file (default 0).
+    public StreamingResponseBody exportData(Integer fileId, String startStr, String endStr, Integer seriesParam, MediaType mediaType) throws IOException, ApplixException {
+        int series = seriesParam == null ? 0 : seriesParam;
+        Instant start = startStr != null && endStr != null ? Instant.parse(startStr) : null;
+        Instant end = startStr != null && endStr != null ? Instant.parse(endStr) : null;
+
+        FileTable file = fileRepository.findById(fileId).orElseThrow(() -> new ApplixException("File not found"));
+        if (file.getStatus() != 1) throw new ApplixException("File " + fileId + " is not processed", ErrorCode.FILE_NOT_PROCESSED);
+        CsvSchema schema = CsvSchema.parse(file.getSchema());
+        boolean columnar = StorageEngine.COLUMNAR.name().equals(file.getStorageEngine());
+        if (!columnar && series != 0) throw new ApplixException("File " + fileId + " has a single series", ErrorCode.INVALID_REQUEST);
+        ColumnarFileReader reader = null;
+        if (columnar) {
+            try {
+                reader = columnarStore.reader(fileId, series);
+            } catch (NoSuchFileException e) {
+                throw new ApplixException("File " + fileId + " has no series " + series, ErrorCode.INVALID_REQUEST);
+            }
+        }
+        String valueColumn = schema.numberColumn(series % schema.numberCount()).name();
+
+        ColumnarFileReader columnarReader = reader;
+        return out -> {
+            RowBlockEncoder encoder = RowBlockEncoder.forExport(mediaType, out, valueColumn);
+            RowBlock block = new RowBlock();
+            encoder.begin(fileId);
+            if (columnarReader != null) {
+                exportColumnar(columnarReader, start, end, block, encoder);
+            } else {
+                exportFilteredData(fileId, start, end, block, encoder);
+            }
+            if (block.size() > 0) encoder.block(block);
+            encoder.end(null);
+        };
+    }
+
+    private void exportFilteredData(int fileId, Instant start, Instant end, RowBlock block, RowBlockEncoder encoder) {
+        StringBuilder sql = new StringBuilder("SELECT id, `timestamp`, temperature FROM filtered_data WHERE file_id = ?");
+        List<Object> args = new ArrayList<>(List.of(fileId));
+        if (start != null) {
+            sql.append(" AND `timestamp` BETWEEN ? AND ?");
+            args.add(Timestamp.from(start));
+            args.add(Timestamp.from(end));
+        }
+        sql.append(" ORDER BY `timestamp` ASC, id ASC"); // (file_id, timestamp) index order, no sort
+
+        streamingJdbcTemplate.query(sql.toString(), rs -> {
+            block.add(rs.getInt(1), rs.getTimestamp(2).toInstant(), rs.getDouble(3));
+            flushIfFull(block, encoder);
+        }, args.toArray());
+    }
+
+    private void exportColumnar(ColumnarFileReader reader, Instant start, Instant end, RowBlock block, RowBlockEncoder encoder) throws IOException {
+        long from = start != null ? reader.lowerBound(ColumnarFormat.toMicros(start)) : 0;
+        long to = end != null ? Math.max(from, reader.upperBound(ColumnarFormat.toMicros(end))) : reader.rowCount();
+        for (long position = from; position < to; position += COLUMNAR_READ_ROWS) {
+            reader.read(position, (int) Math.min(COLUMNAR_READ_ROWS, to - position), (row, micros, temperature) -> {
+                block.add((int) row + 1, ColumnarFormat.toInstant(micros), temperature);
+                flushIfFull(block, encoder);
+            });
+        }
+    }
+
+    private int readFilteredData(int fileId, int pageNum, int limit, Instant start, Instant end, PageCursor cursor, RowBlock block, RowBlockEncoder encoder) {
+        StringBuilder sql = new StringBuilder("SELECT id, `timestamp`, temperature FROM filtered_data WHERE file_id = ?");
+        List<Object> args = new ArrayList<>(List.of(fileId));
+        if (start != null) {
+            sql.append(" AND `timestamp` BETWEEN ? AND ?");
+            args.add(Timestamp.from(start));
+            args.add(Timestamp.from(end));
+        }
+        if (cursor != null) {
+            sql.append(" AND (`timestamp` > ? OR (`timestamp` = ? AND id > ?))");
+            args.add(Timestamp.from(cursor.timestamp()));
+            args.add(Timestamp.from(cursor.timestamp()));
+            args.add(cursor.id());
+        }
+        sql.append(" ORDER BY `timestamp` ASC, id ASC LIMIT ?");
+        args.add(limit);
+        if (cursor == null) {
+            sql.append(" OFFSET ?");
+            args.add((long) (pageNum - 1) * limit);
+        }
+
+        int[] rows = new int[1];
+        streamingJdbcTemplate.query(sql.toString(), rs -> {
+            block.add(rs.getInt(1), rs.getTimestamp(2).toInstant(), rs.getDouble(3));
+            rows[0]++;
+            flushIfFull(block, encoder);
+        }, args.toArray());
+        return rows[0];
+    }
+
+    // ids of columnar rows are their 1-based position, as in DataService
+    private int readColumnar(int fileId, int pageNum, int limit, Instant start, Instant end, PageCursor cursor, RowBlock block, RowBlockEncoder encoder) throws IOException {
+        ColumnarFileReader reader = columnarStore.reader(fileId);
+        long from = 0;
+        long to = reader.rowCount();
+        if (start != null) {
+            from = reader.lowerBound(ColumnarFormat.toMicros(start));
+            to = Math.max(from, reader.upperBound(ColumnarFormat.toMicros(end)));
+        }
+
+        long pageStart = cursor != null ? Math.max(from, cursor.id()) : from + (long) (pageNum - 1) * limit;
+        int count = (int) Math.max(0, Math.min(limit, to - pageStart));
+        reader.read(pageStart, count, (position, micros, temperature) -> {
+            block.add((int) position + 1, ColumnarFormat.toInstant(micros), temperature);
+            flushIfFull(block, encoder);
+        });
+        return count;
+    }
+
+    private static void flushIfFull(RowBlock block, RowBlockEncoder encoder) {
+        if (!block.isFull()) return;
+        try {
+            encoder.block(block);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // client went away, stops the read
+        }
+        block.clear();
+    }
+}
@@ -1,46 +1,131 @@
 package com.example.applix.services;
 
+import com.example.applix.blob.BlobStore;
+import com.example.applix.bulk.BulkWriterSelector;
+import com.example.applix.cache.QueryResultCache;
+import com.example.applix.columnar.ColumnarFileWriter;
+import com.example.applix.columnar.ColumnarSeriesWriter;
+import com.example.applix.columnar.ColumnarStore;
+import com.example.applix.enums.Compression;
+import com.example.applix.enums.FileSizeClass;
+import com.example.applix.enums.IngestMode;
+import com.example.applix.enums.StorageEngine;
 import com.example.applix.exceptions.ApplixException;
+import com.example.applix.ingest.ByteLineReader;
+import com.example.applix.ingest.BatchSink;
+import com.example.applix.ingest.BlockIndex;
+import com.example.applix.ingest.ColumnSpec;
+import com.example.applix.ingest.BlockSplitUpload;
+import com.example.applix.ingest.ByteRange;
+import com.example.applix.ingest.CoveredRanges;
+import com.example.applix.ingest.CsvSchema;
+import com.example.applix.ingest.FileRangeSplitter;
+import com.example.applix.ingest.IngestPipeline;
+import com.example.applix.ingest.IngestResult;
+import com.example.applix.ingest.SchemaLineParser;
+import com.example.applix.ingest.SeriesRegistry;
+import com.example.applix.ingest.StoredUpload;
+import com.example.applix.ingest.StreamingUpload;
+import com.example.applix.ingest.TemperatureLineParser;
+import com.example.applix.models.db.FileSeries;
 import com.example.applix.models.db.FileTable;
 import com.example.applix.models.db.FilteredData;
 import com.example.applix.repositories.FileRepository;
+import com.example.applix.repositories.FileSeriesRepository;
+import com.example.applix.stats.QuantileEstimatorFactory;
+import com.example.applix.stats.TemperatureStats;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
-import java.sql.Timestamp;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.DoubleSummaryStatistics;
-import java.util.PriorityQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class FileProcessorService {
+    private static final long FIRST_ROW_MAX_OFFSET = 1 << 16;
     @Value("${file.upload-dir}")
     private String UPLOAD_DIR;
     @Value("${sql.insert.batch-size}")
     private Integer BATCH_SIZE;
+    @Value("${ingest.mode:sequential}")
+    private String INGEST_MODE;
+    @Value("${ingest.pipeline.parsers:0}")
+    private Integer PARSER_THREADS;
+    @Value("${storage.engine:mysql}")
+    private String STORAGE_ENGINE;
+    @Value("${ingest.small-file-max-bytes:67108864}")
+    private Long SMALL_FILE_MAX_BYTES;
+    @Value("${ingest.compression.block-bytes:4194304}")
+    private Integer COMPRESSED_BLOCK_BYTES;
+    @Value("${ingest.schema.max-series:64}")
+    private Integer MAX_SERIES;
     private final FileRepository fileRepository;
     private final JdbcTemplate jdbcTemplate;
-    public FileProcessorService(FileRepository fileRepository, JdbcTemplate jdbcTemplate) {
+    private final QuantileEstimatorFactory quantileEstimatorFactory;
+    private final ColumnarStore columnarStore;
+    private final IngestPipeline ingestPipeline;
+    private final BulkWriterSelector bulkWriterSelector;
+    private final PartitionService partitionService;
+    private final CheckpointService checkpointService;
+    private final QueryResultCache queryResultCache;
+    private final BlobStore blobStore;
+    private final FileSeriesRepository fileSeriesRepository;
+    public FileProcessorService(FileRepository fileRepository, JdbcTemplate jdbcTemplate, QuantileEstimatorFactory quantileEstimatorFactory, ColumnarStore columnarStore, IngestPipeline ingestPipeline,
+                                BulkWriterSelector bulkWriterSelector, PartitionService partitionService, CheckpointService checkpointService, QueryResultCache queryResultCache, BlobStore blobStore,
+                                FileSeriesRepository fileSeriesRepository) {
         this.fileRepository = fileRepository;
         this.jdbcTemplate = jdbcTemplate;
+        this.quantileEstimatorFactory = quantileEstimatorFactory;
+        this.columnarStore = columnarStore;
+        this.ingestPipeline = ingestPipeline;
+        this.bulkWriterSelector = bulkWriterSelector;
+        this.partitionService = partitionService;
+        this.checkpointService = checkpointService;
+        this.queryResultCache = queryResultCache;
+        this.blobStore = blobStore;
+        this.fileSeriesRepository = fileSeriesRepository;
     }
 
 
 
     public FileTable insertFileMetaDataWithProcessingStatus(String fileName) {
+        return insertFileMetaDataWithProcessingStatus(fileName, CsvSchema.LEGACY);
+    }
+
+    public FileTable insertFileMetaDataWithProcessingStatus(String fileName, CsvSchema schema) {
         FileTable dbFileTable = new FileTable();
         dbFileTable.setName(fileName);
+        dbFileTable.setSchema(schema.toSpec());
+        dbFileTable.setStatus(0); // Mark as processing
+        dbFileTable = fileRepository.save(dbFileTable);
+        partitionService.reserve(dbFileTable.getId());
+        queryResultCache.invalidate(dbFileTable.getId());
+
+        return dbFileTable;
+    }
+
+    public FileTable insertFileMetaDataWithProcessingStatus(StoredUpload upload, CsvSchema schema) {
+        FileTable dbFileTable = new FileTable();
+        dbFileTable.setName(upload.file().getName());
+        dbFileTable.setSchema(schema.toSpec());
+        dbFileTable.setSizeBytes(upload.sizeBytes());
+        dbFileTable.setLineCount(upload.lineCount());
+        dbFileTable.setChecksum(upload.checksum());
         dbFileTable.setStatus(0); // Mark as processing
         dbFileTable = fileRepository.save(dbFileTable);
+        partitionService.reserve(dbFileTable.getId());
+        queryResultCache.invalidate(dbFileTable.getId());
 
         return dbFileTable;
     }
@@ -48,26 +133,126 @@ public class FileProcessorService {
     public void updateFileMetaDataWithCompletedStatus(FileTable fileTable) {
         fileTable.setStatus(1);
         fileRepository.save(fileTable);
+        queryResultCache.invalidate(fileTable.getId());
+    }
+
+    public void updateFileMetaDataWithCompletedStatus(FileTable fileTable, IngestResult result) {
+        TemperatureStats stats = result.getStats();
+        fileTable.setMean(stats.getMean());
+        fileTable.setMedian(stats.getMedian());
+        fileTable.setP90(stats.getP90());
+        fileTable.setP99(stats.getP99());
+        fileTable.setMedianApproximate(!stats.hasExactQuantiles());
+        fileTable.setRowCount(stats.getCount());
+        fileTable.setStorageEngine((CsvSchema.parse(fileTable.getSchema()).isSingleSeries() ? getStorageEngine() : StorageEngine.COLUMNAR).name());
+        saveSeries(fileTable.getId(), result);
+        updateFileMetaDataWithCompletedStatus(fileTable);
+    }
+
+    // One file_series row per series of a multi-column file (files_table already describes a single one)
+    private void saveSeries(Integer fileId, IngestResult result) {
+        deleteSeries(fileId);
+        List<FileSeries> rows = new ArrayList<>();
+        for (int i = 0; i < result.getSeries().size(); i++) {
+            IngestResult.Series series = result.getSeries().get(i);
+            if (series == null) continue;
+            TemperatureStats stats = series.stats();
+            FileSeries row = new FileSeries();
+            row.setFileId(fileId);
+            row.setSeriesIndex(i);
+            row.setSensor(series.sensor());
+            row.setColumnName(series.column());
+            row.setRowCount(stats.getCount());
+            row.setMean(stats.getMean());
+            row.setMedian(stats.getMedian());
+            row.setMinValue(stats.getMin());
+            row.setMaxValue(stats.getMax());
+            row.setP90(stats.getP90());
+            row.setP99(stats.getP99());
+            rows.add(row);
+        }
+        if (!rows.isEmpty()) fileSeriesRepository.saveAll(rows);
     }
 
-    public File uploadFileToS3(MultipartFile file) throws IOException, ApplixException {
-        // For now, we are saving the files in server
-        // at location resources/uploads/
+    public void deleteSeries(Integer fileId) {
+        jdbcTemplate.update("DELETE FROM file_series WHERE file_id = ?", fileId);
+    }
 
+    public List<FileSeries> getSeries(Integer fileId) {
+        return fileSeriesRepository.findByFileIdOrderBySeriesIndexAsc(fileId);
+    }
+
+    public void updateFileMetaDataWithFailedStatus(FileTable fileTable) {
+        fileTable.setStatus(2);
+        fileRepository.save(fileTable);
+        queryResultCache.invalidate(fileTable.getId());
+    }
+
+    public void updateFileMetaDataWithUpload(FileTable fileTable, StoredUpload upload) {
+        fileTable.setSizeBytes(upload.sizeBytes());
+        fileTable.setLineCount(upload.lineCount());
+        fileTable.setChecksum(upload.checksum());
+        fileRepository.save(fileTable);
+        queryResultCache.invalidate(fileTable.getId());
+    }
+
+    // The raw upload a files_table row was created for is the blob named after it
+    public boolean uploadExists(FileTable fileTable) throws IOException {
+        return blobStore.exists(fileTable.getName());
+    }
+
+    public void deleteUpload(FileTable fileTable) throws IOException {
+        deleteUpload(fileTable.getName());
+    }
+
+    public void deleteUpload(String key) throws IOException {
+        blobStore.delete(key);
+        blobStore.delete(BlockIndex.indexKey(key));
+    }
+
+    public StoredUpload uploadFileToS3(MultipartFile file) throws IOException, ApplixException {
         if (file.isEmpty()) throw new ApplixException("Empty file");
 
-        String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename(); // Avoid name conflicts
+        try (InputStream in = file.getInputStream()) {
+            return uploadFileToS3(file.getOriginalFilename(), in);
+        }
+    }
+
+    // The body is staged in file.upload-dir in fixed size chunks, never held in memory as a whole, then handed to the
+    // BlobStore (where it already is with blob.store=local).
+    // gzip / zstd bodies stay compressed, re-encoded on the way as independent blocks (see BlockSplitUpload).
+    public StoredUpload uploadFileToS3(String originalFileName, InputStream body) throws IOException, ApplixException {
+        BufferedInputStream in = new BufferedInputStream(body, 1 << 16);
+        Compression compression = Compression.detect(in);
+        File target = newUploadFile(originalFileName);
+        StoredUpload upload = compression == Compression.NONE
+                ? StreamingUpload.copy(in, target)
+                : BlockSplitUpload.copy(compression.decompress(in), target, compression, COMPRESSED_BLOCK_BYTES);
+        if (upload.sizeBytes() == 0) {
+            Files.deleteIfExists(upload.file().toPath());
+            Files.deleteIfExists(BlockIndex.indexFile(upload.file()).toPath());
+            throw new ApplixException("Empty file");
+        }
+        if (compression != Compression.NONE) {
+            blobStore.put(BlockIndex.indexKey(upload.key()), BlockIndex.indexFile(target));
+        }
+        blobStore.put(upload.key(), target);
+        return upload;
+    }
+
+    // An upload staged by upload.mode=tee, once it is complete
+    public void storeUpload(File staged) throws IOException {
+        blobStore.put(staged.getName(), staged);
+    }
+
+    public File newUploadFile(String originalFileName) throws ApplixException {
+        String fileName = System.currentTimeMillis() + "_" + Paths.get(Objects.requireNonNullElse(originalFileName, "upload.csv")).getFileName(); // Avoid name conflicts
         File uploadDirectory = new File(UPLOAD_DIR);
         if (!uploadDirectory.exists()) {
             boolean mkdirs = uploadDirectory.mkdirs(); // Ensure directory exists
             if(!mkdirs) throw new ApplixException("File Could Not Be Saved! Try Again");
         }
-
-        File savedFile = new File(uploadDirectory, fileName);
-        try (FileOutputStream fos = new FileOutputStream(savedFile)) {
-            fos.write(file.getBytes());
-        }
-        return savedFile;
+        return new File(uploadDirectory, fileName);
     }
 
     @Deprecated
@@ -82,155 +267,351 @@ public class FileProcessorService {
         }
     }
 
-    public List<Double> processFileStreaming(File file, int fileId) throws IOException {
-        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
-        PriorityQueue<Double> minHeap = new PriorityQueue<>();
-        PriorityQueue<Double> maxHeap = new PriorityQueue<>((a, b) -> Double.compare(b, a));
+    public StorageEngine getStorageEngine() {
+        return StorageEngine.fromProperty(STORAGE_ENGINE);
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            List<FilteredData> chunk = new ArrayList<>();
-            String line;
+    // Rows go to filtered_data, or with storage.engine=columnar to a sorted columnar file in the ColumnarStore.
+    // filtered_data batches are committed together with a checkpoint of the bytes they came from and the stats, rejects
+    // and rollups of those lines, so a redelivered event only reads what an interrupted run did not commit.
+    // Multi-column files always go to the ColumnarStore, one file per series.
+    public IngestResult processFileStreaming(String key, FileTable fileTable) throws IOException {
+        int fileId = fileTable.getId();
+        CsvSchema schema = CsvSchema.parse(fileTable.getSchema());
+        if (!schema.isSingleSeries()) {
+            return processSeriesStreaming(key, fileId, schema);
+        }
 
-            while ((line = reader.readLine()) != null) {
-                FilteredData data = parseAndFilterLine(line, fileId);
+        if (getStorageEngine() == StorageEngine.MYSQL) {
+            IngestResult result = newResult(schema);
+            CoveredRanges written = checkpointService.load(fileId);
+            CoveredRanges summarized = checkpointService.resume(fileId, new ByteRange(0, Long.MAX_VALUE), result);
+            if (!written.isEmpty()) {
+                System.out.println("🔁 Resuming file ID: " + fileId + ", " + written.coveredBytes() + " bytes already committed, " + summarized.coveredBytes() + " of them not read again");
+            }
+            return processFileStreaming(key, result, summarized, (reader, job) -> parseLines(reader, fileId, schema, job, written, summarized, () -> newResult(schema)), checkpointedInsert(fileId));
+        }
 
-                if (data != null) {
-                    chunk.add(data);
-                    stats.accept(data.getTemperature());
-                    addNumberToHeapsForMedianData(data.getTemperature(), minHeap, maxHeap);
-                }
+        // A columnar file is only published by finish(), an interrupted one is rewritten from the start
+        try (ColumnarFileWriter writer = columnarStore.newWriter(fileId)) {
+            IngestResult result = processFileStreaming(key, newResult(schema), CoveredRanges.NONE, (reader, job) -> parseLines(reader, fileId, schema, job, CoveredRanges.NONE, CoveredRanges.NONE, () -> newResult(schema)),
+                    (rows, source, partial) -> writer.append(rows));
+            writer.finish();
+            return result;
+        }
+    }
 
-                if (chunk.size() >= BATCH_SIZE) {
-                    List<FilteredData> batch = new ArrayList<>(chunk);
-                    executor.execute(() -> batchInsert(batch));
-                    chunk.clear();
-                }
-            }
+    // One chunk event of a large file (storage.engine=mysql, single bounded series only). The chunk is split over the
+    // parser threads like a whole file; its result is partial, with a histogram median, merged by ChunkService.
+    // A redelivered chunk reads only what its checkpoints do not cover, like a whole file.
+    public IngestResult processFileChunk(String key, FileTable fileTable, ByteRange chunk) throws IOException {
+        int fileId = fileTable.getId();
+        CsvSchema schema = CsvSchema.parse(fileTable.getSchema());
+        ColumnSpec column = schema.numberColumn(0);
+        Supplier<IngestResult> newPartial = () -> new IngestResult(quantileEstimatorFactory.newChunkStats(column.min(), column.max()), column);
+        BlockIndex blocks = BlockIndex.load(blobStore, key);
+
+        IngestResult result = newPartial.get();
+        CoveredRanges written = checkpointService.load(fileId);
+        CoveredRanges summarized = checkpointService.resume(fileId, blocks != null ? blocks.uncompressed(chunk) : chunk, result);
+        return processFileParallel(key, chunk, result, summarized, (reader, job) -> parseLines(reader, fileId, schema, job, written, summarized, newPartial), checkpointedInsert(fileId));
+    }
+
+    private IngestResult processSeriesStreaming(String key, int fileId, CsvSchema schema) throws IOException {
+        SeriesRegistry registry = new SeriesRegistry(schema, quantileEstimatorFactory, MAX_SERIES);
+        registerFirstRow(key, registry);
+        try (ColumnarSeriesWriter writer = columnarStore.newSeriesWriter(fileId, MAX_SERIES)) {
+            IngestResult result = processFileStreaming(key, new IngestResult(registry.newStats(0), registry), CoveredRanges.NONE, (reader, job) -> parseSeriesLines(reader, fileId, registry, job),
+                    (rows, source, partial) -> writer.append(rows));
+            writer.finish();
+            return result;
+        }
+    }
+
+    private BatchSink checkpointedInsert(int fileId) {
+        return (rows, source, partial) -> checkpointService.writeBatch(fileId, rows, source, partial, this::batchInsert);
+    }
 
-            if (!chunk.isEmpty()) {
-                executor.execute(() -> batchInsert(chunk));
+    // Upload tee mode: parses the rows while the stream is still arriving, on the calling thread.
+    // onWritten sees every batch once it is stored (only the rows of series 0 for multi-column files).
+    // Unlike processFileStreaming, failures are thrown.
+    public IngestResult processStream(InputStream in, int fileId, CsvSchema schema, Consumer<List<FilteredData>> onWritten) throws IOException {
+        if (!schema.isSingleSeries()) {
+            SeriesRegistry registry = new SeriesRegistry(schema, quantileEstimatorFactory, MAX_SERIES);
+            try (ColumnarSeriesWriter writer = columnarStore.newSeriesWriter(fileId, MAX_SERIES)) {
+                IngestResult result = parseStream(in, (reader, job) -> parseSeriesLines(reader, fileId, registry, job), rows -> {
+                    writer.append(rows);
+                    onWritten.accept(rows.stream().filter(row -> row.getSeries() == 0).toList());
+                });
+                writer.finish();
+                return result;
             }
+        }
+
+        if (getStorageEngine() == StorageEngine.MYSQL) {
+            Consumer<List<FilteredData>> insert = this::batchInsert;
+            return parseStream(in, (reader, job) -> parseLines(reader, fileId, schema, job, CoveredRanges.NONE, CoveredRanges.NONE, () -> newResult(schema)), insert.andThen(onWritten));
+        }
 
-        } catch (Exception e) {
-            System.out.println("Exception caught while processFileStreaming Execution : " + e.getMessage());
+        try (ColumnarFileWriter writer = columnarStore.newWriter(fileId)) {
+            Consumer<List<FilteredData>> append = writer::append;
+            IngestResult result = parseStream(in, (reader, job) -> parseLines(reader, fileId, schema, job, CoveredRanges.NONE, CoveredRanges.NONE, () -> newResult(schema)), append.andThen(onWritten));
+            writer.finish();
+            return result;
+        }
+    }
+
+    private IngestResult parseStream(InputStream in, LineParse parse, Consumer<List<FilteredData>> sink) throws IOException {
+        IngestPipeline.Job job = ingestPipeline.newJob((rows, source, partial) -> sink.accept(rows), FileSizeClass.LARGE); // size unknown until the upload ends
+        try {
+            return parse.parse(new ByteLineReader(in, 0), job);
         } finally {
-            executor.shutdown(); // Stop accepting new tasks
-            try {
-                if (!executor.awaitTermination(10, TimeUnit.MINUTES)) { // Wait for all tasks to finish
-                    System.out.println("Forcing shutdown as tasks took too long!");
-                    executor.shutdownNow(); // Force shutdown if not finished
+            job.await();
+        }
+    }
+
+    // Parses the lines of one reader (a whole file or one range of it) into the job, see parseLines / parseSeriesLines
+    @FunctionalInterface
+    private interface LineParse {
+        IngestResult parse(ByteLineReader reader, IngestPipeline.Job job) throws IOException;
+    }
+
+    // A compressed upload without a block index (stored as received, e.g. by upload.mode=tee) can only be read as one
+    // stream, it is parsed sequentially whatever ingest.mode says, and lines in skipped ranges are decompressed but not
+    // parsed. Uncompressed uploads are only read between the skipped ranges.
+    // result is what the parsed lines are merged into: empty, or the partials of the skipped ranges
+    private IngestResult processFileStreaming(String key, IngestResult result, CoveredRanges skipped, LineParse parse, BatchSink sink) throws IOException {
+        long size = blobStore.size(key);
+        Compression compression = Compression.of(blobStore.open(key, 0, Math.min(size, 4)));
+        if (IngestMode.fromProperty(INGEST_MODE) == IngestMode.PARALLEL && (compression == Compression.NONE || BlockIndex.load(blobStore, key) != null)) {
+            return processFileParallel(key, new ByteRange(0, size), result, skipped, parse, sink);
+        }
+
+        IngestPipeline.Job job = ingestPipeline.newJob(sink, FileSizeClass.of(size, SMALL_FILE_MAX_BYTES));
+        List<ByteRange> ranges = compression == Compression.NONE ? skipped.gaps(new ByteRange(0, size)) : List.of(new ByteRange(0, size));
+
+        // on failure the file is not marked as processed, the redelivered event resumes from the checkpoints
+        try {
+            for (ByteRange range : ranges) {
+                try (InputStream in = compression.decompress(blobStore.open(key, range.start(), range.end()))) {
+                    result.merge(parse.parse(new ByteLineReader(in, range.start()), job));
                 }
-            } catch (InterruptedException e) {
-                System.out.println("Thread was interrupted while waiting for executor to finish.");
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
             }
-            System.out.println("Successfully completed all tasks.");
+        } finally {
+            job.await();
         }
 
-        double mean = stats.getAverage();
-        double median = getMedian(minHeap, maxHeap);
-        return List.of(mean, median);
+        return result;
     }
 
+    // Splits the upload (or one chunk of it) into newline-aligned byte ranges, or groups of whole blocks when it is
+    // block split, and parses every range on the shared parser threads. Each range produces partial stats which are
+    // merged into result once all ranges are done.
+    // Skipped ranges are cut out of the newline-aligned ranges; a group of blocks is only left out when they cover it
+    // whole, the lines of the others are decompressed but not parsed.
+    private IngestResult processFileParallel(String key, ByteRange chunk, IngestResult result, CoveredRanges skipped, LineParse parse, BatchSink sink) throws IOException {
+        int parallelism = PARSER_THREADS > 0 ? PARSER_THREADS : Runtime.getRuntime().availableProcessors();
+        long size = blobStore.size(key);
+        BlockIndex blocks = BlockIndex.load(blobStore, key);
+        IngestPipeline.Job job = ingestPipeline.newJob(sink, FileSizeClass.of(size, SMALL_FILE_MAX_BYTES));
+        List<Future<IngestResult>> partials = new ArrayList<>();
 
-    private FilteredData parseAndFilterLine(String line, Integer fileId) {
         try {
-            String[] values = line.split(",");
-            if (values.length != 2) return null;
-
-            String timestampStr = values[0].trim();
-            String temperatureStr = values[1].trim();
-
-            // Validate timestamp
-            Instant instant;
-            try {
-                instant = Instant.parse(timestampStr);
-            } catch (java.time.format.DateTimeParseException e) {
-                return null; // Invalid timestamp format
+            List<ByteRange> ranges = blocks != null ? blocks.split(chunk, parallelism)
+                    : FileRangeSplitter.split((buffer, position) -> blobStore.read(key, position, buffer, size), chunk, parallelism);
+            for (ByteRange range : ranges) {
+                if (blocks != null && skipped.covers(blocks.uncompressed(range))) continue;
+                for (ByteRange part : blocks != null ? List.of(range) : skipped.gaps(range)) {
+                    partials.add(job.parse(() -> processRange(key, part, blocks, parse, job)));
+                }
+            }
+            for (Future<IngestResult> partial : partials) {
+                result.merge(partial.get());
             }
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to parse " + key, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + key, e);
+        } finally {
+            partials.forEach(partial -> partial.cancel(true));
+            job.await();
+        }
+
+        return result;
+    }
 
-            // Validate temperature
-            double temperature;
-            try {
-                temperature = Double.parseDouble(temperatureStr);
-            } catch (NumberFormatException e) {
-                return null; // Invalid temperature format
+    // One range read from the BlobStore (memory-mapped when it is local, a ranged GET from S3)
+    private IngestResult processRange(String key, ByteRange range, BlockIndex blocks, LineParse parse, IngestPipeline.Job job) throws IOException {
+        try (InputStream in = blobStore.open(key, range.start(), range.end())) {
+            if (blocks == null) {
+                return parse.parse(new ByteLineReader(in, range.start()), job);
             }
+            return parse.parse(new ByteLineReader(blocks.compression().decompress(in), blocks.uncompressedStart(range.start())), job);
+        }
+    }
 
-            // Additional filtering: temperature range check
-            if (temperature < -100 || temperature > 100) {
-                return null; // Temperature out of realistic range
+    // Series 0 is the first numeric column of the first row's sensor, whichever range gets parsed first
+    private void registerFirstRow(String key, SeriesRegistry registry) throws IOException {
+        long size = blobStore.size(key);
+        Compression compression = Compression.of(blobStore.open(key, 0, Math.min(size, 4)));
+        SchemaLineParser parser = new SchemaLineParser(registry.schema());
+        try (InputStream in = compression.decompress(blobStore.open(key, 0, size))) {
+            ByteLineReader reader = new ByteLineReader(in, 0);
+            while (reader.next() && reader.lineOffset() < FIRST_ROW_MAX_OFFSET) {
+                if (parser.parse(reader.buffer(), reader.lineStart(), reader.lineEnd())) {
+                    registry.indexesOf(parser.getSensor());
+                    return;
+                }
             }
+        }
+    }
 
-            FilteredData record = new FilteredData();
-            record.setTimestampInstant(instant);
-            record.setTemperature(temperature);
-            record.setFileId(fileId);
+    // Every batch is submitted with the bytes from the end of the previous one to the start of the next line (so that
+    // batches tile the range, "\r\n" included), and the stats, rejects and rollups of those lines (newPartial), which
+    // are also merged into the result.
+    // Lines in written ranges close the current batch: their rows are committed already, and counted from the partials
+    // of their checkpoints where those are summarized, else parsed again for the result only.
+    private IngestResult parseLines(ByteLineReader reader, int fileId, CsvSchema schema, IngestPipeline.Job job, CoveredRanges written, CoveredRanges summarized,
+                                    Supplier<IngestResult> newPartial) throws IOException {
+        TemperatureLineParser parser = new TemperatureLineParser(schema.numberColumn(0).min(), schema.numberColumn(0).max());
+        IngestResult result = newPartial.get();
+
+        Batch batch = new Batch(newPartial.get());
+        while (reader.next()) {
+            long offset = reader.lineOffset();
+            if (written.contains(offset) || batch.rows.size() >= BATCH_SIZE) {
+                batch = submit(batch, offset, job, result, newPartial);
+            }
+            if (written.contains(offset)) {
+                if (summarized.contains(offset)) continue;
+                if (parser.parse(reader.buffer(), reader.lineStart(), reader.lineEnd())) result.accept(parser.getEpochSecond(), parser.getTemperature());
+                else if (!isHeader(reader)) result.getRejects().increment(parser.getRejectReason());
+                continue;
+            }
 
-            return record;
-        } catch (Exception e) {
-            return null;
+            if (batch.start < 0) batch.start = offset;
+            if (!parser.parse(reader.buffer(), reader.lineStart(), reader.lineEnd())) {
+                if (!isHeader(reader)) batch.partial.getRejects().increment(parser.getRejectReason());
+                continue;
+            }
+
+            batch.partial.accept(parser.getEpochSecond(), parser.getTemperature());
+            batch.rows.add(toFilteredData(parser, fileId));
         }
+
+        submit(batch, reader.nextLineOffset(), job, result, newPartial);
+        return result;
     }
 
+    // The lines of one batch, from start
+    private static class Batch {
+        private final List<FilteredData> rows = new ArrayList<>();
+        private final IngestResult partial;
+        private long start = -1;
 
-    public void batchInsert(List<FilteredData> records) {
-        int totalRecords = records.size();
-        for (int i = 0; i < totalRecords; i += BATCH_SIZE) {
-            int end = Math.min(i + BATCH_SIZE, totalRecords);
-            List<FilteredData> batch = records.subList(i, end);
+        private Batch(IngestResult partial) {
+            this.partial = partial;
+        }
+    }
 
-            // Constructing a single large SQL query
-            StringBuilder sql = new StringBuilder("INSERT INTO filtered_data (timestamp, temperature, file_id) VALUES ");
-            List<Object> params = new ArrayList<>();
+    // Submits the batch ending at end and returns the next one. A batch of rejected lines only is not written: they
+    // are counted in result, and read again by a resumed ingest.
+    // The partial is serialized here: merging it into result shares its rollup buckets, which then keep changing.
+    private Batch submit(Batch batch, long end, IngestPipeline.Job job, IngestResult result, Supplier<IngestResult> newPartial) throws IOException {
+        if (batch.start < 0) return batch;
+        if (!batch.rows.isEmpty()) job.submit(batch.rows, new ByteRange(batch.start, end), ChunkService.serialize(batch.partial));
+        result.merge(batch.partial);
+        return new Batch(newPartial.get());
+    }
 
-            for (FilteredData data : batch) {
-                sql.append("(?, ?, ?),");
-                params.add(Timestamp.from(data.getTimestampInstant()));
-                params.add(data.getTemperature());
-                params.add(data.getFileId());
+    // Every value of a row becomes one FilteredData of its series, with the stats of every series in the same pass.
+    // Multi-column files are never checkpointed, a chunk is only used to size the batches.
+    private IngestResult parseSeriesLines(ByteLineReader reader, int fileId, SeriesRegistry registry, IngestPipeline.Job job) throws IOException {
+        SchemaLineParser parser = new SchemaLineParser(registry.schema());
+        IngestResult result = new IngestResult(registry.newStats(0), registry);
+        int numberCount = registry.schema().numberCount();
+
+        List<FilteredData> chunk = new ArrayList<>();
+        long chunkStart = 0;
+        while (reader.next()) {
+            if (!parser.parse(reader.buffer(), reader.lineStart(), reader.lineEnd())) {
+                if (!isHeader(reader)) result.getRejects().increment(parser.getRejectReason());
+                continue;
             }
 
-            sql.setLength(sql.length() - 1); // Remove last comma
+            int[] series = registry.indexesOf(parser.getSensor());
+            Instant timestamp = parser.toInstant();
+            if (chunk.isEmpty()) chunkStart = reader.lineOffset();
+            for (int n = 0; n < numberCount; n++) {
+                if (!parser.hasValue(n)) continue;
+                result.acceptSeries(series[n], parser.getEpochSecond(), parser.getValue(n));
+                chunk.add(toFilteredData(timestamp, parser.getValue(n), series[n], fileId));
+            }
 
-            // Execute a single insert query with all BATCH_SIZE records
-            jdbcTemplate.update(sql.toString(), params.toArray());
+            if (chunk.size() >= BATCH_SIZE) {
+                job.submit(chunk, new ByteRange(chunkStart, reader.nextLineOffset()));
+                chunk = new ArrayList<>(BATCH_SIZE);
+            }
+        }
 
-            System.out.println("✅ Filtered and Added " + batch.size() + " records in DB");
+        if (!chunk.isEmpty()) {
+            job.submit(chunk, new ByteRange(chunkStart, reader.nextLineOffset()));
         }
+        return result;
     }
 
-    public File convertMultipartFileToFile(MultipartFile multipartFile) throws IOException {
-        File tempFile = File.createTempFile("upload_", "_" + multipartFile.getOriginalFilename());
-        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-            fos.write(multipartFile.getBytes());
-        }
-        return tempFile;
+    // Only the first line of a file can be its header, it is neither a row nor a reject
+    private static boolean isHeader(ByteLineReader reader) {
+        return reader.lineOffset() == 0 && CsvSchema.isHeader(reader.buffer(), reader.lineStart(), reader.lineEnd());
     }
 
-    private void addNumberToHeapsForMedianData(double num, PriorityQueue<Double> minHeap, PriorityQueue<Double> maxHeap) {
-        if (maxHeap.isEmpty() || num <= maxHeap.peek()) {
-            maxHeap.offer(num);
-        } else {
-            minHeap.offer(num);
-        }
+    private IngestResult newResult(CsvSchema schema) {
+        ColumnSpec column = schema.numberColumn(0);
+        return new IngestResult(quantileEstimatorFactory.newStats(column.min(), column.max()), column);
+    }
 
-        if (maxHeap.size() > minHeap.size() + 1) {
-            minHeap.offer(maxHeap.poll());
-        } else if (minHeap.size() > maxHeap.size()) {
-            maxHeap.offer(minHeap.poll());
-        }
+
+    public FilteredData parseAndFilterLine(String line, Integer fileId) {
+        TemperatureLineParser parser = new TemperatureLineParser();
+        return parser.parse(line) ? toFilteredData(parser, fileId) : null;
+    }
+
+    private FilteredData toFilteredData(TemperatureLineParser parser, Integer fileId) {
+        FilteredData record = new FilteredData();
+        record.setTimestampInstant(parser.toInstant());
+        record.setTemperature(parser.getTemperature());
+        record.setFileId(fileId);
+        return record;
+    }
+
+    private FilteredData toFilteredData(Instant timestamp, double value, int series, Integer fileId) {
+        FilteredData record = new FilteredData();
+        record.setTimestampInstant(timestamp);
+        record.setTemperature(value);
+        record.setSeries(series);
+        record.setFileId(fileId);
+        return record;
     }
 
-    private double getMedian(PriorityQueue<Double> minHeap, PriorityQueue<Double> maxHeap) {
-        if(maxHeap.size() == 0) return 0;
-        if (maxHeap.size() == minHeap.size()) {
-            return (maxHeap.peek() + minHeap.peek()) / 2.0;
-        } else {
-            return maxHeap.peek();
+
+    public void batchInsert(List<FilteredData> records) {
+        if (records.isEmpty()) return;
+        partitionService.ensurePartition(records.get(0).getFileId());
+        int totalRecords = records.size();
+        for (int i = 0; i < totalRecords; i += BATCH_SIZE) {
+            int end = Math.min(i + BATCH_SIZE, totalRecords);
+            List<FilteredData> batch = records.subList(i, end);
+
+            // LOAD DATA, JDBC batch or one multi-values INSERT, whichever is fastest here (sql.insert.writer)
+            bulkWriterSelector.write(batch);
         }
     }
 
+    public File convertMultipartFileToFile(MultipartFile multipartFile) throws IOException {
+        File tempFile = File.createTempFile("upload_", "_" + multipartFile.getOriginalFilename());
+        multipartFile.transferTo(tempFile); // moved or streamed by the container, no heap copy
+        return tempFile;
+    }
+
 }
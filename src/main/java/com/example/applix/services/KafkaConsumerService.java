@@ -1,34 +1,143 @@
 package com.example.applix.services;
 
+import com.example.applix.blob.BlobStore;
+import com.example.applix.config.KafkaTopicConfig;
+import com.example.applix.ingest.FileChunkEvent;
+import com.example.applix.ingest.IngestMetrics;
 import com.example.applix.models.db.FileTable;
 import com.example.applix.repositories.FileRepository;
+import com.example.applix.ingest.IngestResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
+import java.nio.file.Paths;
 import java.io.IOException;
-import java.util.List;
+import java.time.Duration;
 import java.util.Optional;
 
 @Service
 public class KafkaConsumerService {
+    private static final int CHUNK_ATTEMPTS = 3;
+    private static final Duration CHUNK_RETRY_BACKOFF = Duration.ofSeconds(2);
+
     private final FileRepository fileRepository;
     private final FileProcessorService fileProcessorService;
+    private final RollupService rollupService;
+    private final CheckpointService checkpointService;
+    private final ChunkService chunkService;
+    private final ObjectMapper objectMapper;
+    private final IngestMetrics ingestMetrics;
+    private final BlobStore blobStore;
 
-    public KafkaConsumerService(FileRepository fileRepository, FileProcessorService fileProcessorService) {
+    public KafkaConsumerService(FileRepository fileRepository, FileProcessorService fileProcessorService, RollupService rollupService, CheckpointService checkpointService,
+                                ChunkService chunkService, ObjectMapper objectMapper, IngestMetrics ingestMetrics, BlobStore blobStore) {
         this.fileRepository = fileRepository;
         this.fileProcessorService = fileProcessorService;
+        this.rollupService = rollupService;
+        this.checkpointService = checkpointService;
+        this.chunkService = chunkService;
+        this.objectMapper = objectMapper;
+        this.ingestMetrics = ingestMetrics;
+        this.blobStore = blobStore;
+    }
+
+    // One large file per poll: each one can take minutes, the rest of a poll would wait behind it
+    @KafkaListener(topics = KafkaTopicConfig.FILE_PROCESSING_TOPIC, groupId = "file-processing-group",
+            concurrency = "${kafka.listener.concurrency.large:2}", properties = "max.poll.records=1")
+    public void consumeLargeFile(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        consume(record, acknowledgment);
+    }
+
+    @KafkaListener(topics = KafkaTopicConfig.SMALL_FILE_PROCESSING_TOPIC, groupId = "file-processing-small-group",
+            concurrency = "${kafka.listener.concurrency.small:4}")
+    public void consumeSmallFile(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        consume(record, acknowledgment);
+    }
+
+    // One byte range of a large file. Whichever consumer completes the last chunk merges the partial results.
+    // The event is always acknowledged: offsets of later chunks on the partition would commit past it anyway, so a
+    // chunk is retried here (I/O errors, CHUNK_ATTEMPTS times) and a chunk that still fails marks its file failed.
+    @KafkaListener(topics = KafkaTopicConfig.FILE_CHUNK_TOPIC, groupId = "file-chunk-group",
+            concurrency = "${kafka.listener.concurrency.chunks:2}", properties = "max.poll.records=1")
+    public void consumeChunk(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+        ingestMetrics.recordKafkaLag(record.topic(), record.timestamp());
+        FileChunkEvent chunk;
+        try {
+            chunk = objectMapper.readValue(record.value(), FileChunkEvent.class);
+        } catch (IOException e) {
+            System.err.println("❌ Dropping unreadable chunk event " + record.key() + " - " + e.getMessage());
+            acknowledgment.acknowledge();
+            return;
+        }
+        System.out.println("✅ Received Kafka event: Processing chunk " + (chunk.index() + 1) + "/" + chunk.chunkCount() + " of file ID: " + chunk.fileId()
+                + ", Bytes: " + chunk.start() + "-" + chunk.end());
+
+        for (int attempt = 1; ; attempt++) {
+            Timer.Sample sample = ingestMetrics.start();
+            try {
+                processChunk(chunk, sample);
+                break;
+            } catch (IOException e) {
+                ingestMetrics.recordFileFailure(sample, "chunk");
+                if (attempt == CHUNK_ATTEMPTS) {
+                    failChunkedFile(chunk, e);
+                    break;
+                }
+                System.err.println("⚠️ Error processing chunk " + (chunk.index() + 1) + " of file ID: " + chunk.fileId() + ", attempt " + attempt + "/" + CHUNK_ATTEMPTS + " - " + e.getMessage());
+                try {
+                    Thread.sleep(CHUNK_RETRY_BACKOFF.toMillis() * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return; // shutting down, the chunk is redelivered unless a later offset is committed
+                }
+            } catch (RuntimeException e) {
+                ingestMetrics.recordFileFailure(sample, "chunk");
+                failChunkedFile(chunk, e);
+                break;
+            }
+        }
+        acknowledgment.acknowledge();
+    }
+
+    private void processChunk(FileChunkEvent chunk, Timer.Sample sample) throws IOException {
+        Optional<FileTable> fileTableOptional = fileRepository.findById(chunk.fileId());
+        if (fileTableOptional.isEmpty() || fileTableOptional.get().getStatus() != 0) {
+            System.out.println("⚠️ Skipping chunk of missing, failed or already processed file ID: " + chunk.fileId());
+            return;
+        }
+        if (!blobStore.exists(chunk.key())) {
+            System.err.println("❌ Upload " + chunk.key() + " of file ID: " + chunk.fileId() + " is not in the blob store, marking the file as failed");
+            chunkService.fail(chunk.fileId());
+            return;
+        }
+
+        IngestResult partial = fileProcessorService.processFileChunk(chunk.key(), fileTableOptional.get(), chunk.range());
+        ingestMetrics.recordFile(sample, "chunk", partial);
+        if (chunkService.completeChunk(chunk, partial)) {
+            System.out.println("✅ File processing completed for ID: " + chunk.fileId());
+        }
     }
 
-    @KafkaListener(topics = "file-processing-topic", groupId = "file-processing-group")
-    public void consume(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+    private void failChunkedFile(FileChunkEvent chunk, Exception e) {
+        System.err.println("❌ Chunk " + (chunk.index() + 1) + "/" + chunk.chunkCount() + " of file ID: " + chunk.fileId() + " failed, marking the file as failed - " + e.getMessage());
+        try {
+            chunkService.fail(chunk.fileId());
+        } catch (RuntimeException failure) {
+            System.err.println("❌ Could not mark file ID: " + chunk.fileId() + " as failed - " + failure.getMessage());
+        }
+    }
+
+    private void consume(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
         int fileId = Integer.parseInt(record.key());
-        String filePath = record.value();
+        String key = Paths.get(record.value()).getFileName().toString(); // events published before the BlobStore carried a local path
 
-        System.out.println("✅ Received Kafka event: Processing file ID: " + fileId + ", Path: " + filePath);
-        long startTime = System.nanoTime();
+        System.out.println("✅ Received Kafka event: Processing file ID: " + fileId + ", Key: " + key);
+        ingestMetrics.recordKafkaLag(record.topic(), record.timestamp());
+        Timer.Sample sample = ingestMetrics.start();
 
         try {
             // Step 1: Check if file status is already "1" (Processed)
@@ -46,32 +155,34 @@ public class KafkaConsumerService {
                 return;
             }
 
-            // Step 2: Process the file
-            File file = new File(filePath);
-            if (!file.exists()) {
-                System.err.println("⚠️ File not found at path: " + filePath);
+            // Step 2: Process the file, resuming after the batches a previous delivery already committed.
+            // The upload is read from the blob store, whichever node received it. Gone from there, it can never be processed.
+            if (!blobStore.exists(key)) {
+                System.err.println("❌ Upload " + key + " of file ID: " + fileId + " is not in the blob store, marking the file as failed");
+                fileProcessorService.updateFileMetaDataWithFailedStatus(fileTable);
                 acknowledgment.acknowledge();
                 return;
             }
 
-            List<Double> processedData = fileProcessorService.processFileStreaming(file, fileId);
+            IngestResult result = fileProcessorService.processFileStreaming(key, fileTable);
+            ingestMetrics.recordFile(sample, "file", result);
+            if (result.getRejects().total() > 0) {
+                System.out.println("⚠️ Rejected rows for file ID: " + fileId + " - " + result.getRejects());
+            }
 
-            // Step 3: Update file status and processed info in DB
-            fileTable.setMean(processedData.get(0));
-            fileTable.setMedian(processedData.get(1));
-            fileProcessorService.updateFileMetaDataWithCompletedStatus(fileTable);
+            // Step 3: Store the chart rollups and the stats index, update file status and processed info in DB
+            rollupService.saveRollups(fileId, result.getRollups());
+            fileProcessorService.updateFileMetaDataWithCompletedStatus(fileTable, result);
+            checkpointService.clear(fileId);
             System.out.println("✅ File processing completed for ID: " + fileId);
 
             // Step 4: Acknowledge Kafka after successful processing
             acknowledgment.acknowledge();
 
         } catch (IOException e) {
+            ingestMetrics.recordFileFailure(sample, "file");
             System.err.println("❌ Error processing file ID: " + fileId + " - " + e.getMessage());
             // No acknowledgment -> Kafka will retry later
         }
-
-        long endTime = System.nanoTime();
-        double totalTimeInSeconds = (endTime - startTime) / 1_000_000_000.0;
-        System.out.println("File processing completed in {} seconds: " + totalTimeInSeconds);
     }
 }
\ No newline at end of file
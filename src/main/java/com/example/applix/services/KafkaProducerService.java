@@ -1,19 +1,94 @@
 package com.example.applix.services;
 
+import com.example.applix.blob.BlobStore;
+import com.example.applix.config.KafkaTopicConfig;
+import com.example.applix.enums.Compression;
+import com.example.applix.enums.FileSizeClass;
+import com.example.applix.enums.StorageEngine;
+import com.example.applix.ingest.BlockIndex;
+import com.example.applix.ingest.CsvSchema;
+import com.example.applix.ingest.ByteRange;
+import com.example.applix.ingest.FileChunkEvent;
+import com.example.applix.ingest.FileRangeSplitter;
+import com.example.applix.models.db.FileTable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.List;
+
 
 @Service
 public class KafkaProducerService {
+    @Value("${ingest.small-file-max-bytes:67108864}")
+    private Long SMALL_FILE_MAX_BYTES;
+    @Value("${ingest.chunk-bytes:134217728}")
+    private Long CHUNK_BYTES;
+    @Value("${storage.engine:mysql}")
+    private String STORAGE_ENGINE;
     private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlobStore blobStore;
 
-    public KafkaProducerService(KafkaTemplate<String, String> kafkaTemplate) {
+    public KafkaProducerService(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper, BlobStore blobStore) {
         this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.blobStore = blobStore;
+    }
+
+    // Small files get their own topic so they never wait behind a large file in a partition.
+    // Large files stored in MySQL are split into chunk events, processed by the whole consumer group.
+    // Block split (compressed) uploads are sized by their CSV and split on block boundaries.
+    // Events carry the blob store key of the upload (the file's name), not a local path.
+    // Multi-column files are never chunked: series 0 has to be the first row's, their columnar files are written whole.
+    // Neither are files whose value column has no range: chunk partials keep a histogram of it, not every value.
+    public void sendFileProcessingEvent(FileTable fileTable) {
+        Integer fileId = fileTable.getId();
+        String key = fileTable.getName();
+        long size = 0;
+        BlockIndex blocks = null;
+        try {
+            size = blobStore.size(key);
+            blocks = BlockIndex.load(blobStore, key);
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not read the size or block index of " + key + " - " + e.getMessage());
+        }
+        FileSizeClass sizeClass = FileSizeClass.of(blocks != null ? blocks.uncompressedSize() : size, SMALL_FILE_MAX_BYTES);
+        if (sizeClass == FileSizeClass.LARGE && StorageEngine.fromProperty(STORAGE_ENGINE) == StorageEngine.MYSQL
+                && isChunkable(CsvSchema.parse(fileTable.getSchema())) && sendFileChunkEvents(fileId, key, size, blocks)) {
+            return;
+        }
+
+        String topic = sizeClass == FileSizeClass.SMALL ? KafkaTopicConfig.SMALL_FILE_PROCESSING_TOPIC : KafkaTopicConfig.FILE_PROCESSING_TOPIC;
+        kafkaTemplate.send(topic, fileId.toString(), key);
+        System.out.println("Published event: File ID: " + fileId + ", Key: " + key + ", Topic: " + topic);
     }
 
-    public void sendFileProcessingEvent(Integer fileId, String filePath) {
-        kafkaTemplate.send("file-processing-topic", fileId.toString(), filePath);
-        System.out.println("Published event: File ID: " + fileId + ", Path: " + filePath);
+    private static boolean isChunkable(CsvSchema schema) {
+        return schema.isSingleSeries() && Double.isFinite(schema.numberColumn(0).min()) && Double.isFinite(schema.numberColumn(0).max());
+    }
+
+    // false if the file fits in one chunk (or can not be read here), it is then sent as one event
+    private boolean sendFileChunkEvents(Integer fileId, String key, long size, BlockIndex blocks) {
+        int chunkCount = (int) (((blocks != null ? blocks.uncompressedSize() : size) + CHUNK_BYTES - 1) / CHUNK_BYTES);
+        if (chunkCount < 2) return false;
+
+        try {
+            if (blocks == null && Compression.of(blobStore.open(key, 0, Math.min(size, 4))) != Compression.NONE) return false; // one compressed stream, read from its start
+            ByteRange whole = new ByteRange(0, size);
+            List<ByteRange> chunks = blocks != null ? blocks.split(whole, chunkCount)
+                    : FileRangeSplitter.split((buffer, position) -> blobStore.read(key, position, buffer, size), whole, chunkCount);
+            for (int i = 0; i < chunks.size(); i++) {
+                FileChunkEvent event = new FileChunkEvent(fileId, key, i, chunks.size(), chunks.get(i).start(), chunks.get(i).end());
+                kafkaTemplate.send(KafkaTopicConfig.FILE_CHUNK_TOPIC, fileId + ":" + i, objectMapper.writeValueAsString(event)); // spread over the partitions
+            }
+            System.out.println("Published " + chunks.size() + " chunk events: File ID: " + fileId + ", Key: " + key);
+            return true;
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not split file ID: " + fileId + " into chunks - " + e.getMessage());
+            return false;
+        }
     }
 }
@@ -0,0 +1,200 @@
+package com.example.applix.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// storage.mysql.partitioned=true : filtered_data is RANGE partitioned by file_id, one partition per file, clustered on
+// (file_id, timestamp, id). Deleting or re-processing a file drops / truncates its partition instead of running a
+// multi-million row DELETE, and every query filtering on file_id only touches that partition (partition pruning).
+// MySQL allows 8192 partitions per table, so at most storage.mysql.max-partitions are created. The last partition,
+// pmax, takes every file id above them: once the cap is reached (or adding partitions failed) new files land there and
+// are deleted row by row, inserts never fail for want of a partition.
+// ADD PARTITION takes a table-wide metadata lock and commits the open transaction, so it never runs per upload or on a
+// request thread: partitions are split off the empty pmax ahead of the file ids, storage.mysql.partitions-ahead at a
+// time, by one background thread with its own connection.
+@Service
+@DependsOn("entityManagerFactory") // filtered_data has to exist before it is converted
+public class PartitionService {
+    private static final String FIRST_PARTITION = "PARTITION p0 VALUES LESS THAN (1)";
+    private static final String LAST_PARTITION = "PARTITION pmax VALUES LESS THAN MAXVALUE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean partitioned;
+    private final int partitionsAhead;
+    private final int maxPartitions;
+    private final ExecutorService maintenance;
+    private final AtomicBoolean topUpQueued = new AtomicBoolean();
+    private volatile int lastPartition; // highest file id with a partition
+    private volatile boolean full; // no more partitions are added, higher file ids stay in pmax
+
+    public PartitionService(JdbcTemplate jdbcTemplate, @Value("${storage.mysql.partitioned:false}") boolean partitioned,
+                            @Value("${storage.mysql.partitions-ahead:256}") int partitionsAhead,
+                            @Value("${storage.mysql.max-partitions:8000}") int maxPartitions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitioned = partitioned;
+        this.partitionsAhead = Math.max(1, partitionsAhead);
+        this.maxPartitions = Math.max(3, maxPartitions);
+        this.maintenance = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "partition-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintenance.shutdownNow();
+    }
+
+    // Converts an unpartitioned (or LIST partitioned) filtered_data once. Runs before the Kafka listeners start.
+    @PostConstruct
+    public void convertIfNeeded() {
+        if (!partitioned) return;
+        if (isRangePartitioned()) {
+            lastPartition = highestPartition();
+            full = !lastPartitionIsEmpty(); // splitting pmax would copy its rows
+            addPartitionsThrough(highestFileId() + partitionsAhead);
+            return;
+        }
+        System.out.println("Converting filtered_data to one partition per file, this rebuilds the table...");
+
+        // every unique key must contain the partitioning column, AUTO_INCREMENT id keeps a plain index
+        Integer primaryKeyColumns = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.KEY_COLUMN_USAGE "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'filtered_data' AND CONSTRAINT_NAME = 'PRIMARY'", Integer.class);
+        if (primaryKeyColumns != null && primaryKeyColumns == 1) {
+            jdbcTemplate.execute("ALTER TABLE filtered_data ADD KEY idx_id (id), DROP PRIMARY KEY, ADD PRIMARY KEY (file_id, timestamp, id)");
+        }
+
+        // the lowest ids get partitions: a partition holds every id down to the one below it, so only a prefix can be kept
+        TreeSet<Integer> fileIds = new TreeSet<>(jdbcTemplate.queryForList("SELECT id FROM files_table", Integer.class));
+        fileIds.addAll(jdbcTemplate.queryForList("SELECT DISTINCT file_id FROM filtered_data", Integer.class));
+        fileIds.headSet(1, false).clear();
+        List<Integer> kept = fileIds.stream().limit(maxPartitions - 2).toList();
+        String partitions = kept.stream().map(id -> partitionDefinition(id) + ", ").collect(Collectors.joining());
+        jdbcTemplate.execute("ALTER TABLE filtered_data PARTITION BY RANGE (file_id) (" + FIRST_PARTITION + ", " + partitions + LAST_PARTITION + ")");
+        lastPartition = kept.isEmpty() ? 0 : kept.get(kept.size() - 1);
+        full = kept.size() < fileIds.size();
+        addPartitionsThrough(highestFileId() + partitionsAhead);
+        System.out.println("✅ filtered_data partitioned by file_id (" + kept.size() + " of " + fileIds.size() + " files)");
+    }
+
+    // Called when a file is registered: returns at once, and once fewer than half of partitions-ahead are left the
+    // next ones are added in the background with a single ALTER TABLE
+    public void reserve(int fileId) {
+        if (!partitioned || full || fileId + partitionsAhead / 2 <= lastPartition) return;
+        if (!topUpQueued.compareAndSet(false, true)) return;
+        maintenance.execute(() -> {
+            try {
+                addPartitionsThrough(fileId + partitionsAhead);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Failed to add filtered_data partitions ahead of file ID: " + fileId + " - " + e.getMessage());
+            } finally {
+                topUpQueued.set(false);
+            }
+        });
+    }
+
+    // Called before rows of the file are written. Only when uploads outran the background step does it wait for the
+    // partitions, still created on the maintenance thread so the caller's transaction is left alone. If they cannot be
+    // added the rows go to pmax, and no partition is added after that.
+    public void ensurePartition(int fileId) {
+        if (!partitioned || full || fileId <= lastPartition) return;
+        try {
+            maintenance.submit(() -> addPartitionsThrough(fileId + partitionsAhead)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            full = true;
+        } catch (ExecutionException e) {
+            System.err.println("❌ Failed to add the partition of file ID: " + fileId + ", its rows go to pmax - " + e.getCause().getMessage());
+            full = true;
+        }
+    }
+
+    // Removes every row of the file but keeps it ready for new rows (re-processing)
+    public void truncate(int fileId) {
+        if (partitioned && partitionExists(fileId)) {
+            jdbcTemplate.execute("ALTER TABLE filtered_data TRUNCATE PARTITION " + partitionName(fileId));
+        } else {
+            jdbcTemplate.update("DELETE FROM filtered_data WHERE file_id = ?", fileId);
+        }
+    }
+
+    // Removes the rows of a deleted file
+    public void drop(int fileId) {
+        if (partitioned && partitionExists(fileId)) {
+            jdbcTemplate.execute("ALTER TABLE filtered_data DROP PARTITION " + partitionName(fileId));
+        } else {
+            jdbcTemplate.update("DELETE FROM filtered_data WHERE file_id = ?", fileId);
+        }
+    }
+
+    // Another instance may have added some of them already
+    private synchronized void addPartitionsThrough(int fileId) {
+        if (full || fileId <= lastPartition) return;
+        List<String> names = partitionNames();
+        lastPartition = Math.max(lastPartition, highestPartition(names));
+        if (fileId <= lastPartition) return;
+        int through = Math.min(fileId, lastPartition + maxPartitions - names.size());
+        if (through < fileId) {
+            System.err.println("❌ filtered_data has " + names.size() + " partitions, files above ID " + through + " are kept in pmax");
+            full = true;
+        }
+        if (through <= lastPartition) return;
+        String partitions = IntStream.rangeClosed(lastPartition + 1, through).mapToObj(id -> partitionDefinition(id) + ", ").collect(Collectors.joining());
+        jdbcTemplate.execute("ALTER TABLE filtered_data REORGANIZE PARTITION pmax INTO (" + partitions + LAST_PARTITION + ")");
+        lastPartition = through;
+    }
+
+    private int highestPartition() {
+        return highestPartition(partitionNames());
+    }
+
+    private static int highestPartition(List<String> names) {
+        return names.stream().filter(name -> name.matches("p\\d+")).mapToInt(name -> Integer.parseInt(name.substring(1))).max().orElse(0);
+    }
+
+    private int highestFileId() {
+        Integer id = jdbcTemplate.queryForObject("SELECT MAX(id) FROM files_table", Integer.class);
+        return id == null ? 0 : id;
+    }
+
+    private boolean isRangePartitioned() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT PARTITION_METHOD FROM information_schema.PARTITIONS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'filtered_data' AND PARTITION_NAME IS NOT NULL", String.class).contains("RANGE");
+    }
+
+    private boolean lastPartitionIsEmpty() {
+        return jdbcTemplate.queryForList("SELECT file_id FROM filtered_data PARTITION (pmax) LIMIT 1", Integer.class).isEmpty();
+    }
+
+    private boolean partitionExists(int fileId) {
+        return partitionNames().contains(partitionName(fileId));
+    }
+
+    private List<String> partitionNames() {
+        return jdbcTemplate.queryForList("SELECT PARTITION_NAME FROM information_schema.PARTITIONS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'filtered_data' AND PARTITION_NAME IS NOT NULL", String.class);
+    }
+
+    // p<id> holds the ids above the partition before it, which only ever has rows of file <id>
+    private static String partitionDefinition(int fileId) {
+        return "PARTITION " + partitionName(fileId) + " VALUES LESS THAN (" + (fileId + 1) + ")";
+    }
+
+    private static String partitionName(int fileId) {
+        return "p" + fileId;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.applix.services;
+
+import com.example.applix.enums.ErrorCode;
+import com.example.applix.enums.RollupResolution;
+import com.example.applix.models.db.FileRollup;
+import com.example.applix.models.responses.ChartPoint;
+import com.example.applix.models.responses.GetChartResponse;
+import com.example.applix.repositories.FileRollupRepository;
+import com.example.applix.stats.RollupBucket;
+import com.example.applix.stats.RollupBuilder;
+import com.example.applix.stats.StatsIndex;
+import com.example.applix.stats.StatsIndexStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import jakarta.transaction.Transactional;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class RollupService {
+    private static final String INSERT_SQL = "INSERT INTO file_rollups (file_id, bucket_seconds, bucket_start, min_value, max_value, sum_value, row_count) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final int INSERT_BATCH_SIZE = 5_000;
+    private static final int DEFAULT_MAX_POINTS = 500;
+    private static final int MAX_POINTS = 10_000;
+
+    private final FileRollupRepository fileRollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final StatsIndexStore statsIndexStore;
+
+    public RollupService(FileRollupRepository fileRollupRepository, JdbcTemplate jdbcTemplate, StatsIndexStore statsIndexStore) {
+        this.fileRollupRepository = fileRollupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.statsIndexStore = statsIndexStore;
+    }
+
+    // Replaces the chart rollups and the stats index of the file, so re-processing a file never double counts
+    @Transactional
+    public void saveRollups(int fileId, RollupBuilder rollups) throws IOException {
+        statsIndexStore.save(fileId, StatsIndex.from(rollups));
+        jdbcTemplate.update("DELETE FROM file_rollups WHERE file_id = ?", fileId);
+
+        for (RollupResolution resolution : RollupResolution.values()) {
+            List<Object[]> rows = new ArrayList<>();
+            for (Map.Entry<Long, RollupBucket> entry : rollups.getBuckets(resolution).entrySet()) {
+                RollupBucket bucket = entry.getValue();
+                rows.add(new Object[]{fileId, resolution.getSeconds(), Timestamp.from(Instant.ofEpochSecond(entry.getKey())),
+                        bucket.getMin(), bucket.getMax(), bucket.getSum(), bucket.getCount()});
+                if (rows.size() == INSERT_BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                    rows.clear();
+                }
+            }
+            if (!rows.isEmpty()) jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    public void deleteRollups(int fileId) throws IOException {
+        statsIndexStore.delete(fileId);
+        jdbcTemplate.update("DELETE FROM file_rollups WHERE file_id = ?", fileId);
+    }
+
+    // At most maxPoints buckets covering [startTime, endTime], from the finest resolution that fits.
+    // When even daily buckets are too many, consecutive days are merged.
+    public GetChartResponse getChart(Integer fileId, String startStr, String endStr, Integer maxPoints) {
+        int limit = (maxPoints == null || maxPoints < 1) ? DEFAULT_MAX_POINTS : Math.min(maxPoints, MAX_POINTS);
+        int daySeconds = RollupResolution.ONE_DAY.getSeconds();
+
+        Instant start = startStr != null ? Instant.parse(startStr) : fileRollupRepository.findFirstBucketStart(fileId, daySeconds);
+        Instant end = endStr != null ? Instant.parse(endStr) : fileRollupRepository.findLastBucketStart(fileId, daySeconds);
+        if (start == null || end == null || end.isBefore(start)) {
+            return new GetChartResponse(List.of(), null, "success", ErrorCode.NO_ERROR);
+        }
+        if (endStr == null) end = end.plusSeconds(daySeconds - 1);
+
+        RollupResolution resolution = RollupResolution.ONE_DAY;
+        for (RollupResolution candidate : RollupResolution.values()) {
+            if (bucketCount(start, end, candidate.getSeconds()) <= limit) {
+                resolution = candidate;
+                break;
+            }
+        }
+        int width = resolution.getSeconds();
+        long group = Math.max(1, (bucketCount(start, end, width) + limit - 1) / limit);
+
+        Instant firstBucket = Instant.ofEpochSecond(floor(start.getEpochSecond(), width));
+        List<FileRollup> rollups = fileRollupRepository.findByFileIdAndBucketSecondsAndBucketStartBetweenOrderByBucketStartAsc(fileId, width, firstBucket, end);
+
+        List<ChartPoint> points = new ArrayList<>();
+        RollupBucket merged = null;
+        long mergedGroup = Long.MIN_VALUE;
+        for (FileRollup rollup : rollups) {
+            long groupIndex = (rollup.getBucketStart().getEpochSecond() - firstBucket.getEpochSecond()) / (width * group);
+            if (merged == null || groupIndex != mergedGroup) {
+                if (merged != null) points.add(toPoint(firstBucket, mergedGroup, width * group, merged));
+                merged = new RollupBucket();
+                mergedGroup = groupIndex;
+            }
+            merged.merge(toBucket(rollup));
+        }
+        if (merged != null) points.add(toPoint(firstBucket, mergedGroup, width * group, merged));
+
+        return new GetChartResponse(points, (int) (width * group), "success", ErrorCode.NO_ERROR);
+    }
+
+    private static long bucketCount(Instant start, Instant end, int width) {
+        return (floor(end.getEpochSecond(), width) - floor(start.getEpochSecond(), width)) / width + 1;
+    }
+
+    private static long floor(long epochSecond, int width) {
+        return Math.floorDiv(epochSecond, width) * width;
+    }
+
+    private static RollupBucket toBucket(FileRollup rollup) {
+        RollupBucket bucket = new RollupBucket();
+        bucket.setMin(rollup.getMinValue());
+        bucket.setMax(rollup.getMaxValue());
+        bucket.setSum(rollup.getSumValue());
+        bucket.setCount(rollup.getRowCount());
+        return bucket;
+    }
+
+    private static ChartPoint toPoint(Instant firstBucket, long groupIndex, long groupSeconds, RollupBucket bucket) {
+        Instant timestamp = firstBucket.plusSeconds(groupIndex * groupSeconds);
+        return new ChartPoint(timestamp, bucket.getMin(), bucket.getMax(), bucket.getAverage(), bucket.getCount());
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.applix.services;
+
+import com.example.applix.exceptions.ApplixException;
+import com.example.applix.ingest.CsvSchema;
+import com.example.applix.ingest.IngestMetrics;
+import com.example.applix.ingest.IngestResult;
+import com.example.applix.ingest.LiveIngest;
+import com.example.applix.ingest.LiveIngestRegistry;
+import com.example.applix.ingest.SchemaResolver;
+import com.example.applix.ingest.StoredUpload;
+import com.example.applix.ingest.TeeInputStream;
+import com.example.applix.models.db.FileTable;
+import io.micrometer.core.instrument.Timer;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+@Service
+public class UploadIngestService {
+    private final FileProcessorService fileProcessorService;
+    private final KafkaProducerService kafkaProducerService;
+    private final RollupService rollupService;
+    private final LiveIngestRegistry liveIngestRegistry;
+    private final PartitionService partitionService;
+    private final IngestMetrics ingestMetrics;
+    private final SchemaResolver schemaResolver;
+
+    public UploadIngestService(FileProcessorService fileProcessorService, KafkaProducerService kafkaProducerService, RollupService rollupService, LiveIngestRegistry liveIngestRegistry,
+                               PartitionService partitionService, IngestMetrics ingestMetrics, SchemaResolver schemaResolver) {
+        this.fileProcessorService = fileProcessorService;
+        this.kafkaProducerService = kafkaProducerService;
+        this.rollupService = rollupService;
+        this.liveIngestRegistry = liveIngestRegistry;
+        this.partitionService = partitionService;
+        this.ingestMetrics = ingestMetrics;
+        this.schemaResolver = schemaResolver;
+    }
+
+
+    // upload.mode=tee : rows are parsed and inserted while the body is received, so they become queryable during the
+    // upload instead of after a second pass over the file. The raw file is still written: when the upload completes
+    // but ingest fails, the partial rows are dropped and the file is replayed through Kafka like a stored upload.
+    // schema is the one given with the upload or null, it is then detected from the first line of the body.
+    @Transactional(Transactional.TxType.NOT_SUPPORTED) // runs as long as the upload, every step commits on its own
+    public void uploadAndIngest(String fileName, BufferedInputStream body, CsvSchema schema) throws IOException, ApplixException {
+        Timer.Sample sample = ingestMetrics.start();
+
+        if (schema == null) schema = schemaResolver.detect(body);
+        File target = fileProcessorService.newUploadFile(fileName);
+        FileTable fileTable = fileProcessorService.insertFileMetaDataWithProcessingStatus(target.getName(), schema);
+        LiveIngest live = liveIngestRegistry.start(fileTable.getId());
+
+        try {
+            IngestResult result = null;
+            IOException failure = null;
+            boolean received;
+            StoredUpload upload;
+            try (TeeInputStream tee = new TeeInputStream(body, target, live)) {
+                try {
+                    result = fileProcessorService.processStream(tee, fileTable.getId(), schema, live::recordWritten);
+                } catch (IOException e) {
+                    failure = e;
+                    receiveRest(tee);
+                }
+                received = tee.complete();
+                upload = tee.toStoredUpload();
+            }
+
+            if (failure == null) {
+                fileProcessorService.storeUpload(target);
+                fileProcessorService.updateFileMetaDataWithUpload(fileTable, upload);
+                if (result.getRejects().total() > 0) {
+                    System.out.println("⚠️ Rejected rows for file ID: " + fileTable.getId() + " - " + result.getRejects());
+                }
+                rollupService.saveRollups(fileTable.getId(), result.getRollups());
+                fileProcessorService.updateFileMetaDataWithCompletedStatus(fileTable, result);
+                ingestMetrics.recordFile(sample, "tee", result);
+                return;
+            }
+
+            ingestMetrics.recordFileFailure(sample, "tee");
+            partitionService.truncate(fileTable.getId());
+            if (!received) {
+                fileProcessorService.updateFileMetaDataWithFailedStatus(fileTable);
+                Files.deleteIfExists(target.toPath());
+                throw failure;
+            }
+            System.err.println("❌ Error processing file ID: " + fileTable.getId() + " during upload, replaying it - " + failure.getMessage());
+            fileProcessorService.storeUpload(target);
+            fileProcessorService.updateFileMetaDataWithUpload(fileTable, upload);
+            kafkaProducerService.sendFileProcessingEvent(fileTable);
+        } finally {
+            liveIngestRegistry.finish(fileTable.getId());
+            ingestMetrics.recordUpload(sample, "tee");
+        }
+    }
+
+    // After an ingest failure the upload is still read to the end so the raw file is complete for the replay
+    private static void receiveRest(TeeInputStream tee) {
+        try {
+            tee.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            // the upload is incomplete, tee.complete() stays false
+        }
+    }
+}
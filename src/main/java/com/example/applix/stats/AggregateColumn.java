@@ -0,0 +1,51 @@
+package com.example.applix.stats;
+
+import com.example.applix.enums.AggregateFunction;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// One requested function of GET /data/aggregate, named as it was asked for ("avg", "p99" ...). quantile is in [0, 1].
+public record AggregateColumn(String name, AggregateFunction function, double quantile) {
+
+    public static AggregateColumn parse(String value) {
+        String name = value.trim().toLowerCase(Locale.ROOT);
+        if (name.equals("median")) return new AggregateColumn(name, AggregateFunction.PERCENTILE, 0.5);
+        if (name.startsWith("p") && name.length() > 1 && Character.isDigit(name.charAt(1))) {
+            double percentile;
+            try {
+                percentile = Double.parseDouble(name.substring(1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid percentile '" + value.trim() + "'");
+            }
+            if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("Percentile out of [0, 100]: '" + value.trim() + "'");
+            return new AggregateColumn(name, AggregateFunction.PERCENTILE, percentile / 100);
+        }
+        AggregateFunction function;
+        try {
+            function = AggregateFunction.fromProperty(name);
+        } catch (IllegalArgumentException e) {
+            function = AggregateFunction.PERCENTILE;
+        }
+        if (function == AggregateFunction.PERCENTILE) {
+            throw new IllegalArgumentException("Unknown function '" + value.trim() + "', expected avg, min, max, count, median or pNN");
+        }
+        return new AggregateColumn(name, function, 0);
+    }
+
+    // Comma separated, duplicates dropped, in the order given
+    public static List<AggregateColumn> parseAll(String values) {
+        Set<String> seen = new LinkedHashSet<>();
+        List<AggregateColumn> columns = new ArrayList<>();
+        for (String value : values.split(",")) {
+            if (value.isBlank()) continue;
+            AggregateColumn column = parse(value);
+            if (seen.add(column.name())) columns.add(column);
+        }
+        if (columns.isEmpty()) throw new IllegalArgumentException("No aggregate function");
+        return columns;
+    }
+}
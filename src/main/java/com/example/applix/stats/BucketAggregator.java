@@ -0,0 +1,117 @@
+package com.example.applix.stats;
+
+import com.example.applix.enums.AggregateFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Fixed width time buckets over [startSecond, endSecond), as dense primitive arrays indexed by bucket. A quantile
+// estimator per bucket (created by percentiles, null without percentiles) is only fed when a percentile is asked for;
+// rows past maxKeptValues throw TooManyValuesException, the bound of estimators that keep every value.
+// Ranges returned by split() start and end on bucket boundaries, so threads aggregating different ranges never
+// touch the same bucket and share one instance without locking.
+public class BucketAggregator {
+    private final long firstBucket; // epoch second of the start of bucket 0
+    private final int width;
+    private final long startSecond;
+    private final long endSecond;
+    private final long[] counts;
+    private final double[] sums;
+    private final double[] mins;
+    private final double[] maxs;
+    private final Supplier<QuantileEstimator> percentiles;
+    private final QuantileEstimator[] values; // null without percentiles
+    private final long maxKeptValues;
+    private final AtomicLong keptValues = new AtomicLong();
+
+    // [startSecond, endSecond) in epoch seconds
+    public record Range(long startSecond, long endSecond) {
+    }
+
+    public static class TooManyValuesException extends RuntimeException {
+        TooManyValuesException(long maxKeptValues) {
+            super("Percentiles of more than " + maxKeptValues + " rows, use a shorter range");
+        }
+    }
+
+    public BucketAggregator(long startSecond, long endSecond, int width, Supplier<QuantileEstimator> percentiles, long maxKeptValues) {
+        this.firstBucket = Math.floorDiv(startSecond, width) * (long) width;
+        this.width = width;
+        this.startSecond = startSecond;
+        this.endSecond = endSecond;
+        int buckets = Math.toIntExact(bucketCount(startSecond, endSecond, width));
+        this.counts = new long[buckets];
+        this.sums = new double[buckets];
+        this.mins = new double[buckets];
+        this.maxs = new double[buckets];
+        this.percentiles = percentiles;
+        this.values = percentiles != null ? new QuantileEstimator[buckets] : null;
+        this.maxKeptValues = maxKeptValues;
+    }
+
+    public static long bucketCount(long startSecond, long endSecond, int width) {
+        if (endSecond <= startSecond) return 0;
+        return Math.floorDiv(endSecond - 1, width) - Math.floorDiv(startSecond, width) + 1;
+    }
+
+    // At most parts ranges of whole buckets covering [startSecond, endSecond), the first and last ones clipped to it
+    public List<Range> split(int parts) {
+        List<Range> ranges = new ArrayList<>();
+        int buckets = counts.length;
+        int perRange = Math.max(1, (buckets + parts - 1) / parts);
+        for (int first = 0; first < buckets; first += perRange) {
+            long from = Math.max(startSecond, bucketStart(first));
+            long to = Math.min(endSecond, bucketStart(Math.min(buckets, first + perRange)));
+            ranges.add(new Range(from, to));
+        }
+        return ranges;
+    }
+
+    // Rows outside [startSecond, endSecond) are ignored
+    public void accept(long epochSecond, double value) {
+        if (epochSecond < startSecond || epochSecond >= endSecond) return;
+        int bucket = (int) ((epochSecond - firstBucket) / width);
+        if (counts[bucket]++ == 0) {
+            mins[bucket] = value;
+            maxs[bucket] = value;
+        } else {
+            if (value < mins[bucket]) mins[bucket] = value;
+            if (value > maxs[bucket]) maxs[bucket] = value;
+        }
+        sums[bucket] += value;
+        if (values != null) {
+            if (maxKeptValues != Long.MAX_VALUE && keptValues.incrementAndGet() > maxKeptValues) throw new TooManyValuesException(maxKeptValues);
+            if (values[bucket] == null) values[bucket] = percentiles.get();
+            values[bucket].accept(value);
+        }
+    }
+
+    public int bucketCount() {
+        return counts.length;
+    }
+
+    public long bucketStart(int bucket) {
+        return firstBucket + (long) bucket * width;
+    }
+
+    public long count(int bucket) {
+        return counts[bucket];
+    }
+
+    // NaN for an empty bucket
+    public double value(int bucket, AggregateColumn column) {
+        if (column.function() != AggregateFunction.COUNT && counts[bucket] == 0) return Double.NaN;
+        return switch (column.function()) {
+            case AVG -> sums[bucket] / counts[bucket];
+            case MIN -> mins[bucket];
+            case MAX -> maxs[bucket];
+            case COUNT -> counts[bucket];
+            case PERCENTILE -> {
+                if (values == null) throw new IllegalStateException("Values of the buckets were not kept");
+                yield values[bucket].quantile(column.quantile());
+            }
+        };
+    }
+}
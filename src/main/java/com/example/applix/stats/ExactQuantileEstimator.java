@@ -0,0 +1,86 @@
+package com.example.applix.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class ExactQuantileEstimator implements QuantileEstimator {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private double[] values;
+    private int size;
+    private boolean sorted = true;
+
+    public ExactQuantileEstimator() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ExactQuantileEstimator(int expectedSize) {
+        this.values = new double[Math.max(expectedSize, 16)];
+    }
+
+    @Override
+    public void accept(double value) {
+        if (size == values.length) grow(size + 1);
+        values[size++] = value;
+        sorted = false;
+    }
+
+    @Override
+    public void merge(QuantileEstimator other) {
+        if (!(other instanceof ExactQuantileEstimator exact)) {
+            throw new IllegalArgumentException("Cannot merge " + other.getClass().getSimpleName() + " into an exact estimator");
+        }
+        if (exact.size == 0) return;
+        if (size + exact.size > values.length) grow(size + exact.size);
+        System.arraycopy(exact.values, 0, values, size, exact.size);
+        size += exact.size;
+        sorted = false;
+    }
+
+    @Override
+    public long count() {
+        return size;
+    }
+
+    @Override
+    public double quantile(double q) {
+        if (size == 0) return 0;
+        if (!sorted) {
+            Arrays.sort(values, 0, size);
+            sorted = true;
+        }
+        double position = q * (size - 1);
+        int lower = (int) Math.floor(position);
+        int upper = (int) Math.ceil(position);
+        if (lower == upper) return values[lower];
+        if (position - lower == 0.5) return (values[lower] + values[upper]) / 2.0; // same rounding as the old two-heap median
+        return values[lower] + (values[upper] - values[lower]) * (position - lower);
+    }
+
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(EXACT);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeDouble(values[i]);
+        }
+    }
+
+    static ExactQuantileEstimator readFrom(DataInput in) throws IOException {
+        int size = in.readInt();
+        ExactQuantileEstimator estimator = new ExactQuantileEstimator(size);
+        for (int i = 0; i < size; i++) {
+            estimator.values[i] = in.readDouble();
+        }
+        estimator.size = size;
+        estimator.sorted = false;
+        return estimator;
+    }
+
+    private void grow(int minCapacity) {
+        int newCapacity = Math.max(minCapacity, values.length + (values.length >> 1));
+        values = Arrays.copyOf(values, newCapacity);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.applix.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Fixed-width bins over [min, max]. Memory is bounded by the bin count regardless of how many values are added,
+// and two histograms with the same layout merge by adding counts. Quantiles are exact when every value sits on
+// the bin grid (e.g. readings with two decimals at a 0.01 resolution), otherwise within half a bin.
+public class HistogramQuantileEstimator implements QuantileEstimator {
+    private final double min;
+    private final double resolution;
+    private final long[] counts;
+    private long nanCount;
+    private long total;
+
+    public HistogramQuantileEstimator(double min, double max, double resolution) {
+        if (resolution <= 0 || max <= min) throw new IllegalArgumentException("Invalid histogram layout");
+        this.min = min;
+        this.resolution = resolution;
+        this.counts = new long[binCount(min, max, resolution)];
+    }
+
+    public static int binCount(double min, double max, double resolution) {
+        return (int) Math.round((max - min) / resolution) + 1;
+    }
+
+    @Override
+    public void accept(double value) {
+        total++;
+        if (Double.isNaN(value)) {
+            nanCount++; // sorts above every number, same as Double.compare
+            return;
+        }
+        counts[binOf(value)]++;
+    }
+
+    @Override
+    public void merge(QuantileEstimator other) {
+        if (!(other instanceof HistogramQuantileEstimator histogram) || !sameLayout(histogram)) {
+            throw new IllegalArgumentException("Cannot merge estimators with a different layout");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += histogram.counts[i];
+        }
+        nanCount += histogram.nanCount;
+        total += histogram.total;
+    }
+
+    @Override
+    public long count() {
+        return total;
+    }
+
+    @Override
+    public double quantile(double q) {
+        if (total == 0) return 0;
+        double position = q * (total - 1);
+        long lower = (long) Math.floor(position);
+        long upper = (long) Math.ceil(position);
+        double lowerValue = valueAtRank(lower);
+        if (lower == upper) return lowerValue;
+        double upperValue = valueAtRank(upper);
+        if (position - lower == 0.5) return (lowerValue + upperValue) / 2.0;
+        return lowerValue + (upperValue - lowerValue) * (position - lower);
+    }
+
+    public long[] getCounts() {
+        return counts;
+    }
+
+    // Only the bins between the first and the last non-empty one are written
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+        int first = 0;
+        while (first < counts.length && counts[first] == 0) first++;
+        int last = counts.length - 1;
+        while (last >= first && counts[last] == 0) last--;
+
+        out.writeByte(HISTOGRAM);
+        out.writeDouble(min);
+        out.writeDouble(min + (counts.length - 1) * resolution);
+        out.writeDouble(resolution);
+        out.writeLong(nanCount);
+        out.writeLong(total);
+        out.writeInt(first);
+        out.writeInt(last - first + 1);
+        for (int i = first; i <= last; i++) {
+            out.writeLong(counts[i]);
+        }
+    }
+
+    static HistogramQuantileEstimator readFrom(DataInput in) throws IOException {
+        HistogramQuantileEstimator histogram = new HistogramQuantileEstimator(in.readDouble(), in.readDouble(), in.readDouble());
+        histogram.nanCount = in.readLong();
+        histogram.total = in.readLong();
+        int first = in.readInt();
+        int length = in.readInt();
+        for (int i = first; i < first + length; i++) {
+            histogram.counts[i] = in.readLong();
+        }
+        return histogram;
+    }
+
+    private double valueAtRank(long rank) {
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) return min + i * resolution;
+        }
+        return Double.NaN;
+    }
+
+    private int binOf(double value) {
+        int bin = (int) Math.round((value - min) / resolution);
+        if (bin < 0) return 0;
+        return Math.min(bin, counts.length - 1);
+    }
+
+    private boolean sameLayout(HistogramQuantileEstimator other) {
+        return other.min == min && other.resolution == resolution && other.counts.length == counts.length;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.applix.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public interface QuantileEstimator {
+    byte EXACT = 0;
+    byte HISTOGRAM = 1;
+
+    void accept(double value);
+
+    // Folds the other estimator's values into this one, so partial results of parallel chunks can be combined.
+    void merge(QuantileEstimator other);
+
+    long count();
+
+    // q in [0, 1]; linear interpolation between the closest ranks, 0 when empty.
+    double quantile(double q);
+
+    // Partial state of a file chunk, starting with the estimator type
+    void writeTo(DataOutput out) throws IOException;
+
+    static QuantileEstimator readFrom(DataInput in) throws IOException {
+        return switch (in.readByte()) {
+            case EXACT -> ExactQuantileEstimator.readFrom(in);
+            case HISTOGRAM -> HistogramQuantileEstimator.readFrom(in);
+            default -> throw new IOException("Unknown quantile estimator type");
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.applix.stats;
+
+import com.example.applix.enums.QuantileMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class QuantileEstimatorFactory {
+    public static final double MIN_TEMPERATURE = -100;
+    public static final double MAX_TEMPERATURE = 100;
+
+    private final QuantileMode mode;
+    private final double histogramResolution;
+
+    public QuantileEstimatorFactory(@Value("${stats.quantile.mode:exact}") String mode,
+                                    @Value("${stats.quantile.histogram-resolution:0.01}") double histogramResolution) {
+        this.mode = QuantileMode.fromProperty(mode);
+        this.histogramResolution = histogramResolution;
+    }
+
+    public QuantileEstimator create() {
+        return switch (mode) {
+            case EXACT -> new ExactQuantileEstimator();
+            case HISTOGRAM -> new HistogramQuantileEstimator(MIN_TEMPERATURE, MAX_TEMPERATURE, histogramResolution);
+        };
+    }
+
+    public TemperatureStats newStats() {
+        return new TemperatureStats(create());
+    }
+
+    // Stats of a series validated against [min, max]. Histograms need a bounded range: uploads with an open one are
+    // refused in histogram mode (SchemaResolver), never silently given exact values.
+    public TemperatureStats newStats(double min, double max) {
+        if (mode == QuantileMode.EXACT) return new TemperatureStats(new ExactQuantileEstimator());
+        if (!Double.isFinite(min) || !Double.isFinite(max)) {
+            throw new IllegalArgumentException("stats.quantile.mode=histogram needs a bounded column, got [" + min + ", " + max + "]");
+        }
+        return new TemperatureStats(new HistogramQuantileEstimator(min, max, histogramResolution));
+    }
+
+    // Partial stats of one chunk of a large file, kept in file_chunk_results until the reduce step. Always a histogram
+    // over the column range whatever stats.quantile.mode says: exact values of a 128MB chunk would be tens of MB per
+    // row, past max_allowed_packet. Chunked files therefore get a histogram median, flagged on files_table
+    // (median_approximate) and in GET /data.
+    public TemperatureStats newChunkStats(double min, double max) {
+        if (!Double.isFinite(min) || !Double.isFinite(max)) throw new IllegalArgumentException("Chunk stats need a bounded column, got [" + min + ", " + max + "]");
+        return new TemperatureStats(new HistogramQuantileEstimator(min, max, histogramResolution));
+    }
+
+    // Bins of a histogram over [min, max] at stats.quantile.histogram-resolution, -1 for an open range
+    public int histogramBins(double min, double max) {
+        if (!Double.isFinite(min) || !Double.isFinite(max)) return -1;
+        return HistogramQuantileEstimator.binCount(min, max, histogramResolution);
+    }
+
+    public HistogramQuantileEstimator newHistogram(double min, double max) {
+        return new HistogramQuantileEstimator(min, max, histogramResolution);
+    }
+
+    public QuantileMode getMode() {
+        return mode;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.applix.stats;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class RollupBucket {
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double sum;
+    private long count;
+
+    public void accept(double value) {
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += value;
+        count++;
+    }
+
+    public void merge(RollupBucket other) {
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sum += other.sum;
+        count += other.count;
+    }
+
+    public double getAverage() {
+        return count == 0 ? 0 : sum / count;
+    }
+}
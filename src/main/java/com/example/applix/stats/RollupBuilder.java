@@ -0,0 +1,158 @@
+package com.example.applix.stats;
+
+import com.example.applix.enums.RollupResolution;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+// min/max/sum/count per time bucket at every RollupResolution, plus a value histogram per hour, built while a
+// file (or one range of it) is parsed.
+// The histograms cover the range of the column being rolled up, in bins of at least HISTOGRAM_RESOLUTION and at
+// most MAX_HISTOGRAM_BINS of them. A column without a bounded range gets no histograms, hence no windowed median.
+// Not thread-safe; every parsing thread owns one and the partial builders are merged at the end.
+public class RollupBuilder {
+    public static final double HISTOGRAM_RESOLUTION = 1.0;
+    public static final int MAX_HISTOGRAM_BINS = 2001;
+    private static final RollupResolution[] RESOLUTIONS = RollupResolution.values();
+    private static final int HOUR = RollupResolution.ONE_HOUR.ordinal();
+
+    private final Map<RollupResolution, Map<Long, RollupBucket>> buckets = new EnumMap<>(RollupResolution.class);
+    // rows mostly arrive in time order, so the bucket of the previous row is usually the right one
+    private final long[] lastBucketStart = new long[RESOLUTIONS.length];
+    private final RollupBucket[] lastBucket = new RollupBucket[RESOLUTIONS.length];
+    private final Map<Long, HistogramQuantileEstimator> hourlyHistograms = new HashMap<>();
+    private HistogramQuantileEstimator lastHistogram;
+    private final double histogramMin;
+    private final double histogramMax;
+
+    // The legacy temperature column
+    public RollupBuilder() {
+        this(QuantileEstimatorFactory.MIN_TEMPERATURE, QuantileEstimatorFactory.MAX_TEMPERATURE);
+    }
+
+    public RollupBuilder(double histogramMin, double histogramMax) {
+        this.histogramMin = histogramMin;
+        this.histogramMax = histogramMax;
+        for (RollupResolution resolution : RESOLUTIONS) {
+            buckets.put(resolution, new HashMap<>());
+        }
+    }
+
+    public void accept(long epochSecond, double temperature) {
+        for (int i = 0; i < RESOLUTIONS.length; i++) {
+            long bucketStart = Math.floorDiv(epochSecond, RESOLUTIONS[i].getSeconds()) * RESOLUTIONS[i].getSeconds();
+            RollupBucket bucket = lastBucket[i];
+            if (bucket == null || lastBucketStart[i] != bucketStart) {
+                bucket = buckets.get(RESOLUTIONS[i]).computeIfAbsent(bucketStart, start -> new RollupBucket());
+                lastBucket[i] = bucket;
+                lastBucketStart[i] = bucketStart;
+                if (i == HOUR && hasHistograms()) lastHistogram = hourlyHistograms.computeIfAbsent(bucketStart, start -> newHistogram());
+            }
+            bucket.accept(temperature);
+        }
+        if (lastHistogram != null) lastHistogram.accept(temperature);
+    }
+
+    public void merge(RollupBuilder other) {
+        if (Double.compare(histogramMin, other.histogramMin) != 0 || Double.compare(histogramMax, other.histogramMax) != 0) {
+            throw new IllegalArgumentException("Cannot merge rollups of different column ranges");
+        }
+        for (RollupResolution resolution : RESOLUTIONS) {
+            Map<Long, RollupBucket> target = buckets.get(resolution);
+            other.buckets.get(resolution).forEach((start, bucket) -> target.merge(start, bucket, (a, b) -> {
+                a.merge(b);
+                return a;
+            }));
+        }
+        other.hourlyHistograms.forEach((start, histogram) -> hourlyHistograms.merge(start, histogram, (a, b) -> {
+            a.merge(b);
+            return a;
+        }));
+        Arrays.fill(lastBucket, null);
+        lastHistogram = null;
+    }
+
+    public boolean hasHistograms() {
+        return isBounded(histogramMin, histogramMax);
+    }
+
+    public double getHistogramMin() {
+        return histogramMin;
+    }
+
+    public double getHistogramMax() {
+        return histogramMax;
+    }
+
+    // bucket start (epoch seconds) -> bucket
+    public Map<Long, RollupBucket> getBuckets(RollupResolution resolution) {
+        return buckets.get(resolution);
+    }
+
+    // hour bucket start (epoch seconds) -> histogram of the values in that hour
+    public Map<Long, HistogramQuantileEstimator> getHourlyHistograms() {
+        return hourlyHistograms;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeDouble(histogramMin);
+        out.writeDouble(histogramMax);
+        for (RollupResolution resolution : RESOLUTIONS) {
+            Map<Long, RollupBucket> resolutionBuckets = buckets.get(resolution);
+            out.writeInt(resolutionBuckets.size());
+            for (Map.Entry<Long, RollupBucket> entry : resolutionBuckets.entrySet()) {
+                RollupBucket bucket = entry.getValue();
+                out.writeLong(entry.getKey());
+                out.writeDouble(bucket.getMin());
+                out.writeDouble(bucket.getMax());
+                out.writeDouble(bucket.getSum());
+                out.writeLong(bucket.getCount());
+            }
+        }
+        out.writeInt(hourlyHistograms.size());
+        for (Map.Entry<Long, HistogramQuantileEstimator> entry : hourlyHistograms.entrySet()) {
+            out.writeLong(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    public static RollupBuilder readFrom(DataInput in) throws IOException {
+        RollupBuilder rollups = new RollupBuilder(in.readDouble(), in.readDouble());
+        for (RollupResolution resolution : RESOLUTIONS) {
+            Map<Long, RollupBucket> resolutionBuckets = rollups.buckets.get(resolution);
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                long start = in.readLong();
+                RollupBucket bucket = new RollupBucket();
+                bucket.setMin(in.readDouble());
+                bucket.setMax(in.readDouble());
+                bucket.setSum(in.readDouble());
+                bucket.setCount(in.readLong());
+                resolutionBuckets.put(start, bucket);
+            }
+        }
+        int hours = in.readInt();
+        for (int i = 0; i < hours; i++) {
+            long start = in.readLong();
+            rollups.hourlyHistograms.put(start, (HistogramQuantileEstimator) QuantileEstimator.readFrom(in));
+        }
+        return rollups;
+    }
+
+    public HistogramQuantileEstimator newHistogram() {
+        return new HistogramQuantileEstimator(histogramMin, histogramMax, histogramResolution(histogramMin, histogramMax));
+    }
+
+    public static boolean isBounded(double min, double max) {
+        return Double.isFinite(min) && Double.isFinite(max) && max > min;
+    }
+
+    public static double histogramResolution(double min, double max) {
+        return Math.max(HISTOGRAM_RESOLUTION, (max - min) / (MAX_HISTOGRAM_BINS - 1));
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.applix.stats;
+
+import com.example.applix.enums.RollupResolution;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+
+// Answers count/mean/min/max/median of any time window of a processed file without reading its rows.
+// Minute rollups are kept as prefix sums (count, sum) and segment trees (min, max), hourly histograms as prefix
+// counts per bin, so a query is two binary searches, O(log n) tree walks and one pass over the bins.
+// Minutes cut by the window edges count whole (the result carries the minute-aligned window, so its count can exceed
+// the exact row count of GET /data for the same bounds), and so do hours for the median, interpolated inside a bin.
+// The histogram layout is the column range the rollups were built over, stored with the index; a column without a
+// bounded range has no histograms and no windowed median.
+public class StatsIndex {
+    private static final int FORMAT_VERSION = 2;
+    private static final int MINUTE = RollupResolution.ONE_MINUTE.getSeconds();
+    private static final int HOUR = RollupResolution.ONE_HOUR.getSeconds();
+
+    private final double histogramMin;
+    private final double histogramMax;
+    private final double resolution;
+    private final int bins; // 0 without histograms
+
+    private final long[] minuteStarts;
+    private final double[] minuteMins;
+    private final double[] minuteMaxs;
+    private final double[] minuteSums;
+    private final long[] minuteCounts;
+    private final long[] hourStarts;
+    private final long[] hourHistograms; // bins counts per hour, back to back
+
+    private final double[] sumPrefix;
+    private final long[] countPrefix;
+    private final double[] minTree;
+    private final double[] maxTree;
+    private final long[] histogramPrefix; // bins counts per hour boundary, row h = all hours before h
+
+    private StatsIndex(double histogramMin, double histogramMax, long[] minuteStarts, double[] minuteMins, double[] minuteMaxs, double[] minuteSums, long[] minuteCounts,
+                       long[] hourStarts, long[] hourHistograms) {
+        this.histogramMin = histogramMin;
+        this.histogramMax = histogramMax;
+        this.resolution = RollupBuilder.histogramResolution(histogramMin, histogramMax);
+        this.bins = binCount(histogramMin, histogramMax);
+        this.minuteStarts = minuteStarts;
+        this.minuteMins = minuteMins;
+        this.minuteMaxs = minuteMaxs;
+        this.minuteSums = minuteSums;
+        this.minuteCounts = minuteCounts;
+        this.hourStarts = hourStarts;
+        this.hourHistograms = hourHistograms;
+
+        int n = minuteStarts.length;
+        sumPrefix = new double[n + 1];
+        countPrefix = new long[n + 1];
+        minTree = new double[2 * n];
+        maxTree = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            sumPrefix[i + 1] = sumPrefix[i] + minuteSums[i];
+            countPrefix[i + 1] = countPrefix[i] + minuteCounts[i];
+            minTree[n + i] = minuteMins[i];
+            maxTree[n + i] = minuteMaxs[i];
+        }
+        for (int i = n - 1; i > 0; i--) {
+            minTree[i] = Math.min(minTree[2 * i], minTree[2 * i + 1]);
+            maxTree[i] = Math.max(maxTree[2 * i], maxTree[2 * i + 1]);
+        }
+
+        histogramPrefix = new long[(hourStarts.length + 1) * bins];
+        for (int h = 0; h < hourStarts.length; h++) {
+            for (int b = 0; b < bins; b++) {
+                histogramPrefix[(h + 1) * bins + b] = histogramPrefix[h * bins + b] + hourHistograms[h * bins + b];
+            }
+        }
+    }
+
+    public static StatsIndex from(RollupBuilder rollups) {
+        Map<Long, RollupBucket> minutes = rollups.getBuckets(RollupResolution.ONE_MINUTE);
+        long[] minuteStarts = minutes.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        int n = minuteStarts.length;
+        double[] mins = new double[n];
+        double[] maxs = new double[n];
+        double[] sums = new double[n];
+        long[] counts = new long[n];
+        for (int i = 0; i < n; i++) {
+            RollupBucket bucket = minutes.get(minuteStarts[i]);
+            mins[i] = bucket.getMin();
+            maxs[i] = bucket.getMax();
+            sums[i] = bucket.getSum();
+            counts[i] = bucket.getCount();
+        }
+
+        int bins = binCount(rollups.getHistogramMin(), rollups.getHistogramMax());
+        Map<Long, HistogramQuantileEstimator> hours = rollups.getHourlyHistograms();
+        long[] hourStarts = hours.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        long[] histograms = new long[hourStarts.length * bins];
+        for (int h = 0; h < hourStarts.length; h++) {
+            System.arraycopy(hours.get(hourStarts[h]).getCounts(), 0, histograms, h * bins, bins);
+        }
+        return new StatsIndex(rollups.getHistogramMin(), rollups.getHistogramMax(), minuteStarts, mins, maxs, sums, counts, hourStarts, histograms);
+    }
+
+    // Both bounds are inclusive, a null bound leaves that side of the window open
+    public WindowStats query(Instant start, Instant end) {
+        long startSecond = start != null ? start.getEpochSecond() : Long.MIN_VALUE;
+        long endSecond = end != null ? end.getEpochSecond() : Long.MAX_VALUE;
+
+        int from = lowerBound(minuteStarts, floor(startSecond, MINUTE));
+        int to = upperBound(minuteStarts, endSecond);
+        long count = to > from ? countPrefix[to] - countPrefix[from] : 0;
+        if (count == 0) return WindowStats.EMPTY;
+
+        double min = rangeMin(from, to);
+        double max = rangeMax(from, to);
+        double mean = (sumPrefix[to] - sumPrefix[from]) / count;
+
+        Double median = null;
+        if (bins > 0) {
+            int hourFrom = lowerBound(hourStarts, floor(startSecond, HOUR));
+            int hourTo = upperBound(hourStarts, endSecond);
+            median = Math.max(min, Math.min(max, median(hourFrom, hourTo)));
+        }
+
+        return new WindowStats(count, mean, median, min, max,
+                Instant.ofEpochSecond(minuteStarts[from]), Instant.ofEpochSecond(minuteStarts[to - 1] + MINUTE - 1));
+    }
+
+    public long rowCount() {
+        return countPrefix[countPrefix.length - 1];
+    }
+
+    // Only the source arrays are stored, prefixes and trees are rebuilt on load.
+    // Hourly histograms are written as their non-empty bin span, most hours only cover a few degrees.
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeDouble(histogramMin);
+        out.writeDouble(histogramMax);
+        out.writeInt(minuteStarts.length);
+        for (int i = 0; i < minuteStarts.length; i++) {
+            out.writeLong(minuteStarts[i]);
+            out.writeDouble(minuteMins[i]);
+            out.writeDouble(minuteMaxs[i]);
+            out.writeDouble(minuteSums[i]);
+            out.writeLong(minuteCounts[i]);
+        }
+        out.writeInt(hourStarts.length);
+        for (int h = 0; h < hourStarts.length; h++) {
+            int first = 0;
+            int last = bins - 1;
+            while (first < bins && hourHistograms[h * bins + first] == 0) first++;
+            while (last >= first && hourHistograms[h * bins + last] == 0) last--;
+            out.writeLong(hourStarts[h]);
+            out.writeInt(first);
+            out.writeInt(last - first + 1);
+            for (int b = first; b <= last; b++) {
+                out.writeLong(hourHistograms[h * bins + b]);
+            }
+        }
+    }
+
+    // Version 1 indexes were all built over the legacy temperature range
+    public static StatsIndex readFrom(DataInput in) throws IOException {
+        int version = in.readInt();
+        double histogramMin = QuantileEstimatorFactory.MIN_TEMPERATURE;
+        double histogramMax = QuantileEstimatorFactory.MAX_TEMPERATURE;
+        if (version == 1) {
+            if (in.readInt() != binCount(histogramMin, histogramMax)) throw new IOException("Unsupported stats index format");
+        } else if (version == FORMAT_VERSION) {
+            histogramMin = in.readDouble();
+            histogramMax = in.readDouble();
+        } else {
+            throw new IOException("Unsupported stats index format");
+        }
+        int bins = binCount(histogramMin, histogramMax);
+        int n = in.readInt();
+        long[] minuteStarts = new long[n];
+        double[] mins = new double[n];
+        double[] maxs = new double[n];
+        double[] sums = new double[n];
+        long[] counts = new long[n];
+        for (int i = 0; i < n; i++) {
+            minuteStarts[i] = in.readLong();
+            mins[i] = in.readDouble();
+            maxs[i] = in.readDouble();
+            sums[i] = in.readDouble();
+            counts[i] = in.readLong();
+        }
+        int hours = in.readInt();
+        long[] hourStarts = new long[hours];
+        long[] histograms = new long[hours * bins];
+        for (int h = 0; h < hours; h++) {
+            hourStarts[h] = in.readLong();
+            int first = in.readInt();
+            int length = in.readInt();
+            for (int b = first; b < first + length; b++) {
+                histograms[h * bins + b] = in.readLong();
+            }
+        }
+        return new StatsIndex(histogramMin, histogramMax, minuteStarts, mins, maxs, sums, counts, hourStarts, histograms);
+    }
+
+    // Same rank rule as QuantileEstimator; a value of rank r is placed uniformly inside its bin
+    private double median(int hourFrom, int hourTo) {
+        long[] counts = new long[bins];
+        long total = 0;
+        for (int b = 0; b < bins; b++) {
+            counts[b] = histogramPrefix[hourTo * bins + b] - histogramPrefix[hourFrom * bins + b];
+            total += counts[b];
+        }
+        if (total == 0) return 0;
+
+        double position = 0.5 * (total - 1);
+        long lower = (long) Math.floor(position);
+        long upper = (long) Math.ceil(position);
+        return lower == upper ? valueAtRank(counts, lower) : (valueAtRank(counts, lower) + valueAtRank(counts, upper)) / 2.0;
+    }
+
+    private double valueAtRank(long[] counts, long rank) {
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            if (seen + counts[b] > rank) {
+                double binStart = histogramMin + (b - 0.5) * resolution;
+                return binStart + resolution * (rank - seen + 0.5) / counts[b];
+            }
+            seen += counts[b];
+        }
+        return histogramMax;
+    }
+
+    private static int binCount(double min, double max) {
+        return RollupBuilder.isBounded(min, max) ? HistogramQuantileEstimator.binCount(min, max, RollupBuilder.histogramResolution(min, max)) : 0;
+    }
+
+    private double rangeMin(int from, int to) {
+        double min = Double.POSITIVE_INFINITY;
+        int n = minuteStarts.length;
+        for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) min = Math.min(min, minTree[l++]);
+            if ((r & 1) == 1) min = Math.min(min, minTree[--r]);
+        }
+        return min;
+    }
+
+    private double rangeMax(int from, int to) {
+        double max = Double.NEGATIVE_INFINITY;
+        int n = minuteStarts.length;
+        for (int l = from + n, r = to + n; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) max = Math.max(max, maxTree[l++]);
+            if ((r & 1) == 1) max = Math.max(max, maxTree[--r]);
+        }
+        return max;
+    }
+
+    private static long floor(long epochSecond, int width) {
+        return epochSecond == Long.MIN_VALUE ? Long.MIN_VALUE : Math.floorDiv(epochSecond, width) * width;
+    }
+
+    // first index with value >= key
+    private static int lowerBound(long[] sorted, long key) {
+        int index = Arrays.binarySearch(sorted, key);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // first index with value > key, starts are unique
+    private static int upperBound(long[] sorted, long key) {
+        int index = Arrays.binarySearch(sorted, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.applix.stats;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// One StatsIndex file per processed upload, written once when processing completes and kept in memory while in use.
+@Component
+public class StatsIndexStore {
+    private static final int MAX_CACHED_INDEXES = 64;
+
+    private final Path directory;
+    private final Map<Integer, StatsIndex> indexes = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, StatsIndex> eldest) {
+                    return size() > MAX_CACHED_INDEXES;
+                }
+            });
+
+    public StatsIndexStore(@Value("${stats.index.dir:src/main/resources/stats}") String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    public void save(int fileId, StatsIndex index) throws IOException {
+        Files.createDirectories(directory);
+        Path target = pathOf(fileId);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            index.writeTo(out);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        indexes.put(fileId, index);
+    }
+
+    public void delete(int fileId) throws IOException {
+        indexes.remove(fileId);
+        Files.deleteIfExists(pathOf(fileId));
+    }
+
+    // null for files processed before the index existed
+    public StatsIndex find(int fileId) throws IOException {
+        StatsIndex index = indexes.get(fileId);
+        if (index != null || !Files.exists(pathOf(fileId))) return index;
+        try {
+            return indexes.computeIfAbsent(fileId, id -> {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(pathOf(id))))) {
+                    return StatsIndex.readFrom(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Path pathOf(int fileId) {
+        return directory.resolve("stats-" + fileId + ".idx");
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.applix.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.DoubleSummaryStatistics;
+
+// Running statistics of one file (or one chunk of it). Not thread-safe: each parsing thread owns its instance
+// and the partial results are merged once the chunks are done.
+public class TemperatureStats {
+    private final DoubleSummaryStatistics summary;
+    private final QuantileEstimator quantiles;
+
+    public TemperatureStats(QuantileEstimator quantiles) {
+        this(new DoubleSummaryStatistics(), quantiles);
+    }
+
+    private TemperatureStats(DoubleSummaryStatistics summary, QuantileEstimator quantiles) {
+        this.summary = summary;
+        this.quantiles = quantiles;
+    }
+
+    public void accept(double temperature) {
+        summary.accept(temperature);
+        quantiles.accept(temperature);
+    }
+
+    public void merge(TemperatureStats other) {
+        summary.combine(other.summary);
+        quantiles.merge(other.quantiles);
+    }
+
+    public long getCount() {
+        return summary.getCount();
+    }
+
+    public double getMean() {
+        return summary.getAverage();
+    }
+
+    public double getMin() {
+        return summary.getMin();
+    }
+
+    public double getMax() {
+        return summary.getMax();
+    }
+
+    public double getMedian() {
+        return quantiles.quantile(0.5);
+    }
+
+    public double getP90() {
+        return quantiles.quantile(0.9);
+    }
+
+    public double getP99() {
+        return quantiles.quantile(0.99);
+    }
+
+    // false when the quantiles are interpolated in a histogram
+    public boolean hasExactQuantiles() {
+        return quantiles instanceof ExactQuantileEstimator;
+    }
+
+    public QuantileEstimator getQuantiles() {
+        return quantiles;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(summary.getCount());
+        out.writeDouble(summary.getMin());
+        out.writeDouble(summary.getMax());
+        out.writeDouble(summary.getSum());
+        quantiles.writeTo(out);
+    }
+
+    public static TemperatureStats readFrom(DataInput in) throws IOException {
+        long count = in.readLong();
+        double min = in.readDouble();
+        double max = in.readDouble();
+        double sum = in.readDouble();
+        DoubleSummaryStatistics summary = count == 0 ? new DoubleSummaryStatistics() : new DoubleSummaryStatistics(count, min, max, sum);
+        return new TemperatureStats(summary, QuantileEstimator.readFrom(in));
+    }
+}
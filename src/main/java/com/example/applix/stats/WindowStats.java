@@ -0,0 +1,10 @@
+package com.example.applix.stats;
+
+import java.time.Instant;
+
+// Aggregates of one time window of a file. Everything but count is null when the window has no rows.
+// windowStart/windowEnd (inclusive) are the whole minutes actually aggregated, from the first to the last minute of
+// the window holding rows: the rows of the edge minutes count even when they fall outside the requested bounds.
+public record WindowStats(long count, Double mean, Double median, Double min, Double max, Instant windowStart, Instant windowEnd) {
+    public static final WindowStats EMPTY = new WindowStats(0, null, null, null, null, null, null);
+}
@@ -0,0 +1,43 @@
+package com.example.applix.streaming;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// application/vnd.applix.blocks, big-endian:
+//   "APLX", int version, int fileId
+//   per block: int rows (> 0), rows x int32 id, rows x int64 epoch millis, rows x float32 temperature
+//   int 0, then the next page cursor as modified UTF-8 ("" on the last page)
+public class BinaryBlockEncoder implements RowBlockEncoder {
+    private static final int MAGIC = 0x41504C58; // "APLX"
+    private static final int VERSION = 1;
+
+    private final DataOutputStream out;
+
+    public BinaryBlockEncoder(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+    }
+
+    @Override
+    public void begin(int fileId) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(fileId);
+    }
+
+    @Override
+    public void block(RowBlock block) throws IOException {
+        out.writeInt(block.size());
+        for (int i = 0; i < block.size(); i++) out.writeInt(block.id(i));
+        for (int i = 0; i < block.size(); i++) out.writeLong(block.epochMillis(i));
+        for (int i = 0; i < block.size(); i++) out.writeFloat((float) block.temperature(i));
+    }
+
+    @Override
+    public void end(String nextCursor) throws IOException {
+        out.writeInt(0);
+        out.writeUTF(nextCursor != null ? nextCursor : "");
+        out.flush();
+    }
+}
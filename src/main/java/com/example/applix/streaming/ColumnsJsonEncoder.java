@@ -0,0 +1,51 @@
+package com.example.applix.streaming;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// application/vnd.applix.columns+json : one object per block with parallel arrays instead of one object per row,
+// timestamps as epoch millis
+// {"fileId":1,"blocks":[{"ids":[..],"timestamps":[..],"temperatures":[..]},..],"nextCursor":".."}
+public class ColumnsJsonEncoder implements RowBlockEncoder {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+
+    public ColumnsJsonEncoder(OutputStream out) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+    }
+
+    @Override
+    public void begin(int fileId) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("fileId", fileId);
+        generator.writeArrayFieldStart("blocks");
+    }
+
+    @Override
+    public void block(RowBlock block) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("ids");
+        for (int i = 0; i < block.size(); i++) generator.writeNumber(block.id(i));
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("timestamps");
+        for (int i = 0; i < block.size(); i++) generator.writeNumber(block.epochMillis(i));
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("temperatures");
+        for (int i = 0; i < block.size(); i++) generator.writeNumber(block.temperature(i));
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void end(String nextCursor) throws IOException {
+        generator.writeEndArray();
+        generator.writeStringField("nextCursor", nextCursor);
+        generator.writeEndObject();
+        generator.flush();
+    }
+}
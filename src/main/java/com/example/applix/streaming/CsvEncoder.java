@@ -0,0 +1,44 @@
+package com.example.applix.streaming;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+// text/csv : "timestamp,<column>" then one ISO-8601 (microsecond) timestamp and value per row, the layout uploads are
+// read in, so an export can be uploaded again. No ids and no cursor, exports are never paged.
+public class CsvEncoder implements RowBlockEncoder {
+    private final Writer out;
+    private final String valueColumn;
+
+    public CsvEncoder(OutputStream out, String valueColumn) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        this.valueColumn = valueColumn;
+    }
+
+    @Override
+    public void begin(int fileId) throws IOException {
+        out.write("timestamp,");
+        out.write(valueColumn);
+        out.write('\n');
+    }
+
+    @Override
+    public void block(RowBlock block) throws IOException {
+        for (int i = 0; i < block.size(); i++) {
+            long micros = block.epochMicros(i);
+            out.write(Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L).toString());
+            out.write(',');
+            out.write(Double.toString(block.temperature(i)));
+            out.write('\n');
+        }
+    }
+
+    @Override
+    public void end(String nextCursor) throws IOException {
+        out.flush();
+    }
+}
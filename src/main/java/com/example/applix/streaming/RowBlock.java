@@ -0,0 +1,60 @@
+package com.example.applix.streaming;
+
+import java.time.Instant;
+
+// Up to CAPACITY consecutive rows of a page as primitive columns, reused for every block of a streamed response
+public class RowBlock {
+    public static final int CAPACITY = 4096;
+
+    private final int[] ids = new int[CAPACITY];
+    private final long[] epochMicros = new long[CAPACITY];
+    private final double[] temperatures = new double[CAPACITY];
+    private int size;
+    private Instant lastTimestamp; // full precision, for the next page cursor
+    private int lastId;
+
+    public void add(int id, Instant timestamp, double temperature) {
+        ids[size] = id;
+        epochMicros[size] = timestamp.getEpochSecond() * 1_000_000L + timestamp.getNano() / 1_000;
+        temperatures[size] = temperature;
+        size++;
+        lastTimestamp = timestamp;
+        lastId = id;
+    }
+
+    public boolean isFull() {
+        return size == CAPACITY;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int id(int i) {
+        return ids[i];
+    }
+
+    public long epochMillis(int i) {
+        return Math.floorDiv(epochMicros[i], 1_000L);
+    }
+
+    public long epochMicros(int i) {
+        return epochMicros[i];
+    }
+
+    public double temperature(int i) {
+        return temperatures[i];
+    }
+
+    public Instant lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public int lastId() {
+        return lastId;
+    }
+}
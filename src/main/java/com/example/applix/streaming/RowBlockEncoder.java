@@ -0,0 +1,31 @@
+package com.example.applix.streaming;
+
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Writes a GET /data page (or a whole export) block by block as it is read, so it is never held in memory as a whole
+public interface RowBlockEncoder {
+    String COLUMNS_JSON = "application/vnd.applix.columns+json";
+    String BINARY_BLOCKS = "application/vnd.applix.blocks";
+    String TEXT_CSV = "text/csv";
+
+    void begin(int fileId) throws IOException;
+
+    void block(RowBlock block) throws IOException;
+
+    // nextCursor is null on the last page
+    void end(String nextCursor) throws IOException;
+
+    static RowBlockEncoder forMediaType(MediaType mediaType, OutputStream out) throws IOException {
+        if (mediaType.isCompatibleWith(MediaType.parseMediaType(BINARY_BLOCKS))) return new BinaryBlockEncoder(out);
+        return new ColumnsJsonEncoder(out);
+    }
+
+    // Exports also come as CSV, with the name of the exported column in the header
+    static RowBlockEncoder forExport(MediaType mediaType, OutputStream out, String valueColumn) throws IOException {
+        if (mediaType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))) return new CsvEncoder(out, valueColumn);
+        return forMediaType(mediaType, out);
+    }
+}
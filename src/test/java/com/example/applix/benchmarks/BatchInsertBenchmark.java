@@ -0,0 +1,59 @@
+package com.example.applix.benchmarks;
+
+import com.example.applix.bulk.BulkWriter;
+import com.example.applix.bulk.JdbcBatchBulkWriter;
+import com.example.applix.bulk.MultiValuesBulkWriter;
+import com.example.applix.ingest.TemperatureLineParser;
+import com.example.applix.models.db.FilteredData;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Bulk writers against an embedded H2 database in MySQL mode. LOAD DATA needs a real MySQL server and is not included.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BatchInsertBenchmark {
+    @Param({"10000"})
+    int batchSize;
+
+    @Param({"multi-values", "jdbc-batch"})
+    String writer;
+
+    BulkWriter bulkWriter;
+    JdbcTemplate jdbcTemplate;
+    List<FilteredData> records;
+
+    @Setup
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:batch_insert;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS filtered_data (id INT AUTO_INCREMENT PRIMARY KEY, file_id INT NOT NULL, "
+                + "`timestamp` TIMESTAMP(6) NOT NULL, temperature DOUBLE NOT NULL)");
+
+        bulkWriter = writer.equals("jdbc-batch") ? new JdbcBatchBulkWriter(jdbcTemplate) : new MultiValuesBulkWriter(jdbcTemplate);
+        TemperatureLineParser parser = new TemperatureLineParser();
+
+        records = new ArrayList<>(batchSize);
+        for (String line : BenchmarkData.lines(batchSize)) {
+            FilteredData data = BenchmarkData.row(parser, line, 1);
+            if (data != null) records.add(data);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE filtered_data");
+    }
+
+    @Benchmark
+    public void batchInsert() {
+        bulkWriter.write(records);
+    }
+}
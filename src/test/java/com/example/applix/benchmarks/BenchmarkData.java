@@ -0,0 +1,77 @@
+package com.example.applix.benchmarks;
+
+import com.example.applix.ingest.TemperatureLineParser;
+import com.example.applix.models.db.FilteredData;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Random;
+
+// Generated inputs shared by the benchmarks. CSV files are written once under target/benchmark-data and reused.
+final class BenchmarkData {
+    static final Instant FIRST_READING = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Path DATA_DIR = Paths.get("target", "benchmark-data");
+
+    private BenchmarkData() {
+    }
+
+    // One reading per second, ~1% of rows rejected (out of range or malformed) like the real sensor exports.
+    static Path csv(int rows) throws IOException {
+        Path file = DATA_DIR.resolve("readings-" + rows + ".csv");
+        if (Files.exists(file)) return file;
+
+        Files.createDirectories(DATA_DIR);
+        Path tmp = DATA_DIR.resolve(file.getFileName() + ".tmp");
+        Random random = new Random(rows);
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                writer.write(line(random, i));
+                writer.write('\n');
+            }
+        }
+        Files.move(tmp, file);
+        return file;
+    }
+
+    static String[] lines(int count) {
+        Random random = new Random(count);
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = line(random, i);
+        }
+        return lines;
+    }
+
+    // The filtered_data row FileProcessorService makes of a line, null for a rejected line
+    static FilteredData row(TemperatureLineParser parser, String line, int fileId) {
+        if (!parser.parse(line)) return null;
+        FilteredData data = new FilteredData();
+        data.setTimestampInstant(parser.toInstant());
+        data.setTemperature(parser.getTemperature());
+        data.setFileId(fileId);
+        return data;
+    }
+
+    static double[] temperatures(int count) {
+        Random random = new Random(count);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Math.round((random.nextGaussian() * 15 + 20) * 100) / 100.0;
+        }
+        return values;
+    }
+
+    private static String line(Random random, int i) {
+        int kind = random.nextInt(200);
+        String timestamp = FIRST_READING.plusSeconds(i).toString();
+        if (kind == 0) return timestamp + ",n/a";
+        if (kind == 1) return "not-a-date," + i;
+        double temperature = kind == 2 ? 150 : Math.round((random.nextGaussian() * 15 + 20) * 100) / 100.0;
+        return timestamp + "," + temperature;
+    }
+}
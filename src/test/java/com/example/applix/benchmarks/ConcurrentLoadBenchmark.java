@@ -0,0 +1,162 @@
+package com.example.applix.benchmarks;
+
+import com.example.applix.ApplixApplication;
+import com.example.applix.models.db.FileTable;
+import com.example.applix.models.db.FilteredData;
+import com.example.applix.services.FileProcessorService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Concurrent uploads and GET /data queries over HTTP against the full web app on an embedded H2 database, run as one
+// JMH group: the score of each benchmark is its requests/sec while the other one is loaded too.
+// Upload clients are slow (the body arrives in 8 KB chunks every uploadDelayMillis) and upload.mode=tee keeps the
+// request open while its rows are inserted, so on platform threads they hold most of the tomcatThreads and queries
+// wait for a free one. virtualThreads=true only changes anything on a Java 21 runtime.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ConcurrentLoadBenchmark {
+    private static final int PAGE_SIZE = 25;
+    private static final int SEEDED_ROWS = 100_000;
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    @Param({"16"})
+    int tomcatThreads;
+
+    @Param({"2000"})
+    int uploadRows;
+
+    @Param({"5"})
+    int uploadDelayMillis;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    String baseUrl;
+    Path workDir;
+    byte[] uploadBody;
+    int fileId;
+    int lastPage;
+    final AtomicInteger uploads = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("applix-load");
+        context = new SpringApplicationBuilder(ApplixApplication.class)
+                .run(   // command line arguments, so they win over application.properties
+                        "--server.port=0",
+                        "--server.tomcat.threads.max=" + tomcatThreads,
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:concurrent_load;MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=TIMESTAMP",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.kafka.listener.auto-startup=false",
+                        "--spring.kafka.admin.auto-create=false",
+                        "--upload.mode=tee",
+                        "--file.upload-dir=" + workDir.resolve("uploads"),
+                        "--stats.index.dir=" + workDir.resolve("stats"),
+                        "--storage.columnar.dir=" + workDir.resolve("columnar"));
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        FileProcessorService fileProcessorService = context.getBean(FileProcessorService.class);
+        FileTable fileTable = fileProcessorService.insertFileMetaDataWithProcessingStatus("queried.csv");
+        fileId = fileTable.getId();
+        List<FilteredData> batch = new ArrayList<>(SEEDED_ROWS);
+        for (int i = 0; i < SEEDED_ROWS; i++) {
+            FilteredData data = new FilteredData();
+            data.setFileId(fileId);
+            data.setTimestampInstant(BenchmarkData.FIRST_READING.plusSeconds(i));
+            data.setTemperature(20 + (i % 100) / 10.0);
+            batch.add(data);
+        }
+        fileProcessorService.batchInsert(batch);
+        fileTable.setMean(25.0);
+        fileTable.setMedian(25.0);
+        fileTable.setRowCount((long) SEEDED_ROWS);
+        fileProcessorService.updateFileMetaDataWithCompletedStatus(fileTable);
+        lastPage = SEEDED_ROWS / PAGE_SIZE;
+
+        uploadBody = (String.join("\n", BenchmarkData.lines(uploadRows)) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        try (var paths = Files.walk(workDir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(16)
+    public int upload() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/data/upload_async?name=load-" + uploads.incrementAndGet() + ".csv"))
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new SlowClientStream(uploadBody, uploadDelayMillis)))
+                .build();
+        return send(request);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(48)
+    public int query() throws IOException, InterruptedException {
+        int page = ThreadLocalRandom.current().nextInt(1, lastPage + 1);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/data?fileId=" + fileId + "&page=" + page + "&offset=" + PAGE_SIZE)).GET().build();
+        return send(request);
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200 || !response.body().contains("NO_ERROR")) {
+            throw new IllegalStateException(request.uri() + " -> " + response.statusCode() + " " + response.body());
+        }
+        return response.body().length();
+    }
+
+    // Request body of a client on a slow link
+    private static final class SlowClientStream extends ByteArrayInputStream {
+        private final int delayMillis;
+
+        SlowClientStream(byte[] body, int delayMillis) {
+            super(body);
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.read(b, off, Math.min(len, 8192));
+        }
+    }
+}
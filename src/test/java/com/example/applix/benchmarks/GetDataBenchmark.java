@@ -0,0 +1,121 @@
+package com.example.applix.benchmarks;
+
+import com.example.applix.ApplixApplication;
+import com.example.applix.models.PageCursor;
+import com.example.applix.models.db.FileTable;
+import com.example.applix.models.db.FilteredData;
+import com.example.applix.models.responses.GetDataResponse;
+import com.example.applix.services.DataService;
+import com.example.applix.services.FileProcessorService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// DataService.getData paging over a seeded file, served by the full Spring context on an embedded H2 database.
+// Seeding is the slow part, pass -p rows=10000000 or -p rows=20000000 when there is enough heap for it.
+// dataPageCacheRows=0 measures the queries, 200000 the QueryResultCache hits of a processed file.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GetDataBenchmark {
+    private static final int PAGE_SIZE = 25;
+
+    @Param({"1000000"})
+    int rows;
+
+    @Param({"0", "200000"})
+    int dataPageCacheRows;
+
+    ConfigurableApplicationContext context;
+    DataService dataService;
+    int fileId;
+    int lastPage;
+    String rangeStart;
+    String rangeEnd;
+    String lastPageCursor;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ApplixApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(   // command line arguments, so they win over application.properties
+                        "--spring.datasource.url=jdbc:h2:mem:get_data;MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=TIMESTAMP",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.kafka.listener.auto-startup=false",
+                        "--spring.kafka.admin.auto-create=false",
+                        "--cache.data-pages.max-rows=" + dataPageCacheRows);
+        dataService = context.getBean(DataService.class);
+        FileProcessorService fileProcessorService = context.getBean(FileProcessorService.class);
+
+        FileTable fileTable = fileProcessorService.insertFileMetaDataWithProcessingStatus("benchmark.csv");
+        fileId = fileTable.getId();
+
+        List<FilteredData> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            FilteredData data = new FilteredData();
+            data.setFileId(fileId);
+            data.setTimestampInstant(BenchmarkData.FIRST_READING.plusSeconds(i));
+            data.setTemperature(20 + (i % 100) / 10.0);
+            batch.add(data);
+            if (batch.size() == 10_000) {
+                fileProcessorService.batchInsert(batch);
+                batch.clear();
+            }
+        }
+        fileProcessorService.batchInsert(batch);
+        fileTable.setMean(25.0);
+        fileTable.setMedian(25.0);
+        fileTable.setRowCount((long) rows);
+        fileProcessorService.updateFileMetaDataWithCompletedStatus(fileTable);
+
+        lastPage = (rows + PAGE_SIZE - 1) / PAGE_SIZE;
+        rangeStart = BenchmarkData.FIRST_READING.plusSeconds(rows / 4).toString();
+        rangeEnd = BenchmarkData.FIRST_READING.plusSeconds(rows / 2).toString();
+
+        int lastRowBeforeLastPage = (lastPage - 1) * PAGE_SIZE - 1; // ids start at 1 on the fresh database
+        lastPageCursor = new PageCursor(BenchmarkData.FIRST_READING.plusSeconds(lastRowBeforeLastPage), lastRowBeforeLastPage + 1).encode();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public GetDataResponse firstPage() throws IOException {
+        return dataService.getData(fileId, 1, PAGE_SIZE, null, null, null);
+    }
+
+    @Benchmark
+    public GetDataResponse middlePage() throws IOException {
+        return dataService.getData(fileId, lastPage / 2, PAGE_SIZE, null, null, null);
+    }
+
+    @Benchmark
+    public GetDataResponse lastPage() throws IOException {
+        return dataService.getData(fileId, lastPage, PAGE_SIZE, null, null, null);
+    }
+
+    @Benchmark
+    public GetDataResponse lastPageByCursor() throws IOException {
+        return dataService.getData(fileId, null, PAGE_SIZE, null, null, lastPageCursor);
+    }
+
+    @Benchmark
+    public GetDataResponse timeRangeMiddlePage() throws IOException {
+        return dataService.getData(fileId, (rows / 4) / PAGE_SIZE / 2, PAGE_SIZE, rangeStart, rangeEnd, null);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.applix.benchmarks;
+
+import com.example.applix.ingest.ByteLineReader;
+import com.example.applix.ingest.TemperatureLineParser;
+import com.example.applix.models.db.FilteredData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+public class LineParserBenchmark {
+    private static final int SAMPLE_LINES = 10_000;
+
+    @State(Scope.Thread)
+    public static class Lines {
+        String[] lines;
+        TemperatureLineParser parser;
+
+        @Setup
+        public void setUp() {
+            lines = BenchmarkData.lines(SAMPLE_LINES);
+            parser = new TemperatureLineParser();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CsvFile {
+        @Param({"1000000", "10000000", "20000000"})
+        int rows;
+
+        Path path;
+
+        @Setup
+        public void setUp() throws IOException {
+            path = BenchmarkData.csv(rows);
+        }
+    }
+
+    // String lines into filtered_data rows, as FileProcessorService.parseAndFilterLine does, one parser per thread
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(SAMPLE_LINES)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public void parseLine(Lines state, Blackhole blackhole) {
+        for (String line : state.lines) {
+            blackhole.consume(BenchmarkData.row(state.parser, line, 1));
+        }
+    }
+
+    // The String.split / Instant.parse implementation parseAndFilterLine used to have, kept as a baseline.
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(SAMPLE_LINES)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public void splitAndInstantParse(Lines state, Blackhole blackhole) {
+        for (String line : state.lines) {
+            blackhole.consume(legacyParse(line));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public long parseFile(CsvFile file) throws IOException {
+        TemperatureLineParser parser = new TemperatureLineParser();
+        long accepted = 0;
+        try (InputStream in = new FileInputStream(file.path.toFile())) {
+            ByteLineReader reader = new ByteLineReader(in, 0);
+            while (reader.next()) {
+                if (parser.parse(reader.buffer(), reader.lineStart(), reader.lineEnd())) accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    private static FilteredData legacyParse(String line) {
+        String[] values = line.split(",");
+        if (values.length != 2) return null;
+        Instant instant;
+        double temperature;
+        try {
+            instant = Instant.parse(values[0].trim());
+            temperature = Double.parseDouble(values[1].trim());
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (temperature < -100 || temperature > 100) return null;
+
+        FilteredData record = new FilteredData();
+        record.setTimestampInstant(instant);
+        record.setTemperature(temperature);
+        record.setFileId(1);
+        return record;
+    }
+}
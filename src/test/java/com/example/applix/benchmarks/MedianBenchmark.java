@@ -0,0 +1,62 @@
+package com.example.applix.benchmarks;
+
+import com.example.applix.stats.ExactQuantileEstimator;
+import com.example.applix.stats.HistogramQuantileEstimator;
+import com.example.applix.stats.QuantileEstimatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MedianBenchmark {
+    @Param({"1000000", "10000000", "20000000"})
+    int rows;
+
+    double[] temperatures;
+
+    @Setup
+    public void setUp() {
+        temperatures = BenchmarkData.temperatures(rows);
+    }
+
+    // The boxed two-heap median processFileStreaming used before the quantile estimators.
+    @Benchmark
+    public double twoHeapMedian() {
+        PriorityQueue<Double> minHeap = new PriorityQueue<>();
+        PriorityQueue<Double> maxHeap = new PriorityQueue<>((a, b) -> Double.compare(b, a));
+        for (double num : temperatures) {
+            if (maxHeap.isEmpty() || num <= maxHeap.peek()) {
+                maxHeap.offer(num);
+            } else {
+                minHeap.offer(num);
+            }
+            if (maxHeap.size() > minHeap.size() + 1) {
+                minHeap.offer(maxHeap.poll());
+            } else if (minHeap.size() > maxHeap.size()) {
+                maxHeap.offer(minHeap.poll());
+            }
+        }
+        return maxHeap.size() == minHeap.size() ? (maxHeap.peek() + minHeap.peek()) / 2.0 : maxHeap.peek();
+    }
+
+    @Benchmark
+    public double exactEstimator() {
+        ExactQuantileEstimator estimator = new ExactQuantileEstimator();
+        for (double value : temperatures) estimator.accept(value);
+        return estimator.quantile(0.5);
+    }
+
+    @Benchmark
+    public double histogramEstimator() {
+        HistogramQuantileEstimator estimator = new HistogramQuantileEstimator(
+                QuantileEstimatorFactory.MIN_TEMPERATURE, QuantileEstimatorFactory.MAX_TEMPERATURE, 0.01);
+        for (double value : temperatures) estimator.accept(value);
+        return estimator.quantile(0.5);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.applix.bulk;
+
+import com.example.applix.enums.BulkWriterMode;
+import com.example.applix.models.db.FilteredData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkWriterSelectorTests {
+    // every fake write advances this clock by the writer's cost, so rows/sec do not depend on the machine
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void autoKeepsTheFastestWriterAfterTrials() {
+        FakeWriter slow = new FakeWriter("slow", 20_000_000, null);
+        FakeWriter fast = new FakeWriter("fast", 1_000_000, null);
+        BulkWriterSelector selector = selector(List.of(slow, fast));
+
+        for (int i = 0; i < 20; i++) selector.write(batch());
+
+        assertEquals(3, slow.batches);
+        assertEquals(17, fast.batches);
+        assertEquals(1_000.0, selector.getRowsPerSecond().get("fast"));
+        assertEquals(50.0, selector.getRowsPerSecond().get("slow"));
+    }
+
+    @Test
+    void refusedWriterIsDroppedAndItsBatchRetried() {
+        FakeWriter refused = new FakeWriter("refused", 1_000, new UnsupportedOperationException("LOAD DATA disabled"));
+        FakeWriter working = new FakeWriter("working", 1_000, null);
+        BulkWriterSelector selector = selector(new ArrayList<>(List.of(refused, working)));
+
+        for (int i = 0; i < 5; i++) selector.write(batch());
+
+        assertEquals(1, refused.attempts);
+        assertEquals(5, working.batches);
+        assertEquals(List.of("working"), List.copyOf(selector.getRowsPerSecond().keySet()));
+    }
+
+    @Test
+    void transientFailurePropagatesAndKeepsTheWriter() {
+        FakeWriter flaky = new FakeWriter("flaky", 1_000, new QueryTimeoutException("lock wait timeout"));
+        FakeWriter other = new FakeWriter("other", 1_000, null);
+        BulkWriterSelector selector = selector(new ArrayList<>(List.of(flaky, other)));
+
+        assertThrows(QueryTimeoutException.class, () -> selector.write(batch()));
+        assertEquals(0, other.batches); // the batch is not replayed on another writer
+
+        flaky.failure = null;
+        for (int i = 0; i < 6; i++) selector.write(batch());
+
+        assertEquals(3, flaky.batches);
+        assertEquals(3, other.batches);
+    }
+
+    @Test
+    void loadDataRowsAreUtcDatetimeText() {
+        FilteredData row = new FilteredData();
+        row.setTimestampInstant(Instant.parse("2024-03-05T07:08:09.000123400Z"));
+        row.setTemperature(-12.5);
+        row.setFileId(42);
+
+        String text = new String(LoadDataBulkWriter.format(List.of(row, row)), StandardCharsets.US_ASCII);
+
+        assertEquals("2024-03-05 07:08:09.000123400\t-12.5\t42\n".repeat(2), text);
+    }
+
+    private BulkWriterSelector selector(List<BulkWriter> writers) {
+        return new BulkWriterSelector(writers, BulkWriterMode.AUTO, new SimpleMeterRegistry(), clock::get);
+    }
+
+    private static List<FilteredData> batch() {
+        return List.of(new FilteredData());
+    }
+
+    private class FakeWriter implements BulkWriter {
+        private final String name;
+        private final long costNanos;
+        private RuntimeException failure;
+        private int attempts;
+        private int batches;
+
+        FakeWriter(String name, long costNanos, RuntimeException failure) {
+            this.name = name;
+            this.costNanos = costNanos;
+            this.failure = failure;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public void write(List<FilteredData> batch) {
+            attempts++;
+            clock.addAndGet(costNanos);
+            if (failure != null) throw failure;
+            batches++;
+        }
+
+        @Override
+        public boolean isUnsupported(RuntimeException e) {
+            return e instanceof UnsupportedOperationException;
+        }
+    }
+}
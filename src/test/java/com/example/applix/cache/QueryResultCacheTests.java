@@ -0,0 +1,111 @@
+package com.example.applix.cache;
+
+import com.example.applix.models.db.FileTable;
+import com.example.applix.models.db.FilteredData;
+import com.example.applix.models.responses.GetDataResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class QueryResultCacheTests {
+
+    @Test
+    void invalidateEvictsThePagesOfOneFileAndTheFilesList() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QueryResultCache cache = new QueryResultCache(100, 100, registry);
+        QueryResultCache.DataPageKey first = new QueryResultCache.DataPageKey(1, 1, 25, null, null, null);
+        QueryResultCache.DataPageKey other = new QueryResultCache.DataPageKey(2, 1, 25, null, null, null);
+        cache.putDataPage(first, new GetDataResponse(), cache.generation(first.fileId()));
+        cache.putDataPage(other, new GetDataResponse(), cache.generation(other.fileId()));
+
+        AtomicInteger loads = new AtomicInteger();
+        cache.getFiles(() -> filesLoaded(loads));
+        cache.getFiles(() -> filesLoaded(loads));
+        assertEquals(1, loads.get());
+
+        cache.invalidate(1);
+
+        assertNull(cache.getDataPage(first));
+        assertNotNull(cache.getDataPage(other));
+        cache.getFiles(() -> filesLoaded(loads));
+        assertEquals(2, loads.get());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "data-pages").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void invalidateEvictsTheRangeCountsOfTheFile() {
+        QueryResultCache cache = new QueryResultCache(100, 100, new SimpleMeterRegistry());
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        Instant end = start.plusSeconds(60);
+        AtomicInteger counts = new AtomicInteger();
+
+        cache.getRangeCount(1, start, end, cache.generation(1), () -> (long) counts.incrementAndGet());
+        cache.getRangeCount(2, start, end, cache.generation(2), () -> (long) counts.incrementAndGet());
+        assertEquals(1, cache.getRangeCount(1, start, end, cache.generation(1), () -> (long) counts.incrementAndGet()));
+
+        cache.invalidate(1);
+
+        assertEquals(3, cache.getRangeCount(1, start, end, cache.generation(1), () -> (long) counts.incrementAndGet()));
+        assertEquals(2, cache.getRangeCount(2, start, end, cache.generation(2), () -> (long) counts.incrementAndGet()));
+    }
+
+    @Test
+    void whatWasReadBeforeAnInvalidateIsNotPutBack() {
+        QueryResultCache cache = new QueryResultCache(100, 100, new SimpleMeterRegistry());
+        QueryResultCache.DataPageKey key = new QueryResultCache.DataPageKey(1, 1, 25, null, null, null);
+        Instant start = Instant.parse("2024-01-01T00:00:00Z");
+        Instant end = start.plusSeconds(60);
+
+        // read while the file was still processed, put after a reprocess invalidated it
+        long stale = cache.generation(1);
+        cache.invalidate(1);
+        cache.putDataPage(key, new GetDataResponse(), stale);
+        assertNull(cache.getDataPage(key));
+
+        // counted while it is invalidated
+        long counting = cache.generation(1);
+        assertEquals(5, cache.getRangeCount(1, start, end, counting, () -> {
+            cache.invalidate(1);
+            return 5L;
+        }));
+        assertEquals(7, cache.getRangeCount(1, start, end, cache.generation(1), () -> 7L));
+        assertEquals(7, cache.getRangeCount(1, start, end, cache.generation(1), () -> 9L));
+
+        cache.putDataPage(key, new GetDataResponse(), cache.generation(1));
+        assertNotNull(cache.getDataPage(key));
+    }
+
+    @Test
+    void pagesAreBoundedByTheRowsTheyHold() {
+        QueryResultCache cache = new QueryResultCache(1_000, 100, new SimpleMeterRegistry());
+        QueryResultCache.DataPageKey small = new QueryResultCache.DataPageKey(1, 1, 25, null, null, null);
+        QueryResultCache.DataPageKey huge = new QueryResultCache.DataPageKey(1, 1, 100_000, null, null, null);
+        cache.putDataPage(small, page(25), cache.generation(small.fileId()));
+        cache.putDataPage(huge, page(5_000), cache.generation(huge.fileId()));
+        cache.cleanUp();
+
+        assertNotNull(cache.getDataPage(small));
+        assertNull(cache.getDataPage(huge));
+        assertEquals(26, QueryResultCache.weigh(small, page(25)));
+    }
+
+    private static GetDataResponse page(int rows) {
+        GetDataResponse response = new GetDataResponse();
+        response.records = new ArrayList<>(Collections.nCopies(rows, new FilteredData()));
+        return response;
+    }
+
+    private static List<FileTable> filesLoaded(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return List.of();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.applix.columnar;
+
+import com.example.applix.models.db.FilteredData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class ColumnarStoreTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesSortedSegmentsAndSeeksByTime() throws IOException {
+        // small segments and runs so the spill / merge and multi-segment paths are exercised
+        ColumnarStore store = new ColumnarStore(tempDir.toString(), 100, 1_000);
+        Random random = new Random(3);
+        List<long[]> rows = new ArrayList<>();
+        try (ColumnarFileWriter writer = store.newWriter(1)) {
+            for (int i = 0; i < 10_000; i++) {
+                long micros = 1_700_000_000_000_000L + random.nextInt(5_000) * 1_000_000L; // plenty of duplicates
+                rows.add(new long[]{micros, i});
+                writer.append(micros, i);
+            }
+            assertEquals(10_000, writer.finish());
+        }
+        rows.sort(Comparator.comparingLong(row -> row[0]));
+        long[] sorted = rows.stream().mapToLong(row -> row[0]).toArray();
+
+        ColumnarFileReader reader = store.reader(1);
+        assertEquals(10_000, reader.rowCount());
+
+        List<Long> timestamps = new ArrayList<>();
+        reader.read(0, 10_000, (position, micros, temperature) -> {
+            assertEquals(timestamps.size(), position);
+            timestamps.add(micros);
+        });
+        assertEquals(Arrays.stream(sorted).boxed().toList(), timestamps);
+
+        for (int i = 0; i < 200; i++) {
+            long probe = 1_700_000_000_000_000L + (random.nextInt(5_200) - 100) * 1_000_000L;
+            assertEquals(lowerBound(sorted, probe), reader.lowerBound(probe));
+            assertEquals(lowerBound(sorted, probe + 1), reader.upperBound(probe));
+        }
+
+        List<Long> page = new ArrayList<>();
+        reader.read(4_950, 100, (position, micros, temperature) -> page.add(micros));
+        assertEquals(timestamps.subList(4_950, 5_050), page);
+    }
+
+    private static long lowerBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    @Test
+    void seriesWriterKeepsOneFilePerSeries() throws IOException {
+        ColumnarStore store = new ColumnarStore(tempDir.toString(), 100, 1_000);
+        List<FilteredData> rows = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            FilteredData row = new FilteredData();
+            row.setTimestampInstant(Instant.ofEpochSecond(1_700_000_000L + i));
+            row.setTemperature((double) i);
+            row.setSeries(i % 3 == 0 ? 2 : 1); // series 0 never has a value
+            rows.add(row);
+        }
+
+        Map<Integer, Long> rowCounts;
+        try (ColumnarSeriesWriter writer = store.newSeriesWriter(7, 4)) {
+            writer.append(rows.subList(0, 150));
+            writer.append(rows.subList(150, 300));
+            rowCounts = writer.finish();
+        }
+        assertEquals(Map.of(0, 0L, 1, 200L, 2, 100L), rowCounts);
+        assertEquals(0, store.reader(7).rowCount());
+        assertEquals(200, store.reader(7, 1).rowCount());
+
+        List<Double> values = new ArrayList<>();
+        store.reader(7, 2).read(0, 100, (position, micros, temperature) -> values.add(temperature));
+        assertEquals(0, values.get(0));
+        assertEquals(297, values.get(99));
+
+        store.delete(7);
+        try (var files = Files.list(tempDir)) {
+            assertFalse(files.anyMatch(path -> path.getFileName().toString().startsWith("file-7")));
+        }
+    }
+}
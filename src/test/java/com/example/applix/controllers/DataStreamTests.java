@@ -0,0 +1,71 @@
+package com.example.applix.controllers;
+
+import com.example.applix.models.db.FileTable;
+import com.example.applix.services.FileProcessorService;
+import com.example.applix.services.KafkaProducerService;
+import com.example.applix.streaming.RowBlockEncoder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// GET /data (streamed encodings) and GET /data/files/{id}/export refusals: 200 with an ErrorCode, like the other endpoints
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class DataStreamTests {
+    private static final int UNKNOWN_FILE = Integer.MAX_VALUE;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    FileProcessorService fileProcessorService;
+
+    @MockitoBean
+    KafkaProducerService kafkaProducerService;
+
+    @Test
+    void streamingAPageOfAnUnknownFileIsFileNotFound() throws Exception {
+        streamed(get("/data").param("fileId", String.valueOf(UNKNOWN_FILE)).param("offset", "10").accept(RowBlockEncoder.BINARY_BLOCKS))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.errorCode").value("FILE_NOT_FOUND"));
+    }
+
+    @Test
+    void exportRefusalsCarryTheirOwnErrorCodes() throws Exception {
+        FileTable unprocessed = fileProcessorService.insertFileMetaDataWithProcessingStatus("export.csv");
+
+        streamed(get("/data/files/{fileId}/export", UNKNOWN_FILE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("FILE_NOT_FOUND"));
+        streamed(get("/data/files/{fileId}/export", unprocessed.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fileId").value(unprocessed.getId()))
+                .andExpect(jsonPath("$.errorCode").value("FILE_NOT_PROCESSED"));
+        streamed(get("/data/files/{fileId}/export", unprocessed.getId()).param("format", "xml"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_REQUEST"));
+    }
+
+    // a StreamingResponseBody is written on an async dispatch
+    private ResultActions streamed(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.applix.controllers;
+
+import com.example.applix.blob.BlobStore;
+import com.example.applix.ingest.CsvSchema;
+import com.example.applix.ingest.StoredUpload;
+import com.example.applix.models.db.FileTable;
+import com.example.applix.models.db.FilteredData;
+import com.example.applix.repositories.FileRepository;
+import com.example.applix.repositories.FilteredDataRepository;
+import com.example.applix.services.FileProcessorService;
+import com.example.applix.services.KafkaProducerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// DELETE /data/files/{id} and POST /data/files/{id}/reprocess against the h2 profile, Kafka events captured
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class FileOperationsTests {
+    private static final Instant FIRST = Instant.parse("2024-01-01T00:00:00Z");
+    private static final int ROWS = 50;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    FileProcessorService fileProcessorService;
+
+    @Autowired
+    FileRepository fileRepository;
+
+    @Autowired
+    FilteredDataRepository filteredDataRepository;
+
+    @Autowired
+    BlobStore blobStore;
+
+    @MockitoBean
+    KafkaProducerService kafkaProducerService;
+
+    @Test
+    void deleteRemovesRowsMetadataAndUpload() throws Exception {
+        FileTable file = processedFile();
+
+        mockMvc.perform(delete("/data/files/{fileId}", file.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("NO_ERROR"));
+
+        assertEquals(0, filteredDataRepository.countByFileId(file.getId()));
+        assertFalse(fileRepository.existsById(file.getId()));
+        assertFalse(blobStore.exists(file.getName()));
+    }
+
+    @Test
+    void reprocessClearsRowsAndQueuesTheUploadAgain() throws Exception {
+        FileTable file = processedFile();
+
+        mockMvc.perform(post("/data/files/{fileId}/reprocess", file.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errorCode").value("NO_ERROR"));
+
+        assertEquals(0, filteredDataRepository.countByFileId(file.getId()));
+        assertEquals(0, fileRepository.findById(file.getId()).orElseThrow().getStatus());
+        assertTrue(blobStore.exists(file.getName()));
+        verify(kafkaProducerService).sendFileProcessingEvent(argThat(event -> event.getId().equals(file.getId())));
+    }
+
+    @Test
+    void fileBeingProcessedIsNeitherDeletedNorReprocessed() throws Exception {
+        FileTable file = fileProcessorService.insertFileMetaDataWithProcessingStatus("in-progress.csv");
+
+        mockMvc.perform(delete("/data/files/{fileId}", file.getId()))
+                .andExpect(jsonPath("$.errorCode").value("FILE_NOT_PROCESSED"))
+                .andExpect(jsonPath("$.message").value("File " + file.getId() + " is being processed"));
+        mockMvc.perform(post("/data/files/{fileId}/reprocess", file.getId()))
+                .andExpect(jsonPath("$.errorCode").value("FILE_NOT_PROCESSED"));
+
+        assertTrue(fileRepository.existsById(file.getId()));
+    }
+
+    @Test
+    void reprocessNeedsTheRawUpload() throws Exception {
+        FileTable file = processedFile();
+        fileProcessorService.deleteUpload(file);
+
+        mockMvc.perform(post("/data/files/{fileId}/reprocess", file.getId()))
+                .andExpect(jsonPath("$.errorCode").value("FILE_NOT_FOUND"))
+                .andExpect(jsonPath("$.message").value("The upload of file " + file.getId() + " no longer exists"));
+
+        assertEquals(ROWS, filteredDataRepository.countByFileId(file.getId()));
+    }
+
+    @Test
+    void unknownFile() throws Exception {
+        mockMvc.perform(delete("/data/files/{fileId}", Integer.MAX_VALUE))
+                .andExpect(jsonPath("$.errorCode").value("FILE_NOT_FOUND"))
+                .andExpect(jsonPath("$.message").value("File not found"));
+    }
+
+    // A stored upload with its rows in filtered_data, status 1
+    private FileTable processedFile() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        List<FilteredData> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            csv.append(FIRST.plusSeconds(i)).append(',').append(20.5).append('\n');
+        }
+        StoredUpload upload = fileProcessorService.uploadFileToS3("operations.csv", new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.US_ASCII)));
+        FileTable file = fileProcessorService.insertFileMetaDataWithProcessingStatus(upload, CsvSchema.LEGACY);
+        for (int i = 0; i < ROWS; i++) {
+            FilteredData data = new FilteredData();
+            data.setFileId(file.getId());
+            data.setTimestampInstant(FIRST.plusSeconds(i));
+            data.setTemperature(20.5);
+            rows.add(data);
+        }
+        fileProcessorService.batchInsert(rows);
+        file.setRowCount((long) ROWS);
+        fileProcessorService.updateFileMetaDataWithCompletedStatus(file);
+        return file;
+    }
+}
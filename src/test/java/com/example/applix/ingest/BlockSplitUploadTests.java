@@ -0,0 +1,114 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.Compression;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockSplitUploadTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void blockRangesYieldTheLinesAndOffsetsOfTheCsv() throws IOException {
+        byte[] csv = sampleCsv();
+        List<String> expected = linesWithOffsets(new ByteArrayInputStream(csv), 0);
+
+        for (Compression compression : new Compression[]{Compression.GZIP, Compression.ZSTD}) {
+            File target = tempDir.resolve("upload." + compression.name().toLowerCase()).toFile();
+            byte[] received = compression.compress(csv, csv.length); // as sent by the client: one member / frame
+            assertEquals(compression, Compression.detect(received, received.length));
+
+            StoredUpload upload = BlockSplitUpload.copy(compression.decompress(new ByteArrayInputStream(received)), target, compression, 4096);
+
+            UploadDigest digest = new UploadDigest();
+            digest.update(csv, 0, csv.length);
+            assertEquals(digest.toStoredUpload(target), upload);
+            assertEquals(compression, Compression.of(target));
+            try (InputStream in = compression.decompress(new FileInputStream(target))) {
+                assertArrayEquals(csv, in.readAllBytes(), "still one valid " + compression + " file");
+            }
+
+            BlockIndex blocks = BlockIndex.load(target);
+            assertTrue(blocks.blockCount() > 10, "blocks: " + blocks.blockCount());
+            assertEquals(csv.length, blocks.uncompressedSize());
+            for (int parts : new int[]{1, 3, 16, 1000}) {
+                assertEquals(expected, linesOf(target, blocks, blocks.split(new ByteRange(0, target.length()), parts)), compression + ", parts " + parts);
+            }
+        }
+    }
+
+    @Test
+    void lineLongerThanTheMaximumRejectsTheUpload() {
+        byte[] csv = new byte[BlockSplitUpload.MAX_LINE_BYTES + 10];
+        Arrays.fill(csv, (byte) '1');
+        csv[0] = '\n';
+        File target = tempDir.resolve("long-line.gz").toFile();
+
+        IOException e = assertThrows(IOException.class,
+                () -> BlockSplitUpload.copy(new ByteArrayInputStream(csv), target, Compression.GZIP, 4096));
+
+        assertTrue(e.getMessage().contains("longer than"), e.getMessage());
+        assertFalse(target.exists());
+    }
+
+    @Test
+    void plainCsvIsNotCompressed() {
+        byte[] csv = "2024-01-01T00:00:00Z,21.5\n".getBytes(StandardCharsets.UTF_8);
+        assertEquals(Compression.NONE, Compression.detect(csv, csv.length));
+        assertEquals(Compression.NONE, Compression.detect(new byte[]{0x1F}, 1));
+    }
+
+    private static byte[] sampleCsv() {
+        Random random = new Random(5);
+        StringBuilder content = new StringBuilder();
+        String[] terminators = {"\n", "\r\n", "\r", "\n\n"};
+        for (int i = 0; i < 20_000; i++) {
+            content.append("2024-01-01T00:00:").append(String.format("%02d", i % 60)).append("Z,").append(random.nextInt(300) - 150);
+            content.append(terminators[random.nextInt(terminators.length)]);
+        }
+        content.append("2024-01-02T00:00:00Z,1.5"); // no trailing newline
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> linesOf(File file, BlockIndex blocks, List<ByteRange> ranges) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            for (ByteRange range : ranges) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, range.start(), range.length());
+                lines.addAll(linesWithOffsets(blocks.compression().decompress(new ByteBufferInputStream(mapped)), blocks.uncompressedStart(range.start())));
+            }
+        }
+        return lines;
+    }
+
+    private static List<String> linesWithOffsets(InputStream in, long startOffset) throws IOException {
+        List<String> lines = new ArrayList<>();
+        ByteLineReader reader = new ByteLineReader(in, startOffset, 16);
+        while (reader.next()) {
+            lines.add(reader.lineOffset() + ":" + new String(reader.buffer(), reader.lineStart(), reader.lineEnd() - reader.lineStart(), StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+}
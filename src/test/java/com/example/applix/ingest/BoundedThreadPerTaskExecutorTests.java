@@ -0,0 +1,106 @@
+package com.example.applix.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedThreadPerTaskExecutorTests {
+    // platform threads: the build runs on Java 17, the executor does not care what the factory makes
+    private static final ThreadFactory THREADS = runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    @Test
+    void everyTaskGetsAThreadAndAtMostMaxConcurrentRun() throws InterruptedException {
+        BoundedThreadPerTaskExecutor executor = new BoundedThreadPerTaskExecutor(3, THREADS);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(50);
+
+        for (int i = 0; i < 50; i++) {
+            executor.execute(new Ordered(i, () -> {
+                threads.add(Thread.currentThread());
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep();
+                running.decrementAndGet();
+                done.countDown();
+            }));
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(maxRunning.get() <= 3, "running: " + maxRunning.get());
+        assertEquals(50, threads.stream().distinct().count());
+    }
+
+    @Test
+    void queuedTasksRunInPriorityOrder() throws InterruptedException {
+        BoundedThreadPerTaskExecutor executor = new BoundedThreadPerTaskExecutor(1, THREADS);
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+
+        executor.execute(new Ordered(0, () -> {
+            busy.countDown();
+            await(release);
+            order.add(0);
+            done.countDown();
+        }));
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+        for (int priority : new int[]{3, 1, 2}) {
+            executor.execute(new Ordered(priority, () -> {
+                order.add(priority);
+                done.countDown();
+            }));
+        }
+        assertEquals(3, executor.queueSize());
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 1, 2, 3), order);
+        assertEquals(0, executor.queueSize());
+    }
+
+    private static class Ordered extends FutureTask<Void> implements Comparable<Ordered> {
+        private final int priority;
+
+        Ordered(int priority, Runnable task) {
+            super(task, null);
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(Ordered other) {
+            return Integer.compare(priority, other.priority);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.applix.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoveredRangesTests {
+
+    @Test
+    void overlappingAndAdjacentRangesAreMerged() {
+        CoveredRanges covered = new CoveredRanges(List.of(new ByteRange(200, 300), new ByteRange(0, 100), new ByteRange(100, 150), new ByteRange(250, 400)));
+
+        assertEquals(350, covered.coveredBytes());
+        assertTrue(covered.contains(0));
+        assertTrue(covered.contains(149));
+        assertFalse(covered.contains(150));
+        assertFalse(covered.contains(199));
+        assertTrue(covered.contains(200));
+        assertTrue(covered.contains(399));
+        assertFalse(covered.contains(400));
+    }
+
+    @Test
+    void gapsAreTheUncoveredPartsOfARange() {
+        CoveredRanges covered = new CoveredRanges(List.of(new ByteRange(100, 200), new ByteRange(300, 400)));
+
+        assertEquals(List.of(new ByteRange(0, 100), new ByteRange(200, 300), new ByteRange(400, 500)), covered.gaps(new ByteRange(0, 500)));
+        assertEquals(List.of(new ByteRange(200, 250)), covered.gaps(new ByteRange(150, 250)));
+        assertEquals(List.of(), covered.gaps(new ByteRange(120, 180)));
+        assertTrue(covered.covers(new ByteRange(300, 400)));
+        assertFalse(covered.covers(new ByteRange(150, 350)));
+        assertEquals(List.of(new ByteRange(0, 10)), CoveredRanges.NONE.gaps(new ByteRange(0, 10)));
+    }
+
+    @Test
+    void noneCoversNothing() {
+        assertTrue(CoveredRanges.NONE.isEmpty());
+        assertFalse(CoveredRanges.NONE.contains(0));
+        assertEquals(0, CoveredRanges.NONE.coveredBytes());
+    }
+}
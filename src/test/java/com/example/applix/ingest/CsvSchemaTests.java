@@ -0,0 +1,91 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.ColumnType;
+import com.example.applix.stats.QuantileEstimatorFactory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvSchemaTests {
+    private final SchemaResolver resolver = new SchemaResolver(null, new QuantileEstimatorFactory("exact", 0.01), "temperature:-100:100,humidity:0:100", 4);
+
+    @Test
+    void specRoundTrips() {
+        CsvSchema schema = CsvSchema.parse("ts:timestamp, sensor:sensor, temperature:number:-40:85, humidity:number::100, wind:number");
+        assertEquals("ts:timestamp,sensor:sensor,temperature:number:-40.0:85.0,humidity:number::100.0,wind:number", schema.toSpec());
+        assertEquals(schema.toSpec(), CsvSchema.parse(schema.toSpec()).toSpec());
+        assertEquals(1, schema.sensorColumn());
+        assertEquals(3, schema.numberCount());
+        assertEquals(Double.NEGATIVE_INFINITY, schema.numberColumn(1).min());
+        assertFalse(schema.isSingleSeries());
+
+        assertSame(CsvSchema.LEGACY, CsvSchema.parse(null));
+        assertTrue(CsvSchema.LEGACY.isSingleSeries());
+        assertEquals(CsvSchema.LEGACY.toSpec(), CsvSchema.parse(CsvSchema.LEGACY.toSpec()).toSpec());
+    }
+
+    @Test
+    void moreNumericColumnsThanSeriesAreRefused() {
+        assertEquals(4, resolver.parse("ts:timestamp,a:number,b:number,c:number,d:number").numberCount());
+        assertThrows(IllegalArgumentException.class, () -> resolver.parse("ts:timestamp,a:number,b:number,c:number,d:number,e:number"));
+        assertThrows(IllegalArgumentException.class, () -> resolver.fromFirstLine("ts,a,b,c,d,e"));
+    }
+
+    @Test
+    void histogramModeRefusesColumnsWithoutARange() {
+        SchemaResolver histogram = new SchemaResolver(null, new QuantileEstimatorFactory("histogram", 0.01), "temperature:-100:100", 4);
+
+        assertEquals(2, histogram.parse("ts:timestamp,temperature:number,wind:number:0:60").numberCount());
+        assertThrows(IllegalArgumentException.class, () -> histogram.parse("ts:timestamp,wind:number"));
+        assertThrows(IllegalArgumentException.class, () -> histogram.parse("ts:timestamp,wind:number:0:"));
+        assertThrows(IllegalArgumentException.class, () -> histogram.fromFirstLine("ts,temperature,wind"));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileEstimatorFactory("histogram", 0.01).newStats(0, Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void invalidSchemasAreRefused() {
+        for (String spec : List.of("temperature:number", "ts:timestamp", "ts:timestamp,t:timestamp,v:number", "ts:timestamp,v:number,v:number",
+                "ts:timestamp,v:decimal", "ts:timestamp,v:number:10:0", "ts:timestamp:0:1,v:number", "ts:timestamp,v:number:x:1", "ts:timestamp,v")) {
+            assertThrows(IllegalArgumentException.class, () -> CsvSchema.parse(spec), spec);
+        }
+    }
+
+    @Test
+    void headerLinesAreRecognised() {
+        assertTrue(isHeader("timestamp,temperature"));
+        assertTrue(isHeader("\"Time\", Sensor ID ,_humidity"));
+        assertFalse(isHeader("2024-01-01T00:00:00Z,21.5"));
+        assertFalse(isHeader("timestamp,,temperature"));
+        assertFalse(isHeader("timestamp,-3"));
+        assertFalse(isHeader(""));
+    }
+
+    @Test
+    void schemaIsDetectedFromTheHeader() {
+        CsvSchema schema = resolver.fromFirstLine("\"Time\",Sensor ID,Temperature,humidity,wind");
+        assertEquals(List.of(ColumnType.TIMESTAMP, ColumnType.SENSOR, ColumnType.NUMBER, ColumnType.NUMBER, ColumnType.NUMBER),
+                schema.columns().stream().map(ColumnSpec::type).toList());
+        assertEquals("Time:timestamp,Sensor ID:sensor,Temperature:number:-100.0:100.0,humidity:number:0.0:100.0,wind:number", schema.toSpec());
+
+        assertTrue(resolver.fromFirstLine("timestamp,temperature").isSingleSeries());
+        assertSame(CsvSchema.LEGACY, resolver.fromFirstLine("2024-01-01T00:00:00Z,21.5"));
+        assertThrows(IllegalArgumentException.class, () -> resolver.fromFirstLine("sensor,temperature"));
+
+        assertNull(resolver.parse(" "));
+        assertEquals("ts:timestamp,humidity:number:0.0:50.0,temperature:number:-100.0:100.0",
+                resolver.parse("ts:timestamp,humidity:number:0:50,temperature:number").toSpec());
+    }
+
+    private static boolean isHeader(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return CsvSchema.isHeader(bytes, 0, bytes.length);
+    }
+}
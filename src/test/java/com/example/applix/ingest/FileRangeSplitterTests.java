@@ -0,0 +1,88 @@
+package com.example.applix.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileRangeSplitterTests {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rangesYieldTheSameLinesAsBufferedReader() throws IOException {
+        Path file = writeSample();
+        List<String> expected = readLines(file);
+
+        for (int parallelism : new int[]{1, 3, 16, 1000}) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                assertEquals(expected, linesOf(channel, FileRangeSplitter.split(channel, parallelism)), "parallelism " + parallelism);
+            }
+        }
+    }
+
+    @Test
+    void chunksSplitAgainYieldTheSameLines() throws IOException {
+        Path file = writeSample();
+        List<String> expected = readLines(file);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<ByteRange> ranges = new ArrayList<>();
+            for (ByteRange chunk : FileRangeSplitter.split(channel, 4)) {
+                ranges.addAll(FileRangeSplitter.split(channel, chunk, 3));
+            }
+            assertEquals(expected, linesOf(channel, ranges));
+        }
+    }
+
+    private Path writeSample() throws IOException {
+        Random random = new Random(7);
+        StringBuilder content = new StringBuilder();
+        String[] terminators = {"\n", "\r\n", "\r", "\n\n"};
+        for (int i = 0; i < 5_000; i++) {
+            content.append("2024-01-01T00:00:").append(String.format("%02d", i % 60)).append("Z,").append(random.nextInt(300) - 150);
+            content.append(terminators[random.nextInt(terminators.length)]);
+        }
+        content.append("2024-01-02T00:00:00Z,1.5"); // no trailing newline
+
+        Path file = tempDir.resolve("data.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> readLines(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static List<String> linesOf(FileChannel channel, List<ByteRange> ranges) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (ByteRange range : ranges) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, range.start(), range.length());
+            ByteLineReader reader = new ByteLineReader(new ByteBufferInputStream(mapped), range.start(), 16);
+            while (reader.next()) {
+                lines.add(new String(reader.buffer(), reader.lineStart(), reader.lineEnd() - reader.lineStart(), StandardCharsets.UTF_8));
+            }
+        }
+        return lines;
+    }
+}
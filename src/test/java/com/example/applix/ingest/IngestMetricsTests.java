@@ -0,0 +1,56 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.RejectReason;
+import com.example.applix.stats.ExactQuantileEstimator;
+import com.example.applix.stats.TemperatureStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IngestMetricsTests {
+
+    @Test
+    void fileResultIsRecordedAsRowsAndRejectsByReason() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        IngestMetrics metrics = new IngestMetrics(registry);
+
+        IngestResult result = new IngestResult(new TemperatureStats(new ExactQuantileEstimator()));
+        for (int i = 0; i < 100; i++) result.accept(1_700_000_000L + i, 20.5);
+        result.getRejects().increment(RejectReason.BAD_NUMBER);
+        result.getRejects().increment(RejectReason.BAD_NUMBER);
+        result.getRejects().increment(RejectReason.OUT_OF_RANGE);
+        metrics.recordFile(metrics.start(), "file", result);
+
+        assertEquals(100, registry.get("ingest.rows.accepted").counter().count());
+        assertEquals(2, registry.get("ingest.rows.rejected").tag("reason", "BAD_NUMBER").counter().count());
+        assertEquals(1, registry.get("ingest.rows.rejected").tag("reason", "OUT_OF_RANGE").counter().count());
+        assertEquals(0, registry.get("ingest.rows.rejected").tag("reason", "BAD_TIMESTAMP").counter().count());
+        assertEquals(1, registry.get("ingest.file.duration").tags("path", "file", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("ingest.rows.rate").tag("path", "file").summary().count());
+    }
+
+    @Test
+    void oneSampleTimesBothTheFileAndTheUpload() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        IngestMetrics metrics = new IngestMetrics(registry);
+
+        var sample = metrics.start();
+        metrics.recordFileFailure(sample, "tee");
+        metrics.recordUpload(sample, "tee");
+
+        assertEquals(1, registry.get("ingest.file.duration").tags("path", "tee", "outcome", "failure").timer().count());
+        assertEquals(1, registry.get("upload.duration").tag("mode", "tee").timer().count());
+    }
+
+    @Test
+    void kafkaLagIsTheAgeOfTheEvent() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new IngestMetrics(registry).recordKafkaLag("file-processing-topic", System.currentTimeMillis() - 5_000);
+
+        double lagSeconds = registry.get("ingest.kafka.lag").tag("topic", "file-processing-topic").timer().totalTime(TimeUnit.SECONDS);
+        assertEquals(5, lagSeconds, 1);
+    }
+}
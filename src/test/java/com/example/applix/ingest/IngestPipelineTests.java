@@ -0,0 +1,110 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.FileSizeClass;
+import com.example.applix.models.db.FilteredData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestPipelineTests {
+
+    @Test
+    void inFlightRowsStayWithinBudget() throws IOException {
+        IngestPipeline pipeline = new IngestPipeline(2, 2, 300, 1.0, false, new SimpleMeterRegistry());
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicLong written = new AtomicLong();
+
+        IngestPipeline.Job job = pipeline.newJob((batch, source, partial) -> {
+            sleep();
+            written.addAndGet(batch.size());
+            inFlight.addAndGet(-batch.size());
+        }, FileSizeClass.LARGE);
+        for (int i = 0; i < 50; i++) {
+            List<FilteredData> batch = batchOf(100);
+            maxInFlight.accumulateAndGet(inFlight.addAndGet(batch.size()), Math::max);
+            job.submit(batch, new ByteRange(i * 100L, (i + 1) * 100L));
+        }
+        job.await();
+
+        assertEquals(5_000, written.get());
+        assertTrue(maxInFlight.get() <= 300 + 100, "in flight: " + maxInFlight.get());
+        pipeline.shutdown();
+    }
+
+    @Test
+    void writeFailureIsReportedByAwait() throws IOException {
+        IngestPipeline pipeline = new IngestPipeline(1, 1, 1_000, 0.8, false, new SimpleMeterRegistry());
+        IngestPipeline.Job job = pipeline.newJob((batch, source, partial) -> {
+            throw new IllegalStateException("database down");
+        }, FileSizeClass.SMALL);
+        job.submit(batchOf(10), new ByteRange(0, 10));
+
+        IOException e = assertThrows(IOException.class, job::await);
+        assertEquals("database down", e.getCause().getMessage());
+        pipeline.shutdown();
+    }
+
+    @Test
+    void smallFileBatchesAreWrittenBeforeQueuedLargeFileBatches() throws Exception {
+        IngestPipeline pipeline = new IngestPipeline(1, 1, 1_000, 0.8, false, new SimpleMeterRegistry());
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+
+        IngestPipeline.Job large = pipeline.newJob((batch, source, partial) -> {
+            if (source.start() == 0) {
+                writerBusy.countDown();
+                await(release);
+            }
+            written.add("large-" + source.start());
+        }, FileSizeClass.LARGE);
+        IngestPipeline.Job small = pipeline.newJob((batch, source, partial) -> written.add("small-" + source.start()), FileSizeClass.SMALL);
+
+        large.submit(batchOf(10), new ByteRange(0, 10));
+        assertTrue(writerBusy.await(5, TimeUnit.SECONDS));
+        large.submit(batchOf(10), new ByteRange(10, 20));
+        large.submit(batchOf(10), new ByteRange(20, 30));
+        small.submit(batchOf(10), new ByteRange(0, 10));
+        release.countDown();
+        large.await();
+        small.await();
+
+        assertEquals(List.of("large-0", "small-0", "large-10", "large-20"), written);
+        pipeline.shutdown();
+    }
+
+    private static List<FilteredData> batchOf(int size) {
+        List<FilteredData> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) batch.add(new FilteredData());
+        return batch;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.RejectReason;
+import com.example.applix.enums.RollupResolution;
+import com.example.applix.stats.ExactQuantileEstimator;
+import com.example.applix.stats.QuantileEstimatorFactory;
+import com.example.applix.stats.HistogramQuantileEstimator;
+import com.example.applix.stats.QuantileEstimator;
+import com.example.applix.stats.TemperatureStats;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestResultTests {
+
+    @Test
+    void mergedChunkStatesMatchTheWholeFile() throws IOException {
+        for (Supplier<QuantileEstimator> estimator : List.<Supplier<QuantileEstimator>>of(ExactQuantileEstimator::new, () -> new HistogramQuantileEstimator(-100, 100, 0.01))) {
+            Random random = new Random(11);
+            IngestResult whole = new IngestResult(new TemperatureStats(estimator.get()));
+            IngestResult merged = new IngestResult(new TemperatureStats(estimator.get()));
+
+            for (int chunk = 0; chunk < 4; chunk++) {
+                IngestResult partial = new IngestResult(new TemperatureStats(estimator.get()));
+                for (int i = 0; i < 2_000; i++) {
+                    long epochSecond = 1_700_000_000L + chunk * 50_000L + i * 17L;
+                    double temperature = Math.round((random.nextDouble() * 80 - 20) * 100) / 100.0;
+                    whole.accept(epochSecond, temperature);
+                    partial.accept(epochSecond, temperature);
+                }
+                partial.getRejects().increment(RejectReason.values()[chunk % RejectReason.values().length]);
+                whole.getRejects().increment(RejectReason.values()[chunk % RejectReason.values().length]);
+                merged.merge(roundTrip(partial));
+            }
+
+            TemperatureStats expected = whole.getStats();
+            TemperatureStats actual = merged.getStats();
+            assertEquals(expected.getCount(), actual.getCount());
+            assertEquals(expected.getMean(), actual.getMean(), 1e-9);
+            assertEquals(expected.getMin(), actual.getMin());
+            assertEquals(expected.getMax(), actual.getMax());
+            assertEquals(expected.getMedian(), actual.getMedian());
+            assertEquals(expected.getP99(), actual.getP99());
+            assertEquals(whole.getRejects().asMap(), merged.getRejects().asMap());
+            for (RollupResolution resolution : RollupResolution.values()) {
+                assertEquals(whole.getRollups().getBuckets(resolution).keySet(), merged.getRollups().getBuckets(resolution).keySet());
+            }
+            assertEquals(whole.getRollups().getHourlyHistograms().keySet(), merged.getRollups().getHourlyHistograms().keySet());
+        }
+    }
+
+    @Test
+    void seriesSurviveMergeAndRoundTrip() throws IOException {
+        SeriesRegistry registry = new SeriesRegistry(CsvSchema.parse("sensor:sensor,ts:timestamp,temperature:number:-100:100,humidity:number:0:100"),
+                new QuantileEstimatorFactory("histogram", 0.01), 64);
+        assertEquals(0, registry.indexesOf("a")[0]);
+        IngestResult merged = new IngestResult(registry.newStats(0), registry);
+
+        for (int chunk = 0; chunk < 3; chunk++) {
+            IngestResult partial = new IngestResult(registry.newStats(0), registry);
+            for (int i = 0; i < 100; i++) {
+                String sensor = chunk == 2 ? "b" : "a";
+                int[] series = registry.indexesOf(sensor);
+                partial.acceptSeries(series[0], 1_700_000_000L + i, i % 50);
+                if (i % 2 == 0) partial.acceptSeries(series[1], 1_700_000_000L + i, 50);
+            }
+            merged.merge(roundTrip(partial));
+        }
+
+        assertEquals(4, merged.getSeries().size());
+        assertSame(merged.getStats(), merged.getSeries().get(0).stats());
+        assertEquals(200, merged.getStats().getCount());
+        assertEquals(List.of("a", "a", "b", "b"), merged.getSeries().stream().map(IngestResult.Series::sensor).toList());
+        assertEquals(List.of("temperature", "humidity", "temperature", "humidity"), merged.getSeries().stream().map(IngestResult.Series::column).toList());
+        assertEquals(100, merged.getSeries().get(1).stats().getCount());
+        assertEquals(50, merged.getSeries().get(3).stats().getMean(), 1e-9);
+        assertEquals(100, merged.getSeries().get(2).stats().getCount());
+    }
+
+    @Test
+    void sensorsPastTheSeriesCapFailTheParse() throws IOException {
+        SeriesRegistry registry = new SeriesRegistry(CsvSchema.parse("sensor:sensor,ts:timestamp,temperature:number,humidity:number"),
+                new QuantileEstimatorFactory("histogram", 0.01), 5);
+        registry.indexesOf("a");
+        registry.indexesOf("b");
+
+        IOException e = assertThrows(IOException.class, () -> registry.indexesOf("c"));
+
+        assertTrue(e.getMessage().contains("5 series"), e.getMessage());
+        assertEquals(4, registry.seriesCount());
+        assertEquals(2, registry.indexesOf("b")[0]);
+    }
+
+    private static IngestResult roundTrip(IngestResult result) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            result.writeTo(out);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return IngestResult.readFrom(in);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.RejectReason;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaLineParserTests {
+    private final SchemaLineParser parser = new SchemaLineParser(
+            CsvSchema.parse("sensor:sensor,timestamp:timestamp,temperature:number:-100:100,humidity:number:0:100"));
+
+    @Test
+    void parsesEveryColumn() {
+        assertTrue(parser.parse(" s-1 , 2024-03-01T10:15:30.250Z, -3.5 ,41"));
+        assertEquals("s-1", parser.getSensor());
+        assertEquals(Instant.parse("2024-03-01T10:15:30.250Z"), parser.toInstant());
+        assertTrue(parser.hasValue(0));
+        assertEquals(-3.5, parser.getValue(0));
+        assertTrue(parser.hasValue(1));
+        assertEquals(41, parser.getValue(1));
+    }
+
+    @Test
+    void emptyValuesAreMissingNotRejected() {
+        assertTrue(parser.parse("s-1,2024-03-01T10:15:30Z,,41"));
+        assertFalse(parser.hasValue(0));
+        assertEquals(41, parser.getValue(1));
+
+        assertFalse(parser.parse("s-1,2024-03-01T10:15:30Z, ,"));
+        assertEquals(RejectReason.MISSING_VALUE, parser.getRejectReason());
+        assertFalse(parser.parse(",2024-03-01T10:15:30Z,1,2"));
+        assertEquals(RejectReason.MISSING_VALUE, parser.getRejectReason());
+    }
+
+    @Test
+    void invalidRowsAreRejectedWithTheirReason() {
+        assertReject("s-1,2024-03-01T10:15:30Z,1", RejectReason.WRONG_COLUMN_COUNT);
+        assertReject("s-1,2024-03-01T10:15:30Z,1,2,3", RejectReason.WRONG_COLUMN_COUNT);
+        assertReject("s-1,yesterday,1,2", RejectReason.BAD_TIMESTAMP);
+        assertReject("s-1,2024-03-01T10:15:30Z,warm,2", RejectReason.BAD_NUMBER);
+        assertReject("s-1,2024-03-01T10:15:30Z,1,101", RejectReason.OUT_OF_RANGE);
+        assertReject("s-1,2024-03-01T10:15:30Z,NaN,2", RejectReason.OUT_OF_RANGE);
+    }
+
+    @Test
+    void sensorIsOnlyDecodedWhenItChanges() {
+        assertTrue(parser.parse("s-1,2024-03-01T10:15:30Z,1,2"));
+        String first = parser.getSensor();
+        assertTrue(parser.parse("s-1,2024-03-01T10:15:31Z,1,2"));
+        assertSame(first, parser.getSensor());
+        assertTrue(parser.parse("s-2,2024-03-01T10:15:31Z,1,2"));
+        assertEquals("s-2", parser.getSensor());
+    }
+
+    private void assertReject(String line, RejectReason reason) {
+        assertFalse(parser.parse(line), line);
+        assertEquals(reason, parser.getRejectReason(), line);
+    }
+}
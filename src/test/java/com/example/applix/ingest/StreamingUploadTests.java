@@ -0,0 +1,74 @@
+package com.example.applix.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingUploadTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void copiesBytesAndCountsEveryLineTerminator() throws IOException {
+        assertEquals(3, copy("a\nb\r\nc").lineCount());
+        assertEquals(3, copy("a\rb\r\nc\n").lineCount());
+        assertEquals(2, copy("a\n\n").lineCount());
+        assertEquals(0, copy("").lineCount());
+    }
+
+    @Test
+    void checksumAndContentMatchTheUploadAcrossBuffers() throws IOException {
+        byte[] body = new byte[1_000_003];
+        new Random(3).nextBytes(body);
+        File target = dir.resolve("large.bin").toFile();
+
+        StoredUpload upload = StreamingUpload.copy(new ByteArrayInputStream(body), target);
+
+        CRC32C expected = new CRC32C();
+        expected.update(body);
+        assertEquals(body.length, upload.sizeBytes());
+        assertEquals(String.format("%08x", expected.getValue()), upload.checksum());
+        assertArrayEquals(body, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    void teeWritesWhatTheParserReads() throws IOException {
+        String content = "2024-01-01T00:00:00Z,1.5\n2024-01-01T00:00:01Z,2.5\r\n2024-01-01T00:00:02Z,3.5";
+        File target = dir.resolve("tee.csv").toFile();
+        LiveIngest live = new LiveIngest(1);
+
+        List<String> lines = new ArrayList<>();
+        TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), target, live);
+        try (tee) {
+            ByteLineReader reader = new ByteLineReader(tee, 0, 16);
+            while (reader.next()) {
+                lines.add(new String(reader.buffer(), reader.lineStart(), reader.lineEnd() - reader.lineStart(), StandardCharsets.UTF_8));
+            }
+        }
+
+        assertEquals(3, lines.size());
+        assertTrue(tee.complete());
+        assertEquals(content.length(), live.getBytesReceived());
+        assertEquals(copy(content).checksum(), tee.toStoredUpload().checksum());
+        assertEquals(content, Files.readString(target.toPath()));
+    }
+
+    private StoredUpload copy(String content) throws IOException {
+        return StreamingUpload.copy(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), dir.resolve("upload.csv").toFile());
+    }
+}
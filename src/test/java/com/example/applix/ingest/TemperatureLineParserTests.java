@@ -0,0 +1,141 @@
+package com.example.applix.ingest;
+
+import com.example.applix.enums.RejectReason;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TemperatureLineParserTests {
+
+    // The original split/trim/Instant.parse/Double.parseDouble rules the parser has to reproduce.
+    private static Object[] reference(String line) {
+        String[] values = line.split(",");
+        if (values.length != 2) return null;
+        Instant instant;
+        double temperature;
+        try {
+            instant = Instant.parse(values[0].trim());
+            temperature = Double.parseDouble(values[1].trim());
+        } catch (RuntimeException e) {
+            return null;
+        }
+        if (temperature < -100 || temperature > 100) return null;
+        return new Object[]{instant, temperature};
+    }
+
+    private static void assertSameAsReference(TemperatureLineParser parser, String line) {
+        Object[] expected = reference(line);
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        boolean fromBytes = parser.parse(bytes, 0, bytes.length);
+        if (expected == null) {
+            assertFalse(fromBytes, line);
+            assertFalse(parser.parse(line), line);
+            return;
+        }
+        assertEquals(expected[0], parser.toInstant(), line);
+        assertEquals(Double.doubleToLongBits((Double) expected[1]), Double.doubleToLongBits(parser.getTemperature()), line);
+
+        assertEquals(true, parser.parse(line), line);
+        assertEquals(expected[0], parser.toInstant(), line);
+    }
+
+    @Test
+    void edgeCasesMatchTheJdkParsers() {
+        TemperatureLineParser parser = new TemperatureLineParser();
+        List<String> lines = List.of(
+                "2024-01-01T00:00:00Z,12.5",
+                "  2024-01-01T00:00:00Z , -12.5  ",
+                "2024-01-01T00:00:00.123456789Z,0.1",
+                "2024-01-01t00:00:00z,1",
+                "2024-01-01T00:00:00.Z,1",
+                "2024-01-01T00:00:00.1234567891Z,1",
+                "2024-01-01T00:00:00+02:00,1",
+                "+12024-01-01T00:00:00Z,1",
+                "1969-12-31T23:59:59.5Z,1",
+                "2024-02-29T00:00:00Z,1",
+                "2023-02-29T00:00:00Z,1",
+                "2024-04-31T00:00:00Z,1",
+                "2024-13-01T00:00:00Z,1",
+                "2024-01-01T24:00:00Z,1",
+                "2024-01-01T24:00:01Z,1",
+                "2024-06-30T23:59:60Z,1",
+                "2024-06-30T22:59:60Z,1",
+                "2024-01-01T00:00:00Z,12.5,",
+                "2024-01-01T00:00:00Z,12.5,,,",
+                "2024-01-01T00:00:00Z,,",
+                ",12.5",
+                ",,",
+                "2024-01-01T00:00:00Z,12.5,3",
+                "2024-01-01T00:00:00Z",
+                "2024-01-01T00:00:00Z,1e1",
+                "2024-01-01T00:00:00Z,NaN",
+                "2024-01-01T00:00:00Z,-Infinity",
+                "2024-01-01T00:00:00Z,1.5d",
+                "2024-01-01T00:00:00Z,.5",
+                "2024-01-01T00:00:00Z,5.",
+                "2024-01-01T00:00:00Z,.",
+                "2024-01-01T00:00:00Z,-",
+                "2024-01-01T00:00:00Z,1.2.3",
+                "2024-01-01T00:00:00Z,+-1",
+                "2024-01-01T00:00:00Z,-0",
+                "2024-01-01T00:00:00Z,100",
+                "2024-01-01T00:00:00Z,100.0000000000001",
+                "2024-01-01T00:00:00Z,-100.00000000000000000001",
+                "2024-01-01T00:00:00Z,0.1234567890123456789",
+                "2024-01-01T00:00:00Z,0x1p3",
+                "2024-01-01T00:00:00Z,12é",
+                "﻿2024-01-01T00:00:00Z,12",
+                "2024-01-01T00:00:00Z,\t7\t",
+                "garbage",
+                "");
+        for (String line : lines) {
+            assertSameAsReference(parser, line);
+        }
+    }
+
+    @Test
+    void randomDecimalsMatchDoubleParseDouble() {
+        TemperatureLineParser parser = new TemperatureLineParser();
+        Random random = new Random(11);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder number = new StringBuilder();
+            if (random.nextBoolean()) number.append('-');
+            number.append(random.nextInt(130));
+            if (random.nextInt(4) > 0) {
+                number.append('.');
+                int digits = 1 + random.nextInt(16);
+                for (int d = 0; d < digits; d++) number.append(random.nextInt(10));
+            }
+            long second = random.nextLong() % 4_000_000_000L;
+            lines.add(Instant.ofEpochSecond(Math.abs(second), random.nextInt(1_000_000_000)) + "," + number);
+        }
+        for (String line : lines) {
+            assertSameAsReference(parser, line);
+        }
+    }
+
+    @Test
+    void reportsRejectReasons() {
+        TemperatureLineParser parser = new TemperatureLineParser();
+
+        assertFalse(parser.parse("a,b,c"));
+        assertEquals(RejectReason.WRONG_COLUMN_COUNT, parser.getRejectReason());
+        assertFalse(parser.parse("yesterday,1"));
+        assertEquals(RejectReason.BAD_TIMESTAMP, parser.getRejectReason());
+        assertFalse(parser.parse("2024-01-01T00:00:00Z,warm"));
+        assertEquals(RejectReason.BAD_NUMBER, parser.getRejectReason());
+        assertFalse(parser.parse("2024-01-01T00:00:00Z,150"));
+        assertEquals(RejectReason.OUT_OF_RANGE, parser.getRejectReason());
+        parser.parse("2024-01-01T00:00:00Z,15");
+        assertNull(parser.getRejectReason());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.applix.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageCursorTests {
+
+    @Test
+    void roundTripKeepsMicrosecondsAndId() {
+        PageCursor cursor = new PageCursor(Instant.parse("2024-03-01T12:30:15.123456Z"), 42_000_017);
+
+        String encoded = cursor.encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded); // url-safe, no padding
+        assertEquals(cursor, PageCursor.decode(encoded));
+    }
+
+    @Test
+    void roundTripBeforeTheEpoch() {
+        PageCursor cursor = new PageCursor(Instant.parse("1969-12-31T23:59:59.999999Z"), 1);
+
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("MTIz")); // "123", no id
+    }
+}
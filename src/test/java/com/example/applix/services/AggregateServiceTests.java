@@ -0,0 +1,127 @@
+package com.example.applix.services;
+
+import com.example.applix.enums.ErrorCode;
+import com.example.applix.exceptions.ApplixException;
+import com.example.applix.models.db.FileTable;
+import com.example.applix.models.db.FilteredData;
+import com.example.applix.models.responses.GetAggregateResponse;
+import com.example.applix.stats.ExactQuantileEstimator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class AggregateServiceTests {
+    private static final Instant FIRST = Instant.parse("2024-01-01T00:00:00Z");
+    private static final int ROWS = 240; // one every 30 seconds, 2 hours
+
+    @Autowired
+    AggregateService aggregateService;
+
+    @Autowired
+    FileProcessorService fileProcessorService;
+
+    @Test
+    void hourBucketsOfTheWholeFileMatchTheRows() throws IOException, ApplixException {
+        int fileId = seedFile(true);
+
+        GetAggregateResponse response = aggregateService.aggregate(fileId, null, null, "1h", "avg,min,max,count,median,p90", null);
+
+        assertEquals(ErrorCode.NO_ERROR, response.getErrorCode());
+        assertEquals(3_600, response.getBucketSeconds());
+        assertArrayEquals(new long[]{FIRST.getEpochSecond(), FIRST.getEpochSecond() + 3_600}, response.getBucketStart());
+        for (int bucket = 0; bucket < 2; bucket++) {
+            List<Double> values = new ArrayList<>();
+            for (int i = bucket * ROWS / 2; i < (bucket + 1) * ROWS / 2; i++) values.add(valueOf(i));
+            ExactQuantileEstimator exact = new ExactQuantileEstimator();
+            values.forEach(exact::accept);
+
+            assertEquals(values.size(), response.getValues().get("count")[bucket]);
+            assertEquals(values.stream().mapToDouble(Double::doubleValue).average().orElseThrow(), response.getValues().get("avg")[bucket], 1e-9);
+            assertEquals(values.stream().mapToDouble(Double::doubleValue).min().orElseThrow(), response.getValues().get("min")[bucket]);
+            assertEquals(values.stream().mapToDouble(Double::doubleValue).max().orElseThrow(), response.getValues().get("max")[bucket]);
+            // histogram over the legacy [-100, 100] range, exact for values on its 0.01 grid
+            assertEquals(exact.quantile(0.5), response.getValues().get("median")[bucket], 1e-9);
+            assertEquals(exact.quantile(0.9), response.getValues().get("p90")[bucket], 1e-9);
+        }
+    }
+
+    @Test
+    void endTimeIsInclusiveToTheSecond() throws IOException, ApplixException {
+        int fileId = seedFile(true);
+
+        // rows at 00:10:00 .. 00:20:00, 21 of them, in two 15 minute buckets
+        GetAggregateResponse response = aggregateService.aggregate(fileId, FIRST.plusSeconds(600).toString(), FIRST.plusSeconds(1_200).toString(), "15m", "count", null);
+
+        assertArrayEquals(new long[]{FIRST.getEpochSecond(), FIRST.getEpochSecond() + 900}, response.getBucketStart());
+        assertArrayEquals(new double[]{10, 11}, response.getValues().get("count"));
+    }
+
+    @Test
+    void timeRangeBoundsAreExactInstants() throws IOException, ApplixException {
+        FileTable file = fileProcessorService.insertFileMetaDataWithProcessingStatus("aggregate.csv");
+        List<FilteredData> rows = new ArrayList<>();
+        for (long millis : new long[]{600_000, 600_500, 1_200_000, 1_200_500}) {
+            FilteredData data = new FilteredData();
+            data.setFileId(file.getId());
+            data.setTimestampInstant(FIRST.plusMillis(millis));
+            data.setTemperature(1.0);
+            rows.add(data);
+        }
+        fileProcessorService.batchInsert(rows);
+        fileProcessorService.updateFileMetaDataWithCompletedStatus(file);
+
+        // 00:10:00.500 .. 00:20:00.000: not the rows half a second outside
+        GetAggregateResponse response = aggregateService.aggregate(file.getId(), FIRST.plusMillis(600_500).toString(), FIRST.plusSeconds(1_200).toString(), "1h", "count", null);
+
+        assertArrayEquals(new double[]{2}, response.getValues().get("count"));
+    }
+
+    @Test
+    void refusalsCarryTheirOwnErrorCodes() {
+        int unprocessed = seedFile(false);
+        int processed = seedFile(true);
+
+        assertEquals(ErrorCode.FILE_NOT_FOUND, refusal(Integer.MAX_VALUE, null, "1h", null));
+        assertEquals(ErrorCode.FILE_NOT_PROCESSED, refusal(unprocessed, null, "1h", null));
+        assertEquals(ErrorCode.INVALID_REQUEST, refusal(processed, null, "1h", 1));
+        assertEquals(ErrorCode.INVALID_REQUEST, refusal(processed, "2025-01-01T00:00:00Z", "1s", null)); // past max-buckets
+    }
+
+    private ErrorCode refusal(int fileId, String endTime, String bucket, Integer series) {
+        return assertThrows(ApplixException.class, () -> aggregateService.aggregate(fileId, null, endTime, bucket, null, series)).getErrorCode();
+    }
+
+    private int seedFile(boolean processed) {
+        FileTable file = fileProcessorService.insertFileMetaDataWithProcessingStatus("aggregate.csv");
+        List<FilteredData> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            FilteredData data = new FilteredData();
+            data.setFileId(file.getId());
+            data.setTimestampInstant(FIRST.plusSeconds(i * 30L));
+            data.setTemperature(valueOf(i));
+            rows.add(data);
+        }
+        fileProcessorService.batchInsert(rows);
+        if (processed) {
+            file.setRowCount((long) ROWS);
+            fileProcessorService.updateFileMetaDataWithCompletedStatus(file);
+        }
+        return file.getId();
+    }
+
+    private static double valueOf(int row) {
+        return (row * 37 % 100) / 4.0 - 10;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.applix.services;
+
+import com.example.applix.ingest.ByteRange;
+import com.example.applix.ingest.CoveredRanges;
+import com.example.applix.ingest.IngestResult;
+import com.example.applix.models.db.FilteredData;
+import com.example.applix.repositories.FilteredDataRepository;
+import com.example.applix.stats.ExactQuantileEstimator;
+import com.example.applix.stats.TemperatureStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class CheckpointServiceTests {
+    private static final Instant FIRST = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Autowired
+    CheckpointService checkpointService;
+
+    @Autowired
+    FileProcessorService fileProcessorService;
+
+    @Autowired
+    FilteredDataRepository filteredDataRepository;
+
+    @Test
+    void rowsAndTheirCheckpointAreCommittedTogether() throws IOException {
+        int fileId = newFile();
+
+        checkpointService.writeBatch(fileId, rows(fileId, 0, 10), new ByteRange(0, 100), partial(0, 10), fileProcessorService::batchInsert);
+        assertThrows(IllegalStateException.class, () -> checkpointService.writeBatch(fileId, rows(fileId, 10, 20), new ByteRange(100, 200), partial(10, 20), rows -> {
+            fileProcessorService.batchInsert(rows);
+            throw new IllegalStateException("killed");
+        }));
+
+        assertEquals(10, filteredDataRepository.countByFileId(fileId));
+        CoveredRanges covered = checkpointService.load(fileId);
+        assertTrue(covered.covers(new ByteRange(0, 100)));
+        assertFalse(covered.contains(100));
+    }
+
+    @Test
+    void aBatchCommittedTwiceIsWrittenOnce() throws IOException {
+        int fileId = newFile();
+
+        checkpointService.writeBatch(fileId, rows(fileId, 0, 10), new ByteRange(0, 100), partial(0, 10), fileProcessorService::batchInsert);
+        checkpointService.writeBatch(fileId, rows(fileId, 0, 10), new ByteRange(0, 100), partial(0, 10), fileProcessorService::batchInsert);
+
+        assertEquals(10, filteredDataRepository.countByFileId(fileId));
+        assertEquals(100, checkpointService.load(fileId).coveredBytes());
+    }
+
+    @Test
+    void resumeMergesThePartialsOfTheCheckpointsInsideTheRange() throws IOException {
+        int fileId = newFile();
+        checkpointService.writeBatch(fileId, rows(fileId, 0, 10), new ByteRange(0, 100), partial(0, 10), fileProcessorService::batchInsert);
+        checkpointService.writeBatch(fileId, rows(fileId, 10, 20), new ByteRange(100, 200), partial(10, 20), fileProcessorService::batchInsert);
+        checkpointService.writeBatch(fileId, rows(fileId, 20, 30), new ByteRange(300, 400), partial(20, 30), fileProcessorService::batchInsert);
+
+        IngestResult whole = emptyResult();
+        CoveredRanges covered = checkpointService.resume(fileId, new ByteRange(0, Long.MAX_VALUE), whole);
+        IngestResult firstChunk = emptyResult();
+        CoveredRanges coveredInChunk = checkpointService.resume(fileId, new ByteRange(0, 250), firstChunk);
+
+        assertEquals(30, whole.getStats().getCount());
+        assertEquals(14.5, whole.getStats().getMean(), 1e-9);
+        assertEquals(14.5, whole.getStats().getMedian(), 1e-9);
+        assertEquals(List.of(new ByteRange(200, 300)), covered.gaps(new ByteRange(0, 400)));
+        assertEquals(20, firstChunk.getStats().getCount());
+        assertEquals(200, coveredInChunk.coveredBytes());
+    }
+
+    @Test
+    void checkpointsWithoutAPartialAreParsedAgain() throws IOException {
+        int fileId = newFile();
+        checkpointService.writeBatch(fileId, rows(fileId, 0, 10), new ByteRange(0, 100), partial(0, 10), fileProcessorService::batchInsert);
+        checkpointService.writeBatch(fileId, rows(fileId, 10, 20), new ByteRange(100, 200), null, fileProcessorService::batchInsert);
+
+        IngestResult result = emptyResult();
+
+        assertTrue(checkpointService.resume(fileId, new ByteRange(0, Long.MAX_VALUE), result).isEmpty());
+        assertEquals(0, result.getStats().getCount());
+        assertEquals(200, checkpointService.load(fileId).coveredBytes()); // still not written again
+    }
+
+    private int newFile() {
+        return fileProcessorService.insertFileMetaDataWithProcessingStatus("checkpoints.csv").getId();
+    }
+
+    // row i : FIRST + i seconds, value i
+    private static List<FilteredData> rows(int fileId, int from, int to) {
+        List<FilteredData> rows = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            FilteredData data = new FilteredData();
+            data.setFileId(fileId);
+            data.setTimestampInstant(FIRST.plusSeconds(i));
+            data.setTemperature((double) i);
+            rows.add(data);
+        }
+        return rows;
+    }
+
+    private static byte[] partial(int from, int to) throws IOException {
+        IngestResult partial = emptyResult();
+        for (int i = from; i < to; i++) partial.accept(FIRST.getEpochSecond() + i, i);
+        return ChunkService.serialize(partial);
+    }
+
+    private static IngestResult emptyResult() {
+        return new IngestResult(new TemperatureStats(new ExactQuantileEstimator()));
+    }
+}
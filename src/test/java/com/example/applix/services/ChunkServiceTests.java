@@ -0,0 +1,71 @@
+package com.example.applix.services;
+
+import com.example.applix.ingest.IngestResult;
+import com.example.applix.stats.ExactQuantileEstimator;
+import com.example.applix.stats.QuantileEstimatorFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkServiceTests {
+    private static final long START = Instant.parse("2024-01-01T00:00:00Z").getEpochSecond();
+    // a 128MB chunk of "2024-01-01T00:00:00Z,21.37\n" lines
+    private static final int CHUNK_ROWS = 134_217_728 / 27;
+    private static final int MAX_STATE_BYTES = 8 << 20;
+
+    private final QuantileEstimatorFactory exactMode = new QuantileEstimatorFactory("exact", 0.01);
+
+    @Test
+    void partialOfAFullChunkStaysSmallInExactMode() throws IOException {
+        Random random = new Random(11);
+        IngestResult partial = new IngestResult(exactMode.newChunkStats(-100, 100));
+        for (int i = 0; i < CHUNK_ROWS; i++) {
+            partial.accept(START + i, reading(random));
+        }
+
+        byte[] state = ChunkService.serialize(partial);
+
+        // every double of the chunk alone would be 8 bytes per row, about 40MB
+        assertTrue(state.length < MAX_STATE_BYTES, "chunk state of " + state.length + " bytes");
+        IngestResult restored = ChunkService.deserialize(state);
+        assertEquals(CHUNK_ROWS, restored.getStats().getCount());
+        assertEquals(partial.getStats().getMedian(), restored.getStats().getMedian());
+    }
+
+    @Test
+    void mergedPartialsGiveTheHistogramMedianOfTheFile() throws IOException {
+        Random random = new Random(3);
+        ExactQuantileEstimator exact = new ExactQuantileEstimator();
+        IngestResult merged = null;
+        for (int chunk = 0; chunk < 4; chunk++) {
+            IngestResult partial = new IngestResult(exactMode.newChunkStats(-100, 100));
+            for (int i = 0; i < 50_000; i++) {
+                double value = reading(random);
+                partial.accept(START + chunk * 50_000L + i, value);
+                exact.accept(value);
+            }
+            IngestResult restored = ChunkService.deserialize(ChunkService.serialize(partial));
+            if (merged == null) merged = restored;
+            else merged.merge(restored);
+        }
+
+        assertEquals(200_000, merged.getStats().getCount());
+        // readings have two decimals, on the 0.01 bin grid
+        assertEquals(exact.quantile(0.5), merged.getStats().getMedian(), 0.005);
+    }
+
+    @Test
+    void chunkStatsNeedABoundedColumn() {
+        assertThrows(IllegalArgumentException.class, () -> exactMode.newChunkStats(Double.NEGATIVE_INFINITY, 100));
+    }
+
+    private static double reading(Random random) {
+        return Math.round((random.nextGaussian() * 8 + 21) * 100) / 100.0;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.applix.services;
+
+import com.example.applix.ingest.IngestResult;
+import com.example.applix.models.db.FileTable;
+import com.example.applix.models.db.FilteredData;
+import com.example.applix.models.responses.GetDataResponse;
+import com.example.applix.repositories.FileRepository;
+import com.example.applix.stats.QuantileEstimatorFactory;
+import com.example.applix.stats.RollupBuilder;
+import com.example.applix.stats.StatsIndex;
+import com.example.applix.stats.StatsIndexStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class DataServicePagingTests {
+    private static final Instant FIRST = Instant.parse("2024-01-01T00:00:00Z");
+    private static final int ROWS = 100;
+
+    @Autowired
+    DataService dataService;
+
+    @Autowired
+    FileProcessorService fileProcessorService;
+
+    @Autowired
+    StatsIndexStore statsIndexStore;
+
+    @Autowired
+    QuantileEstimatorFactory quantileEstimatorFactory;
+
+    @Autowired
+    FileRepository fileRepository;
+
+    // 10 readings share every timestamp, so pages end in the middle of a tie
+    @Test
+    void cursorPagesVisitEveryRowOnceWhenTimestampsTie() throws IOException {
+        int fileId = seedFile(true);
+
+        List<FilteredData> rows = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            GetDataResponse page = dataService.getData(fileId, null, 7, null, null, cursor);
+            rows.addAll(page.getRecords());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(ROWS, rows.size());
+        assertEquals(ROWS / 7 + 1, pages);
+        assertOrderedAndDistinct(rows);
+    }
+
+    @Test
+    void cursorPagesMatchOffsetPagesInsideATimeRange() throws IOException {
+        int fileId = seedFile(true);
+        String start = FIRST.plusSeconds(2).toString();
+        String end = FIRST.plusSeconds(6).toString(); // inclusive: seconds 2..6, 50 rows
+
+        List<FilteredData> byCursor = new ArrayList<>();
+        List<FilteredData> byOffset = new ArrayList<>();
+        String cursor = null;
+        for (int page = 1; page <= 5; page++) {
+            GetDataResponse cursorPage = dataService.getData(fileId, null, 10, start, end, cursor);
+            byCursor.addAll(cursorPage.getRecords());
+            cursor = cursorPage.getNextCursor();
+            byOffset.addAll(dataService.getData(fileId, page, 10, start, end, null).getRecords());
+        }
+
+        assertEquals(50, byCursor.size());
+        assertEquals(ids(byOffset), ids(byCursor));
+        assertOrderedAndDistinct(byCursor);
+        // a full last page still hands out a cursor, which leads to an empty page
+        assertTrue(dataService.getData(fileId, null, 10, start, end, cursor).getRecords().isEmpty());
+    }
+
+    @Test
+    void windowedStatsSayWhichWholeMinutesTheyCover() throws IOException {
+        int fileId = seedFile(true);
+        RollupBuilder rollups = new RollupBuilder();
+        for (int i = 0; i < ROWS; i++) rollups.accept(FIRST.getEpochSecond() + i / 10, i);
+        statsIndexStore.save(fileId, StatsIndex.from(rollups));
+
+        GetDataResponse window = dataService.getData(fileId, 1, 10, FIRST.plusSeconds(2).toString(), FIRST.plusSeconds(6).toString(), null);
+        GetDataResponse wholeFile = dataService.getData(fileId, 1, 10, null, null, null);
+
+        // rows of seconds 2..6 average 44.5, the minute 00:00 they fall in averages 49.5
+        assertEquals(49.5, window.getMeanTemperature(), 1e-9);
+        assertEquals(FIRST, window.getWindowStart());
+        assertEquals(FIRST.plusSeconds(59), window.getWindowEnd());
+        assertNull(wholeFile.getWindowStart());
+        assertNull(wholeFile.getWindowEnd());
+    }
+
+    // stats.quantile.mode=exact, the default: only chunked files get a histogram median
+    @Test
+    void aHistogramMedianIsReportedAsApproximate() throws IOException {
+        int exactFileId = completeWith(new IngestResult(quantileEstimatorFactory.newStats(-100, 100)));
+        int chunkedFileId = completeWith(new IngestResult(quantileEstimatorFactory.newChunkStats(-100, 100)));
+        RollupBuilder rollups = new RollupBuilder();
+        for (int i = 0; i < ROWS; i++) rollups.accept(FIRST.getEpochSecond() + i / 10, i);
+        statsIndexStore.save(exactFileId, StatsIndex.from(rollups));
+
+        assertFalse(dataService.getData(exactFileId, 1, 10, null, null, null).getMedianApproximate());
+        assertTrue(dataService.getData(chunkedFileId, 1, 10, null, null, null).getMedianApproximate());
+        // the stats index interpolates in hourly histograms
+        assertTrue(dataService.getData(exactFileId, 1, 10, FIRST.toString(), FIRST.plusSeconds(6).toString(), null).getMedianApproximate());
+    }
+
+    @Test
+    void unprocessedFileIsNotCachedAndShortPageHasNoCursor() throws IOException {
+        int fileId = seedFile(false);
+
+        GetDataResponse page = dataService.getData(fileId, 1, ROWS + 1, null, null, null);
+
+        assertEquals(ROWS, page.getRecords().size());
+        assertNull(page.getNextCursor());
+    }
+
+    private int seedFile(boolean processed) {
+        FileTable file = fileProcessorService.insertFileMetaDataWithProcessingStatus("paging.csv");
+        List<FilteredData> rows = new ArrayList<>();
+        // inserted newest first, so ids and timestamps sort differently
+        for (int i = ROWS - 1; i >= 0; i--) {
+            FilteredData data = new FilteredData();
+            data.setFileId(file.getId());
+            data.setTimestampInstant(FIRST.plusSeconds(i / 10));
+            data.setTemperature((double) i);
+            rows.add(data);
+        }
+        fileProcessorService.batchInsert(rows);
+        if (processed) {
+            file.setRowCount((long) ROWS);
+            fileProcessorService.updateFileMetaDataWithCompletedStatus(file);
+        }
+        return file.getId();
+    }
+
+    private int completeWith(IngestResult result) {
+        int fileId = seedFile(false);
+        for (int i = 0; i < ROWS; i++) result.accept(FIRST.getEpochSecond() + i / 10, i);
+        fileProcessorService.updateFileMetaDataWithCompletedStatus(fileRepository.findById(fileId).orElseThrow(), result);
+        return fileId;
+    }
+
+    private static void assertOrderedAndDistinct(List<FilteredData> rows) {
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            assertTrue(seen.add(rows.get(i).getId()), "row " + rows.get(i).getId() + " served twice");
+            if (i == 0) continue;
+            FilteredData previous = rows.get(i - 1);
+            FilteredData current = rows.get(i);
+            int order = previous.getTimestampInstant().compareTo(current.getTimestampInstant());
+            assertTrue(order < 0 || (order == 0 && previous.getId() < current.getId()), "out of order at " + i);
+        }
+    }
+
+    private static List<Integer> ids(List<FilteredData> rows) {
+        return rows.stream().map(FilteredData::getId).toList();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.applix.services;
+
+import com.example.applix.ingest.ByteRange;
+import com.example.applix.ingest.CsvSchema;
+import com.example.applix.ingest.FileRangeSplitter;
+import com.example.applix.ingest.IngestResult;
+import com.example.applix.ingest.StoredUpload;
+import com.example.applix.models.db.FileTable;
+import com.example.applix.stats.StatsIndex;
+import com.example.applix.stats.WindowStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// ingest.mode=sequential and parallel over the same upload: the same rows, stats, rejects and rollups
+@SpringBootTest(properties = {"ingest.pipeline.parsers=" + FileProcessorServiceIngestModeTests.PARSERS, "sql.insert.batch-size=100"})
+@ActiveProfiles("h2")
+class FileProcessorServiceIngestModeTests {
+    static final int PARSERS = 4;
+    private static final Instant FIRST = Instant.parse("2024-01-01T00:00:00Z");
+    private static final int ROWS = 2_000;
+
+    @Autowired
+    FileProcessorService fileProcessorService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void sequentialAndParallelIngestAgree() throws Exception {
+        byte[] csv = csv();
+        List<ByteRange> ranges = FileRangeSplitter.split((buffer, position) -> read(csv, buffer, position), new ByteRange(0, csv.length), PARSERS);
+        assertEquals(PARSERS, ranges.size());
+        long firstSplit = csv.length / PARSERS;
+        assertTrue(ranges.get(0).end() > firstSplit && !isLineEnd(csv[(int) firstSplit - 1]), "no line straddles the first range boundary");
+
+        FileTable sequentialFile = upload(csv);
+        IngestResult sequential = ingest("sequential", sequentialFile);
+        FileTable parallelFile = upload(csv);
+        IngestResult parallel = ingest("parallel", parallelFile);
+
+        // the same accepted rows
+        List<String> rows = rows(sequentialFile.getId());
+        assertEquals(ROWS, rows.size());
+        assertEquals(rows, rows(parallelFile.getId()));
+
+        // the same stats, rejects and rollups
+        assertEquals(sequential.getStats().getCount(), parallel.getStats().getCount());
+        assertEquals(sequential.getStats().getMean(), parallel.getStats().getMean(), 1e-9);
+        assertEquals(sequential.getStats().getMedian(), parallel.getStats().getMedian());
+        assertEquals(sequential.getStats().getP90(), parallel.getStats().getP90());
+        assertEquals(sequential.getStats().getMin(), parallel.getStats().getMin());
+        assertEquals(sequential.getStats().getMax(), parallel.getStats().getMax());
+        assertEquals(ROWS / 250, sequential.getRejects().total());
+        assertEquals(sequential.getRejects().asMap(), parallel.getRejects().asMap());
+        WindowStats sequentialIndex = StatsIndex.from(sequential.getRollups()).query(null, null);
+        WindowStats parallelIndex = StatsIndex.from(parallel.getRollups()).query(null, null);
+        assertEquals(sequentialIndex.count(), parallelIndex.count());
+        assertEquals(sequentialIndex.mean(), parallelIndex.mean(), 1e-9);
+        assertEquals(sequentialIndex.median(), parallelIndex.median());
+    }
+
+    private IngestResult ingest(String mode, FileTable file) throws Exception {
+        ReflectionTestUtils.setField(fileProcessorService, "INGEST_MODE", mode);
+        try {
+            return fileProcessorService.processFileStreaming(file.getName(), file);
+        } finally {
+            ReflectionTestUtils.setField(fileProcessorService, "INGEST_MODE", "sequential");
+        }
+    }
+
+    private List<String> rows(int fileId) {
+        return jdbcTemplate.query("SELECT timestamp, temperature FROM filtered_data WHERE file_id = ? ORDER BY timestamp",
+                (rs, i) -> rs.getTimestamp(1).toInstant() + "," + rs.getDouble(2), fileId);
+    }
+
+    private FileTable upload(byte[] csv) throws Exception {
+        StoredUpload upload = fileProcessorService.uploadFileToS3("modes.csv", new ByteArrayInputStream(csv));
+        return fileProcessorService.insertFileMetaDataWithProcessingStatus(upload, CsvSchema.LEGACY);
+    }
+
+    // header, CRLF line ends and lines of different lengths, a bad row and a blank line every 250 rows
+    private static byte[] csv() {
+        StringBuilder csv = new StringBuilder("timestamp,temperature\r\n");
+        for (int i = 0; i < ROWS; i++) {
+            if (i % 250 == 125) csv.append("not a row\r\n\r\n");
+            csv.append(FIRST.plusSeconds(i)).append(',').append((i * 37 % 1000) / 10.0 - 50).append("\r\n");
+        }
+        return csv.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int read(byte[] csv, byte[] buffer, long position) {
+        if (position >= csv.length) return -1;
+        int length = (int) Math.min(buffer.length, csv.length - position);
+        System.arraycopy(csv, (int) position, buffer, 0, length);
+        return length;
+    }
+
+    private static boolean isLineEnd(byte b) {
+        return b == '\n' || b == '\r';
+    }
+}
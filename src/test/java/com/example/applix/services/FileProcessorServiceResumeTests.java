@@ -0,0 +1,127 @@
+package com.example.applix.services;
+
+import com.example.applix.blob.BlobStore;
+import com.example.applix.bulk.BulkWriterSelector;
+import com.example.applix.ingest.ByteRange;
+import com.example.applix.ingest.CoveredRanges;
+import com.example.applix.ingest.CsvSchema;
+import com.example.applix.ingest.IngestResult;
+import com.example.applix.ingest.StoredUpload;
+import com.example.applix.models.db.FileTable;
+import com.example.applix.repositories.FilteredDataRepository;
+import com.example.applix.stats.StatsIndex;
+import com.example.applix.stats.WindowStats;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+
+// An ingest killed after a few committed batches, then redelivered: against a clean run of the same upload
+@SpringBootTest(properties = "sql.insert.batch-size=250")
+@ActiveProfiles("h2")
+class FileProcessorServiceResumeTests {
+    private static final Instant FIRST = Instant.parse("2024-01-01T00:00:00Z");
+    private static final int ROWS = 3_000;
+    private static final int PROBE_BYTES = 8 * 1024; // FileRangeSplitter looks for line starts in reads this large
+
+    @Autowired
+    FileProcessorService fileProcessorService;
+
+    @Autowired
+    CheckpointService checkpointService;
+
+    @Autowired
+    FilteredDataRepository filteredDataRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    BulkWriterSelector bulkWriterSelector;
+
+    @MockitoSpyBean
+    BlobStore blobStore;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"sequential", "parallel"})
+    void redeliveredFileReadsOnlyWhatWasNotCommitted(String mode) throws Exception {
+        ReflectionTestUtils.setField(fileProcessorService, "INGEST_MODE", mode);
+        FileTable clean = upload();
+        IngestResult expected = fileProcessorService.processFileStreaming(clean.getName(), clean);
+
+        FileTable file = upload();
+        AtomicInteger writes = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (writes.incrementAndGet() > 4) throw new IllegalStateException("killed");
+            return invocation.callRealMethod();
+        }).when(bulkWriterSelector).write(any());
+        assertThrows(IOException.class, () -> fileProcessorService.processFileStreaming(file.getName(), file));
+        doCallRealMethod().when(bulkWriterSelector).write(any());
+
+        CoveredRanges committed = checkpointService.load(file.getId());
+        long committedRows = filteredDataRepository.countByFileId(file.getId());
+        assertTrue(committedRows > 0 && committedRows < ROWS, "committed before the kill: " + committedRows);
+
+        List<ByteRange> reads = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            reads.add(new ByteRange(invocation.getArgument(1), invocation.getArgument(2)));
+            return invocation.callRealMethod();
+        }).when(blobStore).open(eq(file.getName()), anyLong(), anyLong());
+        IngestResult resumed = fileProcessorService.processFileStreaming(file.getName(), file);
+
+        // every accepted row once
+        assertEquals(expected.getStats().getCount(), filteredDataRepository.countByFileId(file.getId()));
+        assertEquals(expected.getStats().getCount(), jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT timestamp) FROM filtered_data WHERE file_id = ?", Long.class, file.getId()));
+
+        // the same stats, rejects and rollups
+        assertEquals(expected.getStats().getCount(), resumed.getStats().getCount());
+        assertEquals(expected.getStats().getMean(), resumed.getStats().getMean(), 1e-9);
+        assertEquals(expected.getStats().getMedian(), resumed.getStats().getMedian());
+        assertEquals(expected.getStats().getP90(), resumed.getStats().getP90());
+        assertEquals(expected.getStats().getMin(), resumed.getStats().getMin());
+        assertEquals(expected.getStats().getMax(), resumed.getStats().getMax());
+        assertEquals(expected.getRejects().total(), resumed.getRejects().total());
+        WindowStats expectedIndex = StatsIndex.from(expected.getRollups()).query(null, null);
+        WindowStats resumedIndex = StatsIndex.from(resumed.getRollups()).query(null, null);
+        assertEquals(expectedIndex.count(), resumedIndex.count());
+        assertEquals(expectedIndex.mean(), resumedIndex.mean(), 1e-9);
+        assertEquals(expectedIndex.median(), resumedIndex.median());
+
+        // the committed bytes are not read again
+        for (ByteRange read : reads) {
+            if (read.length() > PROBE_BYTES) assertEquals(List.of(read), committed.gaps(read), "read again: " + read);
+        }
+    }
+
+    // header, CRLF line ends, a blank line and a bad row every 500 rows
+    private FileTable upload() throws Exception {
+        StringBuilder csv = new StringBuilder("timestamp,temperature\r\n");
+        for (int i = 0; i < ROWS; i++) {
+            if (i % 500 == 250) csv.append("not a row\r\n\r\n");
+            csv.append(FIRST.plusSeconds(i)).append(',').append((i * 37 % 1000) / 10.0 - 50).append("\r\n");
+        }
+        StoredUpload upload = fileProcessorService.uploadFileToS3("resume.csv", new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.US_ASCII)));
+        return fileProcessorService.insertFileMetaDataWithProcessingStatus(upload, CsvSchema.LEGACY);
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.applix.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionServiceTests {
+
+    @Test
+    void startupCreatesPartitionsAheadOfTheHighestFileId() {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate(12, "p0", "p3", "p12", "pmax");
+        PartitionService service = new PartitionService(jdbc, true, 8, 100);
+
+        service.convertIfNeeded();
+
+        assertEquals(List.of(reorganize(13, 20)), jdbc.ddl);
+    }
+
+    @Test
+    void uploadsWithinTheReservedIdsRunNoDdl() {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate(0, "p0", "pmax");
+        PartitionService service = new PartitionService(jdbc, true, 8, 100);
+        service.convertIfNeeded();
+        jdbc.clearDdl();
+
+        for (int fileId = 1; fileId <= 4; fileId++) {
+            service.reserve(fileId);
+            service.ensurePartition(fileId);
+        }
+
+        assertTrue(jdbc.ddl.isEmpty(), jdbc.ddl.toString());
+    }
+
+    @Test
+    void reserveTopsUpInOneStatementOffTheCallingThread() throws InterruptedException {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate(0, "p0", "pmax");
+        PartitionService service = new PartitionService(jdbc, true, 8, 100);
+        service.convertIfNeeded();
+        jdbc.clearDdl();
+        CountDownLatch topUp = jdbc.expectDdl();
+
+        service.reserve(5); // 3 ids left of the 8 reserved
+        service.ensurePartition(5); // already has its partition, returns without waiting for the top-up
+
+        assertTrue(topUp.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(reorganize(9, 13)), jdbc.ddl);
+        assertNotEquals(Thread.currentThread().getName(), jdbc.ddlThreads.get(0));
+    }
+
+    @Test
+    void ensureCreatesTheMissingPartitionWhenUploadsOutranTheTopUp() {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate(0, "p0", "pmax");
+        PartitionService service = new PartitionService(jdbc, true, 4, 100);
+        service.convertIfNeeded();
+        jdbc.clearDdl();
+
+        service.ensurePartition(30);
+
+        assertEquals(List.of(reorganize(5, 34)), jdbc.ddl);
+        assertEquals("partition-maintenance", jdbc.ddlThreads.get(0));
+    }
+
+    @Test
+    void partitionsAddedByAnotherInstanceAreNotAddedAgain() {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate(0, "p0", "pmax");
+        PartitionService service = new PartitionService(jdbc, true, 4, 100);
+        service.convertIfNeeded();
+        jdbc.clearDdl();
+        for (int id = 5; id <= 40; id++) jdbc.partitions.add("p" + id);
+
+        service.ensurePartition(30);
+
+        assertTrue(jdbc.ddl.isEmpty(), jdbc.ddl.toString());
+    }
+
+    @Test
+    void truncateAndDropTouchOnlyThePartitionOfTheFile() {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate(0, "p0", "p7", "pmax");
+        PartitionService service = new PartitionService(jdbc, true, 4, 100);
+
+        service.truncate(7);
+        service.drop(7);
+
+        assertEquals(List.of("ALTER TABLE filtered_data TRUNCATE PARTITION p7", "ALTER TABLE filtered_data DROP PARTITION p7"), jdbc.ddl);
+        assertTrue(jdbc.deletes.isEmpty());
+    }
+
+    @Test
+    void filesWithoutAPartitionAndUnpartitionedTablesDeleteRows() {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate(0, "p0", "pmax");
+        new PartitionService(jdbc, true, 4, 100).drop(9);
+        new PartitionService(jdbc, false, 4, 100).truncate(7);
+
+        assertTrue(jdbc.ddl.isEmpty());
+        assertEquals(List.of(9, 7), jdbc.deletes);
+    }
+
+    @Test
+    void disabledPartitioningRunsNothing() {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate(100, "p0", "pmax");
+        PartitionService service = new PartitionService(jdbc, false, 4, 100);
+
+        service.convertIfNeeded();
+        service.reserve(101);
+        service.ensurePartition(101);
+
+        assertTrue(jdbc.ddl.isEmpty());
+    }
+
+    @Test
+    void pastMaxPartitionsNewFilesStayInTheLastPartition() {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate(0, "p0", "pmax");
+        PartitionService service = new PartitionService(jdbc, true, 4, 8); // p0, pmax and 6 files
+        service.convertIfNeeded();
+        jdbc.clearDdl();
+
+        service.ensurePartition(5);
+        service.ensurePartition(7);
+        service.reserve(8);
+        service.drop(7);
+
+        assertEquals(List.of(reorganize(5, 6)), jdbc.ddl); // p7 would be the ninth partition
+        assertEquals(List.of(7), jdbc.deletes);
+    }
+
+    @Test
+    void failedDdlLeavesTheRowsToTheLastPartition() {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate(0, "p0", "pmax");
+        PartitionService service = new PartitionService(jdbc, true, 4, 100);
+        service.convertIfNeeded();
+        jdbc.clearDdl();
+        jdbc.failDdl = true;
+
+        service.ensurePartition(30); // does not throw, the insert still has pmax
+        jdbc.failDdl = false;
+        service.ensurePartition(31);
+
+        assertTrue(jdbc.ddl.isEmpty(), jdbc.ddl.toString());
+    }
+
+    @Test
+    void rowsInTheLastPartitionAreNeverSplitOff() {
+        FakeJdbcTemplate jdbc = new FakeJdbcTemplate(12, "p0", "p3", "pmax");
+        jdbc.lastPartitionRows.add(9);
+        PartitionService service = new PartitionService(jdbc, true, 8, 100);
+
+        service.convertIfNeeded();
+        service.ensurePartition(13);
+
+        assertTrue(jdbc.ddl.isEmpty(), jdbc.ddl.toString());
+    }
+
+    private static String reorganize(int from, int to) {
+        List<String> definitions = new ArrayList<>();
+        for (int id = from; id <= to; id++) definitions.add("PARTITION p" + id + " VALUES LESS THAN (" + (id + 1) + "), ");
+        return "ALTER TABLE filtered_data REORGANIZE PARTITION pmax INTO (" + String.join("", definitions) + "PARTITION pmax VALUES LESS THAN MAXVALUE)";
+    }
+
+    // information_schema and files_table of an already partitioned filtered_data, DDL recorded instead of run
+    private static class FakeJdbcTemplate extends JdbcTemplate {
+        private static final Pattern ADDED = Pattern.compile("PARTITION (p\\d+) VALUES");
+
+        final List<String> partitions = new CopyOnWriteArrayList<>();
+        final List<String> ddl = new CopyOnWriteArrayList<>();
+        final List<String> ddlThreads = new CopyOnWriteArrayList<>();
+        final List<Integer> deletes = new CopyOnWriteArrayList<>();
+        final List<Integer> lastPartitionRows = new CopyOnWriteArrayList<>();
+        volatile boolean failDdl;
+        private final int highestFileId;
+        private volatile CountDownLatch ddlRun = new CountDownLatch(1);
+
+        FakeJdbcTemplate(int highestFileId, String... partitions) {
+            this.highestFileId = highestFileId;
+            this.partitions.addAll(List.of(partitions));
+        }
+
+        void clearDdl() {
+            ddl.clear();
+            ddlThreads.clear();
+        }
+
+        // counted down by the next statement, on whichever thread runs it
+        CountDownLatch expectDdl() {
+            ddlRun = new CountDownLatch(1);
+            return ddlRun;
+        }
+
+        @Override
+        public void execute(String sql) {
+            if (failDdl) throw new IllegalStateException("Too many partitions");
+            ddl.add(sql);
+            ddlThreads.add(Thread.currentThread().getName());
+            Matcher added = ADDED.matcher(sql);
+            while (added.find()) if (!partitions.contains(added.group(1))) partitions.add(added.group(1));
+            if (sql.contains("DROP PARTITION ")) partitions.remove(sql.substring(sql.lastIndexOf(' ') + 1));
+            ddlRun.countDown();
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            deletes.add((Integer) args[0]);
+            return 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType) {
+            if (sql.contains("PARTITION_METHOD")) return (List<T>) List.of("RANGE");
+            if (sql.contains("PARTITION (pmax)")) return (List<T>) List.copyOf(lastPartitionRows);
+            return (List<T>) List.copyOf(partitions);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            return (T) Integer.valueOf(highestFileId);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.applix.services;
+
+import com.example.applix.models.db.FileTable;
+import com.example.applix.models.responses.ChartPoint;
+import com.example.applix.models.responses.GetChartResponse;
+import com.example.applix.stats.RollupBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class RollupServiceTests {
+    private static final Instant FIRST = Instant.parse("2024-01-01T00:00:00Z");
+    private static final int DAYS = 10;
+    private static final int ROW_SECONDS = 30 * 60;
+
+    @Autowired
+    RollupService rollupService;
+
+    @Autowired
+    FileProcessorService fileProcessorService;
+
+    int fileId;
+
+    // one reading every 30 minutes for 10 days, the value is the day number
+    @BeforeEach
+    void seed() throws IOException {
+        FileTable file = fileProcessorService.insertFileMetaDataWithProcessingStatus("chart.csv");
+        fileId = file.getId();
+        RollupBuilder rollups = new RollupBuilder();
+        for (long second = 0; second < DAYS * 86_400L; second += ROW_SECONDS) {
+            rollups.accept(FIRST.getEpochSecond() + second, second / 86_400);
+        }
+        rollupService.saveRollups(fileId, rollups);
+    }
+
+    @Test
+    void shortRangeUsesMinuteBuckets() {
+        GetChartResponse chart = rollupService.getChart(fileId, "2024-01-01T00:00:00Z", "2024-01-01T02:00:00Z", 500);
+
+        assertEquals(60, chart.getBucketSeconds());
+        assertEquals(5, chart.getPoints().size()); // 00:00, 00:30, ... 02:00
+        assertEquals(FIRST.plusSeconds(ROW_SECONDS), chart.getPoints().get(1).getTimestamp());
+    }
+
+    @Test
+    void finestResolutionThatFitsMaxPoints() {
+        // 3 days: 4320 minutes do not fit in 500 points, 72 hours do
+        GetChartResponse chart = rollupService.getChart(fileId, "2024-01-02T00:00:00Z", "2024-01-04T23:59:59Z", 500);
+
+        assertEquals(3_600, chart.getBucketSeconds());
+        assertEquals(72, chart.getPoints().size());
+        assertEquals(3 * 48, totalCount(chart));
+        assertEquals(2, chart.getPoints().get(0).getCount());
+    }
+
+    @Test
+    void consecutiveDaysAreMergedWhenDaysDoNotFit() {
+        GetChartResponse chart = rollupService.getChart(fileId, null, null, 3);
+
+        // 10 days in at most 3 points: groups of 4 days
+        assertEquals(4 * 86_400, chart.getBucketSeconds());
+        assertEquals(3, chart.getPoints().size());
+        assertEquals(DAYS * 48, totalCount(chart));
+        ChartPoint first = chart.getPoints().get(0);
+        assertEquals(FIRST, first.getTimestamp());
+        assertEquals(0.0, first.getMin());
+        assertEquals(3.0, first.getMax());
+        assertEquals(1.5, first.getAvg(), 1e-9);
+        assertEquals(FIRST.plusSeconds(8 * 86_400L), chart.getPoints().get(2).getTimestamp());
+    }
+
+    @Test
+    void maxPointsIsCappedAndDefaulted() {
+        GetChartResponse wholeFile = rollupService.getChart(fileId, null, null, null);
+        GetChartResponse capped = rollupService.getChart(fileId, null, null, 1_000_000);
+
+        assertEquals(3_600, wholeFile.getBucketSeconds()); // 240 hours fit in the default 500 points
+        assertTrue(capped.getPoints().size() <= 10_000);
+        assertEquals(DAYS * 48, totalCount(capped));
+    }
+
+    @Test
+    void emptyRangeHasNoPoints() {
+        GetChartResponse chart = rollupService.getChart(fileId, "2025-01-01T00:00:00Z", "2024-01-01T00:00:00Z", 10);
+
+        assertTrue(chart.getPoints().isEmpty());
+        assertNull(chart.getBucketSeconds());
+    }
+
+    private static long totalCount(GetChartResponse chart) {
+        return chart.getPoints().stream().mapToLong(ChartPoint::getCount).sum();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.applix.stats;
+
+import com.example.applix.enums.AggregateFunction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BucketAggregatorTests {
+
+    @Test
+    void rangesAggregatedInParallelMatchOnePass() {
+        long start = 1_700_000_123L;
+        long end = start + 10 * 3_600 + 77;
+        Random random = new Random(5);
+        List<long[]> rows = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            rows.add(new long[]{start - 100 + random.nextInt((int) (end - start) + 200), random.nextInt(2_000) - 1_000});
+        }
+        List<AggregateColumn> columns = AggregateColumn.parseAll("avg,min,max,count,median,p99");
+
+        BucketAggregator sequential = new BucketAggregator(start, end, 900, ExactQuantileEstimator::new, Long.MAX_VALUE);
+        rows.forEach(row -> sequential.accept(row[0], row[1] / 10.0));
+
+        BucketAggregator parallel = new BucketAggregator(start, end, 900, ExactQuantileEstimator::new, Long.MAX_VALUE);
+        List<BucketAggregator.Range> ranges = parallel.split(4);
+        assertEquals(4, ranges.size());
+        assertEquals(start, ranges.get(0).startSecond());
+        assertEquals(end, ranges.get(3).endSecond());
+        IntStream.range(0, ranges.size()).parallel().forEach(i -> {
+            BucketAggregator.Range range = ranges.get(i);
+            rows.stream().filter(row -> row[0] >= range.startSecond() && row[0] < range.endSecond())
+                    .forEach(row -> parallel.accept(row[0], row[1] / 10.0));
+        });
+
+        assertEquals(BucketAggregator.bucketCount(start, end, 900), parallel.bucketCount());
+        assertEquals(Math.floorDiv(start, 900) * 900, parallel.bucketStart(0));
+        long total = 0;
+        for (int bucket = 0; bucket < parallel.bucketCount(); bucket++) {
+            long bucketStart = parallel.bucketStart(bucket);
+            List<Double> expected = rows.stream().filter(row -> row[0] >= Math.max(start, bucketStart) && row[0] < Math.min(end, bucketStart + 900))
+                    .map(row -> row[1] / 10.0).sorted().toList();
+            assertEquals(expected.size(), parallel.count(bucket));
+            total += expected.size();
+            assertEquals(expected.get(0), parallel.value(bucket, columns.get(1)));
+            assertEquals(expected.get(expected.size() - 1), parallel.value(bucket, columns.get(2)));
+            assertEquals(expected.stream().mapToDouble(Double::doubleValue).average().orElseThrow(), parallel.value(bucket, columns.get(0)), 1e-9);
+            for (AggregateColumn column : columns) {
+                assertEquals(sequential.value(bucket, column), parallel.value(bucket, column), 1e-9, column.name());
+            }
+        }
+        assertEquals(rows.stream().filter(row -> row[0] >= start && row[0] < end).count(), total);
+    }
+
+    @Test
+    void histogramPercentilesMatchExactOnesOnTheBinGrid() {
+        AggregateColumn p90 = AggregateColumn.parse("p90");
+        BucketAggregator exact = new BucketAggregator(0, 7_200, 3_600, ExactQuantileEstimator::new, Long.MAX_VALUE);
+        BucketAggregator histogram = new BucketAggregator(0, 7_200, 3_600, () -> new HistogramQuantileEstimator(-100, 100, 0.01), Long.MAX_VALUE);
+        Random random = new Random(3);
+        for (int second = 0; second < 7_200; second++) {
+            double value = (random.nextInt(20_000) - 10_000) / 100.0;
+            exact.accept(second, value);
+            histogram.accept(second, value);
+        }
+
+        for (int bucket = 0; bucket < 2; bucket++) {
+            assertEquals(exact.value(bucket, p90), histogram.value(bucket, p90), 1e-9);
+        }
+    }
+
+    @Test
+    void keptValuesAreCapped() {
+        BucketAggregator aggregator = new BucketAggregator(0, 3_600, 60, ExactQuantileEstimator::new, 100);
+        for (int second = 0; second < 100; second++) aggregator.accept(second, second);
+
+        assertThrows(BucketAggregator.TooManyValuesException.class, () -> aggregator.accept(100, 100));
+        assertEquals(60, aggregator.count(0));
+    }
+
+    @Test
+    void functionsAreParsedByName() {
+        List<AggregateColumn> columns = AggregateColumn.parseAll(" AVG, p99.9 ,median,count,avg");
+        assertEquals(List.of("avg", "p99.9", "median", "count"), columns.stream().map(AggregateColumn::name).toList());
+        assertEquals(AggregateFunction.PERCENTILE, columns.get(1).function());
+        assertEquals(0.999, columns.get(1).quantile(), 1e-12);
+        assertEquals(0.5, columns.get(2).quantile());
+
+        for (String invalid : List.of("", "sum", "percentile", "p101", "p9x")) {
+            assertThrows(IllegalArgumentException.class, () -> AggregateColumn.parseAll(invalid), invalid);
+        }
+        assertEquals(Double.NaN, new BucketAggregator(0, 60, 60, null, 0).value(0, AggregateColumn.parse("avg")));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.applix.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuantileEstimatorTests {
+
+    @Test
+    void exactMedianMatchesSortedMiddle() {
+        ExactQuantileEstimator estimator = new ExactQuantileEstimator();
+        double[] values = {5.5, -3.0, 12.25, 7.0};
+        for (double v : values) estimator.accept(v);
+
+        assertEquals((5.5 + 7.0) / 2.0, estimator.quantile(0.5));
+
+        estimator.accept(100);
+        assertEquals(7.0, estimator.quantile(0.5));
+    }
+
+    @Test
+    void emptyEstimatorReturnsZero() {
+        assertEquals(0, new ExactQuantileEstimator().quantile(0.5));
+        assertEquals(0, new HistogramQuantileEstimator(-100, 100, 0.01).quantile(0.99));
+    }
+
+    @Test
+    void histogramIsExactOnGridAndMergesLikeExact() {
+        Random random = new Random(42);
+        ExactQuantileEstimator exact = new ExactQuantileEstimator();
+        HistogramQuantileEstimator left = new HistogramQuantileEstimator(-100, 100, 0.01);
+        HistogramQuantileEstimator right = new HistogramQuantileEstimator(-100, 100, 0.01);
+
+        for (int i = 0; i < 10_001; i++) {
+            double value = Math.round((random.nextDouble() * 200 - 100) * 100) / 100.0;
+            exact.accept(value);
+            (i % 2 == 0 ? left : right).accept(value);
+        }
+        left.merge(right);
+
+        for (double q : Arrays.asList(0.0, 0.5, 0.9, 0.99, 1.0)) {
+            assertEquals(exact.quantile(q), left.quantile(q), 1e-9);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.applix.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatsIndexTests {
+    private static final long START = Instant.parse("2024-01-01T00:00:00Z").getEpochSecond();
+
+    @Test
+    void windowAggregatesMatchRowsOfTheWindowMinutes() throws IOException {
+        Random random = new Random(7);
+        long[] seconds = new long[50_000];
+        double[] values = new double[seconds.length];
+        RollupBuilder left = new RollupBuilder();
+        RollupBuilder right = new RollupBuilder();
+        for (int i = 0; i < seconds.length; i++) {
+            seconds[i] = START + random.nextInt(3 * 86_400);
+            values[i] = Math.round((random.nextGaussian() * 15 + 20) * 100) / 100.0;
+            (i % 2 == 0 ? left : right).accept(seconds[i], values[i]);
+        }
+        left.merge(right);
+        StatsIndex index = roundTrip(StatsIndex.from(left));
+
+        assertEquals(seconds.length, index.rowCount());
+        for (int i = 0; i < 50; i++) {
+            long from = START + random.nextInt(3 * 86_400) / 60 * 60;
+            long to = from + random.nextInt(86_400) / 60 * 60 + 59;
+            List<Double> window = new ArrayList<>();
+            for (int j = 0; j < seconds.length; j++) {
+                if (seconds[j] >= from && seconds[j] <= to) window.add(values[j]);
+            }
+
+            WindowStats stats = index.query(Instant.ofEpochSecond(from), Instant.ofEpochSecond(to));
+            ExactQuantileEstimator exact = new ExactQuantileEstimator();
+            window.forEach(exact::accept);
+
+            assertEquals(window.size(), stats.count());
+            assertEquals(window.stream().mapToDouble(Double::doubleValue).average().orElseThrow(), stats.mean(), 1e-9);
+            assertEquals(window.stream().mapToDouble(Double::doubleValue).min().orElseThrow(), stats.min());
+            assertEquals(window.stream().mapToDouble(Double::doubleValue).max().orElseThrow(), stats.max());
+            // whole edge hours and 1 degree bins: close, not exact
+            assertEquals(exact.quantile(0.5), stats.median(), 1.5);
+        }
+    }
+
+    @Test
+    void hourAlignedWindowMedianIsWithinHalfABin() {
+        RollupBuilder rollups = new RollupBuilder();
+        ExactQuantileEstimator exact = new ExactQuantileEstimator();
+        for (int i = 0; i < 7_200; i++) {
+            double value = (i * 37 % 1000) / 10.0 - 50;
+            rollups.accept(START + i, value);
+            exact.accept(value);
+        }
+
+        WindowStats stats = StatsIndex.from(rollups).query(null, null);
+
+        assertEquals(7_200, stats.count());
+        assertTrue(Math.abs(exact.quantile(0.5) - stats.median()) <= 0.5);
+    }
+
+    @Test
+    void edgeMinutesCountWholeAndTheWindowSaysSo() {
+        RollupBuilder rollups = new RollupBuilder();
+        for (int i = 0; i < 600; i++) {
+            rollups.accept(START + i, i);
+        }
+
+        // 00:00:30 .. 00:02:10 holds 101 rows, the minutes 00:00 .. 00:02 hold 180
+        WindowStats stats = StatsIndex.from(rollups).query(Instant.ofEpochSecond(START + 30), Instant.ofEpochSecond(START + 130));
+
+        assertEquals(180, stats.count());
+        assertEquals(0.0, stats.min());
+        assertEquals(179.0, stats.max());
+        assertEquals(Instant.ofEpochSecond(START), stats.windowStart());
+        assertEquals(Instant.ofEpochSecond(START + 179), stats.windowEnd());
+    }
+
+    @Test
+    void histogramsCoverTheRangeOfTheColumn() throws IOException {
+        RollupBuilder rollups = new RollupBuilder(300, 1100);
+        ExactQuantileEstimator exact = new ExactQuantileEstimator();
+        for (int i = 0; i < 7_200; i++) {
+            double value = 950 + (i * 37 % 1000) / 10.0;
+            rollups.accept(START + i, value);
+            exact.accept(value);
+        }
+
+        WindowStats stats = roundTrip(StatsIndex.from(rollups)).query(null, null);
+
+        assertEquals(950.0, stats.min());
+        assertTrue(Math.abs(exact.quantile(0.5) - stats.median()) <= 0.5, "median " + stats.median());
+    }
+
+    @Test
+    void unboundedColumnHasNoWindowedMedian() throws IOException {
+        RollupBuilder rollups = new RollupBuilder(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < 600; i++) rollups.accept(START + i, i * 1_000.0);
+
+        WindowStats stats = roundTrip(StatsIndex.from(rollups)).query(null, null);
+
+        assertEquals(600, stats.count());
+        assertEquals(599_000.0, stats.max());
+        assertNull(stats.median());
+    }
+
+    @Test
+    void emptyWindowHasNoValues() {
+        RollupBuilder rollups = new RollupBuilder();
+        rollups.accept(START, 10);
+
+        WindowStats stats = StatsIndex.from(rollups).query(Instant.ofEpochSecond(START + 60), Instant.ofEpochSecond(START + 120));
+
+        assertEquals(0, stats.count());
+        assertNull(stats.mean());
+        assertNull(stats.median());
+        assertNull(stats.windowStart());
+    }
+
+    private static StatsIndex roundTrip(StatsIndex index) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        return StatsIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+}
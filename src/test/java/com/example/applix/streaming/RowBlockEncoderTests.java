@@ -0,0 +1,85 @@
+package com.example.applix.streaming;
+
+import com.example.applix.ingest.TemperatureLineParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowBlockEncoderTests {
+    private static final Instant FIRST = Instant.parse("2024-01-01T00:00:00.123456Z");
+
+    @Test
+    void binaryBlocksCarryEveryRowAndTheCursor() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        encode(RowBlockEncoder.forMediaType(MediaType.parseMediaType(RowBlockEncoder.BINARY_BLOCKS), bytes), RowBlock.CAPACITY + 10);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(0x41504C58, in.readInt());
+        assertEquals(1, in.readInt());
+        assertEquals(7, in.readInt());
+        int row = 0;
+        for (int rows = in.readInt(); rows > 0; rows = in.readInt()) {
+            int[] ids = new int[rows];
+            for (int i = 0; i < rows; i++) ids[i] = in.readInt();
+            for (int i = 0; i < rows; i++) assertEquals(FIRST.plusSeconds(row + i).toEpochMilli(), in.readLong());
+            for (int i = 0; i < rows; i++) assertEquals((float) (row + i) / 10, in.readFloat());
+            assertEquals(row + 1, ids[0]);
+            row += rows;
+        }
+        assertEquals(RowBlock.CAPACITY + 10, row);
+        assertEquals("cursor", in.readUTF());
+    }
+
+    @Test
+    void columnsJsonHasParallelArraysPerBlock() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        encode(RowBlockEncoder.forMediaType(MediaType.parseMediaType(RowBlockEncoder.COLUMNS_JSON), bytes), 3);
+
+        JsonNode json = new ObjectMapper().readTree(bytes.toByteArray());
+        assertEquals(7, json.get("fileId").asInt());
+        JsonNode block = json.get("blocks").get(0);
+        assertEquals(3, block.get("ids").size());
+        assertEquals(FIRST.plusSeconds(2).toEpochMilli(), block.get("timestamps").get(2).asLong());
+        assertEquals(0.2, block.get("temperatures").get(2).asDouble());
+        assertTrue(json.get("nextCursor").isTextual());
+    }
+
+    @Test
+    void csvExportKeepsMicrosecondsAndCanBeUploadedAgain() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        encode(RowBlockEncoder.forExport(MediaType.parseMediaType(RowBlockEncoder.TEXT_CSV), bytes, "humidity"), RowBlock.CAPACITY + 2);
+
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(RowBlock.CAPACITY + 3, lines.length);
+        assertEquals("timestamp,humidity", lines[0]);
+        assertEquals("2024-01-01T00:00:00.123456Z,0.0", lines[1]);
+        assertEquals(FIRST.plusSeconds(RowBlock.CAPACITY + 1) + "," + (RowBlock.CAPACITY + 1) / 10.0, lines[RowBlock.CAPACITY + 2]);
+        assertTrue(new TemperatureLineParser().parse(lines[2]));
+    }
+
+    // Same flow as DataStreamService: full blocks are written as the rows arrive, the rest at the end
+    private static void encode(RowBlockEncoder encoder, int rows) throws IOException {
+        RowBlock block = new RowBlock();
+        encoder.begin(7);
+        for (int i = 0; i < rows; i++) {
+            block.add(i + 1, FIRST.plusSeconds(i), i / 10.0);
+            if (block.isFull()) {
+                encoder.block(block);
+                block.clear();
+            }
+        }
+        if (block.size() > 0) encoder.block(block);
+        encoder.end("cursor");
+    }
+}